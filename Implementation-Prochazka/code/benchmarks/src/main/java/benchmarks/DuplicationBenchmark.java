@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mcdr.objects.ObjectMocapPose;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import messif.objects.keys.AbstractObjectKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Duplication of a sequence by {@link SequenceMocap#duplicate()}, which calls
+ * the copy constructors of the pose classes and the sequence constructor cached
+ * once per class, compared with the previous implementation, which looked up
+ * the constructors by reflection and copied the coordinates of each pose
+ * through the {@code float[joint][3]} arrays. Run with {@code -prof gc} to get
+ * the bytes allocated per sequence ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DuplicationBenchmark {
+
+    /**
+     * Number of poses of the duplicated sequence.
+     */
+    @Param({"5000"})
+    public int frameCount;
+
+    private SequenceMocapPoseCoordsL2DTW sequence;
+
+    @Setup
+    public void setUp() {
+        sequence = new SequenceMocapPoseCoordsL2DTW(SyntheticData.createPoses(new Random(0), frameCount, ObjectMocapPoseCoordsL2::new));
+        sequence.setObjectKey(new AbstractObjectKey("1"));
+    }
+
+    @Benchmark
+    public SequenceMocap<?> cached() {
+        return sequence.duplicate();
+    }
+
+    @Benchmark
+    public SequenceMocap<?> reflective() {
+        return duplicateByReflection(sequence);
+    }
+
+    /**
+     * Previous implementation of {@link SequenceMocap#duplicate()} for the
+     * sequences of poses without angles.
+     */
+    private static SequenceMocap<?> duplicateByReflection(SequenceMocap<?> sequence) {
+        ArrayList<ObjectMocapPose> poseList = new ArrayList<>(sequence.getObjectCount());
+        try {
+            for (ObjectMocapPose pose : sequence.getObjects()) {
+                ObjectMocapPose duplicate = pose.getClass().getConstructor(float[][].class).newInstance((Object) ObjectMocapPose.unflatten(pose.getCoordinates()));
+                duplicate.setFrameNo(pose.getFrameNo());
+                poseList.add(duplicate);
+            }
+            SequenceMocap<?> rtv = sequence.getClass().getConstructor(List.class, sequence.getClass(), int.class, boolean.class).newInstance(new Object[]{poseList, null, sequence.getOffset(), false});
+            rtv.setObjectKey(new AbstractObjectKey(sequence.getLocatorURI()));
+            return rtv;
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
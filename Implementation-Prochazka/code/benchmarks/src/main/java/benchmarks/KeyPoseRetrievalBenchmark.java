@@ -0,0 +1,150 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import mcdr.algorithms.KeyPoseRetrievalAlgorithm;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import messif.algorithms.Algorithm;
+import messif.algorithms.impl.ParallelSequentialScan;
+import messif.algorithms.impl.SequentialScan;
+import messif.objects.keys.AbstractObjectKey;
+import messif.operations.data.BulkInsertOperation;
+import messif.operations.query.KNNQueryOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import smf.modules.seqstorage.MemorySequenceStorage;
+
+/**
+ * Latency of the queries of {@link KeyPoseRetrievalAlgorithm} over a pose
+ * index of synthetic sequences for different numbers of
+ * threads executing the range queries of the query key poses. The sampled
+ * times are reported as percentiles. The number of threads greater than the
+ * number of query key poses corresponds to the former execution of every
+ * range query by its own thread. Run with {@code -t} to measure the latency of
+ * concurrently processed queries sharing the threads. The parallel
+ * sequential scan is a navigation directory processing every range query by
+ * the thread pool of the pose index.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyPoseRetrievalBenchmark {
+
+    private static final int QUERY_COUNT = 16;
+
+    /**
+     * Number of threads executing the range queries of the query key poses.
+     */
+    @Param({"1", "2", "4", "8", "256"})
+    public int threadCount;
+
+    /**
+     * Pose index, either {@code SequentialScan} or {@code ParallelSequentialScan}
+     * (navigation directory with 4 buckets).
+     */
+    @Param({"SequentialScan", "ParallelSequentialScan"})
+    public String poseIndexType;
+
+    /**
+     * Number of indexed sequences.
+     */
+    @Param({"100"})
+    public int sequenceCount;
+
+    /**
+     * Number of poses of every indexed sequence.
+     */
+    @Param({"300"})
+    public int sequenceLength;
+
+    /**
+     * Number of poses of every query, i.e., the query has
+     * {@code queryLength / keyPoseDistance} key poses.
+     */
+    @Param({"200"})
+    public int queryLength;
+
+    /**
+     * Distance between neighboring query key poses.
+     */
+    @Param({"10"})
+    public int keyPoseDistance;
+
+    private Algorithm poseIndex;
+    private KeyPoseRetrievalAlgorithm<List<ObjectMocapPoseCoordsL2>, SequenceMocapPoseCoordsL2DTW> algorithm;
+    private List<SequenceMocapPoseCoordsL2DTW> queries;
+    private final AtomicInteger nextQuery = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws Exception {
+        Logger.getLogger("mcdr").setLevel(Level.WARNING);
+
+        poseIndex = poseIndexType.equals("ParallelSequentialScan") ? new ParallelSequentialScan(4) : new SequentialScan();
+        algorithm = new KeyPoseRetrievalAlgorithm<>(SequenceMocapPoseCoordsL2DTW.class, poseListClass(), new MemorySequenceStorage<>(), poseIndex, threadCount);
+
+        // Sequences of poses whose joints move by small random steps, the poses know their sequence and frame
+        Random random = new Random(0);
+        List<SequenceMocapPoseCoordsL2DTW> sequences = new ArrayList<>(sequenceCount);
+        for (int s = 0; s < sequenceCount; s++) {
+            List<ObjectMocapPoseCoordsL2> poses = SyntheticData.createPoses(random, sequenceLength, ObjectMocapPoseCoordsL2::new);
+            AbstractObjectKey key = new AbstractObjectKey(Integer.toString(s));
+            for (int f = 0; f < poses.size(); f++) {
+                poses.get(f).setObjectKey(key);
+                poses.get(f).setFrameNo(f);
+            }
+            SequenceMocapPoseCoordsL2DTW sequence = new SequenceMocapPoseCoordsL2DTW(poses);
+            sequence.setObjectKey(key);
+            sequences.add(sequence);
+        }
+        algorithm.insert(new BulkInsertOperation(sequences));
+
+        // Queries are subsequences of the indexed sequences, so every query key pose has similar poses
+        queries = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            SequenceMocapPoseCoordsL2DTW sequence = sequences.get(random.nextInt(sequenceCount));
+            int offset = random.nextInt(sequenceLength - queryLength + 1);
+            queries.add(new SequenceMocapPoseCoordsL2DTW(sequence.getObjects().subList(offset, offset + queryLength)));
+        }
+    }
+
+    @SuppressWarnings("unchecked") // List.class has no type argument, the sequence data are lists of the poses
+    private static Class<List<ObjectMocapPoseCoordsL2>> poseListClass() {
+        return (Class<List<ObjectMocapPoseCoordsL2>>) (Class<?>) List.class;
+    }
+
+    @TearDown
+    public void tearDown() throws Throwable {
+        algorithm.destroy();
+        poseIndex.destroy();
+    }
+
+    @Benchmark
+    public KNNQueryOperation query() {
+        SequenceMocapPoseCoordsL2DTW q = queries.get(Math.floorMod(nextQuery.getAndIncrement(), QUERY_COUNT));
+        KNNQueryOperation operation = new KNNQueryOperation(q, 10);
+        operation.setParameter(KeyPoseRetrievalAlgorithm.PARAM_KEY_POSE_DISTANCE, keyPoseDistance);
+        operation.setParameter(KeyPoseRetrievalAlgorithm.PARAM_STIFFNESS, 0.5f);
+        operation.setParameter(KeyPoseRetrievalAlgorithm.PARAM_POSE_SIMILARITY_THRESHOLD, 2f);
+        algorithm.processOperation(operation);
+        return operation;
+    }
+}
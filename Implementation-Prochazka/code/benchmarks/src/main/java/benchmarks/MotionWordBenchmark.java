@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mcdr.distance.LevenshteinDistance;
+import mcdr.objects.impl.BodyPartConfiguration;
+import mcdr.objects.impl.ObjectBitVectorHamming;
+import mcdr.objects.impl.ObjectMotionWord;
+import mcdr.objects.impl.ObjectMotionWordComposite;
+import mcdr.sequence.impl.SequenceMotionWordsCompositeLevenshtein;
+import mcdr.sequence.impl.SequenceMotionWordsDTW;
+import mcdr.sequence.impl.SequenceMotionWordsLevenshtein;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Distances of motion-word representations: {@link SequenceMotionWordsDTW},
+ * {@link LevenshteinDistance} of simple and composite motion words, the
+ * matching of two {@link ObjectMotionWordComposite} words and
+ * {@link ObjectBitVectorHamming} of binarized neural-network features.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MotionWordBenchmark {
+
+    /**
+     * Number of motion words in a sequence.
+     */
+    private static final int WORD_COUNT = 20;
+
+    /**
+     * Number of distinct motion words of every body part.
+     */
+    @Param({"16"})
+    public int vocabularySize;
+
+    private SequenceMotionWordsDTW lhsDtw;
+    private SequenceMotionWordsDTW rhsDtw;
+    private SequenceMotionWordsLevenshtein lhsLevenshtein;
+    private SequenceMotionWordsLevenshtein rhsLevenshtein;
+    private SequenceMotionWordsCompositeLevenshtein lhsCompositeLevenshtein;
+    private SequenceMotionWordsCompositeLevenshtein rhsCompositeLevenshtein;
+    private LevenshteinDistance<List<ObjectMotionWord>> levenshtein;
+    private LevenshteinDistance<List<ObjectMotionWordComposite>> compositeLevenshtein;
+
+    private List<ObjectMotionWordComposite> lhsCompositeWords;
+    private List<ObjectMotionWordComposite> rhsCompositeWords;
+
+    private ObjectBitVectorHamming lhsBitVector;
+    private ObjectBitVectorHamming rhsBitVector;
+
+    @Setup
+    public void setUp() {
+        ObjectMotionWordComposite.bodyPartConfiguration = BodyPartConfiguration.HDM05;
+
+        Random random = new Random(0);
+        List<ObjectMotionWord> lhsWords = SyntheticData.createMotionWords(random, WORD_COUNT, vocabularySize);
+        List<ObjectMotionWord> rhsWords = SyntheticData.createMotionWords(random, WORD_COUNT, vocabularySize);
+        lhsDtw = new SequenceMotionWordsDTW(lhsWords);
+        rhsDtw = new SequenceMotionWordsDTW(rhsWords);
+        lhsLevenshtein = new SequenceMotionWordsLevenshtein(lhsWords);
+        rhsLevenshtein = new SequenceMotionWordsLevenshtein(rhsWords);
+        levenshtein = new LevenshteinDistance<>();
+
+        lhsCompositeWords = SyntheticData.createCompositeMotionWords(random, WORD_COUNT, vocabularySize);
+        rhsCompositeWords = SyntheticData.createCompositeMotionWords(random, WORD_COUNT, vocabularySize);
+        lhsCompositeLevenshtein = new SequenceMotionWordsCompositeLevenshtein(lhsCompositeWords);
+        rhsCompositeLevenshtein = new SequenceMotionWordsCompositeLevenshtein(rhsCompositeWords);
+        compositeLevenshtein = new LevenshteinDistance<>();
+
+        lhsBitVector = SyntheticData.createBitVector(random, 0.3);
+        rhsBitVector = SyntheticData.createBitVector(random, 0.3);
+    }
+
+    @Benchmark
+    public float motionWordsDtw() {
+        return lhsDtw.getDistance(rhsDtw);
+    }
+
+    @Benchmark
+    public float motionWordsLevenshtein() {
+        return levenshtein.getDistance(lhsLevenshtein, rhsLevenshtein);
+    }
+
+    @Benchmark
+    public float compositeMotionWordsLevenshtein() {
+        return compositeLevenshtein.getDistance(lhsCompositeLevenshtein, rhsCompositeLevenshtein);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORD_COUNT)
+    public void compositeMotionWordMatch(Blackhole blackhole) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            blackhole.consume(ObjectMotionWordComposite.matchAtLeastTwo(lhsCompositeWords.get(i), rhsCompositeWords.get(i)));
+        }
+    }
+
+    @Benchmark
+    public float bitVectorHamming() {
+        return lhsBitVector.getDistance(rhsBitVector);
+    }
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.preprocessing.transformation.SequenceMocapConvertor;
+import mcdr.preprocessing.transformation.impl.SequenceNormalizationConvertor;
+import mcdr.sequence.KinematicTree;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import messif.objects.keys.AbstractObjectKey;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Normalization of a sequence by the chain of convertors created by
+ * {@link CaffeObjectMotionImageSocketExtractor#createSequenceConvertors} (fps
+ * reduction, position, orientation and skeleton size) and by the fused
+ * {@link SequenceNormalizationConvertor}. Besides the sequences per second,
+ * the throughput of the input poses is reported by the {@code poses} counter.
+ * Run with {@code -prof gc} to get the bytes allocated per sequence
+ * ({@code gc.alloc.rate.norm}). That both normalizations produce the same
+ * coordinates is checked by {@link mcdr.test.SequenceNormalizationTester}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NormalizationBenchmark {
+
+    /**
+     * Number of poses of the normalized sequence (10 seconds at 120 fps).
+     */
+    @Param({"1200"})
+    public int frameCount;
+
+    /**
+     * Reduced fps rate of the 120-fps sequence: 12 in the segment retrieval,
+     * 120 (all the poses kept) in the extractors of HDM05.
+     */
+    @Param({"12", "120"})
+    public int reducedFPSRate;
+
+    private SequenceMocapPoseCoordsL2DTW sequence;
+    private List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors;
+    private SequenceNormalizationConvertor<SequenceMocap<?>> fusedConvertor;
+
+    /**
+     * Counts the poses of the normalized sequences, reported as poses per
+     * second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class PoseCounter {
+
+        public long poses;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(0);
+        sequence = new SequenceMocapPoseCoordsL2DTW(SyntheticData.createPoses(random, frameCount, ObjectMocapPoseCoordsL2::new));
+        sequence.setObjectKey(new AbstractObjectKey("1"));
+        sequenceConvertors = CaffeObjectMotionImageSocketExtractor.createSequenceConvertors(SequenceMocapPoseCoordsL2DTW.class, 120, reducedFPSRate, true, false, true, false, true, KinematicTree.BONE_LENGTH_MAP_HDM05, KinematicTree.KINEMATIC_TREE_VICON);
+        fusedConvertor = SequenceNormalizationConvertor.fuse(sequenceConvertors);
+    }
+
+    @Benchmark
+    public SequenceMocap<?> chained(PoseCounter counter) {
+        counter.poses += frameCount;
+        return CaffeObjectMotionImageSocketExtractor.normalizeSequence(sequence, sequenceConvertors);
+    }
+
+    @Benchmark
+    public SequenceMocap<?> fused(PoseCounter counter) {
+        counter.poses += frameCount;
+        return fusedConvertor.convert(sequence);
+    }
+}
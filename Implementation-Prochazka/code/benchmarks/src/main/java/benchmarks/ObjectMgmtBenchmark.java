@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mcdr.objects.impl.ObjectMotionWord;
+import mcdr.test.utils.ObjectCategoryMgmt;
+import mcdr.test.utils.ObjectMgmt;
+import messif.objects.LocalAbstractObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lookups of objects of {@link ObjectMgmt} by their locators and by the IDs
+ * of their parent sequences, compared with the linear scan over all the
+ * objects. Each invocation looks up {@link #LOOKUP_COUNT} random objects, the
+ * reported time is per lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjectMgmtBenchmark {
+
+    private static final int LOOKUP_COUNT = 64;
+
+    /**
+     * Number of managed objects.
+     */
+    @Param({"10000", "100000"})
+    public int objectCount;
+
+    private ObjectMgmt objectMgmt;
+    private List<String> locators;
+    private List<String> parentSequenceIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMgmt = new ObjectMgmt(new ObjectCategoryMgmt());
+
+        // Segments of 20 frames shifted by 10 frames, 10 segments per sequence
+        Random random = new Random(0);
+        for (int i = 0; i < objectCount; i++) {
+            String locator = (i / 10) + "_" + random.nextInt(100) + "_" + (i % 10) * 10 + "_20";
+            objectMgmt.addObject(new ObjectMotionWord(locator, new long[]{random.nextInt(350)}), null, null);
+        }
+
+        locators = new ArrayList<>(LOOKUP_COUNT);
+        parentSequenceIds = new ArrayList<>(LOOKUP_COUNT);
+        List<LocalAbstractObject> objects = new ArrayList<>(objectMgmt.getObjects());
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            LocalAbstractObject object = objects.get(random.nextInt(objects.size()));
+            locators.add(object.getLocatorURI());
+            parentSequenceIds.add(ObjectMgmt.parseObjectParentSequenceId(object));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public void getObject(Blackhole blackhole) {
+        for (String locator : locators) {
+            blackhole.consume(objectMgmt.getObject(locator));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public void getObjects(Blackhole blackhole) {
+        blackhole.consume(objectMgmt.getObjects(locators));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public void getParentSequenceObjects(Blackhole blackhole) {
+        for (String parentSequenceId : parentSequenceIds) {
+            blackhole.consume(objectMgmt.getParentSequenceObjects(parentSequenceId));
+        }
+    }
+
+    /**
+     * The lookup by the linear scan over all the objects, as done before the
+     * locator index.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public void linearScan(Blackhole blackhole) {
+        for (String locator : locators) {
+            LocalAbstractObject found = null;
+            for (LocalAbstractObject o : objectMgmt.getObjects()) {
+                if (o.getLocatorURI().equals(locator)) {
+                    found = o;
+                    break;
+                }
+            }
+            blackhole.consume(found);
+        }
+    }
+}
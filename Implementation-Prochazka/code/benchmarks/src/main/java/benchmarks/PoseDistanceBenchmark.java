@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import mcdr.objects.impl.BodyPartConfiguration;
+import mcdr.objects.impl.ObjectBodyPart;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2Filtered;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Distances of two poses: {@link ObjectMocapPoseCoordsL2} over all the 31
+ * joints and {@link ObjectMocapPoseCoordsL2Filtered} over the joints of both
+ * arms. Each invocation measures the distances of all the consecutive pairs of
+ * {@link SyntheticData#FRAME_COUNT} poses, the reported time is per distance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PoseDistanceBenchmark {
+
+    private static final int PAIR_COUNT = SyntheticData.FRAME_COUNT - 1;
+
+    private List<ObjectMocapPoseCoordsL2> poses;
+    private List<ObjectMocapPoseCoordsL2Filtered> filteredPoses;
+
+    @Setup
+    public void setUp() {
+        Set<Integer> armJointIds = new HashSet<>();
+        for (ObjectBodyPart bodyPart : BodyPartConfiguration.HDM05.getBodyParts()) {
+            if (bodyPart.name().endsWith("_ARM")) {
+                armJointIds.addAll(bodyPart.jointIds());
+            }
+        }
+        ObjectMocapPoseCoordsL2Filtered.jointIds = armJointIds;
+
+        poses = SyntheticData.createPoses(new Random(0), SyntheticData.FRAME_COUNT, ObjectMocapPoseCoordsL2::new);
+        filteredPoses = SyntheticData.createPoses(new Random(0), SyntheticData.FRAME_COUNT, ObjectMocapPoseCoordsL2Filtered::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void coordsL2(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            blackhole.consume(poses.get(i).getDistance(poses.get(i + 1)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void coordsL2Filtered(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            blackhole.consume(filteredPoses.get(i).getDistance(filteredPoses.get(i + 1)));
+        }
+    }
+}
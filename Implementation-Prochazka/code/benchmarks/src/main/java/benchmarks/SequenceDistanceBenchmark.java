@@ -0,0 +1,124 @@
+package benchmarks;
+
+import de.lmu.ifi.dbs.elki.data.NumberVector;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mcdr.distance.DTWDistance;
+import mcdr.objects.impl.BodyPartConfiguration;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DTW distances of two segments of 31-joint poses: {@link DTWDistance} of
+ * mcdr and {@link clustering.distance.SequenceMocapPoseCoordsL2DTW} of the ELKI
+ * clustering, both computed over the same synthetic coordinates, and the lower
+ * bounds of the latter. The ELKI distance compares either all the joints or
+ * just the joints of both arms.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SequenceDistanceBenchmark {
+
+    /**
+     * Number of poses of both segments.
+     */
+    @Param({"80"})
+    public int frameCount;
+
+    /**
+     * Sakoe-Chiba band width of the banded {@link DTWDistance}.
+     */
+    @Param({"8"})
+    public int bandWidth;
+
+    /**
+     * Joints compared by the ELKI distance: {@code all} or {@code arms}.
+     */
+    @Param({"all", "arms"})
+    public String elkiJoints;
+
+    private SequenceMocapPoseCoordsL2DTW lhs;
+    private SequenceMocapPoseCoordsL2DTW rhs;
+    private DTWDistance<List<ObjectMocapPoseCoordsL2>> dtw;
+    private DTWDistance<List<ObjectMocapPoseCoordsL2>> bandedDtw;
+
+    private NumberVector lhsVector;
+    private NumberVector rhsVector;
+    private clustering.distance.SequenceMocapPoseCoordsL2DTW elkiDtw;
+    private clustering.distance.SequenceMocapPoseCoordsL2DTW.Envelope lhsEnvelope;
+    private clustering.distance.SequenceMocapPoseCoordsL2DTW.Envelope rhsEnvelope;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        List<ObjectMocapPoseCoordsL2> lhsPoses = SyntheticData.createPoses(random, frameCount, ObjectMocapPoseCoordsL2::new);
+        List<ObjectMocapPoseCoordsL2> rhsPoses = SyntheticData.createPoses(random, frameCount, ObjectMocapPoseCoordsL2::new);
+
+        lhs = new SequenceMocapPoseCoordsL2DTW(lhsPoses);
+        rhs = new SequenceMocapPoseCoordsL2DTW(rhsPoses);
+        dtw = new DTWDistance<>();
+        bandedDtw = new DTWDistance<>(bandWidth);
+
+        lhsVector = SyntheticData.toVector(lhsPoses);
+        rhsVector = SyntheticData.toVector(rhsPoses);
+        elkiDtw = new clustering.distance.SequenceMocapPoseCoordsL2DTW(clustering.distance.SequenceMocapPoseCoordsL2DTW.createJointIndexMask(elkiJointIds()));
+        lhsEnvelope = new clustering.distance.SequenceMocapPoseCoordsL2DTW.Envelope(lhsVector);
+        rhsEnvelope = new clustering.distance.SequenceMocapPoseCoordsL2DTW.Envelope(rhsVector);
+    }
+
+    private int[] elkiJointIds() {
+        switch (elkiJoints) {
+            case "all":
+                return null;
+            case "arms":
+                return BodyPartConfiguration.HDM05.getBodyParts().stream()
+                        .filter(bodyPart -> bodyPart.name().endsWith("_ARM"))
+                        .flatMap(bodyPart -> bodyPart.jointIds().stream())
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            default:
+                throw new IllegalArgumentException("Unknown joints: " + elkiJoints);
+        }
+    }
+
+    @Benchmark
+    public float dtw() {
+        return dtw.getDistance(lhs, rhs);
+    }
+
+    @Benchmark
+    public float dtwBanded() {
+        return bandedDtw.getDistance(lhs, rhs);
+    }
+
+    @Benchmark
+    public double elkiDtw() {
+        return elkiDtw.distance(lhsVector, rhsVector);
+    }
+
+    @Benchmark
+    public double elkiLowerBoundKim() {
+        return elkiDtw.lowerBoundKim(lhsVector, rhsVector);
+    }
+
+    @Benchmark
+    public double elkiLowerBound() {
+        return elkiDtw.lowerBound(lhsVector, lhsEnvelope, rhsVector, rhsEnvelope);
+    }
+}
@@ -0,0 +1,147 @@
+package benchmarks;
+
+import de.lmu.ifi.dbs.elki.data.DoubleVector;
+import de.lmu.ifi.dbs.elki.data.NumberVector;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import mcdr.objects.ObjectMocapPose;
+import mcdr.objects.impl.ObjectBitVectorHamming;
+import mcdr.objects.impl.ObjectMotionWord;
+import mcdr.objects.impl.ObjectMotionWordComposite;
+
+/**
+ * Generators of synthetic data shaped like the HDM05 segments, i.e.,
+ * sequences of 31-joint poses whose joints move by small random steps between
+ * consecutive frames. All the generators are driven by the given
+ * {@link Random} so that the benchmarks measure the same data in every run.
+ */
+final class SyntheticData {
+
+    /**
+     * Number of joints of HDM05 poses.
+     */
+    static final int JOINT_COUNT = 31;
+
+    /**
+     * Number of frames of a typical segment.
+     */
+    static final int FRAME_COUNT = 80;
+
+    /**
+     * Number of bits of the binarized 4,096-dim neural-network features.
+     */
+    static final int BIT_VECTOR_LENGTH = 4096;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Creates poses of a segment. The joints start at random positions and
+     * move by a random step of at most 0.1 per axis in every frame.
+     *
+     * @param <P> type of poses
+     * @param random random generator
+     * @param frameCount number of poses
+     * @param poseFactory creates the pose from the joint coordinates
+     * @return the poses of the segment
+     */
+    static <P extends ObjectMocapPose> List<P> createPoses(Random random, int frameCount, Function<float[][], P> poseFactory) {
+        float[][] jointCoordinates = new float[JOINT_COUNT][ObjectMocapPose.JOINT_DIM];
+        for (float[] coords : jointCoordinates) {
+            for (int a = 0; a < coords.length; a++) {
+                coords[a] = random.nextFloat() * 10f - 5f;
+            }
+        }
+        List<P> poses = new ArrayList<>(frameCount);
+        for (int f = 0; f < frameCount; f++) {
+            float[][] poseCoordinates = new float[JOINT_COUNT][ObjectMocapPose.JOINT_DIM];
+            for (int j = 0; j < JOINT_COUNT; j++) {
+                for (int a = 0; a < ObjectMocapPose.JOINT_DIM; a++) {
+                    jointCoordinates[j][a] += (random.nextFloat() - 0.5f) * 0.2f;
+                    poseCoordinates[j][a] = jointCoordinates[j][a];
+                }
+            }
+            poses.add(poseFactory.apply(poseCoordinates));
+        }
+        return poses;
+    }
+
+    /**
+     * Converts poses into the ELKI vector read by
+     * {@link clustering.distance.SequenceMocapPoseCoordsL2DTW}, i.e., the number
+     * of poses followed by the coordinates of all the joints of all the poses.
+     *
+     * @param poses poses of the segment
+     * @return the ELKI vector of the segment
+     */
+    static NumberVector toVector(List<? extends ObjectMocapPose> poses) {
+        double[] values = new double[1 + poses.size() * JOINT_COUNT * ObjectMocapPose.JOINT_DIM];
+        values[0] = poses.size();
+        int index = 1;
+        for (ObjectMocapPose pose : poses) {
+            for (float coord : pose.getCoordinates()) {
+                values[index++] = coord;
+            }
+        }
+        return new DoubleVector(values);
+    }
+
+    /**
+     * Creates a sequence of motion words. Each word is drawn from a vocabulary
+     * of {@code vocabularySize} words so that a part of the words match.
+     *
+     * @param random random generator
+     * @param wordCount number of motion words
+     * @param vocabularySize number of distinct motion words
+     * @return the motion words
+     */
+    static List<ObjectMotionWord> createMotionWords(Random random, int wordCount, int vocabularySize) {
+        List<ObjectMotionWord> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(new ObjectMotionWord(new long[]{random.nextInt(vocabularySize)}));
+        }
+        return words;
+    }
+
+    /**
+     * Creates a sequence of composite motion words with one word per body
+     * part of {@link ObjectMotionWordComposite#bodyPartConfiguration}.
+     *
+     * @param random random generator
+     * @param wordCount number of composite motion words
+     * @param vocabularySize number of distinct words of every body part
+     * @return the composite motion words
+     */
+    static List<ObjectMotionWordComposite> createCompositeMotionWords(Random random, int wordCount, int vocabularySize) {
+        int bodyPartCount = ObjectMotionWordComposite.getBodyParts().size();
+        List<ObjectMotionWordComposite> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            long[] data = new long[bodyPartCount];
+            for (int b = 0; b < bodyPartCount; b++) {
+                data[b] = random.nextInt(vocabularySize);
+            }
+            words.add(new ObjectMotionWordComposite(data));
+        }
+        return words;
+    }
+
+    /**
+     * Creates a bit vector with the given ratio of set bits.
+     *
+     * @param random random generator
+     * @param density probability that a bit is set
+     * @return the bit vector
+     */
+    static ObjectBitVectorHamming createBitVector(Random random, double density) {
+        BitSet bits = new BitSet(BIT_VECTOR_LENGTH);
+        for (int i = 0; i < BIT_VECTOR_LENGTH; i++) {
+            if (random.nextDouble() < density) {
+                bits.set(i);
+            }
+        }
+        return new ObjectBitVectorHamming(bits);
+    }
+}
@@ -191,18 +191,18 @@ function extractClusterMedoids() {
 
     formatResultFolderName
 
-    for CLUSTER_FOLDER_PATH in "${RESULT_FOLDER_NAME}"/"${KMEDOIDS_CLUSTER_SUBFOLDER}"/cluster_*; do
-        COMMAND="\
+    # All the cluster_*/cluster.txt files are parsed by a single JVM (in parallel), the medoids are output
+    # in the order of the cluster folder paths.
+    COMMAND="\
 ${JDK_PATH} \
 -jar ${CONVERTOR_JAR_PATH} \
 --parse-medoids-from-elki-clustering-folder \
---elki-clustering-folder=${CLUSTER_FOLDER_PATH} \
+--elki-clustering-folder=${RESULT_FOLDER_NAME}/${KMEDOIDS_CLUSTER_SUBFOLDER} \
 "
-        echo "${COMMAND}"
+    echo "${COMMAND}"
 
-        # Executes the medoid extraction. The results are appended to a single file in MESSIF format.
-        eval "${COMMAND}" >>"${RESULT_FOLDER_NAME}/${EXTRACTED_MEDOIDS_FILE}"
-    done
+    # Executes the medoid extraction. The results are appended to a single file in MESSIF format.
+    eval "${COMMAND}" >>"${RESULT_FOLDER_NAME}/${EXTRACTED_MEDOIDS_FILE}"
 }
 
 # The actual clustering - combines the core functionality to produce the clustering
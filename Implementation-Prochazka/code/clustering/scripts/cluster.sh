@@ -194,18 +194,43 @@ function extractClusterMedoids() {
 
     formatResultFolderName
 
-    for CLUSTER_FOLDER_PATH in "${RESULT_FOLDER_NAME}"/"${KMEDOIDS_CLUSTER_SUBFOLDER}"/cluster_*; do
-        COMMAND="\
+    # All the cluster_*/cluster.txt files are parsed by a single JVM (in parallel), the medoids are output
+    # in the order of the cluster folder paths.
+    COMMAND="\
 ${JDK_PATH} \
 -jar ${CONVERTOR_JAR_PATH} \
 --parse-medoids-from-elki-clustering-folder \
---elki-clustering-folder=${CLUSTER_FOLDER_PATH} \
+--elki-clustering-folder=${RESULT_FOLDER_NAME}/${KMEDOIDS_CLUSTER_SUBFOLDER} \
 "
-        echo "${COMMAND}"
+    echo "${COMMAND}"
 
-        # Executes the medoid extraction. The results are appended to a single file in MESSIF format.
-        eval "${COMMAND}" >>"${RESULT_FOLDER_NAME}/${EXTRACTED_MEDOIDS_FILE}"
-    done
+    # Executes the medoid extraction. The results are appended to a single file in MESSIF format.
+    eval "${COMMAND}" >>"${RESULT_FOLDER_NAME}/${EXTRACTED_MEDOIDS_FILE}"
+}
+
+function extractClusterMedoidsInProcess() {
+    echo 'extractClusterMedoidsInProcess'
+
+    formatResultFolderName
+
+    # Joint ids are the last word of ${DISTANCE_FUNCTION_PARAMS} (if specified)
+    USED_JOINT_IDS_OPTION=''
+    if [[ -n "${DISTANCE_FUNCTION_PARAMS}" ]]; then
+        USED_JOINT_IDS_OPTION="--used-joint-ids=${DISTANCE_FUNCTION_PARAMS##* }"
+    fi
+
+    # Replaces convertElkiClusteringFormatToElkiFormat, runKMedoidsClusteringOnEveryCluster and extractClusterMedoids:
+    # every cluster file is read once and its medoid is computed in a single JVM (clusters are processed in parallel).
+    COMMAND="\
+${JDK_PATH} \
+-jar ${CONVERTOR_JAR_PATH} \
+--extract-medoids-from-elki-clustering-folder \
+--elki-clusters-folder=${RESULT_FOLDER_NAME}/${CLUSTER_SUBFOLDER} \
+${USED_JOINT_IDS_OPTION} \
+"
+    echo "${COMMAND}"
+
+    eval "${COMMAND}" >"${RESULT_FOLDER_NAME}/${EXTRACTED_MEDOIDS_FILE}"
 }
 
 # The actual clustering - combines the core functionality to produce the clustering
@@ -220,9 +245,11 @@ function createCompositeMWClusteringELKI() {
         COMPOSITE_MW_BODYPART_SUBFOLDER="${JOINT_IDS}"
 
         createClusters
-        convertElkiClusteringFormatToElkiFormat
-        runKMedoidsClusteringOnEveryCluster
-        extractClusterMedoids
+        extractClusterMedoidsInProcess
+        # The original medoid extraction running ELKI k-medoids clustering with k=1 on every cluster:
+        # convertElkiClusteringFormatToElkiFormat
+        # runKMedoidsClusteringOnEveryCluster
+        # extractClusterMedoids
     done
 }
 
@@ -2,11 +2,16 @@ package clustering;
 
 import picocli.CommandLine;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -20,7 +25,8 @@ import java.util.concurrent.Callable;
                 "Each Hard MW sequence file corresponds to a body part." +
                 "The produced file contains Composite MWs while retaining the position of Hard MW across multiple Composite MWs. " +
                 "Single body part (Hard MW) is always on the same position (index) in each Composite MW. " +
-                "The ordering is defined by the names of the input files.",
+                "The ordering is defined by the names of the input files. " +
+                "The files are read line by line, so they have to be aligned, i.e., have the same object keys and numbers of MWs at the same lines.",
         mixinStandardHelpOptions = true
 )
 public final class CompositeMWCombiner implements Callable<Integer> {
@@ -39,70 +45,111 @@ public final class CompositeMWCombiner implements Callable<Integer> {
         System.exit(new CommandLine(new CompositeMWCombiner()).execute(args));
     }
 
-    private static List<String> combineSequenceFiles(List<? extends List<String>> sequenceFiles) {
-        var combinedFile = new ArrayList<String>();
-        int numberOfLines = sequenceFiles.get(0).size();
-
-        for (int lineNumber = 0; lineNumber < numberOfLines; lineNumber++) {
-            List<String> line = collectSameLineAcrossFiles(sequenceFiles, lineNumber);
-            String result = combineLine(line);
+    /**
+     * Reads the sequence files line by line in lockstep and writes the combined lines to {@code output}.
+     * The files are read twice, first to check that they are aligned, so nothing is written if they are not.
+     * Only the current line of every file is held in memory.
+     *
+     * @param sequenceFiles the Hard MW sequence files in the order of body parts
+     * @param output        the writer of the combined file
+     * @throws IOException              if an I/O error occurs reading the files or writing the output
+     * @throws IllegalArgumentException if the files are not aligned, i.e., they have different numbers of lines or
+     *                                  different header lines at the same line number
+     */
+    static void combineSequenceFiles(List<Path> sequenceFiles, Writer output) throws IOException {
+        readSequenceFiles(sequenceFiles, null);
+        readSequenceFiles(sequenceFiles, output);
+    }
 
-            combinedFile.add(result);
+    /**
+     * Reads the sequence files line by line in lockstep, checks that they are aligned and writes the combined lines
+     * to {@code output} unless it is {@code null}.
+     */
+    private static void readSequenceFiles(List<Path> sequenceFiles, Writer output) throws IOException {
+        var readers = new ArrayList<BufferedReader>(sequenceFiles.size());
+        try {
+            for (Path sequenceFile : sequenceFiles) {
+                readers.add(Files.newBufferedReader(sequenceFile, StandardCharsets.US_ASCII));
+            }
+
+            var line = new String[readers.size()];
+            for (long lineNumber = 1; readSameLineAcrossFiles(readers, line); lineNumber++) {
+                checkValidity(sequenceFiles, line, lineNumber);
+
+                if (output != null) {
+                    output.write(combineLine(line));
+                    output.write(System.lineSeparator());
+                }
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
         }
-
-        return combinedFile;
     }
 
-    private static List<String> collectSameLineAcrossFiles(List<? extends List<String>> files, int lineNumber) {
-        return files
-                .stream()
-                .map(sequenceFile -> sequenceFile.get(lineNumber))
-                .toList();
+    /**
+     * Reads the next line of every file into {@code line}, {@code null} is stored for the files that have ended.
+     *
+     * @return {@code false} if all the files have ended
+     */
+    private static boolean readSameLineAcrossFiles(List<BufferedReader> readers, String[] line) throws IOException {
+        boolean anyLine = false;
+        for (int fileIndex = 0; fileIndex < line.length; fileIndex++) {
+            line[fileIndex] = readers.get(fileIndex).readLine();
+            anyLine |= line[fileIndex] != null;
+        }
+        return anyLine;
     }
 
-    private static String combineLine(List<String> line) {
-        if (isHeader(line)) {
-            return line.get(0);
+    private static String combineLine(String[] line) {
+        if (isHeader(line[0])) {
+            return line[0];
         } else {
             return String.join(",", line);
         }
     }
 
-    private static void checkValidity(List<? extends List<String>> sequenceFiles) {
-        int numberOfLines = sequenceFiles.get(0).size();
-
-        if (!doFilesHaveSameNumberOfLines(sequenceFiles, numberOfLines)) {
-            throw new IllegalArgumentException("All files must have the same number of lines.");
+    /**
+     * Checks that all the files continue at the given line and that either none of the lines is a header,
+     * or all of them are the same header, i.e., the same object key or the same number of MWs of the object.
+     */
+    private static void checkValidity(List<Path> sequenceFiles, String[] line, long lineNumber) {
+        for (int fileIndex = 1; fileIndex < line.length; fileIndex++) {
+            if ((line[0] == null) != (line[fileIndex] == null)) {
+                Path endedFile = sequenceFiles.get((line[0] == null) ? 0 : fileIndex);
+                Path continuingFile = sequenceFiles.get((line[0] == null) ? fileIndex : 0);
+                throw new IllegalArgumentException("All files must have the same number of lines, " +
+                        endedFile.getFileName() + " ends before line " + lineNumber + " but " + continuingFile.getFileName() + " does not.");
+            }
+            if (line[0] != null && (isHeader(line[0]) || isHeader(line[fileIndex])) && !line[0].equals(line[fileIndex])) {
+                throw new IllegalArgumentException("Files " + sequenceFiles.get(0).getFileName() + " and " +
+                        sequenceFiles.get(fileIndex).getFileName() + " are not aligned at line " + lineNumber + ": '" +
+                        line[0] + "' and '" + line[fileIndex] + "'.");
+            }
         }
     }
 
-    private static boolean isHeader(List<String> lines) {
-        return lines
-                .stream()
-                .allMatch(line -> line.startsWith("#objectKey") || line.endsWith("mcdr.objects.impl.ObjectMotionWord"));
-    }
-
-    private static boolean doFilesHaveSameNumberOfLines(Collection<? extends List<String>> files, int numberOfLines) {
-        return files
-                .stream()
-                .allMatch(file -> file.size() == numberOfLines);
+    private static boolean isHeader(String line) {
+        return line.startsWith("#objectKey") || line.endsWith("mcdr.objects.impl.ObjectMotionWord");
     }
 
     @Override
     public Integer call() throws IOException {
+        List<Path> sequenceFiles;
         try (var paths = Files.walk(Paths.get(sequenceFolder))) {
-            List<List<String>> sequenceFiles = paths
+            sequenceFiles = paths
                     .filter(Files::isRegularFile)
                     .sorted(Comparator.comparing(filePath -> filePath.getFileName().toString()))
-                    .map(Util::openFileAndReadAllLines)
                     .toList();
-
-            checkValidity(sequenceFiles);
-
-            List<String> combinedFile = combineSequenceFiles(sequenceFiles);
-
-            combinedFile.forEach(System.out::println);
         }
+        if (sequenceFiles.isEmpty()) {
+            throw new IllegalArgumentException("The sequence folder does not contain any file.");
+        }
+
+        var output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+        combineSequenceFiles(sequenceFiles, output);
+        output.flush();
 
         return 0;
     }
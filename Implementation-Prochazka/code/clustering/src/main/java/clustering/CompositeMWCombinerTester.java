@@ -0,0 +1,155 @@
+package clustering;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link CompositeMWCombinerTester} generates Hard MW sequence files of two body parts into temporary folders and checks
+ * {@link CompositeMWCombiner} on them:
+ * <ul>
+ *     <li>aligned files are combined into the expected Composite MW lines and the command exits with status 0,</li>
+ *     <li>a file with an extra line, a file with a missing line, a file with a different object key and a file with
+ *     a different number of MWs of an object are rejected by an {@link IllegalArgumentException} without writing
+ *     any line, and the command exits with status 1 without printing any line.</li>
+ * </ul>
+ * The command runs in its own JVM with the class path of the tester, as it terminates by {@link System#exit(int)}.
+ * The process exits with status 1 if any check fails.
+ */
+public final class CompositeMWCombinerTester {
+
+    private static final List<String> BODY_PART_0 = List.of(
+            "#objectKey messif.objects.keys.AbstractObjectKey 3136_105_469_89",
+            "3;mcdr.objects.impl.ObjectMotionWord",
+            "12;7;12",
+            "#objectKey messif.objects.keys.AbstractObjectKey 3137_35_101_44",
+            "2;mcdr.objects.impl.ObjectMotionWord",
+            "0;5");
+    private static final List<String> BODY_PART_1 = List.of(
+            "#objectKey messif.objects.keys.AbstractObjectKey 3136_105_469_89",
+            "3;mcdr.objects.impl.ObjectMotionWord",
+            "40;41;40",
+            "#objectKey messif.objects.keys.AbstractObjectKey 3137_35_101_44",
+            "2;mcdr.objects.impl.ObjectMotionWord",
+            "9;9");
+    private static final List<String> COMBINED = List.of(
+            "#objectKey messif.objects.keys.AbstractObjectKey 3136_105_469_89",
+            "3;mcdr.objects.impl.ObjectMotionWord",
+            "12;7;12,40;41;40",
+            "#objectKey messif.objects.keys.AbstractObjectKey 3137_35_101_44",
+            "2;mcdr.objects.impl.ObjectMotionWord",
+            "0;5,9;9");
+
+    private CompositeMWCombinerTester() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int failureCount = 0;
+
+        failureCount += check("aligned", BODY_PART_1, COMBINED);
+
+        var extraLine = new ArrayList<>(BODY_PART_1);
+        extraLine.add("3;3");
+        failureCount += check("extra line", extraLine, null);
+
+        failureCount += check("missing line", BODY_PART_1.subList(0, BODY_PART_1.size() - 1), null);
+
+        var keyMismatch = new ArrayList<>(BODY_PART_1);
+        keyMismatch.set(3, "#objectKey messif.objects.keys.AbstractObjectKey 3138_35_101_44");
+        failureCount += check("key mismatch", keyMismatch, null);
+
+        var mwCountMismatch = new ArrayList<>(BODY_PART_1);
+        mwCountMismatch.set(1, "2;mcdr.objects.impl.ObjectMotionWord");
+        mwCountMismatch.set(2, "40;41");
+        failureCount += check("MW count mismatch", mwCountMismatch, null);
+
+        System.out.println((failureCount == 0) ? "All checks passed" : failureCount + " checks FAILED");
+        System.exit((failureCount == 0) ? 0 : 1);
+    }
+
+    /**
+     * Combines {@link #BODY_PART_0} with the given lines of the second body part, both directly and by the command.
+     *
+     * @param expectedLines the combined lines, or {@code null} if the files are expected to be rejected
+     * @return 0 if the check passes, 1 otherwise
+     */
+    private static int check(String name, List<String> bodyPart1, List<String> expectedLines) throws IOException {
+        Path sequenceFolder = Files.createTempDirectory("composite-mw-");
+        List<Path> sequenceFiles = List.of(sequenceFolder.resolve("0-body-part.txt"), sequenceFolder.resolve("1-body-part.txt"));
+        String failure;
+        try {
+            Files.write(sequenceFiles.get(0), BODY_PART_0, StandardCharsets.US_ASCII);
+            Files.write(sequenceFiles.get(1), bodyPart1, StandardCharsets.US_ASCII);
+
+            failure = checkDirectly(sequenceFiles, expectedLines);
+            if (failure == null) {
+                failure = checkCommand(sequenceFolder, expectedLines);
+            }
+        } finally {
+            for (Path sequenceFile : sequenceFiles) {
+                Files.deleteIfExists(sequenceFile);
+            }
+            Files.delete(sequenceFolder);
+        }
+
+        System.out.println(name + "\t" + ((failure == null) ? "OK" : "FAILED: " + failure));
+        return (failure == null) ? 0 : 1;
+    }
+
+    private static String checkDirectly(List<Path> sequenceFiles, List<String> expectedLines) throws IOException {
+        var output = new StringWriter();
+        try {
+            CompositeMWCombiner.combineSequenceFiles(sequenceFiles, output);
+        } catch (IllegalArgumentException e) {
+            if (expectedLines != null) {
+                return "unexpected exception: " + e.getMessage();
+            }
+            return output.toString().isEmpty() ? null : "partial output before the exception";
+        }
+        if (expectedLines == null) {
+            return "no IllegalArgumentException";
+        }
+        return compareLines(output.toString().lines().toList(), expectedLines);
+    }
+
+    private static String checkCommand(Path sequenceFolder, List<String> expectedLines) throws IOException {
+        var command = List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                CompositeMWCombiner.class.getName(),
+                "--sequenceFolder", sequenceFolder.toString());
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        List<String> actualLines;
+        int exitCode;
+        try (var output = process.getInputStream()) {
+            actualLines = new String(output.readAllBytes(), StandardCharsets.US_ASCII).lines().toList();
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + CompositeMWCombiner.class.getSimpleName(), e);
+        }
+
+        int expectedExitCode = (expectedLines == null) ? 1 : 0;
+        if (exitCode != expectedExitCode) {
+            return "exit code " + exitCode + " instead of " + expectedExitCode;
+        }
+        return compareLines(actualLines, (expectedLines == null) ? List.of() : expectedLines);
+    }
+
+    private static String compareLines(List<String> actualLines, List<String> expectedLines) {
+        if (actualLines.size() != expectedLines.size()) {
+            return actualLines.size() + " lines instead of " + expectedLines.size();
+        }
+        for (int i = 0; i < expectedLines.size(); i++) {
+            if (!expectedLines.get(i).equals(actualLines.get(i))) {
+                return "line " + (i + 1) + " is '" + actualLines.get(i) + "' instead of '" + expectedLines.get(i) + "'";
+            }
+        }
+        return null;
+    }
+}
@@ -1,17 +1,17 @@
 package clustering;
 
+import clustering.distance.SequenceMocapPoseCoordsL2DTW;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -29,12 +29,6 @@ import static picocli.CommandLine.Option;
 )
 public final class Convertor implements Callable<Integer> {
 
-    /**
-     * Matches a line in metadata in the ELKI clustering file (created as result of k-medoids clustering).
-     * The line contains a medoid ID which can be subsequently used for finding the corresponding object in the file.
-     */
-    private static final Pattern ELKI_CLUSTERING_FILE_MEDOID_ID = Pattern.compile("^# Cluster Medoid: (\\d+)$");
-
     /**
      * Matches "label" prefix created as result of ELKI clustering.
      * The label appears at the end of each object line in ELKI clustering file.
@@ -74,6 +68,9 @@ public final class Convertor implements Callable<Integer> {
     @ArgGroup(multiplicity = "1")
     CliOptions cliOptions;
 
+    @Option(names = "--threads", description = "Number of cluster files processed in parallel when parsing or extracting medoids, the number of processors by default")
+    private static int threadCount = Runtime.getRuntime().availableProcessors();
+
     public static void main(String[] args) {
         System.exit(new CommandLine(new Convertor()).execute(args));
     }
@@ -81,17 +78,32 @@ public final class Convertor implements Callable<Integer> {
     /**
      * Parses ELKI clustering folder (result of k-medoids clustering) and
      * outputs list of medoids (one for each cluster) in MESSIF format.
+     * The cluster files are parsed in parallel and the medoids are output in the order of the cluster file paths.
      *
      * @throws IOException if an I/O error is thrown when accessing the folder
      */
     private void parseMedoidsFromElkiClusteringFolder() throws IOException {
-        try (var paths = Files.walk(Paths.get(MedoidParsing.elkiClusteringFolder))) {
-            paths
-                    .filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().equals(ELKI_CLUSTER_FILE_NAME))
-                    .map(this::parseMedoid)
-                    .forEach(System.out::println);
-        }
+        List<Path> clusterFiles = MedoidLineReader.listFiles(Paths.get(MedoidParsing.elkiClusteringFolder), ELKI_CLUSTER_FILE_NAME);
+
+        MedoidExtractor.mapInParallel(clusterFiles, threadCount, this::parseMedoid)
+                .forEach(System.out::println);
+    }
+
+    /**
+     * Reads every cluster file of the ELKI clustering folder (result of the main clustering) once,
+     * computes the medoid of every cluster in-process and outputs list of medoids (one for each cluster)
+     * in MESSIF format. Replaces the ELKI k-medoids clustering with {@code k=1} run on every cluster.
+     *
+     * @throws IOException if an I/O error is thrown when accessing the folder
+     */
+    private void extractMedoidsFromElkiClusteringFolder() throws IOException {
+        var distance = new SequenceMocapPoseCoordsL2DTW(SequenceMocapPoseCoordsL2DTW.createJointIndexMask(MedoidExtraction.usedJointIds));
+        List<Path> clusterFiles = MedoidExtractor.listClusterFiles(Paths.get(MedoidExtraction.elkiClustersFolder));
+
+        MedoidExtractor.mapInParallel(clusterFiles, threadCount, clusterFile -> {
+            List<String> objectLines = MedoidExtractor.parseObjectLines(Util.openFileAndReadAllLines(clusterFile));
+            return convertElkiClusteringObjectToMessifFormat(MedoidExtractor.findMedoidLine(objectLines, distance));
+        }).forEach(System.out::println);
     }
 
     /**
@@ -112,43 +124,12 @@ public final class Convertor implements Callable<Integer> {
      * @return the medoid in MESSIF format
      */
     private String parseMedoid(Path elkiClusteringFile) {
-        List<String> lines = Util.openFileAndReadAllLines(elkiClusteringFile);
-        String medoidId = parseMedoidId(lines);
-        String medoidInELKIFormat = parseObject(lines, medoidId);
-        String medoidInMESSIFFormat = convertElkiClusteringObjectToMessifFormat(medoidInELKIFormat);
-
-        return medoidInMESSIFFormat;
-    }
-
-    /**
-     * Returns medoid ID from the content of the ELKI clustering file.
-     *
-     * @param elkiClusteringFile the ELKI clustering file represented as a collection of file lines
-     * @return the medoid ID
-     */
-    private String parseMedoidId(Collection<String> elkiClusteringFile) {
-        return elkiClusteringFile
-                .stream()
-                .map(ELKI_CLUSTERING_FILE_MEDOID_ID::matcher)
-                .filter(Matcher::matches)
-                .map(matcher -> matcher.group(1))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("The file does not contain cluster medoid"));
-    }
-
-    /**
-     * Returns the first object with ID equal to the {@code objectId} in {@code lines}. Assumes ELKI clustering format.
-     *
-     * @param elkiClusteringFile the ELKI clustering file represented as a collection of file lines
-     * @param objectId           the object ID
-     * @return the object with the ID in the ELKI clustering format
-     */
-    private String parseObject(Collection<String> elkiClusteringFile, String objectId) {
-        return elkiClusteringFile
-                .stream()
-                .filter(line -> line.startsWith(ELKI_CLUSTERING_OBJECT_VALID_OBJECT_LINE + objectId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("The file does not contain medoid specified by the medoid ID"));
+        try {
+            String medoidInELKIFormat = MedoidLineReader.readMedoidLine(elkiClusteringFile);
+            return convertElkiClusteringObjectToMessifFormat(medoidInELKIFormat);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -252,6 +233,10 @@ public final class Convertor implements Callable<Integer> {
             if (MedoidParsing.shouldParseMedoidsFromElkiClusteringFolder) {
                 parseMedoidsFromElkiClusteringFolder();
             }
+
+            if (MedoidExtraction.shouldExtractMedoidsFromElkiClusteringFolder) {
+                extractMedoidsFromElkiClusteringFolder();
+            }
         } catch (IOException e) {
             e.printStackTrace();
             return 1;
@@ -269,6 +254,9 @@ public final class Convertor implements Callable<Integer> {
 
         @ArgGroup(multiplicity = "1", exclusive = false)
         private MedoidParsing medoidParsing;
+
+        @ArgGroup(multiplicity = "1", exclusive = false)
+        private MedoidExtraction medoidExtraction;
     }
 
     private static class ElkiConversion {
@@ -296,4 +284,25 @@ public final class Convertor implements Callable<Integer> {
         @Option(names = "--elki-clustering-folder", description = "Path to ELKI clustering folder", required = true)
         private static String elkiClusteringFolder;
     }
+
+    private static class MedoidExtraction {
+        @Option(
+                names = "--extract-medoids-from-elki-clustering-folder",
+                description = "Takes path to ELKI clustering folder (result of the main clustering), computes " +
+                        "the medoid of every cluster in-process and outputs list of medoids (one for each cluster) " +
+                        "in MESSIF format.",
+                required = true
+        )
+        private static boolean shouldExtractMedoidsFromElkiClusteringFolder;
+
+        @Option(names = "--elki-clusters-folder", description = "Path to ELKI clustering folder with cluster_*.txt files", required = true)
+        private static String elkiClustersFolder;
+
+        @Option(
+                names = "--used-joint-ids",
+                description = "Joint ids (in [1, 31] range) used by the clustering distance, all joints by default",
+                split = ","
+        )
+        private static int[] usedJointIds;
+    }
 }
@@ -1,9 +1,11 @@
 package clustering;
 
+import de.lmu.ifi.dbs.elki.distance.distancefunction.CosineDistanceFunction;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -11,10 +13,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream; // Added for Files.walk
 
 // Removed unused import: import static java.lang.Float.parseFloat;
 import static picocli.CommandLine.Command;
@@ -36,12 +36,6 @@ import static picocli.CommandLine.Option;
 )
 public final class ConvertorSCL implements Callable<Integer> {
 
-    /**
-     * Matches a line in metadata in the ELKI clustering file (created as result of k-medoids clustering).
-     * The line contains a medoid ID which can be subsequently used for finding the corresponding object in the file.
-     */
-    private static final Pattern ELKI_CLUSTERING_FILE_MEDOID_ID = Pattern.compile("^# Cluster Medoid: (\\d+)$");
-
     /**
      * Matches "label" prefix created as result of ELKI clustering.
      * The label appears at the end of each object line in ELKI clustering file.
@@ -73,6 +67,13 @@ public final class ConvertorSCL implements Callable<Integer> {
     @ArgGroup(multiplicity = "1")
     CliOptions cliOptions;
 
+    @Option(
+            names = "--threads",
+            description = "Number of cluster files processed in parallel when parsing or extracting medoids, the number of processors by default.",
+            required = false
+    )
+    static int threadCount = Runtime.getRuntime().availableProcessors();
+
     // --- Main Entry Point ---
     public static void main(String[] args) {
         // Use try-with-resources for CommandLine if it implements AutoCloseable, otherwise standard execute
@@ -100,13 +101,35 @@ public final class ConvertorSCL implements Callable<Integer> {
             throw new IOException("Provided ELKI clustering folder path is not a directory: " + MedoidParsing.elkiClusteringFolder);
         }
 
-        try (Stream<Path> paths = Files.walk(startPath)) {
-            paths
-                    .filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().equals(ELKI_CLUSTER_FILE_NAME))
-                    .map(this::parseMedoidVector)
-                    .forEach(System.out::println);
+        // The cluster files are parsed in parallel, the medoids are output in the order of the cluster file paths
+        List<Path> clusterFiles = MedoidLineReader.listFiles(startPath, ELKI_CLUSTER_FILE_NAME);
+        MedoidExtractor.mapInParallel(clusterFiles, threadCount, this::parseMedoidVector)
+                .forEach(System.out::println);
+    }
+
+    /**
+     * Reads every cluster file of the ELKI clustering folder (output from the initial clustering run) once,
+     * computes the medoid of every cluster in-process using the cosine distance (as the clustering does) and
+     * outputs the medoids as float vectors in MESSIF-like format.
+     * Replaces the ELKI k-medoids clustering with {@code k=1} run on every cluster.
+     *
+     * @throws IOException if an I/O error is thrown when accessing the folder
+     */
+    private void extractMedoidsFromElkiClusteringFolder() throws IOException {
+        Path startPath = Paths.get(MedoidExtraction.elkiClustersFolder);
+        if (!Files.isDirectory(startPath)) {
+            throw new IOException("Provided ELKI clustering folder path is not a directory: " + MedoidExtraction.elkiClustersFolder);
         }
+
+        List<Path> clusterFiles = MedoidExtractor.listClusterFiles(startPath);
+        MedoidExtractor.mapInParallel(clusterFiles, threadCount, clusterFile -> {
+            List<String> objectLines = MedoidExtractor.parseObjectLines(Util.openFileAndReadAllLines(clusterFile));
+            String medoidLine = MedoidExtractor.findMedoidLine(objectLines, CosineDistanceFunction.STATIC);
+
+            // ID, sequence length and label are not a part of the vector
+            int vectorDim = (MedoidExtraction.vectorDim > 0) ? MedoidExtraction.vectorDim : medoidLine.trim().split("\\s+").length - 3;
+            return convertElkiObjectLineToVectorMessifFormat(medoidLine, vectorDim);
+        }).forEach(System.out::println);
     }
 
     /**
@@ -129,50 +152,14 @@ public final class ConvertorSCL implements Callable<Integer> {
      * @return the medoid as a float vector string in MESSIF-like format
      */
     private String parseMedoidVector(Path elkiClusteringFile) {
-        List<String> lines = Util.openFileAndReadAllLines(elkiClusteringFile);
-        String medoidId = parseMedoidId(lines);
-        String medoidLineInELKIFormat = parseObjectLine(lines, medoidId);
-        String medoidInVectorFormat = convertElkiObjectLineToVectorMessifFormat(medoidLineInELKIFormat, MedoidParsing.vectorDim);
-
-        return medoidInVectorFormat;
-    }
-
-    /**
-     * Returns medoid ID from the metadata comments in the ELKI clustering file.
-     *
-     * @param elkiClusteringFileLines the ELKI clustering file represented as a collection of file lines
-     * @return the medoid ID string
-     * @throws IllegalArgumentException if the medoid ID comment line is not found
-     */
-    private String parseMedoidId(Collection<String> elkiClusteringFileLines) {
-        return elkiClusteringFileLines
-                .stream()
-                .map(ELKI_CLUSTERING_FILE_MEDOID_ID::matcher)
-                .filter(Matcher::matches)
-                .map(matcher -> matcher.group(1))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Could not find '# Cluster Medoid: <id>' line in the input file."));
-    }
-
-    /**
-     * Returns the specific line corresponding to the object with ID equal to the {@code objectId} in {@code lines}.
-     * Assumes the line starts with "ID=<objectId>".
-     *
-     * @param elkiClusteringFileLines the ELKI clustering file represented as a collection of file lines
-     * @param objectId                the object ID to find
-     * @return the full line for the object in the ELKI clustering format
-     * @throws IllegalArgumentException if a line for the specified objectId is not found
-     */
-    private String parseObjectLine(Collection<String> elkiClusteringFileLines, String objectId) {
-        String prefixToFind = ELKI_CLUSTERING_OBJECT_VALID_OBJECT_LINE_PREFIX + objectId + " ";
-        return elkiClusteringFileLines
-                .stream()
-                .filter(line -> line.startsWith(prefixToFind))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Could not find object line starting with '" + prefixToFind + "' in the input file."));
+        try {
+            String medoidLineInELKIFormat = MedoidLineReader.readMedoidLine(elkiClusteringFile);
+            return convertElkiObjectLineToVectorMessifFormat(medoidLineInELKIFormat, MedoidParsing.vectorDim);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-
     /**
      * Converts a line representing an object from the ELKI clustering output format
      * into the desired MESSIF-like format containing the raw float vector.
@@ -271,6 +258,9 @@ public final class ConvertorSCL implements Callable<Integer> {
             } else if (cliOptions.medoidParsing != null && MedoidParsing.shouldParseMedoidsFromElkiClusteringFolder) {
                 System.err.println("Executing: Parse Medoids from ELKI Clustering Folder (Outputting Vectors)");
                 parseMedoidsFromElkiClusteringFolder();
+            } else if (cliOptions.medoidExtraction != null && MedoidExtraction.shouldExtractMedoidsFromElkiClusteringFolder) {
+                System.err.println("Executing: Extract Medoids from ELKI Clustering Folder (Outputting Vectors)");
+                extractMedoidsFromElkiClusteringFolder();
             } else {
                 // This case should not happen due to ArgGroup(multiplicity = "1")
                 System.err.println("Error: No valid operation specified.");
@@ -304,6 +294,9 @@ public final class ConvertorSCL implements Callable<Integer> {
 
         @ArgGroup(validate = false)
         MedoidParsing medoidParsing;
+
+        @ArgGroup(validate = false)
+        MedoidExtraction medoidExtraction;
     }
 
     /**
@@ -355,6 +348,33 @@ public final class ConvertorSCL implements Callable<Integer> {
         static int vectorDim = -1;
     }
 
+    /**
+     * Options related to computing medoids directly from the clusters of the initial clustering.
+     */
+    static class MedoidExtraction {
+        @Option(
+                names = "--extract-medoids-from-elki-clustering-folder",
+                description = "Takes path to ELKI clustering folder (output of main clustering), computes the medoid " +
+                        "of every cluster in-process by the cosine distance and outputs it as a float vector in MESSIF-like format.",
+                required = true
+        )
+        static boolean shouldExtractMedoidsFromElkiClusteringFolder;
+
+        @Option(
+                names = "--elki-clusters-folder",
+                description = "Path to the ELKI clustering folder containing cluster_*.txt files (output from initial clustering).",
+                required = true
+        )
+        static String elkiClustersFolder;
+
+        @Option(
+                names = "--medoid-vector-dim",
+                description = "Dimensionality of the outputted float vectors, all values of the medoid by default.",
+                required = false
+        )
+        static int vectorDim = -1;
+    }
+
     static class Util {
         /**
          * Placeholder for a utility method to read all lines from a file.
@@ -0,0 +1,179 @@
+package clustering;
+
+import clustering.distance.SequenceMocapPoseCoordsL2DTW;
+import de.lmu.ifi.dbs.elki.data.DoubleVector;
+import de.lmu.ifi.dbs.elki.data.NumberVector;
+import de.lmu.ifi.dbs.elki.distance.distancefunction.PrimitiveDistanceFunction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds medoids of clusters stored in the ELKI clustering format directly, i.e., without running ELKI k-medoids
+ * clustering with {@code k=1} on every cluster. The medoid is the object with the minimum sum of distances to all
+ * the other objects of the cluster, which is the result the k-medoids clustering with {@code k=1} converges to.
+ * Ties are resolved in favour of the object which appears first in the cluster file.
+ */
+final class MedoidExtractor {
+
+    /**
+     * A prefix of a line used to recognize if the line contains ELKI clustering object or not.
+     */
+    private static final String ELKI_CLUSTERING_OBJECT_VALID_OBJECT_LINE = "ID=";
+
+    /**
+     * Matches the cluster files created by ELKI {@code ResultWriter}, e.g. {@code cluster_12.txt}.
+     */
+    private static final String ELKI_CLUSTER_FILE_NAME_PREFIX = "cluster_";
+
+    private MedoidExtractor() {
+    }
+
+    /**
+     * Returns the cluster files (created by the ELKI clustering) located directly in {@code elkiClusteringFolder},
+     * sorted by their names.
+     *
+     * @param elkiClusteringFolder the folder produced by ELKI {@code ResultWriter}
+     * @return the sorted cluster files
+     * @throws IOException if an I/O error is thrown when accessing the folder
+     */
+    static List<Path> listClusterFiles(Path elkiClusteringFolder) throws IOException {
+        try (Stream<Path> paths = Files.list(elkiClusteringFolder)) {
+            return paths
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().startsWith(ELKI_CLUSTER_FILE_NAME_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the object lines of the ELKI clustering file.
+     *
+     * @param elkiClusteringFile the ELKI clustering file represented as a collection of file lines
+     * @return the lines containing the objects
+     */
+    static List<String> parseObjectLines(List<String> elkiClusteringFile) {
+        return elkiClusteringFile
+                .stream()
+                .filter(line -> line.trim().startsWith(ELKI_CLUSTERING_OBJECT_VALID_OBJECT_LINE))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Parses the ELKI clustering object line, e.g. {@code ID=7 8 0.0 0.0 ... label3136_101_1708_81_0},
+     * into the vector of all its values (without the ID and the label) as it is read by ELKI.
+     *
+     * @param elkiClusteringObject the ELKI clustering object line
+     * @return the vector of the object values
+     */
+    static NumberVector parseVector(String elkiClusteringObject) {
+        String[] chunks = elkiClusteringObject.trim().split("\\s+");
+        double[] values = new double[chunks.length - 2];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Double.parseDouble(chunks[i + 1]);
+        }
+
+        return new DoubleVector(values);
+    }
+
+    /**
+     * Returns the line of the medoid of the cluster.
+     * The medoids of clusters compared by {@link SequenceMocapPoseCoordsL2DTW} are found by {@link PrunedMedoidSearch},
+     * which skips the pairs of objects excluded by the lower bounds of the distance.
+     *
+     * @param objectLines the object lines of the cluster
+     * @param distance    the distance function used by the clustering
+     * @return the line of the medoid
+     */
+    static String findMedoidLine(List<String> objectLines, PrimitiveDistanceFunction<? super NumberVector> distance) {
+        if (objectLines.isEmpty()) {
+            throw new IllegalArgumentException("The cluster does not contain any object");
+        }
+
+        List<NumberVector> vectors = objectLines
+                .stream()
+                .map(MedoidExtractor::parseVector)
+                .collect(Collectors.toList());
+
+        int medoidIndex = (distance instanceof SequenceMocapPoseCoordsL2DTW)
+                ? new PrunedMedoidSearch(vectors, (SequenceMocapPoseCoordsL2DTW) distance).findMedoidIndex()
+                : findMedoidIndex(vectors, distance);
+
+        return objectLines.get(medoidIndex);
+    }
+
+    /**
+     * Returns the index of the medoid computed from the distances of all the pairs of objects.
+     *
+     * @param vectors  the objects of the cluster
+     * @param distance the distance function used by the clustering
+     * @return the index of the medoid
+     */
+    static int findMedoidIndex(List<NumberVector> vectors, PrimitiveDistanceFunction<? super NumberVector> distance) {
+        // The distance is symmetric, so every pair is measured only once
+        double[] distanceSums = new double[vectors.size()];
+        for (int i = 0; i < vectors.size(); i++) {
+            for (int j = i + 1; j < vectors.size(); j++) {
+                double d = distance.distance(vectors.get(i), vectors.get(j));
+                distanceSums[i] += d;
+                distanceSums[j] += d;
+            }
+        }
+
+        int medoidIndex = 0;
+        for (int i = 1; i < distanceSums.length; i++) {
+            if (distanceSums[i] < distanceSums[medoidIndex]) {
+                medoidIndex = i;
+            }
+        }
+
+        return medoidIndex;
+    }
+
+    /**
+     * Applies {@code function} to every cluster file in parallel and returns the results in the order of the files.
+     *
+     * @param clusterFiles the cluster files
+     * @param threadCount  the number of threads
+     * @param function     the function applied to every file
+     * @param <R>          the type of the results
+     * @return the results in the order of {@code clusterFiles}
+     */
+    static <R> List<R> mapInParallel(List<Path> clusterFiles, int threadCount, Function<Path, R> function) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        try {
+            List<Future<R>> futures = new ArrayList<>(clusterFiles.size());
+            for (Path clusterFile : clusterFiles) {
+                futures.add(executor.submit(() -> function.apply(clusterFile)));
+            }
+
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Medoid extraction was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package clustering;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the medoid of the cluster from the ELKI clustering file created by k-medoids clustering with {@code k=1},
+ * i.e., the object line {@code ID=<id> ...} of the object referenced by the {@code # Cluster Medoid: <id>} line.
+ * The file is scanned once in a reusable buffer and only the prefixes of the lines are compared, so the object
+ * lines (tens of kilobytes for pose sequences) are not decoded except for the line of the medoid.
+ */
+final class MedoidLineReader {
+
+    /**
+     * The prefix of the line in metadata which contains the medoid ID, e.g. {@code # Cluster Medoid: 12}.
+     */
+    private static final byte[] ELKI_CLUSTERING_FILE_MEDOID_ID_PREFIX = "# Cluster Medoid: ".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * A prefix of a line used to recognize the ELKI clustering object line, which is followed by the object ID.
+     */
+    private static final String ELKI_CLUSTERING_OBJECT_VALID_OBJECT_LINE = "ID=";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The read buffer of every thread, reused for all the files read by the thread.
+     */
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private MedoidLineReader() {
+    }
+
+    /**
+     * Returns the files with the given name located in {@code folder} or in its subfolders, sorted by their paths.
+     *
+     * @param folder   the folder to search
+     * @param fileName the name of the files
+     * @return the sorted files
+     * @throws IOException if an I/O error is thrown when accessing the folder
+     */
+    static List<Path> listFiles(Path folder, String fileName) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            return paths
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().equals(fileName))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the object line of the medoid. The medoid ID is taken from the first {@code # Cluster Medoid: <id>}
+     * line and the object line is the first line starting with {@code ID=<id> }. The object line is usually
+     * written after the metadata, otherwise the lines preceding the medoid ID are read again.
+     *
+     * @param elkiClusteringFile the ELKI clustering file
+     * @return the medoid in the ELKI clustering format
+     * @throws IOException              if an I/O error occurs reading the file
+     * @throws IllegalArgumentException if the file does not contain the medoid ID or the object line of the medoid
+     */
+    static String readMedoidLine(Path elkiClusteringFile) throws IOException {
+        byte[] objectLinePrefix;
+        try (var scanner = new LineScanner(Files.newInputStream(elkiClusteringFile))) {
+            String medoidId = readMedoidId(scanner);
+            if (medoidId == null) {
+                throw new IllegalArgumentException("The file " + elkiClusteringFile + " does not contain cluster medoid");
+            }
+
+            objectLinePrefix = (ELKI_CLUSTERING_OBJECT_VALID_OBJECT_LINE + medoidId + " ").getBytes(StandardCharsets.US_ASCII);
+            String objectLine = scanner.nextLineWithPrefix(objectLinePrefix);
+            if (objectLine != null) {
+                return objectLine;
+            }
+        }
+
+        try (var scanner = new LineScanner(Files.newInputStream(elkiClusteringFile))) {
+            String objectLine = scanner.nextLineWithPrefix(objectLinePrefix);
+            if (objectLine == null) {
+                throw new IllegalArgumentException("The file " + elkiClusteringFile + " does not contain medoid specified by the medoid ID");
+            }
+            return objectLine;
+        }
+    }
+
+    /**
+     * Returns the ID from the first line consisting of {@code # Cluster Medoid: } and digits, or {@code null}.
+     */
+    private static String readMedoidId(LineScanner scanner) throws IOException {
+        String line;
+        while ((line = scanner.nextLineWithPrefix(ELKI_CLUSTERING_FILE_MEDOID_ID_PREFIX)) != null) {
+            String medoidId = line.substring(ELKI_CLUSTERING_FILE_MEDOID_ID_PREFIX.length);
+            if (!medoidId.isEmpty() && medoidId.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                return medoidId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the lines of a stream into the buffer of the current thread. Lines are terminated by {@code \n},
+     * {@code \r} or {@code \r\n} as in {@link Files#readAllLines(Path)}.
+     */
+    private static final class LineScanner implements Closeable {
+
+        private final InputStream input;
+        private final byte[] buffer = buffers.get();
+        private int position;
+        private int limit;
+
+        LineScanner(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * Skips the lines that do not start with {@code prefix} and returns the first line which does.
+         *
+         * @param prefix the prefix of the line
+         * @return the whole line (including the prefix) or {@code null} if there is no such line
+         */
+        String nextLineWithPrefix(byte[] prefix) throws IOException {
+            while (true) {
+                int matched = 0;
+                int b = -1;
+                while (matched < prefix.length) {
+                    b = read();
+                    if (b != prefix[matched]) {
+                        break;
+                    }
+                    matched++;
+                }
+
+                if (matched == prefix.length) {
+                    return readRestOfLine(prefix);
+                }
+                if (b == -1 || (!isLineEnd(b) && !skipRestOfLine())) {
+                    return null;
+                }
+            }
+        }
+
+        private static boolean isLineEnd(int b) {
+            return b == '\n' || b == '\r';
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            limit = input.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return {@code false} if the end of the stream is reached
+         */
+        private boolean skipRestOfLine() throws IOException {
+            while (true) {
+                for (; position < limit; position++) {
+                    if (isLineEnd(buffer[position])) {
+                        position++;
+                        return true;
+                    }
+                }
+                if (!fill()) {
+                    return false;
+                }
+            }
+        }
+
+        private String readRestOfLine(byte[] prefix) throws IOException {
+            var line = new ByteArrayOutputStream(BUFFER_SIZE);
+            line.write(prefix, 0, prefix.length);
+            while (true) {
+                int start = position;
+                for (; position < limit; position++) {
+                    if (isLineEnd(buffer[position])) {
+                        line.write(buffer, start, position - start);
+                        position++;
+                        return line.toString(StandardCharsets.UTF_8);
+                    }
+                }
+                line.write(buffer, start, position - start);
+                if (!fill()) {
+                    return line.toString(StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package clustering;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link MedoidParsingTester} compares the output of {@code --parse-medoids-from-elki-clustering-folder} of
+ * {@link Convertor} (pose sequences) and {@link ConvertorSCL} (vectors) with the golden files stored next to the
+ * clustering folders, for one and more threads. Every clustering folder contains the k=1 clusters
+ * <ul>
+ *     <li>{@code cluster_0} with the metadata before the objects (the usual ELKI output),</li>
+ *     <li>{@code cluster_1} with the medoid ID after the objects,</li>
+ *     <li>{@code cluster_2} with CRLF line endings,</li>
+ *     <li>{@code cluster_3} without the final line ending,</li>
+ *     <li>{@code cluster_4} with the line of {@code ID=120} before the line of the medoid {@code ID=12}.</li>
+ * </ul>
+ * Every command runs in its own JVM with the class path of the tester, as the command-line options of the convertors
+ * are static. The process exits with status 1 if any output differs from the golden file.
+ * <p>
+ * Arguments: {@code [<testDataFolder>]}, {@code testdata/medoid-parsing} of the clustering module by default.
+ */
+public final class MedoidParsingTester {
+
+    private static final int[] THREAD_COUNTS = {1, 3};
+
+    private MedoidParsingTester() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path testDataFolder = Paths.get((args.length > 0) ? args[0] : "testdata/medoid-parsing");
+
+        int failureCount = 0;
+        for (int threadCount : THREAD_COUNTS) {
+            failureCount += check("Convertor poses, threads=" + threadCount, Convertor.class, testDataFolder.resolve("poses-medoids.txt"),
+                    "--parse-medoids-from-elki-clustering-folder",
+                    "--elki-clustering-folder", testDataFolder.resolve("poses").toString(),
+                    "--threads", Integer.toString(threadCount));
+            failureCount += check("ConvertorSCL vectors, threads=" + threadCount, ConvertorSCL.class, testDataFolder.resolve("vectors-medoids.txt"),
+                    "--parse-medoids-from-elki-clustering-folder",
+                    "--elki-clustering-folder", testDataFolder.resolve("vectors").toString(),
+                    "--vector-dim", "8",
+                    "--threads", Integer.toString(threadCount));
+        }
+
+        System.out.println((failureCount == 0) ? "All outputs match the golden files" : failureCount + " outputs FAILED");
+        System.exit((failureCount == 0) ? 0 : 1);
+    }
+
+    /**
+     * Runs the command and compares its standard output with the golden file line by line.
+     *
+     * @return 0 if the output matches, 1 otherwise
+     */
+    private static int check(String name, Class<?> mainClass, Path goldenFile, String... args) throws IOException {
+        List<String> expectedLines = Files.readAllLines(goldenFile, StandardCharsets.UTF_8);
+
+        var command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<String> actualLines;
+        int exitCode;
+        try (var output = process.getInputStream()) {
+            actualLines = new String(output.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+
+        String failure = null;
+        if (exitCode != 0) {
+            failure = "exit code " + exitCode;
+        } else if (actualLines.size() != expectedLines.size()) {
+            failure = actualLines.size() + " lines instead of " + expectedLines.size();
+        } else {
+            for (int i = 0; i < expectedLines.size() && failure == null; i++) {
+                if (!expectedLines.get(i).equals(actualLines.get(i))) {
+                    failure = "line " + (i + 1) + " differs";
+                }
+            }
+        }
+        System.out.println(name + "\t" + ((failure == null) ? "OK" : "FAILED: " + failure));
+        return (failure == null) ? 0 : 1;
+    }
+}
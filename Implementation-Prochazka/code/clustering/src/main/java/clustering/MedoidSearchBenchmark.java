@@ -0,0 +1,76 @@
+package clustering;
+
+import clustering.distance.SequenceMocapPoseCoordsL2DTW;
+import de.lmu.ifi.dbs.elki.data.NumberVector;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@link MedoidSearchBenchmark} compares the exhaustive medoid search of {@link MedoidExtractor} with
+ * {@link PrunedMedoidSearch} on the clusters of an ELKI clustering folder. For every cluster, it checks that both
+ * searches find the same medoid and reports the fraction of pairs of objects whose distance was not computed
+ * together with the times of both searches.
+ * <p>
+ * Arguments: {@code <elkiClustersFolder> [<usedJointIds>]}, where the joint ids are separated by commas.
+ */
+public final class MedoidSearchBenchmark {
+
+    private MedoidSearchBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: " + MedoidSearchBenchmark.class.getName() + " <elkiClustersFolder> [<usedJointIds>]");
+            System.exit(1);
+        }
+        int[] usedJointIds = (args.length > 1) ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray() : null;
+        var distance = new SequenceMocapPoseCoordsL2DTW(SequenceMocapPoseCoordsL2DTW.createJointIndexMask(usedJointIds));
+
+        long pairCount = 0;
+        long computedDistanceCount = 0;
+        long abandonedDistanceCount = 0;
+        long exhaustiveTime = 0;
+        long prunedTime = 0;
+        int differentMedoidCount = 0;
+
+        List<Path> clusterFiles = MedoidExtractor.listClusterFiles(Paths.get(args[0]));
+        for (Path clusterFile : clusterFiles) {
+            List<NumberVector> vectors = MedoidExtractor.parseObjectLines(Util.openFileAndReadAllLines(clusterFile))
+                    .stream()
+                    .map(MedoidExtractor::parseVector)
+                    .collect(Collectors.toList());
+            if (vectors.isEmpty()) {
+                continue;
+            }
+
+            long startTime = System.nanoTime();
+            int exhaustiveMedoid = MedoidExtractor.findMedoidIndex(vectors, distance);
+            exhaustiveTime += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            var search = new PrunedMedoidSearch(vectors, distance);
+            int prunedMedoid = search.findMedoidIndex();
+            prunedTime += System.nanoTime() - startTime;
+
+            if (exhaustiveMedoid != prunedMedoid) {
+                System.out.println("Different medoid of " + clusterFile.getFileName() + ": " + exhaustiveMedoid + " (exhaustive), " + prunedMedoid + " (pruned)");
+                differentMedoidCount++;
+            }
+            pairCount += (long) vectors.size() * (vectors.size() - 1) / 2;
+            computedDistanceCount += search.getComputedDistanceCount();
+            abandonedDistanceCount += search.getAbandonedDistanceCount();
+        }
+
+        System.out.println("Clusters: " + clusterFiles.size() + ", different medoids: " + differentMedoidCount);
+        System.out.printf("Pairs: %d, distances computed: %d (%d of them abandoned), pairs pruned: %.1f%%%n",
+                pairCount, computedDistanceCount, abandonedDistanceCount,
+                (pairCount == 0) ? 0.0 : 100.0 * (pairCount - computedDistanceCount) / pairCount);
+        System.out.printf("Exhaustive search: %d ms, pruned search: %d ms, speedup: %.2fx%n",
+                exhaustiveTime / 1_000_000, prunedTime / 1_000_000, (prunedTime == 0) ? 0.0 : (double) exhaustiveTime / prunedTime);
+    }
+}
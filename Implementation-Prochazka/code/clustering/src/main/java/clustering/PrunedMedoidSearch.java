@@ -0,0 +1,196 @@
+package clustering;
+
+import clustering.distance.SequenceMocapPoseCoordsL2DTW;
+import de.lmu.ifi.dbs.elki.data.NumberVector;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the medoid of a cluster compared by {@link SequenceMocapPoseCoordsL2DTW} without computing the distances
+ * of all the pairs of objects. The objects are examined in the order of the lower bounds of their sums of distances,
+ * and the sum of an object is abandoned as soon as its computed part together with the lower bounds of the rest
+ * exceeds the sum of the best object found so far. The distance computations themselves are abandoned by the cutoff
+ * derived from the same condition.
+ * <p>
+ * The result is the same as of the exhaustive search in {@link MedoidExtractor#findMedoidIndex}: every distance is
+ * computed with the objects in the same order and the sums are accumulated in the same order, so ties are resolved
+ * in favour of the object which appears first.
+ */
+final class PrunedMedoidSearch {
+
+    /**
+     * Relative slack of the pruning decisions compensating rounding errors of the lower bounds.
+     */
+    private static final double BOUND_TOLERANCE = 1e-9;
+
+    private final List<NumberVector> vectors;
+    private final SequenceMocapPoseCoordsL2DTW distance;
+
+    /**
+     * Exact distances computed so far, keyed by the pair of object indexes.
+     */
+    private final Map<Long, Double> distances = new HashMap<>();
+
+    private long computedDistanceCount = 0;
+    private long abandonedDistanceCount = 0;
+
+    /**
+     * Creates the search.
+     *
+     * @param vectors  the objects of the cluster
+     * @param distance the distance function used by the clustering
+     */
+    PrunedMedoidSearch(List<NumberVector> vectors, SequenceMocapPoseCoordsL2DTW distance) {
+        this.vectors = vectors;
+        this.distance = distance;
+    }
+
+    /**
+     * Returns the index of the medoid, i.e., the object with the minimum sum of distances to all the other objects.
+     *
+     * @return the index of the medoid
+     */
+    int findMedoidIndex() {
+        int n = vectors.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("The cluster does not contain any object");
+        }
+
+        // Lower bounds of the sums of distances
+        double[] boundSums = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double bound = lowerBound(i, j);
+                boundSums[i] += bound;
+                boundSums[j] += bound;
+            }
+        }
+
+        Integer[] order = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> boundSums[i]).thenComparingInt(i -> i));
+
+        int medoidIndex = -1;
+        double medoidSum = Double.POSITIVE_INFINITY;
+        for (int i : order) {
+            double limit = medoidSum + medoidSum * BOUND_TOLERANCE;
+            // The remaining objects have even larger lower bounds
+            if (boundSums[i] > limit) {
+                break;
+            }
+
+            double sum = computeSum(i, limit);
+            if (medoidIndex == -1 || sum < medoidSum || (sum == medoidSum && i < medoidIndex)) {
+                medoidIndex = i;
+                medoidSum = sum;
+            }
+        }
+
+        return medoidIndex;
+    }
+
+    /**
+     * Returns the sum of distances of the object to all the other objects, or {@link Double#POSITIVE_INFINITY}
+     * if the sum exceeds the limit.
+     * The known distances are taken first and then the distances with the highest lower bounds, so that the sum
+     * of a hopeless object exceeds the limit as early as possible. The returned sum is accumulated in the order
+     * of the objects, as by the exhaustive search.
+     */
+    private double computeSum(int i, double limit) {
+        int n = vectors.size();
+
+        double[] bounds = new double[n];
+        double remainingBound = 0.0;
+        for (int j = 0; j < n; j++) {
+            if (j != i) {
+                Double known = distances.get(key(i, j));
+                bounds[j] = (known != null) ? known : lowerBound(i, j);
+                remainingBound += bounds[j];
+            }
+        }
+
+        Integer[] order = IntStream.range(0, n).filter(j -> j != i).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparing((Integer j) -> !distances.containsKey(key(i, j)))
+                .thenComparing(Comparator.comparingDouble((Integer j) -> bounds[j]).reversed()));
+
+        double partialSum = 0.0;
+        for (int j : order) {
+            remainingBound -= bounds[j];
+            if (partialSum + bounds[j] + remainingBound > limit) {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            double d = distance(i, j, limit - partialSum - remainingBound);
+            if (Double.isNaN(d)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            partialSum += d;
+        }
+
+        double sum = 0.0;
+        for (int j = 0; j < n; j++) {
+            if (j != i) {
+                sum += distances.get(key(i, j));
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the exact distance of the objects, or {@link Double#NaN} if it is certain to exceed the cutoff.
+     * The distance is always computed with the object of the lower index first, as by the exhaustive search.
+     */
+    private double distance(int i, int j, double cutoff) {
+        int first = Math.min(i, j);
+        int second = Math.max(i, j);
+        long key = key(first, second);
+
+        Double known = distances.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        computedDistanceCount++;
+        double d = distance.distance(vectors.get(first), vectors.get(second), cutoff + Math.abs(cutoff) * BOUND_TOLERANCE);
+        if (d > cutoff + Math.abs(cutoff) * BOUND_TOLERANCE) {
+            abandonedDistanceCount++;
+            return Double.NaN;
+        }
+        distances.put(key, d);
+        return d;
+    }
+
+    private long key(int i, int j) {
+        return (long) Math.min(i, j) * vectors.size() + Math.max(i, j);
+    }
+
+    /**
+     * Returns the LB_Kim lower bound of the distance. The sums of the distances of the objects of a cluster are
+     * close to each other, so the tighter but costlier LB_Keogh does not prune enough pairs to pay off.
+     */
+    private double lowerBound(int i, int j) {
+        return distance.lowerBoundKim(vectors.get(i), vectors.get(j));
+    }
+
+    /**
+     * Returns the number of the distances whose computation was started, including the abandoned ones.
+     *
+     * @return the number of the computed distances
+     */
+    long getComputedDistanceCount() {
+        return computedDistanceCount;
+    }
+
+    /**
+     * Returns the number of the distances abandoned because they exceeded the cutoff.
+     *
+     * @return the number of the abandoned distances
+     */
+    long getAbandonedDistanceCount() {
+        return abandonedDistanceCount;
+    }
+}
@@ -9,7 +9,6 @@ import de.lmu.ifi.dbs.elki.utilities.optionhandling.AbstractParameterizer;
 import de.lmu.ifi.dbs.elki.utilities.optionhandling.OptionID;
 import de.lmu.ifi.dbs.elki.utilities.optionhandling.parameterization.Parameterization;
 import de.lmu.ifi.dbs.elki.utilities.optionhandling.parameters.IntListParameter;
-import net.jafama.FastMath;
 
 import java.util.Arrays;
 import java.util.BitSet;
@@ -19,6 +18,8 @@ import java.util.BitSet;
  * MCDR framework, compared by DTW. Each pose is a list of 3-D coordinates of joints, compared by L2.
  *
  * Enables the user to specify which joints should be used in the clustering.
+ * Besides the exact distance, it provides a DTW bounded by a cutoff and the LB_Kim and LB_Keogh lower bounds
+ * of the distance, which allow to skip pairs that cannot be closer than the cutoff.
  * Originally {@code elki.messif.SequenceMocapPoseCoordsL2DTW} in
  * <a href="https://gitlab.fi.muni.cz/disa/public/elki-messif">https://gitlab.fi.muni.cz/disa/public/elki-messif</a>.
  *
@@ -31,61 +32,115 @@ public class SequenceMocapPoseCoordsL2DTW extends AbstractEditDistanceFunction {
     private static final int POSE_DIM = JOINT_COUNT * JOINT_DIM;
 
     /**
-     * Indicates if an index should be used for clustering (true) or not (false).
-     * These indices are used in {@link #deltaPose(NumberVector, int, NumberVector, int)} to filter which
-     * corresponding values are used during distance computations.
+     * Ascending offsets of the coordinates used for clustering within a pose, compiled from the mask of used
+     * coordinate indices. Only these coordinates are compared by {@link #deltaPose(double[], int, double[], int)},
+     * so the unused joints cost nothing.
      */
-    private final BitSet jointIndexMask;
+    private final int[] coordinateOffsets;
 
+    /**
+     * @param jointIndexMask indicates if a coordinate index within a pose should be used for clustering (true)
+     *                       or not (false), see {@link #createJointIndexMask(int[])}
+     */
     public SequenceMocapPoseCoordsL2DTW(BitSet jointIndexMask) {
         super(Double.POSITIVE_INFINITY);
 
-        this.jointIndexMask = jointIndexMask;
+        this.coordinateOffsets = jointIndexMask.stream().filter(index -> index < POSE_DIM).toArray();
     }
 
     /**
-     * Compute the delta of two poses -- square of L2.
+     * Converts joint ids into the mask of used coordinate indices.
      *
-     * @return sum of squared differences
+     * @param usedJointIds ids (in [1, 31] range) of joints used for clustering, or null if all joints are used
+     * @return the mask of used coordinate indices
      */
-    private double deltaPose(NumberVector v1, int poseStartV1, NumberVector v2, int poseStartV2) {
-        // L2 distance computation
-        double sum = 0.0;
-        int stop = poseStartV1 + POSE_DIM;
-        int index = 0;
+    public static BitSet createJointIndexMask(int[] usedJointIds) {
+        var jointIndicesMask = new BitSet(POSE_DIM);
 
-        while (poseStartV1 < stop) {
-            if (jointIndexMask.get(index)) {
-                double diff = v1.doubleValue(poseStartV1) - v2.doubleValue(poseStartV2);
-                sum += diff * diff;
+        // If no id was specified use all joint ids.
+        if (usedJointIds == null) {
+            jointIndicesMask.set(0, POSE_DIM);
+        }
+
+        // If some ids were specified, disable everything and enable only those specified.
+        if (usedJointIds != null) {
+            jointIndicesMask.clear(0, POSE_DIM);
+
+            for (int jointId : usedJointIds) {
+                int jointIndex = Joint.getJointIndex(jointId);
+
+                // Enable every 3D coordinate of jointIndex
+                jointIndicesMask.set(jointIndex * JOINT_DIM);
+                jointIndicesMask.set(jointIndex * JOINT_DIM + 1);
+                jointIndicesMask.set(jointIndex * JOINT_DIM + 2);
             }
+        }
+
+        return jointIndicesMask;
+    }
 
-            poseStartV1++;
-            poseStartV2++;
-            index++;
+    /**
+     * Compute the delta of two poses -- L2 of the used coordinates.
+     * The square root cannot be left out, since DTW sums the deltas along the warping path.
+     *
+     * @return square root of the sum of squared differences
+     */
+    private double deltaPose(double[] values1, int poseStart1, double[] values2, int poseStart2) {
+        double sum = 0.0;
+        for (int offset : coordinateOffsets) {
+            double diff = values1[poseStart1 + offset] - values2[poseStart2 + offset];
+            sum += diff * diff;
         }
+        return Math.sqrt(sum);
+    }
 
-        return FastMath.sqrt(sum);
+    /**
+     * Same as {@link #deltaPose(double[], int, double[], int)}, reading the values from the vectors one by one.
+     * Used where only a few poses are compared, so copying the whole vectors would not pay off.
+     */
+    private double deltaPose(NumberVector v1, int poseStart1, NumberVector v2, int poseStart2) {
+        double sum = 0.0;
+        for (int offset : coordinateOffsets) {
+            double diff = v1.doubleValue(poseStart1 + offset) - v2.doubleValue(poseStart2 + offset);
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum);
     }
 
     @Override
     public double distance(NumberVector v1, NumberVector v2) {
-        // Number of poses is in the first coordinate, since it can vary
-        int poses1 = v1.intValue(0);
-        int poses2 = v2.intValue(0);
+        return distance(v1, v2, Double.POSITIVE_INFINITY);
+    }
 
-        // Dimensionality, and last valid value in second vector:
-        int dim1 = v1.getDimensionality(), dim2 = v2.getDimensionality();
-        if (dim1 != poses1 * POSE_DIM + 1 || dim2 != poses2 * POSE_DIM + 1) {
-            throw new IllegalArgumentException("Incorrect data -- dimensionality of vector is wrong.");
-        }
+    /**
+     * Computes the DTW distance, which is abandoned as soon as it is certain to exceed the cutoff.
+     * Every warping path crosses every row of the cost matrix and the costs never decrease along the path,
+     * so the computation stops when all the costs of a row exceed the cutoff.
+     *
+     * @param v1     first vector
+     * @param v2     second vector
+     * @param cutoff the maximum distance of interest
+     * @return the exact distance if it does not exceed the cutoff, otherwise a lower bound of the distance which
+     * exceeds the cutoff
+     */
+    public double distance(NumberVector v1, NumberVector v2, double cutoff) {
+        // Number of poses is in the first coordinate, since it can vary
+        int poses1 = checkedPoseCount(v1);
+        int poses2 = checkedPoseCount(v2);
+        // Every value is read many times, so the vectors are read into arrays once
+        double[] values1 = v1.toArray();
+        double[] values2 = v2.toArray();
 
         // Current and previous columns of the matrix
         double[] buf = new double[poses2 << 1];
         Arrays.fill(buf, Double.POSITIVE_INFINITY);
 
         // Fill first row:
-        firstRow(buf, v1, v2, poses2);
+        firstRow(buf, values1, values2, poses2);
+        if (buf[0] > cutoff) {
+            // The costs of the first row never decrease
+            return buf[0];
+        }
 
         // Active buffer offsets (cur = read, nxt = write)
         int cur = 0, nxt = poses2;
@@ -93,6 +148,7 @@ public class SequenceMocapPoseCoordsL2DTW extends AbstractEditDistanceFunction {
         int startI = POSE_DIM + 1;
         for (int i = 1; i < poses1; i++) {
             int startJ = 1;
+            double rowMin = Double.POSITIVE_INFINITY;
             for (int j = 0; j < poses2; j++) {
                 // Value in previous row (must exist, may be infinite):
                 double min = buf[cur + j];
@@ -107,9 +163,13 @@ public class SequenceMocapPoseCoordsL2DTW extends AbstractEditDistanceFunction {
                     }
                 }
                 // Write:
-                buf[nxt + j] = min + deltaPose(v1, startI, v2, startJ);
+                buf[nxt + j] = min + deltaPose(values1, startI, values2, startJ);
+                rowMin = (buf[nxt + j] < rowMin) ? buf[nxt + j] : rowMin;
                 startJ += POSE_DIM;
             }
+            if (rowMin > cutoff) {
+                return rowMin;
+            }
             startI += POSE_DIM;
             // Swap buffer positions:
             cur = poses2 - cur;
@@ -122,17 +182,118 @@ public class SequenceMocapPoseCoordsL2DTW extends AbstractEditDistanceFunction {
     /**
      * Fill the first row.
      *
-     * @param buf  Buffer
-     * @param v1   First vector
-     * @param v2   Second vector
-     * @param dim2 Dimensionality of second
+     * @param buf     Buffer
+     * @param values1 Values of first vector
+     * @param values2 Values of second vector
+     * @param dim2    Dimensionality of second
      */
-    private void firstRow(double[] buf, NumberVector v1, NumberVector v2, int dim2) {
+    private void firstRow(double[] buf, double[] values1, double[] values2, int dim2) {
         // First cell:
-        buf[0] = deltaPose(v1, 1, v2, 1);
+        buf[0] = deltaPose(values1, 1, values2, 1);
         // Fill remaining part of buffer:
         for (int j = 1, start = POSE_DIM + 1; j < dim2; j++, start += POSE_DIM) {
-            buf[j] = buf[j - 1] + deltaPose(v1, 1, v2, start);
+            buf[j] = buf[j - 1] + deltaPose(values1, 1, values2, start);
+        }
+    }
+
+    /**
+     * LB_Kim lower bound of the distance: every warping path aligns the first poses and the last poses.
+     *
+     * @param v1 first vector
+     * @param v2 second vector
+     * @return the lower bound of the distance
+     */
+    public double lowerBoundKim(NumberVector v1, NumberVector v2) {
+        int poses1 = checkedPoseCount(v1);
+        int poses2 = checkedPoseCount(v2);
+
+        double bound = deltaPose(v1, 1, v2, 1);
+        if (poses1 > 1 || poses2 > 1) {
+            bound += deltaPose(v1, (poses1 - 1) * POSE_DIM + 1, v2, (poses2 - 1) * POSE_DIM + 1);
+        }
+        return bound;
+    }
+
+    /**
+     * LB_Keogh lower bound of the distance: every pose of the first sequence is aligned with at least one pose
+     * of the second sequence, which lies in the envelope of the second sequence. Since the warping is not
+     * restricted by any band, the envelope is the bounding box of all the poses.
+     *
+     * @param v1        first vector
+     * @param envelope2 envelope of the second vector
+     * @return the lower bound of the distance
+     */
+    public double lowerBoundKeogh(NumberVector v1, Envelope envelope2) {
+        int poses1 = checkedPoseCount(v1);
+        double[] values1 = v1.toArray();
+
+        double bound = 0.0;
+        for (int i = 0, start = 1; i < poses1; i++, start += POSE_DIM) {
+            double sum = 0.0;
+            for (int index : coordinateOffsets) {
+                double value = values1[start + index];
+                double diff = (value > envelope2.max[index]) ? value - envelope2.max[index]
+                        : (value < envelope2.min[index]) ? envelope2.min[index] - value : 0.0;
+                sum += diff * diff;
+            }
+            bound += Math.sqrt(sum);
+        }
+        return bound;
+    }
+
+    /**
+     * Returns the best of the lower bounds of the distance, i.e., the maximum of LB_Kim and LB_Keogh computed
+     * in both directions. The envelopes are passed in, so they are built only once per vector.
+     *
+     * @param v1        first vector
+     * @param envelope1 envelope of the first vector
+     * @param v2        second vector
+     * @param envelope2 envelope of the second vector
+     * @return the lower bound of the distance
+     */
+    public double lowerBound(NumberVector v1, Envelope envelope1, NumberVector v2, Envelope envelope2) {
+        double bound = lowerBoundKim(v1, v2);
+        bound = Math.max(bound, lowerBoundKeogh(v1, envelope2));
+        return Math.max(bound, lowerBoundKeogh(v2, envelope1));
+    }
+
+    /**
+     * Returns the number of poses of the vector and checks that the dimensionality of the vector corresponds to it.
+     */
+    private static int checkedPoseCount(NumberVector v) {
+        int poses = v.intValue(0);
+        if (v.getDimensionality() != poses * POSE_DIM + 1) {
+            throw new IllegalArgumentException("Incorrect data -- dimensionality of vector is wrong.");
+        }
+        return poses;
+    }
+
+    /**
+     * Minimum and maximum value of every coordinate over all the poses of a sequence.
+     */
+    public static final class Envelope {
+
+        private final double[] min = new double[POSE_DIM];
+        private final double[] max = new double[POSE_DIM];
+
+        /**
+         * Builds the envelope of the vector.
+         *
+         * @param v the vector
+         */
+        public Envelope(NumberVector v) {
+            int poses = checkedPoseCount(v);
+            double[] values = v.toArray();
+
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+            for (int i = 0, start = 1; i < poses; i++, start += POSE_DIM) {
+                for (int index = 0; index < POSE_DIM; index++) {
+                    double value = values[start + index];
+                    min[index] = Math.min(min[index], value);
+                    max[index] = Math.max(max[index], value);
+                }
+            }
         }
     }
 
@@ -146,8 +307,8 @@ public class SequenceMocapPoseCoordsL2DTW extends AbstractEditDistanceFunction {
         /**
          * Option ID for joint ids.
          * The user specifies which joint ids should be used for clustering.
-         * Conversion to {@link BitSet} takes place to speed up the processing.
-         * See {@link SequenceMocapPoseCoordsL2DTW#jointIndexMask}.
+         * Conversion to {@link BitSet} and then to {@link SequenceMocapPoseCoordsL2DTW#coordinateOffsets} takes place
+         * to speed up the processing.
          */
         private static final OptionID USED_JOINT_IDS = new OptionID(
                 "clustering.distance.SequenceMocapPoseCoordsL2DTW.usedJointIds",
@@ -158,28 +319,7 @@ public class SequenceMocapPoseCoordsL2DTW extends AbstractEditDistanceFunction {
 
         @Override
         protected SequenceMocapPoseCoordsL2DTW makeInstance() {
-            var jointIndicesMask = new BitSet(POSE_DIM);
-
-            // If no id was specified use all joint ids.
-            if (usedJointIds == null) {
-                jointIndicesMask.set(0, POSE_DIM);
-            }
-
-            // If some ids were specified, disable everything and enable only those specified.
-            if (usedJointIds != null) {
-                jointIndicesMask.clear(0, POSE_DIM);
-
-                for (int jointId : usedJointIds) {
-                    int jointIndex = Joint.getJointIndex(jointId);
-
-                    // Enable every 3D coordinate of jointIndex
-                    jointIndicesMask.set(jointIndex * JOINT_DIM);
-                    jointIndicesMask.set(jointIndex * JOINT_DIM + 1);
-                    jointIndicesMask.set(jointIndex * JOINT_DIM + 2);
-                }
-            }
-
-            return new SequenceMocapPoseCoordsL2DTW(jointIndicesMask);
+            return new SequenceMocapPoseCoordsL2DTW(createJointIndexMask(usedJointIds));
         }
 
         @Override
@@ -8,9 +8,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import mcdr.objects.ObjectMocapPose;
 import mcdr.objects.utils.ObjectMocapPoseRootCollection;
@@ -41,6 +44,9 @@ import smf.sequences.IndexableSequence;
  */
 public class KeyPoseRetrievalAlgorithm<T, O extends IndexableSequence<T>> extends AbstractRetrievalAlgorithm<T, O> {
 
+    //************ Constants ************//
+    // default number of threads executing the range queries of query key poses
+    public static final int DEFAULT_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
     //************ Query parameters ************//
     // parameter string for a fixed distance between neighboring query key poses
     public static final String PARAM_KEY_POSE_DISTANCE = "key_pose_distance";
@@ -51,10 +57,16 @@ public class KeyPoseRetrievalAlgorithm<T, O extends IndexableSequence<T>> extend
     //************ Algorithm attributes ************//
     // index for poses of all sequences
     protected final Algorithm poseIndexAlgorithm;
+    // number of threads executing the range queries of query key poses, each thread processes a batch of consecutive query key poses
+    protected final int threadCount;
+    // threads executing the batches of range queries of query key poses, separate from the threads the pose index may use to process the range queries (e.g., a navigation directory); shut down by destroy()
+    protected transient ExecutorService keyPoseOperationsThreadPool;
 
     //************ Constructors ************//
     /**
-     * Creates a new instance of {@link KeyPoseRetrievalAlgorithm}.
+     * Creates a new instance of {@link KeyPoseRetrievalAlgorithm} that
+     * executes the range queries of query key poses by
+     * {@link #DEFAULT_THREAD_COUNT} threads.
      *
      * @param sequenceClass class of sequence
      * @param sequenceDataClass class of the sequence data, usually a static
@@ -66,11 +78,42 @@ public class KeyPoseRetrievalAlgorithm<T, O extends IndexableSequence<T>> extend
      */
     @Algorithm.AlgorithmConstructor(description = "Key-Pose Retrieval Algorithm", arguments = {"sequence class", "sequence data class", "sequence storage", "algorithm for indexing poses"})
     public KeyPoseRetrievalAlgorithm(Class<O> sequenceClass, Class<T> sequenceDataClass, SequenceStorage<T, O> sequenceStorage, Algorithm poseIndexAlgorithm) throws NoSuchInstantiatorException {
+        this(sequenceClass, sequenceDataClass, sequenceStorage, poseIndexAlgorithm, DEFAULT_THREAD_COUNT);
+    }
+
+    /**
+     * Creates a new instance of {@link KeyPoseRetrievalAlgorithm}.
+     *
+     * @param sequenceClass class of sequence
+     * @param sequenceDataClass class of the sequence data, usually a static
+     * array of a primitive type or {@link java.util.List}
+     * @param sequenceStorage storage for managing sequences
+     * @param poseIndexAlgorithm algorithm for indexing poses
+     * @param threadCount number of threads executing the range queries of
+     * query key poses (shared by all the concurrently processed queries)
+     * @throws NoSuchInstantiatorException when an error during creating a
+     * sequence factory occurs
+     * @throws IllegalArgumentException if the number of threads is not
+     * positive
+     */
+    @Algorithm.AlgorithmConstructor(description = "Key-Pose Retrieval Algorithm", arguments = {"sequence class", "sequence data class", "sequence storage", "algorithm for indexing poses", "number of threads"})
+    public KeyPoseRetrievalAlgorithm(Class<O> sequenceClass, Class<T> sequenceDataClass, SequenceStorage<T, O> sequenceStorage, Algorithm poseIndexAlgorithm, int threadCount) throws NoSuchInstantiatorException {
         super("Key-Pose Algorithm", sequenceClass, sequenceDataClass, sequenceStorage);
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Number of threads has to be positive!");
+        }
         this.poseIndexAlgorithm = poseIndexAlgorithm;
+        this.threadCount = threadCount;
+        this.keyPoseOperationsThreadPool = Executors.newFixedThreadPool(threadCount);
+    }
 
-        // Enables algorithm to execute operations at background
-        this.poseIndexAlgorithm.setOperationsThreadPool(Executors.newFixedThreadPool(256));
+    //************ Destructor ************//
+    @Override
+    public void destroy() throws Throwable {
+        if (keyPoseOperationsThreadPool != null) {
+            keyPoseOperationsThreadPool.shutdown();
+        }
+        super.destroy();
     }
 
     //************ Methods ************//
@@ -102,6 +145,99 @@ public class KeyPoseRetrievalAlgorithm<T, O extends IndexableSequence<T>> extend
         return new AbstractMap.SimpleEntry<>(minDist, poseIndex);
     }
 
+    /**
+     * Returns the number of consecutive query key poses whose range queries
+     * are executed by a single thread, so that the query key poses are divided
+     * into at most {@link #threadCount} batches.
+     *
+     * @param queryKeyPoseCount number of query key poses
+     * @return the number of query key poses in a batch
+     */
+    private int getKeyPoseBatchSize(int queryKeyPoseCount) {
+        int batchCount = Math.min(threadCount, queryKeyPoseCount);
+        return (batchCount <= 1) ? Math.max(1, queryKeyPoseCount) : (queryKeyPoseCount + batchCount - 1) / batchCount;
+    }
+
+    /**
+     * Executes the range queries of query key poses. The query key poses are
+     * divided into batches of {@link #getKeyPoseBatchSize(int)} consecutive
+     * key poses and the range queries of each batch are executed one after another
+     * by a single thread of {@link #keyPoseOperationsThreadPool}, so a long
+     * query occupies at most {@link #threadCount} threads. The batches do not
+     * run on the thread pool of the pose index, since a pose index processing
+     * the range queries by its own thread pool (e.g., a navigation directory)
+     * would wait for the threads occupied by the batches. If there is no
+     * thread pool (e.g., after deserialization) or there is a single batch,
+     * the range queries are executed by the calling thread.
+     *
+     * @param operation query operation determining whether the range queries
+     * are precise or approximate
+     * @param q query sequence
+     * @param keyPoseDistance fixed distance between neighboring query key
+     * poses
+     * @param queryKeyPoseCount number of query key poses
+     * @param poseSimilarityThreshold radius of the range queries
+     * @return the batches of executed range queries ordered by the query key
+     * poses, a failed range query is <code>null</code>
+     */
+    private List<Future<List<RankingSingleQueryOperation>>> executeKeyPoseOperations(final RankingSingleQueryOperation operation, final O q, final int keyPoseDistance, int queryKeyPoseCount, final float poseSimilarityThreshold) {
+        int batchSize = getKeyPoseBatchSize(queryKeyPoseCount);
+        ExecutorService executor = (batchSize < queryKeyPoseCount) ? keyPoseOperationsThreadPool : null;
+
+        List<Future<List<RankingSingleQueryOperation>>> batches = new ArrayList<>(threadCount);
+        for (int batchFrom = 0; batchFrom < queryKeyPoseCount; batchFrom += batchSize) {
+            final int fromRootNo = batchFrom;
+            final int toRootNo = Math.min(batchFrom + batchSize, queryKeyPoseCount);
+            FutureTask<List<RankingSingleQueryOperation>> batch = new FutureTask<>(new Callable<List<RankingSingleQueryOperation>>() {
+                @Override
+                public List<RankingSingleQueryOperation> call() {
+                    List<RankingSingleQueryOperation> keyPoseOperations = new ArrayList<>(toRootNo - fromRootNo);
+                    for (int rootNo = fromRootNo; rootNo < toRootNo; rootNo++) {
+                        RangeQueryOperation keyPoseOperation = createKeyPoseOperation(operation, q.getSequenceItem(rootNo * keyPoseDistance), poseSimilarityThreshold);
+                        try {
+                            keyPoseOperations.add(poseIndexAlgorithm.executeOperation(keyPoseOperation));
+                        } catch (NoSuchElementException | AlgorithmMethodException | NoSuchMethodException ex) {
+                            LOGGER.log(Level.SEVERE, null, ex);
+                            keyPoseOperations.add(null);
+                        }
+                    }
+                    return keyPoseOperations;
+                }
+            });
+            if (executor == null) {
+                batch.run();
+            } else {
+                executor.execute(batch);
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static void cancelBatches(List<Future<List<RankingSingleQueryOperation>>> batches) {
+        for (Future<List<RankingSingleQueryOperation>> batch : batches) {
+            batch.cancel(true);
+        }
+    }
+
+    /**
+     * Creates either the precise or approximate range query operation for the
+     * query key pose.
+     *
+     * @param operation query operation determining whether the range query is
+     * precise or approximate
+     * @param queryKeyPose query key pose
+     * @param poseSimilarityThreshold radius of the range query
+     * @return the range query operation
+     */
+    private static RangeQueryOperation createKeyPoseOperation(RankingSingleQueryOperation operation, LocalAbstractObject queryKeyPose, float poseSimilarityThreshold) {
+        if (!(operation instanceof Approximate)) {
+            return new RangeQueryOperation(queryKeyPose, poseSimilarityThreshold, AnswerType.ORIGINAL_OBJECTS);
+        }
+        Approximate approxOperation = (Approximate) operation;
+        return new ApproxRangeQueryOperation(queryKeyPose, poseSimilarityThreshold, AnswerType.ORIGINAL_OBJECTS, approxOperation.getLocalSearchParam(), approxOperation.getLocalSearchType(), approxOperation.getRadiusGuaranteed());
+    }
+
     //************ Overrided class AbstractRetrievalAlgorithm ************//
     /**
      * Inserts a bulk of motion sequences. Each motion sequence is divided to
@@ -158,39 +294,36 @@ public class KeyPoseRetrievalAlgorithm<T, O extends IndexableSequence<T>> extend
         int queryKeyPoseCount = q.getSequenceLength() / keyPoseDistance;
         final int intervalStart = (int) (keyPoseDistance * stiffness);
         final int intervalEnd = (int) (keyPoseDistance / stiffness);
-        List<Future<? extends RankingSingleQueryOperation>> keyPoseOperations = new ArrayList<>(queryKeyPoseCount);
-        for (int rootNo = 0; rootNo < queryKeyPoseCount; rootNo++) {
-            int queryKeyPoseIndex = rootNo * keyPoseDistance;
-
-            // Creates either the precise or approximate range query operation
-            RangeQueryOperation keyPoseOperation;
-            if (!(operation instanceof Approximate)) {
-                keyPoseOperation = new RangeQueryOperation(q.getSequenceItem(queryKeyPoseIndex), poseSimilarityThreshold, AnswerType.ORIGINAL_OBJECTS);
-            } else {
-                Approximate approxOperation = (Approximate) operation;
-                keyPoseOperation = new ApproxRangeQueryOperation(q.getSequenceItem(queryKeyPoseIndex), poseSimilarityThreshold, AnswerType.ORIGINAL_OBJECTS, approxOperation.getLocalSearchParam(), approxOperation.getLocalSearchType(), approxOperation.getRadiusGuaranteed());
-            }
-            keyPoseOperations.add(poseIndexAlgorithm.backgroundExecuteOperation(keyPoseOperation));
-        }
+        List<Future<List<RankingSingleQueryOperation>>> keyPoseOperationBatches = executeKeyPoseOperations(operation, q, keyPoseDistance, queryKeyPoseCount, poseSimilarityThreshold);
 
-        // Waits for executed operations and filters retrieved poses
+        // Filters retrieved poses of each batch as soon as the batch is processed (in the order of query key poses, so that the same poses are retained)
         ObjectMocapPoseRootCollection poseCollection = new ObjectMocapPoseRootCollection(2 * keyPoseDistance);
-        for (int rootNo = 0; rootNo < queryKeyPoseCount; rootNo++) {
-
-            // Sets the root number which the retrieved poses are associated with
-            poseCollection.setRootNo(rootNo);
-
+        int keyPoseBatchSize = getKeyPoseBatchSize(queryKeyPoseCount);
+        for (int batchNo = 0; batchNo < keyPoseOperationBatches.size(); batchNo++) {
+            int rootNo = batchNo * keyPoseBatchSize;
             try {
 
-                // Waits for the executed operation
-                RankingSingleQueryOperation keyPoseOperation = keyPoseOperations.get(rootNo).get();
+                // Waits for the executed batch
+                List<RankingSingleQueryOperation> keyPoseOperations = keyPoseOperationBatches.get(batchNo).get();
+                for (RankingSingleQueryOperation keyPoseOperation : keyPoseOperations) {
 
-                // Filters retrieved poses
-                for (Iterator<RankedAbstractObject> keyPoseOperationAnswerIterator = keyPoseOperation.getAnswer(); keyPoseOperationAnswerIterator.hasNext();) {
-                    poseCollection.add(keyPoseOperationAnswerIterator.next());
+                    // Sets the root number which the retrieved poses are associated with
+                    poseCollection.setRootNo(rootNo++);
+
+                    // Filters retrieved poses
+                    if (keyPoseOperation != null) {
+                        for (Iterator<RankedAbstractObject> keyPoseOperationAnswerIterator = keyPoseOperation.getAnswer(); keyPoseOperationAnswerIterator.hasNext();) {
+                            poseCollection.add(keyPoseOperationAnswerIterator.next());
+                        }
+                    }
                 }
-            } catch (InterruptedException | ExecutionException ex) {
-                LOGGER.log(Level.SEVERE, null, ex);
+            } catch (InterruptedException ex) {
+                cancelBatches(keyPoseOperationBatches);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Range queries of query key poses were interrupted", ex);
+            } catch (ExecutionException ex) {
+                cancelBatches(keyPoseOperationBatches);
+                throw new IllegalStateException("Range queries of query key poses failed", ex.getCause());
             }
         }
         int poseCount = poseCollection.getObjectCountWithDuplicates();
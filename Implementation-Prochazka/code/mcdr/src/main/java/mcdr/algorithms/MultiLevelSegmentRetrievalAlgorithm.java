@@ -1,9 +1,14 @@
 package mcdr.algorithms;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import mcdr.objects.utils.SequenceMocapCollection;
 import mcdr.preprocessing.segmentation.SegmentConvertor;
@@ -42,11 +47,15 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
     //************ Constants ************//
     // number of threds that are used to sequentially search a bucket
     public static final int THREAD_COUNT = 8;
+    // default number of threads that segment the inserted sequences and extract the features of segments
+    public static final int DEFAULT_INSERT_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
     // string defining the stiffness parameter
     public static final String PARAM_STIFFNESS = "stiffness";
     //************ Attributes ************//
     // covering factor
     protected final float coveringFactor;
+    // number of threads that segment the inserted sequences and extract the features of segments (in parallel across sequences and segmentation levels)
+    protected final int insertThreadCount;
     // multi-level segmentation structure
     private final List<SegmentationLevel> segmentationLevels;
     // extractor of 4,096-feature-vector objects
@@ -54,7 +63,9 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
 
     //************ Constructors ************//
     /**
-     * Creates a new instance of {@link MultiLevelSegmentRetrievalAlgorithm}.
+     * Creates a new instance of {@link MultiLevelSegmentRetrievalAlgorithm}
+     * that inserts the sequences by {@link #DEFAULT_INSERT_THREAD_COUNT}
+     * threads.
      *
      * @param sequenceClass class of sequence
      * @param sequenceDataClass class of the sequence data
@@ -78,6 +89,28 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
      */
     @Algorithm.AlgorithmConstructor(description = "MultiLevelSegmentRetrievalAlgorithm", arguments = {"sequence class", "sequence data class", "sequence storage", "minQueryLength", "maxQueryLength", "coveringFactor", "originalFPSRate", "reducedFPSRate", "minCoordValue", "maxCoordValue", "caffeObjectExtractorHost", "caffeObjectExtractorPort"})
     public MultiLevelSegmentRetrievalAlgorithm(Class<O> sequenceClass, Class<List<?>> sequenceDataClass, SequenceStorage<List<?>, O> sequenceStorage, int minQueryLength, int maxQueryLength, float coveringFactor, int originalFPSRate, int reducedFPSRate, float minCoordValue, float maxCoordValue, String caffeObjectExtractorHost, int caffeObjectExtractorPort) throws NoSuchInstantiatorException, AlgorithmMethodException {
+        this(sequenceClass, sequenceDataClass, sequenceStorage, minQueryLength, maxQueryLength, coveringFactor, createCaffeObjectExtractor(sequenceClass, originalFPSRate, reducedFPSRate, minCoordValue, maxCoordValue, caffeObjectExtractorHost, caffeObjectExtractorPort), DEFAULT_INSERT_THREAD_COUNT);
+    }
+
+    /**
+     * Creates a new instance of {@link MultiLevelSegmentRetrievalAlgorithm}
+     * with the given extractor of segment features (e.g., connected to a local
+     * stand-in of the neural network).
+     *
+     * @param sequenceClass class of sequence
+     * @param sequenceDataClass class of the sequence data
+     * @param sequenceStorage storage for managing sequences
+     * @param minQueryLength minimum length of any possible query
+     * @param maxQueryLength maximum length of any possible query
+     * @param coveringFactor determines the overlap of segments
+     * @param caffeObjectExtractor extractor of 4,096-feature-vector objects
+     * @param insertThreadCount number of threads that segment the inserted
+     * sequences and extract the features of segments
+     * @throws NoSuchInstantiatorException when an error during creating a
+     * sequence factory occurs
+     * @throws messif.algorithms.AlgorithmMethodException
+     */
+    public MultiLevelSegmentRetrievalAlgorithm(Class<O> sequenceClass, Class<List<?>> sequenceDataClass, SequenceStorage<List<?>, O> sequenceStorage, int minQueryLength, int maxQueryLength, float coveringFactor, CaffeObjectMotionImageSocketExtractor caffeObjectExtractor, int insertThreadCount) throws NoSuchInstantiatorException, AlgorithmMethodException {
         super("MultiLevelSegmentRetrievalAlgorithm", sequenceClass, sequenceDataClass, sequenceStorage);
 
         // Checks parameters
@@ -87,10 +120,13 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
         if (coveringFactor <= 0f || coveringFactor > 1f) {
             throw new AlgorithmMethodException("Covering factor has to be within (0, 1]!");
         }
+        if (insertThreadCount <= 0) {
+            throw new AlgorithmMethodException("Number of insert threads has to be positive!");
+        }
         this.coveringFactor = coveringFactor;
+        this.insertThreadCount = insertThreadCount;
 
-        // Creates an extractor of caffe objects through motion images (with PaOaSn normalization)
-        this.caffeObjectExtractor = createCaffeObjectExtractor(originalFPSRate, reducedFPSRate, minCoordValue, maxCoordValue, caffeObjectExtractorHost, caffeObjectExtractorPort);
+        this.caffeObjectExtractor = caffeObjectExtractor;
 
         // Defines the multi-level segmentation structure
         this.segmentationLevels = new LinkedList<>();
@@ -107,7 +143,7 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
      * Creates an extractor of caffe objects through motion images (with PaOaSn
      * normalization).
      */
-    private CaffeObjectMotionImageSocketExtractor createCaffeObjectExtractor(int originalFPSRate, int reducedFPSRate, float minCoordValue, float maxCoordValue, String caffeObjectExtractorHost, int caffeObjectExtractorPort) throws NoSuchInstantiatorException {
+    private static CaffeObjectMotionImageSocketExtractor createCaffeObjectExtractor(Class<? extends SequenceMocap<?>> sequenceClass, int originalFPSRate, int reducedFPSRate, float minCoordValue, float maxCoordValue, String caffeObjectExtractorHost, int caffeObjectExtractorPort) throws NoSuchInstantiatorException {
         List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors = createSequenceConvertors(sequenceClass, originalFPSRate, reducedFPSRate, true, false, true, false, true, KinematicTree.BONE_LENGTH_MAP_HDM05, KinematicTree.KINEMATIC_TREE_VICON);
         MotionImageConvertor motionImageConvertor = new MotionImageConvertor(minCoordValue, maxCoordValue);
         return new CaffeObjectMotionImageSocketExtractor(sequenceConvertors, motionImageConvertor, caffeObjectExtractorHost, caffeObjectExtractorPort);
@@ -125,37 +161,97 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
         LOGGER.log(Level.INFO, "Multi-level segmentation structure: {0}", structureString);
     }
 
+    /**
+     * Partitions the sequence into segments of the segmentation level and
+     * extracts the segment features as a single batch. If the batch
+     * extraction fails, the features extracted before the failure are kept
+     * and the remaining segments are extracted one by one, so only the
+     * segments whose extraction fails are skipped.
+     *
+     * @param sequence sequence to be partitioned
+     * @param segmentationLevel segmentation level
+     * @return the extracted segment features
+     */
+    private List<LocalAbstractObject> extractSegmentObjects(O sequence, SegmentationLevel segmentationLevel) {
+        List<O> segments = segmentationLevel.segmentIdentifier.convert(sequence);
+        LOGGER.log(Level.INFO, "Indexing sequence: {0} | segment length: {1} | segment count: {2}", new Object[]{sequence.getLocatorURI(), segmentationLevel.segmentLength, segments.size()});
+        List<SequenceMocap<?>> segmentCopies = new ArrayList<>(segments.size());
+        for (O segment : segments) {
+            segmentCopies.add(segment.duplicate());
+        }
+
+        // Extracts the segment features
+        List<LocalAbstractObject> segmentObjects = new ArrayList<>(segmentCopies.size());
+        try {
+            caffeObjectExtractor.extractObjects(segmentCopies, segmentObjects);
+        } catch (Exception ex) {
+
+            // Extracts the segments not extracted by the batch one by one, starting with the failed one
+            for (SequenceMocap<?> segment : segmentCopies.subList(segmentObjects.size(), segmentCopies.size())) {
+                try {
+                    segmentObjects.add(caffeObjectExtractor.extractObject(segment));
+                } catch (Exception segmentEx) {
+                    LOGGER.log(Level.SEVERE, segmentEx.toString());
+                }
+            }
+        }
+        return segmentObjects;
+    }
+
     //************ Overrided class AbstractRetrievalAlgorithm ************//
+    /**
+     * Inserts a bulk of motion sequences. The sequences are normalized and
+     * partitioned into segments of each segmentation level and the segment
+     * features are extracted by {@link #insertThreadCount} threads, a task
+     * per sequence and segmentation level. The features of each segmentation
+     * level are then stored by a single bulk insert in the order of the
+     * sequences.
+     *
+     * @param operation operation to be processed
+     * @throws StorageException when an error during inserting sequences into
+     * the sequence storage occurs
+     */
     @Override
     public void insert(BulkInsertOperation operation) throws StorageException {
         long startTime = System.currentTimeMillis();
+        List<O> sequences = (List<O>) operation.getInsertedObjects();
         int totalSequenceLength = 0;
+        for (O sequence : sequences) {
+            totalSequenceLength += sequence.getSequenceLength();
+        }
 
-        // Normalizes the sequence and partitions it into segments whose features are stored within the multi-level segmentation structure
-        for (O sequence : (List<O>) operation.getInsertedObjects()) {
-            int sequenceLength = sequence.getSequenceLength();
-            totalSequenceLength += sequenceLength;
-
-            // Normalizes the sequence, partitions it into segments, extracts and stores the feature for each segment
-            LOGGER.log(Level.INFO, "Indexing sequence: {0} | sequence length: {1}", new Object[]{sequence.getLocatorURI(), sequence.getSequenceLength()});
+        // Normalizes the sequences, partitions them into segments and extracts the feature for each segment in parallel
+        List<List<Future<List<LocalAbstractObject>>>> levelSegmentObjects = new ArrayList<>(segmentationLevels.size());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(insertThreadCount, sequences.size() * segmentationLevels.size())));
+        try {
             for (SegmentationLevel segmentationLevel : segmentationLevels) {
-                List<O> segments = segmentationLevel.segmentIdentifier.convert(sequence);
-                LOGGER.log(Level.INFO, "  segment length: {0} | segment count: {1}", new Object[]{segmentationLevel.segmentLength, segments.size()});
-
-                // Extracts the segment features
-                List<LocalAbstractObject> segmentObjects = new LinkedList<>();
-                for (O segment : segments) {
-                    try {
-                        segmentObjects.add(caffeObjectExtractor.extractObject(segment.duplicate()));
-                    } catch (Exception ex) {
-                        LOGGER.log(Level.SEVERE, ex.toString());
-                    }
+                levelSegmentObjects.add(new ArrayList<Future<List<LocalAbstractObject>>>(sequences.size()));
+            }
+            for (final O sequence : sequences) {
+                for (int levelNo = 0; levelNo < segmentationLevels.size(); levelNo++) {
+                    final SegmentationLevel segmentationLevel = segmentationLevels.get(levelNo);
+                    levelSegmentObjects.get(levelNo).add(executor.submit(() -> extractSegmentObjects(sequence, segmentationLevel)));
                 }
+            }
 
-                // Stores the segment features into the storage
-                BulkInsertOperation segmentObjectsOperation = new BulkInsertOperation(segmentObjects);
-                segmentationLevel.segmentStorage.insert(segmentObjectsOperation);
+            // Stores the segment features of each level into the storage
+            for (int levelNo = 0; levelNo < segmentationLevels.size(); levelNo++) {
+                List<LocalAbstractObject> segmentObjects = new ArrayList<>();
+                for (Future<List<LocalAbstractObject>> sequenceSegmentObjects : levelSegmentObjects.get(levelNo)) {
+                    segmentObjects.addAll(sequenceSegmentObjects.get());
+                }
+                segmentationLevels.get(levelNo).segmentStorage.insert(new BulkInsertOperation(segmentObjects));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while extracting the segment features", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
             }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
         }
 
         // Stores the original sequences
@@ -164,7 +260,8 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
         // Logs the segmentation structure
         logSegmentManagerStructure();
 
-        LOGGER.log(Level.INFO, "Inserting processed | sequence count: {0}; total frame count: {1}; average frame count: {2}; time: {3} ms", new Object[]{operation.getNumberInsertedObjects(), totalSequenceLength, (float) totalSequenceLength / operation.getNumberInsertedObjects(), (System.currentTimeMillis() - startTime)});
+        long time = Math.max(1L, System.currentTimeMillis() - startTime);
+        LOGGER.log(Level.INFO, "Inserting processed | sequence count: {0}; total frame count: {1}; average frame count: {2}; time: {3} ms; throughput: {4} sequences/s", new Object[]{operation.getNumberInsertedObjects(), totalSequenceLength, (float) totalSequenceLength / operation.getNumberInsertedObjects(), time, operation.getNumberInsertedObjects() * 1000f / time});
     }
 
     /**
@@ -276,7 +373,7 @@ public class MultiLevelSegmentRetrievalAlgorithm<O extends SequenceMocap<?>> ext
         }
 
         // Creates object extractor
-        this.caffeObjectExtractor = createCaffeObjectExtractor(originalFPSRate, reducedFPSRate, minCoordValue, maxCoordValue, caffeObjectExtractorHost, caffeObjectExtractorPort);
+        this.caffeObjectExtractor = createCaffeObjectExtractor(sequenceClass, originalFPSRate, reducedFPSRate, minCoordValue, maxCoordValue, caffeObjectExtractorHost, caffeObjectExtractorPort);
     }
 
     /**
@@ -1,42 +1,127 @@
 package mcdr.distance;
 
-import messif.objects.DistanceFunction;
+import messif.objects.LocalAbstractObject;
 import smf.sequences.DistanceAllowsNonEquilength;
 import smf.sequences.Sequence;
 
 /**
+ * Dynamic time warping computed over two rolling rows of the cost matrix. The
+ * warping path can be restricted by the Sakoe-Chiba band and the computation
+ * is abandoned as soon as all the cells of a row exceed the distance threshold.
+ *
  * @author David Procházka
  */
-public class DTWDistance<T> implements DistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
+public class DTWDistance<T> implements ThresholdDistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
+
+    // two rows of the cost matrix reused by the calls of the same thread
+    private static final ThreadLocal<float[][]> rowBuffers = ThreadLocal.withInitial(() -> new float[2][0]);
+
+    // maximum allowed difference between the aligned indexes (negative value means no band)
+    private final int bandWidth;
+
+    /**
+     * Creates a new instance of {@link DTWDistance} without the warping window
+     * constraint.
+     */
+    public DTWDistance() {
+        this(-1);
+    }
+
+    /**
+     * Creates a new instance of {@link DTWDistance}.
+     *
+     * @param bandWidth half-width of the Sakoe-Chiba band, i.e., the maximum
+     *                  allowed difference between the aligned indexes (negative value means no
+     *                  band); the band is widened to the difference of the sequence lengths so that
+     *                  the alignment of the last elements is always reachable
+     */
+    public DTWDistance(int bandWidth) {
+        this.bandWidth = bandWidth;
+    }
 
     @Override
     public float getDistance(Sequence<T> lhs, Sequence<T> rhs) {
-        float[][] opt = new float[lhs.getSequenceLength()][rhs.getSequenceLength()];
+        return getDistance(lhs, rhs, LocalAbstractObject.MAX_DISTANCE);
+    }
 
-        opt[0][0] = lhs.getPiecewiseDist(0, rhs, 0);
+    @Override
+    public float getDistance(Sequence<T> lhs, Sequence<T> rhs, float distThreshold) {
+        final int n = lhs.getSequenceLength();
+        final int m = rhs.getSequenceLength();
+        final int w = (bandWidth < 0) ? Math.max(n, m) : Math.max(bandWidth, Math.abs(n - m));
 
-        for (int i = 1; i < lhs.getSequenceLength(); i++) {
-            opt[i][0] = opt[i - 1][0] + lhs.getPiecewiseDist(i, rhs, 0);
+        float[][] rows = rowBuffers.get();
+        if (rows[0].length < m) {
+            rows[0] = new float[m];
+            rows[1] = new float[m];
         }
+        float[] prev = rows[0];
+        float[] curr = rows[1];
+        int prevFrom = 0;
+        int prevTo = -1;
 
-        for (int j = 1; j < rhs.getSequenceLength(); j++) {
-            opt[0][j] = opt[0][j - 1] + lhs.getPiecewiseDist(0, rhs, j);
-        }
+        for (int i = 0; i < n; i++) {
+            final int from = Math.max(0, i - w);
+            final int to = Math.min(m - 1, i + w);
+            float rowMin = Float.POSITIVE_INFINITY;
+
+            for (int j = from; j <= to; j++) {
+                float dist = getPiecewiseDist(lhs, i, rhs, j);
+                float cost;
+                if (i == 0) {
+                    cost = (j == 0) ? dist : curr[j - 1] + dist;
+                } else if (j == 0) {
+                    cost = prev[0] + dist;
+                } else {
+                    float up = (j <= prevTo) ? prev[j] : Float.POSITIVE_INFINITY;
+                    float left = (j > from) ? curr[j - 1] : Float.POSITIVE_INFINITY;
+                    float diag = (j - 1 >= prevFrom) ? prev[j - 1] : Float.POSITIVE_INFINITY;
+                    cost = dist + Math.min(up, Math.min(left, diag));
+                }
+                curr[j] = cost;
+                if (cost < rowMin) {
+                    rowMin = cost;
+                }
+            }
 
-        for (int i = 1; i < lhs.getSequenceLength(); i++) {
-            for (int j = 1; j < rhs.getSequenceLength(); j++) {
-                opt[i][j] = lhs.getPiecewiseDist(i, rhs, j) +
-                        Math.min(
-                                opt[i - 1][j],
-                                Math.min(
-                                        opt[i][j - 1],
-                                        opt[i - 1][j - 1]
-                                )
-                        );
+            // Every warping path crosses this row, and the costs never decrease along the path
+            if (rowMin > distThreshold) {
+                return rowMin;
             }
+
+            float[] swap = prev;
+            prev = curr;
+            curr = swap;
+            prevFrom = from;
+            prevTo = to;
         }
 
-        return opt[lhs.getSequenceLength() - 1][rhs.getSequenceLength() - 1];
+        return prev[m - 1];
+    }
+
+    /**
+     * Returns the distance between the elements of the sequences aligned by
+     * the warping path. By default, it is the piecewise distance of the
+     * sequences.
+     *
+     * @param lhs       the first sequence
+     * @param lhsOffset index of the element of the first sequence
+     * @param rhs       the second sequence
+     * @param rhsOffset index of the element of the second sequence
+     * @return the distance between the elements
+     */
+    protected float getPiecewiseDist(Sequence<T> lhs, int lhsOffset, Sequence<T> rhs, int rhsOffset) {
+        return lhs.getPiecewiseDist(lhsOffset, rhs, rhsOffset);
+    }
+
+    /**
+     * Returns the half-width of the Sakoe-Chiba band (negative value means no
+     * band).
+     *
+     * @return the half-width of the Sakoe-Chiba band
+     */
+    public int getBandWidth() {
+        return bandWidth;
     }
 
     @Override
@@ -46,6 +131,6 @@ public class DTWDistance<T> implements DistanceFunction<Sequence<T>>, DistanceAl
 
     @Override
     public String toString() {
-        return "DTWDistance";
+        return (bandWidth < 0) ? "DTWDistance" : "DTWDistance(band=" + bandWidth + ")";
     }
 }
@@ -1,44 +1,115 @@
 package mcdr.distance;
 
-import messif.objects.DistanceFunction;
+import messif.objects.LocalAbstractObject;
 import smf.sequences.DistanceAllowsNonEquilength;
 import smf.sequences.Sequence;
 
 /**
+ * Levenshtein distance computed over two rolling rows of the cost matrix. When
+ * a distance threshold is given, only the cells of the Ukkonen band, i.e., the
+ * cells through which an alignment not exceeding the threshold can pass, are
+ * computed, and the computation is abandoned as soon as all the cells of a row
+ * exceed the threshold.
+ *
  * @author David Procházka
  */
-public class LevenshteinDistance<T> implements DistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
+public class LevenshteinDistance<T> implements ThresholdDistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
 
     private static final float DELETE_WEIGHT = 1.0f;
     private static final float INSERT_WEIGHT = 1.0f;
 
+    // two rows of the cost matrix reused by the calls of the same thread
+    private static final ThreadLocal<float[][]> rowBuffers = ThreadLocal.withInitial(() -> new float[2][0]);
+
     @Override
     public float getDistance(Sequence<T> lhs, Sequence<T> rhs) {
-        float[][] opt = new float[lhs.getSequenceLength() + 1][rhs.getSequenceLength() + 1];
+        return getDistance(lhs, rhs, LocalAbstractObject.MAX_DISTANCE);
+    }
+
+    @Override
+    public float getDistance(Sequence<T> lhs, Sequence<T> rhs, float distThreshold) {
+        final int n = lhs.getSequenceLength();
+        final int m = rhs.getSequenceLength();
 
-        opt[0][0] = 0;
+        // Every alignment inserts or deletes at least the difference of the lengths
+        final int lengthDiff = m - n;
+        if (Math.abs(lengthDiff) > distThreshold) {
+            return Math.abs(lengthDiff);
+        }
 
-        for (int i = 1; i <= lhs.getSequenceLength(); i++) {
-            opt[i][0] = i;
+        // Range of the diagonals j - i of the cells through which an alignment can pass without exceeding
+        // the threshold: reaching the cell and then the last cell costs at least |j - i| + |lengthDiff - (j - i)|
+        final int minDiagonal;
+        final int maxDiagonal;
+        if (distThreshold >= n + m) {
+            minDiagonal = -n;
+            maxDiagonal = m;
+        } else {
+            final int threshold = (int) distThreshold;
+            minDiagonal = Math.floorDiv(lengthDiff - threshold + 1, 2);
+            maxDiagonal = Math.floorDiv(lengthDiff + threshold, 2);
         }
 
-        for (int j = 1; j <= rhs.getSequenceLength(); j++) {
-            opt[0][j] = j;
+        float[][] rows = rowBuffers.get();
+        if (rows[0].length < m + 1) {
+            rows[0] = new float[m + 1];
+            rows[1] = new float[m + 1];
         }
+        float[] prev = rows[0];
+        float[] curr = rows[1];
+        int prevFrom = 0;
+        int prevTo = -1;
+
+        for (int i = 0; i <= n; i++) {
+            final int from = Math.max(0, i + minDiagonal);
+            final int to = Math.min(m, i + maxDiagonal);
+            float rowMin = Float.POSITIVE_INFINITY;
 
-        for (int i = 1; i <= lhs.getSequenceLength(); i++) {
-            for (int j = 1; j <= rhs.getSequenceLength(); j++) {
-                opt[i][j] = Math.min(
-                        opt[i - 1][j - 1] + lhs.getPiecewiseDist(i - 1, rhs, j - 1),
-                        Math.min(
-                                opt[i - 1][j] + DELETE_WEIGHT,
-                                opt[i][j - 1] + INSERT_WEIGHT
-                        )
-                );
+            for (int j = from; j <= to; j++) {
+                float cost;
+                if (i == 0) {
+                    cost = j;
+                } else if (j == 0) {
+                    cost = i;
+                } else {
+                    float diag = (j - 1 >= prevFrom) ? prev[j - 1] + getPiecewiseDist(lhs, i - 1, rhs, j - 1) : Float.POSITIVE_INFINITY;
+                    float up = (j <= prevTo) ? prev[j] : Float.POSITIVE_INFINITY;
+                    float left = (j > from) ? curr[j - 1] : Float.POSITIVE_INFINITY;
+                    cost = Math.min(diag, Math.min(up + DELETE_WEIGHT, left + INSERT_WEIGHT));
+                }
+                curr[j] = cost;
+                if (cost < rowMin) {
+                    rowMin = cost;
+                }
             }
+
+            // Every alignment crosses this row, and the costs never decrease along the alignment
+            if (rowMin > distThreshold) {
+                return rowMin;
+            }
+
+            float[] swap = prev;
+            prev = curr;
+            curr = swap;
+            prevFrom = from;
+            prevTo = to;
         }
 
-        return opt[lhs.getSequenceLength()][rhs.getSequenceLength()];
+        return prev[m];
+    }
+
+    /**
+     * Returns the cost of substituting the elements of the sequences. By
+     * default, it is the piecewise distance of the sequences.
+     *
+     * @param lhs       the first sequence
+     * @param lhsOffset index of the element of the first sequence
+     * @param rhs       the second sequence
+     * @param rhsOffset index of the element of the second sequence
+     * @return the cost of substituting the elements
+     */
+    protected float getPiecewiseDist(Sequence<T> lhs, int lhsOffset, Sequence<T> rhs, int rhsOffset) {
+        return lhs.getPiecewiseDist(lhsOffset, rhs, rhsOffset);
     }
 
     @Override
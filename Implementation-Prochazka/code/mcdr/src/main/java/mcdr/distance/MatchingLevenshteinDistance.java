@@ -0,0 +1,32 @@
+package mcdr.distance;
+
+import mcdr.objects.impl.ObjectMotionWordComposite;
+import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
+import smf.sequences.Sequence;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Levenshtein distance of Composite MW sequences whose motion words are matched by the given matching function
+ * instead of the static {@link ObjectMotionWordCompositeAutoTuning#matchingFunction}.
+ * So distances with different matching functions can be evaluated concurrently.
+ */
+public class MatchingLevenshteinDistance extends LevenshteinDistance<List<ObjectMotionWordCompositeAutoTuning>> {
+
+    private final BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction;
+
+    /**
+     * Creates a new instance of {@link MatchingLevenshteinDistance}.
+     *
+     * @param matchingFunction the function deciding whether two motion words match
+     */
+    public MatchingLevenshteinDistance(BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction) {
+        this.matchingFunction = matchingFunction;
+    }
+
+    @Override
+    protected float getPiecewiseDist(Sequence<List<ObjectMotionWordCompositeAutoTuning>> lhs, int lhsOffset, Sequence<List<ObjectMotionWordCompositeAutoTuning>> rhs, int rhsOffset) {
+        return matchingFunction.test(lhs.getSequenceData().get(lhsOffset), rhs.getSequenceData().get(rhsOffset)) ? 0.0f : 1.0f;
+    }
+}
@@ -0,0 +1,144 @@
+package mcdr.distance;
+
+import smf.sequences.Sequence;
+
+/**
+ * Streaming dynamic time warping of a query against all the fixed-length
+ * windows of a long sequence. The long sequence is processed in a single pass:
+ * the piecewise distances between the query and each element of the long
+ * sequence are computed only once and shared by all the windows covering the
+ * element, and every window keeps just one column of its cost matrix (of the
+ * query length). The distance of each window is identical to the DTW of the
+ * query and the window materialized as a separate sequence.
+ *
+ * <p>
+ * A window starts at every multiple of the window shift and covers
+ * {@code windowLength} elements of the long sequence, of which only every
+ * {@code elementStep}-th element (starting with the first one) is compared,
+ * i.e., the window is subsampled in the same way as by the
+ * {@link mcdr.preprocessing.transformation.impl.FPSConvertor}.
+ * </p>
+ */
+public class SubsequenceDTW<T> {
+
+    /**
+     * Receives the distances of the windows in the order of their offsets.
+     */
+    @FunctionalInterface
+    public interface WindowListener {
+
+        /**
+         * Called when the distance of a window is computed.
+         *
+         * @param offset   the index of the first element of the window in the long sequence
+         * @param distance the DTW distance between the query and the window
+         */
+        void windowMatched(int offset, float distance);
+    }
+
+    // query sequence compared with the windows
+    private final Sequence<T> query;
+
+    /**
+     * Creates a new instance of {@link SubsequenceDTW}.
+     *
+     * @param query the query sequence compared with the windows
+     */
+    public SubsequenceDTW(Sequence<T> query) {
+        this.query = query;
+    }
+
+    /**
+     * Computes the DTW distance between the query and every window of the
+     * long sequence.
+     *
+     * @param sequence     the long sequence
+     * @param windowLength the number of elements of the long sequence covered by a window
+     * @param windowShift  the difference between the offsets of consecutive windows
+     * @param elementStep  the step between the compared elements of a window (1 compares all the elements)
+     * @param listener     the listener receiving the distances of the windows in the order of their offsets
+     * @return the number of windows
+     */
+    public int match(Sequence<T> sequence, int windowLength, int windowShift, int elementStep, WindowListener listener) {
+        if (windowLength <= 0 || windowShift <= 0 || elementStep <= 0) {
+            throw new IllegalArgumentException("Window length, window shift and element step must be positive");
+        }
+        final int m = query.getSequenceLength();
+        final int n = sequence.getSequenceLength();
+        if (m == 0 || windowLength > n) {
+            return 0;
+        }
+        final int windowElementCount = (windowLength + elementStep - 1) / elementStep;
+        final int windowCount = (n - windowLength) / windowShift + 1;
+
+        // Active windows are kept in a ring of cost matrix columns, the oldest window is always finished first
+        final int ringSize = Math.min(windowCount, (windowLength + windowShift - 1) / windowShift);
+        float[][] columns = new float[ringSize][m];
+        int[] processedElements = new int[ringSize];
+        int firstActiveWindow = 0;
+        int nextWindow = 0;
+
+        // Piecewise distances between the query and the current element of the long sequence
+        float[] dists = new float[m];
+
+        final int lastElement = (windowCount - 1) * windowShift + (windowElementCount - 1) * elementStep;
+        for (int t = 0; t <= lastElement; t++) {
+            if (nextWindow < windowCount && nextWindow * windowShift == t) {
+                processedElements[nextWindow % ringSize] = 0;
+                nextWindow++;
+            }
+
+            boolean distsComputed = false;
+            for (int w = firstActiveWindow; w < nextWindow; w++) {
+                int elementOffset = t - w * windowShift;
+                if (elementOffset % elementStep != 0) {
+                    continue;
+                }
+                if (!distsComputed) {
+                    for (int i = 0; i < m; i++) {
+                        dists[i] = query.getPiecewiseDist(i, sequence, t);
+                    }
+                    distsComputed = true;
+                }
+
+                int slot = w % ringSize;
+                updateColumn(columns[slot], dists, processedElements[slot] == 0);
+                processedElements[slot]++;
+            }
+
+            // Windows are finished in the order of their offsets
+            while (firstActiveWindow < nextWindow && processedElements[firstActiveWindow % ringSize] == windowElementCount) {
+                listener.windowMatched(firstActiveWindow * windowShift, columns[firstActiveWindow % ringSize][m - 1]);
+                firstActiveWindow++;
+            }
+        }
+        return windowCount;
+    }
+
+    /**
+     * Computes the next column of the cost matrix in place. The column is
+     * indexed by the query elements and the costs are accumulated in the same
+     * order as by the {@link smf.modules.distance.DTWSequenceDist}.
+     *
+     * @param column the previous column, which is replaced by the next one
+     * @param dists  the piecewise distances between the query elements and the next window element
+     * @param first  whether the column belongs to the first window element
+     */
+    private static void updateColumn(float[] column, float[] dists, boolean first) {
+        if (first) {
+            column[0] = dists[0];
+            for (int i = 1; i < column.length; i++) {
+                column[i] = dists[i] + column[i - 1];
+            }
+            return;
+        }
+
+        float diag = column[0];
+        column[0] = dists[0] + column[0];
+        for (int i = 1; i < column.length; i++) {
+            float left = column[i];
+            column[i] = dists[i] + Math.min(column[i - 1], Math.min(left, diag));
+            diag = left;
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package mcdr.distance;
 
-import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
+import mcdr.objects.impl.ObjectMotionWordComposite;
 import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
-import messif.objects.DistanceFunction;
+import messif.objects.LocalAbstractObject;
 import smf.sequences.DistanceAllowsNonEquilength;
 import smf.sequences.Sequence;
 
+import java.util.function.BiPredicate;
+
 /**
  * Implementation of a supervised matching on the global level in the two-stage classification framework.
  * 
  * @author David Procházka
  */
-public class SupervisedLevenshteinDistance<T> implements DistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
+public class SupervisedLevenshteinDistance<T> implements ThresholdDistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
 
     @Override
     public float getDistance(Sequence<T> lhs, Sequence<T> rhs) {
+        return getDistance(lhs, rhs, LocalAbstractObject.MAX_DISTANCE);
+    }
+
+    @Override
+    public float getDistance(Sequence<T> lhs, Sequence<T> rhs, float distThreshold) {
         var left = (SequenceMotionWordsCompositeAutoTuning) lhs;
         var right = (SequenceMotionWordsCompositeAutoTuning) rhs;
 
@@ -22,15 +29,16 @@ public class SupervisedLevenshteinDistance<T> implements DistanceFunction<Sequen
             throw new IllegalArgumentException("No body part specified");
         }
 
+        BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction;
         if (left.bodyPart == null) {
-            ObjectMotionWordCompositeAutoTuning.matchingFunction = right.bodyPart::match;
+            matchingFunction = right.bodyPart::match;
         } else if (right.bodyPart == null) {
-            ObjectMotionWordCompositeAutoTuning.matchingFunction = left.bodyPart::match;
+            matchingFunction = left.bodyPart::match;
         } else {
-            ObjectMotionWordCompositeAutoTuning.matchingFunction = (a, b) -> left.bodyPart.match(a, b) && right.bodyPart.match(a, b);
+            matchingFunction = (a, b) -> left.bodyPart.match(a, b) && right.bodyPart.match(a, b);
         }
 
-        return new LevenshteinDistance<T>().getDistance(lhs, rhs);
+        return new MatchingLevenshteinDistance(matchingFunction).getDistance(left, right, distThreshold);
     }
 
     @Override
@@ -0,0 +1,25 @@
+package mcdr.distance;
+
+import messif.objects.DistanceFunction;
+
+/**
+ * Distance function which can stop the computation as soon as the distance is
+ * known to exceed the given threshold.
+ *
+ * @param <T> the type of the distance function arguments
+ */
+public interface ThresholdDistanceFunction<T> extends DistanceFunction<T> {
+
+    /**
+     * Measures the distance between the two given objects. If the distance is
+     * greater than {@code distThreshold}, the computation can be abandoned and
+     * any value greater than {@code distThreshold} is returned.
+     *
+     * @param o1            the object for which to measure the distance
+     * @param o2            the object for which to measure the distance
+     * @param distThreshold the threshold value on the distance
+     * @return the distance between {@code o1} and {@code o2}, or any value
+     * greater than {@code distThreshold} if the distance exceeds it
+     */
+    float getDistance(T o1, T o2, float distThreshold);
+}
@@ -3,7 +3,11 @@ package mcdr.objects;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import messif.objects.LocalAbstractObject;
 import messif.objects.nio.BinaryInput;
 import messif.objects.nio.BinaryOutput;
@@ -21,8 +25,21 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
     private static final long serialVersionUID = 1L;
     // identification (position) of frame at which this pose occurs
     protected int frameNo = -1;
-    // captured XYZ coordinates of joints
-    protected final float[][] jointCoordinates;
+    // number of coordinates stored for each joint (XYZ)
+    public static final int JOINT_DIM = 3;
+    // captured XYZ coordinates of joints stored joint after joint (x0, y0, z0, x1, y1, z1, ...)
+    protected final float[] coords;
+    // public copy constructors of the pose classes (null if the class does not have one)
+    private static final ClassValue<MethodHandle> COPY_CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> poseClass) {
+            try {
+                return MethodHandles.publicLookup().findConstructor(poseClass, MethodType.methodType(void.class, poseClass)).asType(MethodType.methodType(ObjectMocapPose.class, ObjectMocapPose.class));
+            } catch (NoSuchMethodException | IllegalAccessException ex) {
+                return null;
+            }
+        }
+    };
 
     //************ Constructors ************//
     /**
@@ -31,10 +48,34 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
      * @param jointCoordinates captured XYZ coordinates of joints
      */
     public ObjectMocapPose(float[][] jointCoordinates) {
-        this.jointCoordinates = new float[jointCoordinates.length][3];
-        for (int i = 0; i < jointCoordinates.length; i++) {
-            System.arraycopy(jointCoordinates[i], 0, this.jointCoordinates[i], 0, 3);
+        this.coords = flatten(jointCoordinates);
+    }
+
+    /**
+     * Creates a new instance of {@link ObjectMocapPose} from the coordinates
+     * stored joint after joint. The given array becomes the internal storage
+     * of this pose, i.e., it is not copied.
+     *
+     * @param coords captured XYZ coordinates of joints stored joint after
+     * joint (x0, y0, z0, x1, y1, z1, ...)
+     */
+    public ObjectMocapPose(float[] coords) {
+        if (coords.length % JOINT_DIM != 0) {
+            throw new IllegalArgumentException("Number of coordinates is not a multiple of " + JOINT_DIM + ": " + coords.length);
         }
+        this.coords = coords;
+    }
+
+    /**
+     * Creates a copy of the given pose. The coordinates are copied at once
+     * from the flat array of the given pose. The copy constructors of the
+     * subclasses are called by {@link #duplicate()}.
+     *
+     * @param pose pose to be copied
+     */
+    protected ObjectMocapPose(ObjectMocapPose pose) {
+        this.coords = pose.coords.clone();
+        this.frameNo = pose.frameNo;
     }
 
     /**
@@ -50,7 +91,7 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
         String line = readObjectComments(stream);
 
         // Reads joint coordinates
-        this.jointCoordinates = parseFloatArray2d(line);
+        this.coords = flatten(parseFloatArray2d(line));
     }
 
     //************ Methods ************//
@@ -82,13 +123,91 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
         this.frameNo = frameNo;
     }
 
+    /**
+     * Returns the number of joints of this pose.
+     *
+     * @return the number of joints of this pose
+     */
+    public int getJointCount() {
+        return coords.length / JOINT_DIM;
+    }
+
     /**
      * Returns XYZ coordinates of all landmarks.
      *
      * @return XYZ coordinates of all landmarks
+     * @deprecated the coordinates are no longer stored per joint, so the
+     * returned arrays are copies and their modification does not change this
+     * pose; use {@link #getCoordinates()} to read or modify the coordinates in
+     * place, or {@link #getJointCoordinate(int, int)}
      */
+    @Deprecated
     public float[][] getJointCoordinates() {
-        return jointCoordinates;
+        return unflatten(coords);
+    }
+
+    /**
+     * Returns a copy of XYZ coordinates of the specified joint.
+     *
+     * @param jointIdx index of the joint
+     * @return XYZ coordinates of the specified joint
+     */
+    public float[] getJointCoordinates(int jointIdx) {
+        return Arrays.copyOfRange(coords, jointIdx * JOINT_DIM, (jointIdx + 1) * JOINT_DIM);
+    }
+
+    /**
+     * Returns the coordinate value of the specified joint and axis.
+     *
+     * @param jointIdx index of the joint
+     * @param axisIdx index of the axis (x=0, y=1, z=2)
+     * @return the coordinate value of the specified joint and axis
+     */
+    public float getJointCoordinate(int jointIdx, int axisIdx) {
+        return coords[jointIdx * JOINT_DIM + axisIdx];
+    }
+
+    /**
+     * Returns XYZ coordinates of all landmarks stored joint after joint, i.e.,
+     * the coordinate of joint {@code j} and axis {@code a} is stored at index
+     * {@code j * JOINT_DIM + a}. The returned array is the internal storage of
+     * this pose.
+     *
+     * @return XYZ coordinates of all landmarks stored joint after joint
+     */
+    public float[] getCoordinates() {
+        return coords;
+    }
+
+    /**
+     * Converts XYZ coordinates of joints into the flat array stored joint
+     * after joint.
+     *
+     * @param jointCoordinates XYZ coordinates of joints
+     * @return XYZ coordinates of joints stored joint after joint
+     */
+    public static float[] flatten(float[][] jointCoordinates) {
+        float[] rtv = new float[jointCoordinates.length * JOINT_DIM];
+        for (int j = 0; j < jointCoordinates.length; j++) {
+            System.arraycopy(jointCoordinates[j], 0, rtv, j * JOINT_DIM, JOINT_DIM);
+        }
+        return rtv;
+    }
+
+    /**
+     * Converts XYZ coordinates of joints stored joint after joint into
+     * a separate array for each joint, which is the inverse of
+     * {@link #flatten(float[][])}. The coordinates are copied.
+     *
+     * @param coords XYZ coordinates of joints stored joint after joint
+     * @return XYZ coordinates of joints
+     */
+    public static float[][] unflatten(float[] coords) {
+        float[][] rtv = new float[coords.length / JOINT_DIM][];
+        for (int j = 0; j < rtv.length; j++) {
+            rtv[j] = Arrays.copyOfRange(coords, j * JOINT_DIM, (j + 1) * JOINT_DIM);
+        }
+        return rtv;
     }
 
     /**
@@ -166,14 +285,41 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
     }
 
     /**
-     * Creates the clone of this pose.
+     * Creates the clone of this pose by the copy constructor of its class,
+     * i.e., the public constructor with the single parameter of the class
+     * type. The constructor is looked up once for each class. The pose classes
+     * without the copy constructor are cloned by
+     * {@link #duplicateByConstructor()}.
      *
-     * @return clonned pose
+     * @return clonned pose, or null if the copy constructor throws a checked
+     * exception
+     * @throws RuntimeException if the copy constructor throws it
      */
     public ObjectMocapPose duplicate() {
+        MethodHandle copyConstructor = COPY_CONSTRUCTORS.get(getClass());
+        if (copyConstructor == null) {
+            return duplicateByConstructor();
+        }
+        try {
+            return (ObjectMocapPose) copyConstructor.invokeExact(this);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            // A checked exception of the constructor (wrapped into InvocationTargetException by the reflective call)
+            return null;
+        }
+    }
+
+    /**
+     * Creates the clone of this pose by the constructor from the joint
+     * coordinates found by reflection.
+     *
+     * @return clonned pose
+     */
+    protected ObjectMocapPose duplicateByConstructor() {
         ObjectMocapPose pose;
         try {
-            pose = getClass().getConstructor(float[][].class).newInstance(new Object[]{jointCoordinates.clone()});
+            pose = getClass().getConstructor(float[][].class).newInstance(new Object[]{unflatten(coords)});
         } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
             return null;
         }
@@ -184,14 +330,14 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
     //************ Overrided class LocalAbstractObject ************//
     @Override
     public int getSize() {
-        return Integer.SIZE / 8 + (jointCoordinates.length * 3) * Float.SIZE / 8;
+        return Integer.SIZE / 8 + coords.length * Float.SIZE / 8;
     }
 
     @Override
     protected void writeData(OutputStream stream) throws IOException {
 
         // Joint coordinates
-        writeFloatArray(stream, jointCoordinates);
+        writeFloatArray(stream, unflatten(coords));
         stream.write('\n');
 
     }
@@ -209,9 +355,9 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
     protected ObjectMocapPose(BinaryInput input, BinarySerializator serializator) throws IOException {
         super(input, serializator);
         this.frameNo = serializator.readInt(input);
-        this.jointCoordinates = new float[serializator.readInt(input)][3];
-        for (int i = 0; i < jointCoordinates.length; i++) {
-            this.jointCoordinates[i] = serializator.readFloatArray(input);
+        this.coords = new float[serializator.readInt(input) * JOINT_DIM];
+        for (int j = 0; j < getJointCount(); j++) {
+            System.arraycopy(serializator.readFloatArray(input), 0, coords, j * JOINT_DIM, JOINT_DIM);
         }
     }
 
@@ -219,9 +365,9 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
     public int binarySerialize(BinaryOutput output, BinarySerializator serializator) throws IOException {
         int rtv = super.binarySerialize(output, serializator);
         rtv += serializator.write(output, frameNo);
-        rtv += serializator.write(output, jointCoordinates.length);
-        for (float[] jointCoordinate : jointCoordinates) {
-            rtv += serializator.write(output, jointCoordinate);
+        rtv += serializator.write(output, getJointCount());
+        for (int j = 0; j < getJointCount(); j++) {
+            rtv += serializator.write(output, getJointCoordinates(j));
         }
         return rtv;
     }
@@ -230,9 +376,9 @@ public abstract class ObjectMocapPose extends LocalAbstractObject implements Bin
     public int getBinarySize(BinarySerializator serializator) {
         int rtv = super.getBinarySize(serializator);
         rtv += serializator.getBinarySize(frameNo);
-        rtv += serializator.getBinarySize(jointCoordinates.length);
-        for (float[] jointCoordinate : jointCoordinates) {
-            rtv += serializator.getBinarySize(jointCoordinate);
+        rtv += serializator.getBinarySize(getJointCount());
+        for (int j = 0; j < getJointCount(); j++) {
+            rtv += serializator.getBinarySize(getJointCoordinates(j));
         }
         return rtv;
     }
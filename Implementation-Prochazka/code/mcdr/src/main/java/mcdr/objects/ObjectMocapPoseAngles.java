@@ -69,6 +69,16 @@ public abstract class ObjectMocapPoseAngles extends ObjectMocapPose {
         System.arraycopy(angles, 0, this.angles, 0, angles.length);
     }
 
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    protected ObjectMocapPoseAngles(ObjectMocapPoseAngles pose) {
+        super(pose);
+        this.angles = pose.angles.clone();
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseAngles} loaded from
      * stream.
@@ -96,10 +106,10 @@ public abstract class ObjectMocapPoseAngles extends ObjectMocapPose {
 
     //************ Overrided class ObjectMocapPose ************//
     @Override
-    public ObjectMocapPose duplicate() {
+    protected ObjectMocapPose duplicateByConstructor() {
         ObjectMocapPoseAngles pose;
         try {
-            pose = getClass().getConstructor(float[][].class, float[].class).newInstance(new Object[]{jointCoordinates.clone(), angles.clone()});
+            pose = getClass().getConstructor(float[][].class, float[].class).newInstance(new Object[]{unflatten(getCoordinates()), angles.clone()});
         } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
             return null;
         }
@@ -34,6 +34,16 @@ public abstract class ObjectMocapPoseAnglesVels extends ObjectMocapPoseAngles {
         System.arraycopy(velocities, 0, this.velocities, 0, velocities.length);
     }
 
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    protected ObjectMocapPoseAnglesVels(ObjectMocapPoseAnglesVels pose) {
+        super(pose);
+        this.velocities = pose.velocities.clone();
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseAnglesVels} loaded from
      * stream.
@@ -61,10 +71,10 @@ public abstract class ObjectMocapPoseAnglesVels extends ObjectMocapPoseAngles {
 
     //************ Overrided class ObjectMocapPose ************//
     @Override
-    public ObjectMocapPose duplicate() {
+    protected ObjectMocapPose duplicateByConstructor() {
         ObjectMocapPoseAnglesVels pose;
         try {
-            pose = getClass().getConstructor(float[][].class, float[].class, float[].class).newInstance(new Object[]{jointCoordinates.clone(), angles.clone(), velocities.clone()});
+            pose = getClass().getConstructor(float[][].class, float[].class, float[].class).newInstance(new Object[]{unflatten(getCoordinates()), angles.clone(), velocities.clone()});
         } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
             return null;
         }
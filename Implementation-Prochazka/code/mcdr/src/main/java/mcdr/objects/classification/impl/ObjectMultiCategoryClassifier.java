@@ -5,12 +5,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import messif.objects.AbstractObject;
 import messif.objects.classification.ClassificationException;
 import messif.objects.classification.Classifier;
@@ -30,6 +32,12 @@ public class ObjectMultiCategoryClassifier implements Classifier<Iterator<? exte
     private static final String LOCATOR_CATEGORY_REG_EXP = "-";
     // map associating the object id with the categories it belongs to
     protected final Map<String, List<String>> objectToCategoriesMap;
+    // categories parsed from the object locators along with their indexes, so that each locator is split only once
+    private final Map<String, IndexedCategories> locatorCategoriesMap = new ConcurrentHashMap<>();
+    // indexes of category IDs addressing the vote accumulators
+    private final Map<String, Integer> categoryIndexMap = new ConcurrentHashMap<>();
+    // vote accumulators reused by the classifications of the same thread
+    private final ThreadLocal<Votes> threadVotes = ThreadLocal.withInitial(Votes::new);
     // determines whether to also consider the object distance for classification
     protected final boolean weightObjectsByDistance;
 
@@ -122,7 +130,26 @@ public class ObjectMultiCategoryClassifier implements Classifier<Iterator<? exte
         if (objectToCategoriesMap != null) {
             return objectToCategoriesMap.get(getObjectId(o));
         }
-        return Arrays.asList(o.getLocatorURI().split(LOCATOR_REG_EXP)[1].split(LOCATOR_CATEGORY_REG_EXP));
+        return locatorCategoriesMap.computeIfAbsent(o.getLocatorURI(),
+                locator -> new IndexedCategories(locator.split(LOCATOR_REG_EXP)[1].split(LOCATOR_CATEGORY_REG_EXP)));
+    }
+
+    /**
+     * Returns the index of the category addressing the vote accumulators. The
+     * indexes are assigned to categories in the order of their first
+     * occurrence.
+     *
+     * @param category category ID
+     * @return the index of the category
+     */
+    private int getCategoryIndex(String category) {
+        Integer index = categoryIndexMap.get(category);
+        if (index == null) {
+            synchronized (categoryIndexMap) {
+                index = categoryIndexMap.computeIfAbsent(category, c -> categoryIndexMap.size());
+            }
+        }
+        return index;
     }
 
     //************ Implemented interface Classifier ************//
@@ -150,28 +177,31 @@ public class ObjectMultiCategoryClassifier implements Classifier<Iterator<? exte
             maxDistance *= 1.1f;
         }
 
-        // classification holder - keys represent categories, values represent the confidences
-        Map<String, Float> confidenceMap = new HashMap<>();
-        float confidenceSum = 0f;
-        for (RankedAbstractObject o : objects) {
-            for (String category : getObjectCategories(o.getObject())) {
-                Float confidence = confidenceMap.get(category);
+        // votes of the objects accumulated for individual categories
+        Votes votes = threadVotes.get();
+        try {
+            float confidenceSum = 0f;
+            for (RankedAbstractObject o : objects) {
                 float objectConfidenceValue = (weightObjectsByDistance) ? 1f - (o.getDistance() / maxDistance) : 1f;
-                if (confidence == null) {
-                    confidence = objectConfidenceValue;
+                List<String> categories = getObjectCategories(o.getObject());
+                if (categories instanceof IndexedCategories indexedCategories) {
+                    for (int i = 0; i < indexedCategories.ids.length; i++) {
+                        votes.add(indexedCategories.indexes[i], indexedCategories.ids[i], objectConfidenceValue);
+                        confidenceSum += objectConfidenceValue;
+                    }
                 } else {
-                    confidence += objectConfidenceValue;
+                    for (String category : categories) {
+                        votes.add(getCategoryIndex(category), category, objectConfidenceValue);
+                        confidenceSum += objectConfidenceValue;
+                    }
                 }
-                confidenceMap.put(category, confidence);
-                confidenceSum += objectConfidenceValue;
             }
-        }
 
-        // normalizes confidence values to [0, 1]
-        for (Map.Entry<String, Float> entry : confidenceMap.entrySet()) {
-            entry.setValue(entry.getValue() / confidenceSum);
+            // classification holder - keys represent categories, values represent the confidences normalized to [0, 1]
+            return new ObjectClassification(votes.collect(confidenceSum));
+        } finally {
+            votes.clear();
         }
-        return new ObjectClassification(confidenceMap);
     }
 
     @Override
@@ -179,4 +209,82 @@ public class ObjectMultiCategoryClassifier implements Classifier<Iterator<? exte
         return String.class;
     }
 
+    //************ Classes ************//
+    /**
+     * Unmodifiable list of category IDs along with their indexes.
+     */
+    private class IndexedCategories extends AbstractList<String> {
+
+        private final String[] ids;
+        private final int[] indexes;
+
+        private IndexedCategories(String[] ids) {
+            this.ids = ids;
+            this.indexes = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                indexes[i] = getCategoryIndex(ids[i]);
+            }
+        }
+
+        @Override
+        public String get(int index) {
+            return ids[index];
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Confidences of categories accumulated in an array indexed by the
+     * category index. Only the categories which received a vote are collected
+     * and cleared, so that the accumulators can be reused by the next
+     * classification.
+     */
+    private static class Votes {
+
+        private float[] confidences = new float[0];
+        private boolean[] voted = new boolean[0];
+        private int[] votedIndexes = new int[0];
+        private String[] votedCategories = new String[0];
+        private int votedCount = 0;
+
+        private void add(int index, String category, float confidence) {
+            if (index >= confidences.length) {
+                int length = Math.max(index + 1, 2 * confidences.length);
+                confidences = Arrays.copyOf(confidences, length);
+                voted = Arrays.copyOf(voted, length);
+                votedIndexes = Arrays.copyOf(votedIndexes, length);
+                votedCategories = Arrays.copyOf(votedCategories, length);
+            }
+            if (voted[index]) {
+                confidences[index] += confidence;
+            } else {
+                voted[index] = true;
+                confidences[index] = confidence;
+                votedIndexes[votedCount] = index;
+                votedCategories[votedCount] = category;
+                votedCount++;
+            }
+        }
+
+        private Map<String, Float> collect(float confidenceSum) {
+            Map<String, Float> confidenceMap = new HashMap<>(2 * votedCount);
+            for (int i = 0; i < votedCount; i++) {
+                confidenceMap.put(votedCategories[i], confidences[votedIndexes[i]] / confidenceSum);
+            }
+            return confidenceMap;
+        }
+
+        private void clear() {
+            for (int i = 0; i < votedCount; i++) {
+                voted[votedIndexes[i]] = false;
+                votedCategories[i] = null;
+            }
+            votedCount = 0;
+        }
+    }
+
 }
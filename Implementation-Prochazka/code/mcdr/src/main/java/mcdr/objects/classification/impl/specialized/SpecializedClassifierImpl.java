@@ -11,6 +11,10 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Specialized classifier evaluating the kNN queries by its configuration.
+ * The configuration carries its own distance function and the classifier is stateless,
+ * so specialized classifiers of different configurations can classify concurrently.
+ *
  * @author David Procházka
  */
 public record SpecializedClassifierImpl(
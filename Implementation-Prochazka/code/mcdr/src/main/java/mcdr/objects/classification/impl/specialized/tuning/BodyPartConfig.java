@@ -1,7 +1,5 @@
 package mcdr.objects.classification.impl.specialized.tuning;
 
-import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
-import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
 import mcdr.test.utils.ObjectCategoryMgmt.Category;
 import mcdr.test.utils.ObjectMgmt;
 import messif.objects.LocalAbstractObject;
@@ -22,10 +20,7 @@ final class BodyPartConfig extends Config<BodyPartResult> {
 
     @Override
     public RankingSingleQueryOperation evaluateQuery(LocalAbstractObject queryObject) {
-        SequenceMotionWordsCompositeAutoTuning.distanceFunction = getResult().distanceFunction();
-        ObjectMotionWordCompositeAutoTuning.matchingFunction = getResult().matchingFunction();
-
-        return evaluate(queryObject);
+        return evaluate(queryObject, getResult().distanceFunction());
     }
 
     @Override
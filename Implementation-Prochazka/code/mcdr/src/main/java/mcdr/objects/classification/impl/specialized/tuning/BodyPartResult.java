@@ -21,12 +21,19 @@ record BodyPartResult(
         BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction,
         float performance
 ) {
-    BodyPartResult(ObjectBodyPart primaryBodyPart, DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction, float performance) {
-        this(primaryBodyPart, null, distanceFunction, primaryBodyPart::match, performance);
+    BodyPartResult(ObjectBodyPart primaryBodyPart, DistanceFunctionFactory distanceFunctionFactory, float performance) {
+        this(primaryBodyPart, null, primaryBodyPart::match, distanceFunctionFactory, performance);
     }
 
-    BodyPartResult(ObjectBodyPart primaryBodyPart, ObjectBodyPart secondaryBodyPart, DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction, float performance) {
-        this(primaryBodyPart, secondaryBodyPart, distanceFunction, ObjectMotionWordComposite.matchAtLeastOne(List.of(primaryBodyPart, secondaryBodyPart)), performance);
+    BodyPartResult(ObjectBodyPart primaryBodyPart, ObjectBodyPart secondaryBodyPart, DistanceFunctionFactory distanceFunctionFactory, float performance) {
+        this(primaryBodyPart, secondaryBodyPart, ObjectMotionWordComposite.matchAtLeastOne(List.of(primaryBodyPart, secondaryBodyPart)), distanceFunctionFactory, performance);
+    }
+
+    /**
+     * Creates the result whose distance function is bound to the matching function.
+     */
+    private BodyPartResult(ObjectBodyPart primaryBodyPart, ObjectBodyPart secondaryBodyPart, BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction, DistanceFunctionFactory distanceFunctionFactory, float performance) {
+        this(primaryBodyPart, secondaryBodyPart, distanceFunctionFactory.create(matchingFunction), matchingFunction, performance);
     }
 
     @Override
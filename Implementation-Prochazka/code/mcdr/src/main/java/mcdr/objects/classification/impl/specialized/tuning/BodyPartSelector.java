@@ -5,18 +5,19 @@ import mcdr.objects.classification.impl.ObjectMultiCategoryClassifier;
 import mcdr.objects.impl.ObjectBodyPart;
 import mcdr.objects.impl.ObjectMotionWordComposite;
 import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
-import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
 import mcdr.test.utils.ObjectMgmt;
 import messif.objects.DistanceFunction;
 import messif.objects.classification.ClassificationException;
 import smf.sequences.Sequence;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 
@@ -31,28 +32,31 @@ final class BodyPartSelector {
     private final ObjectMgmt queryMgmt;
     private final ObjectMultiCategoryClassifier classifier;
     private final int k;
+    private final int threadCount;
 
     BodyPartSelector(
             ObjectMgmt dataMgmt,
             ObjectMgmt queryMgmt,
             ObjectMultiCategoryClassifier classifier,
-            int k
+            int k,
+            int threadCount
     ) {
         this.dataMgmt = dataMgmt;
         this.queryMgmt = queryMgmt;
         this.classifier = classifier;
         this.k = k;
+        this.threadCount = threadCount;
     }
 
     /**
      * Returns information about the selected primary body part.
      *
      * @param selectFrom       set of body parts to select the primary body part from
-     * @param distanceFunction Composite MW distance function
+     * @param distanceFunction factory of the Composite MW distance function
      * @return information about the selected primary body part
      * @throws ClassificationException if there was an error during the classification
      */
-    BodyPartResult selectPrimaryBodyPart(Set<ObjectBodyPart> selectFrom, DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction) throws ClassificationException {
+    BodyPartResult selectPrimaryBodyPart(Set<ObjectBodyPart> selectFrom, DistanceFunctionFactory distanceFunction) throws ClassificationException {
         Map<ObjectBodyPart, Float> evaluationResult = evaluateBodyParts(selectFrom, bodyPart -> bodyPart::match, distanceFunction);
         Entry<ObjectBodyPart, Float> bestPerformingResult = Collections.max(evaluationResult.entrySet(), Entry.comparingByValue());
 
@@ -72,11 +76,11 @@ final class BodyPartSelector {
      *
      * @param primaryBodyPart  previously selected primary body part
      * @param selectFrom       set of body parts to select the secondary body part from
-     * @param distanceFunction Composite MW distance function
+     * @param distanceFunction factory of the Composite MW distance function
      * @return information about the selected secondary body part
      * @throws ClassificationException if there was an error during the classification
      */
-    BodyPartResult selectSecondaryBodyPart(ObjectBodyPart primaryBodyPart, Set<ObjectBodyPart> selectFrom, DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction) throws ClassificationException {
+    BodyPartResult selectSecondaryBodyPart(ObjectBodyPart primaryBodyPart, Set<ObjectBodyPart> selectFrom, DistanceFunctionFactory distanceFunction) throws ClassificationException {
         Map<ObjectBodyPart, Float> evaluationResult = evaluateBodyParts(selectFrom, bodyPart -> ObjectMotionWordComposite.matchAtLeastOne(List.of(primaryBodyPart, bodyPart)), distanceFunction);
         Entry<ObjectBodyPart, Float> bestPerformingResult = Collections.max(evaluationResult.entrySet(), Entry.comparingByValue());
 
@@ -91,23 +95,27 @@ final class BodyPartSelector {
         );
     }
 
-    private Map<ObjectBodyPart, Float> evaluateBodyParts(Set<ObjectBodyPart> selectFrom, Function<? super ObjectBodyPart, ? extends BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite>> matchingFunctionForBodyPart, DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction) throws ClassificationException {
-        var bodyPartResults = new HashMap<ObjectBodyPart, Float>(selectFrom.size());
+    private Map<ObjectBodyPart, Float> evaluateBodyParts(Set<ObjectBodyPart> selectFrom, Function<? super ObjectBodyPart, ? extends BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite>> matchingFunctionForBodyPart, DistanceFunctionFactory distanceFunction) throws ClassificationException {
+        var bodyParts = List.copyOf(selectFrom);
+        var candidates = new ArrayList<Callable<Float>>(bodyParts.size());
 
-        for (var bodyPart : selectFrom) {
-            float classificationPerformance = evaluateBodyPart(matchingFunctionForBodyPart.apply(bodyPart), distanceFunction);
+        for (var bodyPart : bodyParts) {
+            var matchingFunction = matchingFunctionForBodyPart.apply(bodyPart);
+            candidates.add(() -> evaluateBodyPart(distanceFunction.create(matchingFunction)));
+        }
 
-            bodyPartResults.put(bodyPart, classificationPerformance);
+        var performances = CandidateEvaluator.evaluate(candidates, performance -> false, threadCount);
+        var bodyPartResults = new HashMap<ObjectBodyPart, Float>(selectFrom.size());
+
+        for (int i = 0; i < bodyParts.size(); i++) {
+            bodyPartResults.put(bodyParts.get(i), performances.get(i));
         }
 
         return bodyPartResults;
     }
 
-    private float evaluateBodyPart(BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction, DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction) throws ClassificationException {
-        SequenceMotionWordsCompositeAutoTuning.distanceFunction = distanceFunction;
-        ObjectMotionWordCompositeAutoTuning.matchingFunction = matchingFunction;
-
-        var knnQueries = dataMgmt.executeKNNQueries(queryMgmt, k);
+    private float evaluateBodyPart(DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> distanceFunction) throws ClassificationException {
+        var knnQueries = dataMgmt.executeKNNQueries(queryMgmt, k, distanceFunction);
         ClassificationResult result = dataMgmt.evaluateClassificationWithClassificationResult(classifier, knnQueries);
 
         return result.performance();
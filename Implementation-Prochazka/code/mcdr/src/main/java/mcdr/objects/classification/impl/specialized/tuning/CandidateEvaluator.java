@@ -0,0 +1,106 @@
+package mcdr.objects.classification.impl.specialized.tuning;
+
+import messif.objects.classification.ClassificationException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates tuning candidates, possibly in parallel.
+ * Every candidate carries its own distance and matching functions, so the candidates do not share any mutable state.
+ * The results are always returned in the order of the candidates, so the selection among them is the same
+ * as in the sequential evaluation.
+ */
+final class CandidateEvaluator {
+
+    private CandidateEvaluator() {
+    }
+
+    /**
+     * Evaluates the candidates and returns their results in the order of the candidates.
+     * The evaluation stops at the first result (in the order of the candidates) satisfying {@code stopCondition},
+     * which is the last returned result. In parallel, at most {@code threadCount} candidates are evaluated at once
+     * and the candidates still running when the evaluation stops are cancelled.
+     *
+     * @param candidates    the candidates to evaluate
+     * @param stopCondition the condition of a result after which no other candidate is needed
+     * @param threadCount   the number of threads (values lower than 2 evaluate the candidates sequentially
+     *                      in the calling thread)
+     * @param <R>           the type of the results
+     * @return the results in the order of the candidates
+     * @throws ClassificationException if the evaluation of a candidate fails
+     */
+    static <R> List<R> evaluate(List<? extends Callable<R>> candidates, Predicate<? super R> stopCondition, int threadCount) throws ClassificationException {
+        var results = new ArrayList<R>(candidates.size());
+
+        if (threadCount <= 1 || candidates.size() <= 1) {
+            for (var candidate : candidates) {
+                var result = call(candidate);
+                results.add(result);
+
+                if (stopCondition.test(result)) {
+                    break;
+                }
+            }
+
+            return results;
+        }
+
+        int poolSize = Math.min(threadCount, candidates.size());
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            // Only as many candidates as the threads are submitted ahead, so no further candidate is evaluated
+            // once a result satisfies the stop condition
+            var futures = new ArrayDeque<Future<R>>(poolSize);
+            var candidateIterator = candidates.iterator();
+            while (futures.size() < poolSize) {
+                futures.add(executor.submit(candidateIterator.next()));
+            }
+
+            // Collecting the results in the order of candidates
+            while (!futures.isEmpty()) {
+                var result = futures.poll().get();
+                results.add(result);
+
+                if (stopCondition.test(result)) {
+                    break;
+                }
+                if (candidateIterator.hasNext()) {
+                    futures.add(executor.submit(candidateIterator.next()));
+                }
+            }
+
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation of tuning candidates was interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ClassificationException classificationException) {
+                throw classificationException;
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Evaluation of tuning candidates failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <R> R call(Callable<R> candidate) throws ClassificationException {
+        try {
+            return candidate.call();
+        } catch (ClassificationException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Evaluation of tuning candidate failed", ex);
+        }
+    }
+}
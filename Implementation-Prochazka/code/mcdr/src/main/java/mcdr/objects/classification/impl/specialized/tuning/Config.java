@@ -3,6 +3,7 @@ package mcdr.objects.classification.impl.specialized.tuning;
 import mcdr.objects.classification.impl.specialized.SpecializedClassifierConfig;
 import mcdr.test.utils.ObjectCategoryMgmt.Category;
 import mcdr.test.utils.ObjectMgmt;
+import messif.objects.DistanceFunction;
 import messif.objects.LocalAbstractObject;
 import messif.operations.RankingSingleQueryOperation;
 
@@ -58,11 +59,18 @@ abstract sealed class Config<T> implements SpecializedClassifierConfig permits B
         return invocationCategory.getId();
     }
 
-    RankingSingleQueryOperation evaluate(LocalAbstractObject queryObject) {
+    /**
+     * Evaluates a single kNN query measuring the objects by the given distance function.
+     *
+     * @param queryObject      the query object
+     * @param distanceFunction the distance function of this configuration
+     * @return the result of the kNN query
+     */
+    RankingSingleQueryOperation evaluate(LocalAbstractObject queryObject, DistanceFunction<?> distanceFunction) {
         var queryMgmt = new ObjectMgmt(dataMgmt.getCategoryMgmt());
         queryMgmt.addObject(queryObject, null, null);
 
-        var kNNAnswer = dataMgmt.executeKNNQueries(queryMgmt, k);
+        var kNNAnswer = dataMgmt.executeKNNQueries(queryMgmt, k, distanceFunction);
 
         return extractQueryAnswer(kNNAnswer);
     }
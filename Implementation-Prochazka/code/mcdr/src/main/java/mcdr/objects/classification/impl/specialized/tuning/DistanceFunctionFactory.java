@@ -0,0 +1,24 @@
+package mcdr.objects.classification.impl.specialized.tuning;
+
+import mcdr.objects.impl.ObjectMotionWordComposite;
+import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
+import messif.objects.DistanceFunction;
+import smf.sequences.Sequence;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Creates a Composite MW distance function matching the motion words by the given matching function.
+ */
+@FunctionalInterface
+interface DistanceFunctionFactory {
+
+    /**
+     * Returns the distance function bound to the matching function.
+     *
+     * @param matchingFunction the function deciding whether two motion words match
+     * @return the distance function
+     */
+    DistanceFunction<Sequence<List<ObjectMotionWordCompositeAutoTuning>>> create(BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction);
+}
@@ -1,9 +1,6 @@
 package mcdr.objects.classification.impl.specialized.tuning;
 
-import mcdr.objects.impl.ObjectMocapPoseCoordsL2Filtered;
-import mcdr.objects.impl.ObjectMotionWordComposite;
 import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning;
-import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
 import mcdr.test.utils.ObjectCategoryMgmt.Category;
 import mcdr.test.utils.ObjectMgmt;
 import messif.objects.LocalAbstractObject;
@@ -18,26 +15,23 @@ import java.util.Set;
  */
 final class ExtremumNeighborhoodConfig extends Config<ExtremumNeighborhoodResult> {
 
-    private final ObjectMgmt originalActionMgmt;
+    private final SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<?> distanceFunction;
 
     ExtremumNeighborhoodConfig(Category invocationCategory, Set<Category> classificationCategories, int k, ObjectMgmt dataMgmt, ExtremumNeighborhoodResult result, ObjectMgmt originalActionMgmt) {
         super(invocationCategory, classificationCategories, k, dataMgmt, result);
-        this.originalActionMgmt = originalActionMgmt;
+        this.distanceFunction = new SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<>(
+                originalActionMgmt,
+                result.bodyPart().jointIds(),
+                result.jointIndex(),
+                result.axisIndex(),
+                result.percentage(),
+                result.extremum()
+        );
     }
 
     @Override
     public RankingSingleQueryOperation evaluateQuery(LocalAbstractObject queryObject) {
-        var bodyPart = ObjectMotionWordComposite.getBodyPart(getResult().jointIndex());
-
-        ObjectMocapPoseCoordsL2Filtered.jointIds = bodyPart.jointIds();
-        SequenceMotionWordsCompositeAutoTuning.distanceFunction = new SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<>();
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.originalActionMgmt = originalActionMgmt;
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.axisIndex = getResult().axisIndex();
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.jointIndex = getResult().jointIndex();
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.extremum = getResult().extremum();
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.percentage = getResult().percentage();
-
-        return evaluate(queryObject);
+        return evaluate(queryObject, distanceFunction);
     }
 
     @Override
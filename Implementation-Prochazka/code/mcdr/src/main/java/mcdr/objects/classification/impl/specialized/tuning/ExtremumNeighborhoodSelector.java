@@ -4,11 +4,9 @@ import mcdr.objects.classification.impl.ClassificationResult;
 import mcdr.objects.classification.impl.ObjectMultiCategoryClassifier;
 import mcdr.objects.impl.Extremum;
 import mcdr.objects.impl.ObjectBodyPart;
-import mcdr.objects.impl.ObjectMocapPoseCoordsL2Filtered;
 import mcdr.objects.impl.ObjectMotionWordComposite;
 import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTWFiltered;
 import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning;
-import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
 import mcdr.test.utils.ObjectMgmt;
 import messif.objects.classification.ClassificationException;
 import messif.objects.impl.MetaObjectArray;
@@ -21,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import static mcdr.objects.impl.BodyPartConfiguration.JOINT_DIM;
 
@@ -39,40 +38,22 @@ final class ExtremumNeighborhoodSelector {
     private final ObjectMgmt originalActionMgmt;
     private final ObjectMultiCategoryClassifier classifier;
     private final int k;
+    private final int threadCount;
 
     ExtremumNeighborhoodSelector(
             ObjectMgmt dataMgmt,
             ObjectMgmt queryMgmt,
             ObjectMgmt originalActionMgmt,
             ObjectMultiCategoryClassifier classifier,
-            int k
+            int k,
+            int threadCount
     ) {
         this.dataMgmt = dataMgmt;
         this.queryMgmt = queryMgmt;
         this.originalActionMgmt = originalActionMgmt;
         this.classifier = classifier;
         this.k = k;
-    }
-
-    /**
-     * Sets values of the static distance properties.
-     *
-     * @param originalActionMgmt action management
-     * @param jointIndex         joint index
-     * @param axisIndex          axis index
-     * @param percentage         percentage
-     * @param extremum           the type of extremum to use
-     * @param bodyPart           body part
-     */
-    private static void setStaticDistanceProperties(ObjectMgmt originalActionMgmt, int jointIndex, int axisIndex, float percentage, Extremum extremum, ObjectBodyPart bodyPart) {
-        SequenceMotionWordsCompositeAutoTuning.distanceFunction = new SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<>();
-        ObjectMocapPoseCoordsL2Filtered.jointIds = bodyPart.jointIds();
-
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.originalActionMgmt = originalActionMgmt;
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.axisIndex = axisIndex;
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.jointIndex = jointIndex;
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.percentage = percentage;
-        SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning.extremum = extremum;
+        this.threadCount = threadCount;
     }
 
     /**
@@ -99,10 +80,8 @@ final class ExtremumNeighborhoodSelector {
         for (var action : actions) {
             for (var pose : action.getObjects()) {
                 for (int jointIndex = 0; jointIndex < ObjectMotionWordComposite.getJointCount(); jointIndex++) {
-                    float[] joint = pose.getJointCoordinates()[jointIndex];
-
                     for (int axisIndex = 0; axisIndex < JOINT_DIM; axisIndex++) {
-                        float value = joint[axisIndex];
+                        float value = pose.getJointCoordinate(jointIndex, axisIndex);
                         int columnIndex = jointIndex * JOINT_DIM + axisIndex;
 
                         matrix.setEntry(rowIndex, columnIndex, value);
@@ -170,23 +149,28 @@ final class ExtremumNeighborhoodSelector {
      * @throws ClassificationException if the classification fails
      */
     private List<ExtremumNeighborhoodResult> evaluate(int jointIndex, int axisIndex, ObjectBodyPart bodyPart) throws ClassificationException {
-        var results = new ArrayList<ExtremumNeighborhoodResult>(PERCENTAGES.size() * Extremum.values().length);
+        var candidates = new ArrayList<Callable<ExtremumNeighborhoodResult>>(PERCENTAGES.size() * Extremum.values().length);
 
         for (float percentage : PERCENTAGES) {
             for (var extremum : Extremum.values()) {
-                var result = evaluate(jointIndex, axisIndex, bodyPart, percentage, extremum);
+                candidates.add(() -> evaluate(jointIndex, axisIndex, bodyPart, percentage, extremum));
+            }
+        }
 
-                if (result.performance() > PERFECT_CLASSIFICATION_PERFORMANCE_THRESHOLD) {
-                    return List.of(result);
-                }
+        var results = CandidateEvaluator.evaluate(candidates, ExtremumNeighborhoodSelector::isPerfect, threadCount);
+        var lastResult = results.get(results.size() - 1);
 
-                results.add(result);
-            }
+        if (isPerfect(lastResult)) {
+            return List.of(lastResult);
         }
 
         return results;
     }
 
+    private static boolean isPerfect(ExtremumNeighborhoodResult result) {
+        return result.performance() > PERFECT_CLASSIFICATION_PERFORMANCE_THRESHOLD;
+    }
+
     /**
      * Evaluate the performance of the given parameters.
      *
@@ -199,9 +183,9 @@ final class ExtremumNeighborhoodSelector {
      * @throws ClassificationException if the classification fails
      */
     private ExtremumNeighborhoodResult evaluate(int jointIndex, int axisIndex, ObjectBodyPart bodyPart, float percentage, Extremum extremum) throws ClassificationException {
-        setStaticDistanceProperties(originalActionMgmt, jointIndex, axisIndex, percentage, extremum, bodyPart);
+        var distanceFunction = new SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<>(originalActionMgmt, bodyPart.jointIds(), jointIndex, axisIndex, percentage, extremum);
 
-        var knnQueries = dataMgmt.executeKNNQueries(queryMgmt, k);
+        var knnQueries = dataMgmt.executeKNNQueries(queryMgmt, k, distanceFunction);
         ClassificationResult result = dataMgmt.evaluateClassificationWithClassificationResult(classifier, knnQueries);
 
         return new ExtremumNeighborhoodResult(
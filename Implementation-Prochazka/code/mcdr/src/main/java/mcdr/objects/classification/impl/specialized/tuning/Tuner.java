@@ -1,6 +1,6 @@
 package mcdr.objects.classification.impl.specialized.tuning;
 
-import mcdr.distance.LevenshteinDistance;
+import mcdr.distance.MatchingLevenshteinDistance;
 import mcdr.distance.RepetitionDistance;
 import mcdr.objects.classification.impl.ClassificationResult;
 import mcdr.objects.classification.impl.ObjectMultiCategoryClassifier;
@@ -8,7 +8,6 @@ import mcdr.objects.classification.impl.specialized.SpecializedClassifier;
 import mcdr.objects.classification.impl.specialized.SpecializedClassifierConfig;
 import mcdr.objects.classification.impl.specialized.SpecializedClassifierImpl;
 import mcdr.objects.impl.ObjectMotionWordComposite;
-import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
 import mcdr.test.utils.ObjectCategoryMgmt.Category;
 import mcdr.test.utils.ObjectMgmt;
 import messif.objects.classification.ClassificationException;
@@ -37,15 +36,64 @@ public final class Tuner {
     private final int k;
     private final ObjectMgmt dataMgmt;
     private final ObjectMgmt originalActionMgmt;
+    private final long maxClassificationCategoriesPerInvocationCategory;
+    // number of threads evaluating the candidate configurations of a specialized classifier (values lower than 2
+    // evaluate the candidates sequentially); the tuned classifiers do not depend on it
+    private final int candidateThreadCount;
 
     public Tuner(
             int k,
             ObjectMgmt dataMgmt,
             ObjectMgmt originalActionMgmt
+    ) {
+        this(k, dataMgmt, originalActionMgmt, MAX_CLASSIFICATION_CATEGORIES_PER_INVOCATION_CATEGORY);
+    }
+
+    /**
+     * Creates a tuner with its own limit of classification categories, so that tuners with different limits can run
+     * concurrently.
+     *
+     * @param k                                                 number of neighbors considered by the classifiers
+     * @param dataMgmt                                          training actions
+     * @param originalActionMgmt                                original actions of the training actions
+     * @param maxClassificationCategoriesPerInvocationCategory maximum number of classification categories of
+     *                                                          a specialized classifier
+     */
+    public Tuner(
+            int k,
+            ObjectMgmt dataMgmt,
+            ObjectMgmt originalActionMgmt,
+            long maxClassificationCategoriesPerInvocationCategory
+    ) {
+        this(k, dataMgmt, originalActionMgmt, maxClassificationCategoriesPerInvocationCategory, 1);
+    }
+
+    /**
+     * Creates a tuner evaluating the candidate configurations of every specialized classifier by the given number of
+     * threads. It should be left at 1 when the tuner itself runs in a parallel context (e.g., a fold of a concurrent
+     * cross-validation), so that the thread counts of the nested levels do not multiply.
+     *
+     * @param k                                                 number of neighbors considered by the classifiers
+     * @param dataMgmt                                          training actions
+     * @param originalActionMgmt                                original actions of the training actions
+     * @param maxClassificationCategoriesPerInvocationCategory maximum number of classification categories of
+     *                                                          a specialized classifier
+     * @param candidateThreadCount                              number of threads evaluating the candidate
+     *                                                          configurations (values lower than 2 evaluate them
+     *                                                          sequentially)
+     */
+    public Tuner(
+            int k,
+            ObjectMgmt dataMgmt,
+            ObjectMgmt originalActionMgmt,
+            long maxClassificationCategoriesPerInvocationCategory,
+            int candidateThreadCount
     ) {
         this.k = k;
         this.dataMgmt = dataMgmt;
         this.originalActionMgmt = originalActionMgmt;
+        this.maxClassificationCategoriesPerInvocationCategory = maxClassificationCategoriesPerInvocationCategory;
+        this.candidateThreadCount = candidateThreadCount;
     }
 
     private static void printClassifierStats(Map<String, SpecializedClassifier> specializedClassifiers) {
@@ -105,7 +153,7 @@ public final class Tuner {
         logger.info("Misclassification graph size: %d".formatted(misclassificationGraph.size()));
         logger.info("Misclassification graph: %s".formatted(misclassificationGraph));
 
-        var categoryAssociations = misclassificationGraph.createCategoryAssociations(MAX_CLASSIFICATION_CATEGORIES_PER_INVOCATION_CATEGORY);
+        var categoryAssociations = misclassificationGraph.createCategoryAssociations(maxClassificationCategoriesPerInvocationCategory);
         logger.info("Invocation and classification categories: %s".formatted(categoryAssociations));
 
         var specializedClassifiers = new HashMap<String, SpecializedClassifier>();
@@ -137,11 +185,11 @@ public final class Tuner {
         ));
 
         var classifier = new ObjectMultiCategoryClassifier(true);
-        var levenshteinDistance = new LevenshteinDistance<List<ObjectMotionWordCompositeAutoTuning>>();
-        var repetitionDistance = new RepetitionDistance(new LevenshteinDistance<>());
+        DistanceFunctionFactory levenshteinDistance = MatchingLevenshteinDistance::new;
+        DistanceFunctionFactory repetitionDistance = matchingFunction -> new RepetitionDistance(new MatchingLevenshteinDistance(matchingFunction));
 
         // Body Part method
-        var bodyPartMethod = new BodyPartSelector(classificationCategoriesDataMgmt, classificationCategoriesDataMgmt, classifier, k);
+        var bodyPartMethod = new BodyPartSelector(classificationCategoriesDataMgmt, classificationCategoriesDataMgmt, classifier, k, candidateThreadCount);
         var primaryBodyPartResult = bodyPartMethod.selectPrimaryBodyPart(ObjectMotionWordComposite.getBodyParts(), levenshteinDistance);
         var primaryBodyPart = primaryBodyPartResult.primaryBodyPart();
         logger.info(" %s: %s".formatted(primaryBodyPart, primaryBodyPartResult.performance()));
@@ -179,9 +227,11 @@ public final class Tuner {
 
         // Extremum Neighborhood method
         var classificationCategoriesOriginalActionMgmt = originalActionMgmt.copy(classificationCategories);
-        var extremaNeighborhoodSelector = new ExtremumNeighborhoodSelector(classificationCategoriesDataMgmt, classificationCategoriesDataMgmt, classificationCategoriesOriginalActionMgmt, classifier, k);
+        var extremaNeighborhoodSelector = new ExtremumNeighborhoodSelector(classificationCategoriesDataMgmt, classificationCategoriesDataMgmt, classificationCategoriesOriginalActionMgmt, classifier, k, candidateThreadCount);
+        long selectionStartTime = System.currentTimeMillis();
         var neighborhoodResult = extremaNeighborhoodSelector.select();
         logger.info(" %s".formatted(neighborhoodResult));
+        logger.info(" Extremum neighborhood selection took: %ss".formatted((System.currentTimeMillis() - selectionStartTime) / 1_000.0f));
 
         if (bestPerformingBPResult.performance() >= neighborhoodResult.performance()) {
             return bodyPartConfig;
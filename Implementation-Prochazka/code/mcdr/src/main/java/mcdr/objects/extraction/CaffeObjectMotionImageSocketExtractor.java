@@ -5,7 +5,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +21,7 @@ import mcdr.preprocessing.transformation.impl.MotionImageConvertorWeightedJoints
 import mcdr.preprocessing.transformation.impl.NormalizationOfOrientationConvertor;
 import mcdr.preprocessing.transformation.impl.NormalizationOfPositionConvertor;
 import mcdr.preprocessing.transformation.impl.NormalizationOfSkeletonSize;
+import mcdr.preprocessing.transformation.impl.SequenceNormalizationConvertor;
 import mcdr.sequence.KinematicTree;
 import mcdr.sequence.SequenceMocap;
 import mcdr.test.utils.SequenceMocapMgmt;
@@ -39,12 +43,16 @@ import messif.utility.reflection.NoSuchInstantiatorException;
  */
 public class CaffeObjectMotionImageSocketExtractor {
 
-    // host machine name which the neural-network listens to
-    private static final String HOST_NAME = "cybela9.fi.muni.cz";
-    // port on the host machine which the neural-network listens to
-    private static final int PORT_NUMBER = 23399;
+    // host machine name which the neural-network listens to (used by the factory methods)
+    public static String HOST_NAME = "cybela9.fi.muni.cz";
+    // port on the host machine which the neural-network listens to (used by the factory methods)
+    public static int PORT_NUMBER = 23399;
+    // number of persistent connections to the neural-network (0 to open a new connection for each image, which is supported by any server)
+    public static int CONNECTION_COUNT = 0;
     // convertors for normalizing the sequence
     private final List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors;
+    // single-pass equivalent of the sequence convertors (null if they cannot be fused)
+    private final SequenceNormalizationConvertor<SequenceMocap<?>> fusedSequenceConvertor;
     // convertor for transforming a sequence into a 2D motion image
     private final Convertor<SequenceMocap<?>, BufferedImage> motionImageConvertor;
     // extractor connected to a provided host/port
@@ -63,9 +71,47 @@ public class CaffeObjectMotionImageSocketExtractor {
      * @throws NoSuchInstantiatorException
      */
     public CaffeObjectMotionImageSocketExtractor(List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors, Convertor<SequenceMocap<?>, BufferedImage> motionImageConvertor, String caffeObjectExtractorHost, int caffeObjectExtractorPort) throws NoSuchInstantiatorException {
+        this(sequenceConvertors, motionImageConvertor, caffeObjectExtractorHost, caffeObjectExtractorPort, CONNECTION_COUNT);
+    }
+
+    /**
+     * Creates a new instance of {@link CaffeObjectMotionImageSocketExtractor}.
+     *
+     * @param sequenceConvertors convertors for normalizing the sequence
+     * @param motionImageConvertor convertor for transforming a sequence into a
+     * 2D motion image
+     * @param caffeObjectExtractorHost host machine which the neural-network
+     * listens to
+     * @param caffeObjectExtractorPort port which the neural-network listens to
+     * @param connectionCount number of persistent connections to the
+     * neural-network that also accept batches of images (see
+     * {@link PooledBatchSocketExtractor}), or 0 to open a new connection for
+     * each image
+     * @throws NoSuchInstantiatorException
+     */
+    public CaffeObjectMotionImageSocketExtractor(List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors, Convertor<SequenceMocap<?>, BufferedImage> motionImageConvertor, String caffeObjectExtractorHost, int caffeObjectExtractorPort, int connectionCount) throws NoSuchInstantiatorException {
+        this(sequenceConvertors, motionImageConvertor, (connectionCount > 0)
+                ? new PooledBatchSocketExtractor(caffeObjectExtractorHost, caffeObjectExtractorPort, connectionCount)
+                : Extractors.createSocketExtractor(ObjectFloatVectorNeuralNetworkL2.class, caffeObjectExtractorHost, new int[]{caffeObjectExtractorPort}, 0));
+    }
+
+    /**
+     * Creates a new instance of {@link CaffeObjectMotionImageSocketExtractor}
+     * that extracts the feature vectors from PNG motion images by the given
+     * extractor, e.g., by a local stand-in of the neural network.
+     *
+     * @param sequenceConvertors convertors for normalizing the sequence
+     * @param motionImageConvertor convertor for transforming a sequence into a
+     * 2D motion image
+     * @param caffeObjectExtractor extractor of the feature vector from the PNG
+     * motion image
+     * @throws NoSuchInstantiatorException
+     */
+    public CaffeObjectMotionImageSocketExtractor(List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors, Convertor<SequenceMocap<?>, BufferedImage> motionImageConvertor, Extractor<ObjectFloatVectorNeuralNetworkL2> caffeObjectExtractor) throws NoSuchInstantiatorException {
         this.sequenceConvertors = sequenceConvertors;
+        this.fusedSequenceConvertor = SequenceNormalizationConvertor.fuse(sequenceConvertors);
         this.motionImageConvertor = motionImageConvertor;
-        this.caffeObjectExtractor = Extractors.createSocketExtractor(ObjectFloatVectorNeuralNetworkL2.class, caffeObjectExtractorHost, new int[]{caffeObjectExtractorPort}, 0);
+        this.caffeObjectExtractor = caffeObjectExtractor;
     }
 
     //************ Static methods ************//
@@ -90,15 +136,95 @@ public class CaffeObjectMotionImageSocketExtractor {
         return normalizedSequence;
     }
 
+    /**
+     * Encodes the motion image in the PNG format that is sent to the
+     * neural-network.
+     *
+     * @param sequenceImage motion image to be encoded
+     * @return bytes of the PNG image
+     * @throws IOException
+     */
+    public static byte[] encodeMotionImage(BufferedImage sequenceImage) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(sequenceImage, "png", baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Returns the step between the indexes of the frames that are kept by the
+     * fps convertors (including the fused ones) among the specified convertors.
+     *
+     * @param sequenceConvertors convertors for normalizing the sequence
+     * @return the step between the kept frames (1 if all the frames are kept)
+     */
+    public static int getFrameStep(List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors) {
+        int frameStep = 1;
+        for (SequenceMocapConvertor<SequenceMocap<?>> sequenceConvertor : sequenceConvertors) {
+            if (sequenceConvertor instanceof FPSConvertor) {
+                frameStep *= ((FPSConvertor<?>) sequenceConvertor).getFrameStep();
+            } else if (sequenceConvertor instanceof SequenceNormalizationConvertor) {
+                frameStep *= ((SequenceNormalizationConvertor<?>) sequenceConvertor).getFrameStep();
+            }
+        }
+        return frameStep;
+    }
+
+    /**
+     * Normalizes the whole long sequence by all specified convertors except
+     * the fps convertors. Each subsequence of the normalized sequence
+     * subsampled by {@link #getFrameStep} is then identical to the same
+     * subsequence normalized by {@link #normalizeSequence}, so the long
+     * sequence needs to be normalized only once. This is possible only if all
+     * the other convertors convert each pose independently. The standard chain
+     * of the other convertors is applied by a single pass of
+     * {@link SequenceNormalizationConvertor}.
+     *
+     * @param sequence long sequence to be normalized
+     * @param sequenceConvertors convertors for normalizing the sequence
+     * @return normalized sequence of all the frames, or null if some convertor
+     * does not convert the poses independently
+     */
+    public static SequenceMocap<?> normalizeStream(SequenceMocap<?> sequence, List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors) {
+        List<SequenceMocapConvertor<SequenceMocap<?>>> poseWiseConvertors = new ArrayList<>(sequenceConvertors.size());
+        for (SequenceMocapConvertor<SequenceMocap<?>> sequenceConvertor : sequenceConvertors) {
+            if (sequenceConvertor instanceof FPSConvertor) {
+                continue;
+            }
+            if (!sequenceConvertor.isPoseWise()) {
+                return null;
+            }
+            poseWiseConvertors.add(sequenceConvertor);
+        }
+        try {
+            SequenceNormalizationConvertor<SequenceMocap<?>> fusedConvertor = SequenceNormalizationConvertor.fuse(poseWiseConvertors);
+            if (fusedConvertor != null) {
+                return normalizeSequence(sequence, Collections.<SequenceMocapConvertor<SequenceMocap<?>>>singletonList(fusedConvertor));
+            }
+        } catch (NoSuchInstantiatorException ex) {
+            System.err.println(ex.toString());
+        }
+        return normalizeSequence(sequence, poseWiseConvertors);
+    }
+
     //************ Methods ************//
     /**
-     * Normalizes the input sequence by all convertors loaded in advance.
+     * Normalizes the input sequence by all convertors loaded in advance. The
+     * standard chain of convertors (see {@link #createSequenceConvertors}) is
+     * applied by a single pass of {@link SequenceNormalizationConvertor}.
      *
      * @param sequence sequence to be normalized
      * @return normalized input sequence
      */
     public SequenceMocap<?> normalizeSequence(SequenceMocap<?> sequence) {
-        return normalizeSequence(sequence, this.sequenceConvertors);
+        if (fusedSequenceConvertor == null) {
+            return normalizeSequence(sequence, this.sequenceConvertors);
+        }
+        try {
+            return fusedSequenceConvertor.convert(sequence);
+        } catch (Exception ex) {
+            System.err.println(ex.toString());
+            return null;
+        }
     }
 
     /**
@@ -127,6 +253,56 @@ public class CaffeObjectMotionImageSocketExtractor {
         return extractObject(generateMotionImage(normalizeSequence(sequence)), sequence.getObjectKey());
     }
 
+    /**
+     * Extracts the 4,096D feature vectors for a batch of input sequences. Each
+     * sequence is first normalized and transformed into the motion image. If
+     * the extractor holds persistent connections, all the images are sent in a
+     * single request, otherwise each image is sent by its own request. The
+     * extraction can be called by multiple threads concurrently, each
+     * extraction request uses its own connection.
+     *
+     * @param sequences sequences used to extract their 4,096D feature vectors
+     * @return objects encapsulating the extracted 4,096D feature vectors in the
+     * order of the input sequences
+     * @throws Exception if the extraction of some sequence fails
+     */
+    public List<ObjectFloatVectorNeuralNetworkL2> extractObjects(List<? extends SequenceMocap<?>> sequences) throws Exception {
+        List<ObjectFloatVectorNeuralNetworkL2> rtv = new ArrayList<>(sequences.size());
+        extractObjects(sequences, rtv);
+        return rtv;
+    }
+
+    /**
+     * Extracts the 4,096D feature vectors for a batch of input sequences the
+     * same way as {@link #extractObjects(java.util.List)} and adds them to the
+     * given collection in the order of the input sequences. If the extraction
+     * fails, the collection contains the objects of the sequences extracted
+     * before the failure, i.e., the objects of a prefix of the input sequences
+     * (none if the images are sent in a single request).
+     *
+     * @param sequences sequences used to extract their 4,096D feature vectors
+     * @param extractedObjects collection to which the objects encapsulating
+     * the extracted 4,096D feature vectors are added
+     * @throws Exception if the extraction of some sequence fails
+     */
+    public void extractObjects(List<? extends SequenceMocap<?>> sequences, Collection<? super ObjectFloatVectorNeuralNetworkL2> extractedObjects) throws Exception {
+        if (caffeObjectExtractor instanceof PooledBatchSocketExtractor) {
+            List<byte[]> images = new ArrayList<>(sequences.size());
+            for (SequenceMocap<?> sequence : sequences) {
+                images.add(encodeMotionImage(generateMotionImage(normalizeSequence(sequence))));
+            }
+            List<ObjectFloatVectorNeuralNetworkL2> rtv = ((PooledBatchSocketExtractor) caffeObjectExtractor).extract(images);
+            for (int i = 0; i < rtv.size(); i++) {
+                rtv.get(i).setObjectKey(sequences.get(i).getObjectKey());
+            }
+            extractedObjects.addAll(rtv);
+            return;
+        }
+        for (SequenceMocap<?> sequence : sequences) {
+            extractedObjects.add(extractObject(sequence));
+        }
+    }
+
     /**
      * Extracts the 4,096D feature vector for an input motion image. The feature
      * vector is encapsulated within the
@@ -139,10 +315,7 @@ public class CaffeObjectMotionImageSocketExtractor {
      * @throws Exception
      */
     public ObjectFloatVectorNeuralNetworkL2 extractObject(BufferedImage sequenceImage, AbstractObjectKey objectKey) throws Exception {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(sequenceImage, "png", baos);
-        baos.flush();
-        ObjectFloatVectorNeuralNetworkL2 extractedObject = caffeObjectExtractor.extract(new ExtractorDataSource(baos.toByteArray()));
+        ObjectFloatVectorNeuralNetworkL2 extractedObject = caffeObjectExtractor.extract(new ExtractorDataSource(encodeMotionImage(sequenceImage)));
         extractedObject.setObjectKey(objectKey);
         return extractedObject;
     }
@@ -174,6 +347,15 @@ public class CaffeObjectMotionImageSocketExtractor {
         System.out.println("Extracted object count: " + objectCount);
     }
 
+    /**
+     * Closes the persistent connections to the neural-network, if any.
+     */
+    public void close() {
+        if (caffeObjectExtractor instanceof PooledBatchSocketExtractor) {
+            ((PooledBatchSocketExtractor) caffeObjectExtractor).close();
+        }
+    }
+
     //************ Factory methods ************//
     /**
      * Creates a list of sequence converters based on specified paramteres.
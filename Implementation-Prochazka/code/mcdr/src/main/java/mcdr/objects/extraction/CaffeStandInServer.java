@@ -0,0 +1,225 @@
+package mcdr.objects.extraction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import messif.objects.impl.ObjectFloatVectorNeuralNetworkL2;
+
+/**
+ * Local stand-in of the neural network that extracts the 4,096D feature
+ * vectors from PNG motion images, so the extraction can be run and measured
+ * without the lab server. Instead of evaluating the network, the stand-in
+ * computes deterministic pseudo-features from the image bytes: the same image
+ * always gets the same feature vector, different images get unrelated ones.
+ * <p>
+ * The server accepts both the requests of the socket extractor of messif (one
+ * image per connection) and the batch requests over persistent connections of
+ * {@link PooledBatchSocketExtractor}. Each connection is served by its own
+ * thread. The server can optionally wait for the given latency before
+ * responding to each request to simulate the round-trip to a remote server.
+ * </p>
+ * <p>
+ * Arguments: {@code <port> [latencyMs]}
+ * </p>
+ */
+public class CaffeStandInServer implements Closeable {
+
+    // dimensionality of the extracted feature vectors
+    public static final int FEATURE_COUNT = 4096;
+    // socket accepting the connections
+    private final ServerSocket serverSocket;
+    // latency of the response to a request in milliseconds
+    private final int latency;
+    // threads accepting and serving the connections
+    private final ExecutorService connectionThreads = Executors.newCachedThreadPool();
+    // open connections
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    // number of served requests
+    private final AtomicLong requestCount = new AtomicLong();
+    // number of extracted images
+    private final AtomicLong imageCount = new AtomicLong();
+
+    //************ Constructors ************//
+    /**
+     * Creates a new instance of {@link CaffeStandInServer} and starts
+     * accepting the connections on the loopback interface.
+     *
+     * @param port port which the server listens to (0 to choose a free port)
+     * @param latency latency of the response to a request in milliseconds
+     * @throws IOException if the port cannot be opened
+     */
+    public CaffeStandInServer(int port, int latency) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.latency = latency;
+        connectionThreads.execute(this::acceptConnections);
+    }
+
+    //************ Static methods ************//
+    /**
+     * Computes the deterministic pseudo-features of an image. The features are
+     * non-negative as the outputs of the rectified fully connected layer of
+     * the network and seeded by the 64-bit FNV-1a hash of the image bytes.
+     *
+     * @param image PNG motion image
+     * @return 4,096D feature vector
+     */
+    public static float[] computeFeatures(byte[] image) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : image) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        SplittableRandom random = new SplittableRandom(hash);
+        float[] features = new float[FEATURE_COUNT];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = Math.max(0f, (float) random.nextDouble(-1d, 1d));
+        }
+        return features;
+    }
+
+    //************ Methods ************//
+    /**
+     * Returns the port which the server listens to.
+     *
+     * @return the port which the server listens to
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of requests served so far.
+     *
+     * @return the number of requests served so far
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of images whose features were extracted so far.
+     *
+     * @return the number of images whose features were extracted so far
+     */
+    public long getImageCount() {
+        return imageCount.get();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                connectionThreads.execute(() -> serveConnection(socket));
+            } catch (IOException ex) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println(ex.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves the requests of a connection until the client closes it.
+     */
+    private void serveConnection(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                int header;
+                try {
+                    header = input.readInt();
+                } catch (EOFException ex) {
+                    return;
+                }
+                byte[][] images = new byte[readImageCount(header)][];
+                for (int i = 0; i < images.length; i++) {
+                    images[i] = readImage(input, (header < 0) ? input.readInt() : header);
+                }
+                if (latency > 0) {
+                    Thread.sleep(latency);
+                }
+                for (byte[] image : images) {
+                    new ObjectFloatVectorNeuralNetworkL2(computeFeatures(image)).write(output);
+                }
+                output.flush();
+                requestCount.incrementAndGet();
+                imageCount.addAndGet(images.length);
+            }
+        } catch (IOException ex) {
+            if (!serverSocket.isClosed()) {
+                System.err.println(ex.toString());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Returns the number of images of a request with the given header, i.e.,
+     * one image or a batch of at most
+     * {@link PooledBatchSocketExtractor#MAX_BATCH_SIZE} images.
+     */
+    private static int readImageCount(int header) throws IOException {
+        if (header >= 0) {
+            return 1;
+        }
+        if (header < -PooledBatchSocketExtractor.MAX_BATCH_SIZE) {
+            throw new IOException("Invalid number of images in a batch: " + header);
+        }
+        return -header;
+    }
+
+    private static byte[] readImage(DataInputStream input, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid image length: " + length);
+        }
+        byte[] image = new byte[length];
+        input.readFully(image);
+        return image;
+    }
+
+    /**
+     * Stops accepting the connections and closes the open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        connectionThreads.shutdownNow();
+    }
+
+    //************ Main ************//
+    /**
+     * Runs the stand-in server until the process is killed.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: " + CaffeStandInServer.class.getName() + " <port> [latencyMs]");
+            return;
+        }
+        CaffeStandInServer server = new CaffeStandInServer(Integer.parseInt(args[0]), (args.length > 1) ? Integer.parseInt(args[1]) : 0);
+        System.out.println("Stand-in of the neural network listens to port " + server.getPort() + " of " + InetAddress.getLoopbackAddress().getHostAddress());
+    }
+}
@@ -0,0 +1,260 @@
+package mcdr.objects.extraction;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import messif.objects.extraction.Extractor;
+import messif.objects.extraction.ExtractorDataSource;
+import messif.objects.extraction.Extractors;
+import messif.objects.impl.ObjectFloatVectorNeuralNetworkL2;
+
+/**
+ * Extracts the 4,096D feature vectors from PNG motion images by the neural
+ * network listening on a provided host/port over a pool of persistent
+ * connections. Unlike the socket extractor of
+ * {@link Extractors#createSocketExtractor}, which opens a new connection for
+ * every image, the connections are reused by subsequent requests and a batch of
+ * images is sent in a single request, so the connection set-up and the
+ * round-trip to the server are paid once per batch.
+ * <p>
+ * The request of a single image is the length of the image (non-negative int)
+ * followed by the image bytes, i.e., the request of the socket extractor. The
+ * request of a batch is the negative number of images (at most
+ * {@link #MAX_BATCH_SIZE}) followed by the length and the bytes of each image.
+ * Larger batches are sent by several consecutive requests. The server reads the whole request and responds
+ * by the feature vectors of the images in the request order, each written in
+ * the text format of {@link ObjectFloatVectorNeuralNetworkL2}, and waits for
+ * the next request on the same connection. The protocol is implemented by
+ * {@link CaffeStandInServer}.
+ * </p>
+ * <p>
+ * The extractor can be used by multiple threads concurrently, each request
+ * holds its own connection. The number of connections is limited, further
+ * requests wait for a connection to be released.
+ * </p>
+ * <p>
+ * The requests are not pipelined on a connection: a request sends its whole
+ * batch and then waits for all the responses before the
+ * connection is used by the next request. The requests overlap only over
+ * different connections. A response that is not read within the read timeout
+ * fails the request and closes its connection.
+ * </p>
+ */
+public class PooledBatchSocketExtractor implements Extractor<ObjectFloatVectorNeuralNetworkL2>, Closeable {
+
+    //************ Constants ************//
+    // default timeout in milliseconds of waiting for a response (i.e., for any data of the response)
+    public static final int DEFAULT_READ_TIMEOUT = 60000;
+    // maximal number of images sent by a single request
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    //************ Attributes ************//
+    // host machine name which the neural-network listens to
+    private final String host;
+    // port on the host machine which the neural-network listens to
+    private final int port;
+    // timeout in milliseconds of waiting for a response, zero means no timeout
+    private final int readTimeout;
+    // permits to hold a connection (the maximal number of connections)
+    private final Semaphore connectionPermits;
+    // open connections that are not held by any request
+    private final ConcurrentLinkedQueue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+    // indicates whether the extractor is closed
+    private volatile boolean closed = false;
+
+    //************ Constructors ************//
+    /**
+     * Creates a new instance of {@link PooledBatchSocketExtractor} that waits
+     * for a response at most {@link #DEFAULT_READ_TIMEOUT} milliseconds. The
+     * connections are opened lazily by the first requests.
+     *
+     * @param host host machine which the neural-network listens to
+     * @param port port which the neural-network listens to
+     * @param maxConnectionCount maximal number of open connections, i.e., the
+     * number of requests processed concurrently
+     */
+    public PooledBatchSocketExtractor(String host, int port, int maxConnectionCount) {
+        this(host, port, maxConnectionCount, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Creates a new instance of {@link PooledBatchSocketExtractor}. The
+     * connections are opened lazily by the first requests.
+     *
+     * @param host host machine which the neural-network listens to
+     * @param port port which the neural-network listens to
+     * @param maxConnectionCount maximal number of open connections, i.e., the
+     * number of requests processed concurrently
+     * @param readTimeout timeout in milliseconds of waiting for a response,
+     * zero means no timeout
+     */
+    public PooledBatchSocketExtractor(String host, int port, int maxConnectionCount, int readTimeout) {
+        if (maxConnectionCount <= 0) {
+            throw new IllegalArgumentException("Number of connections must be positive: " + maxConnectionCount);
+        }
+        if (readTimeout < 0) {
+            throw new IllegalArgumentException("Read timeout must not be negative: " + readTimeout);
+        }
+        this.host = host;
+        this.port = port;
+        this.readTimeout = readTimeout;
+        this.connectionPermits = new Semaphore(maxConnectionCount);
+    }
+
+    //************ Implemented interface Extractor ************//
+    @Override
+    public ObjectFloatVectorNeuralNetworkL2 extract(ExtractorDataSource dataSource) throws IOException {
+        return extract(Collections.singletonList(dataSource.getBinaryData())).get(0);
+    }
+
+    @Override
+    public Class<? extends ObjectFloatVectorNeuralNetworkL2> getExtractedClass() {
+        return ObjectFloatVectorNeuralNetworkL2.class;
+    }
+
+    //************ Methods ************//
+    /**
+     * Extracts the 4,096D feature vectors for a batch of PNG motion images by
+     * a single request, or by consecutive requests over the same connection if
+     * the batch is larger than {@link #MAX_BATCH_SIZE}.
+     *
+     * @param images PNG motion images
+     * @return objects encapsulating the extracted 4,096D feature vectors in the
+     * order of the input images
+     * @throws IOException if the connection fails or the server does not
+     * respond by a feature vector for every image
+     * @throws java.net.SocketTimeoutException if the server does not respond
+     * within the read timeout
+     */
+    public List<ObjectFloatVectorNeuralNetworkL2> extract(List<byte[]> images) throws IOException {
+        List<ObjectFloatVectorNeuralNetworkL2> rtv = new ArrayList<>(images.size());
+        if (images.isEmpty()) {
+            return rtv;
+        }
+        Connection connection = acquireConnection();
+        boolean succeeded = false;
+        try {
+            for (int from = 0; from < images.size(); from += MAX_BATCH_SIZE) {
+                List<byte[]> batch = images.subList(from, Math.min(from + MAX_BATCH_SIZE, images.size()));
+                if (batch.size() > 1) {
+                    connection.output.writeInt(-batch.size());
+                }
+                for (byte[] image : batch) {
+                    connection.output.writeInt(image.length);
+                    connection.output.write(image);
+                }
+                connection.output.flush();
+                for (int i = 0; i < batch.size(); i++) {
+                    rtv.add(new ObjectFloatVectorNeuralNetworkL2(connection.input));
+                }
+            }
+            succeeded = true;
+        } finally {
+            releaseConnection(connection, succeeded);
+        }
+        return rtv;
+    }
+
+    /**
+     * Takes an idle connection or opens a new one. Waits if the maximal number
+     * of connections are held by other requests.
+     */
+    private Connection acquireConnection() throws IOException {
+        if (closed) {
+            throw new IOException("Extractor is closed");
+        }
+        try {
+            connectionPermits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + host + ":" + port);
+        }
+        Connection connection = idleConnections.poll();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            return new Connection(new Socket(host, port), readTimeout);
+        } catch (IOException | RuntimeException ex) {
+            connectionPermits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the connection to the idle connections. A connection of a failed
+     * request is closed since it can contain an unread response.
+     */
+    private void releaseConnection(Connection connection, boolean reusable) {
+        if (reusable && !closed) {
+            idleConnections.add(connection);
+        } else {
+            connection.close();
+        }
+        connectionPermits.release();
+        // The extractor can be closed between the check and adding the connection
+        if (closed) {
+            closeIdleConnections();
+        }
+    }
+
+    private void closeIdleConnections() {
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Closes all the idle connections. The connections held by the running
+     * requests are closed when the requests finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeIdleConnections();
+    }
+
+    //************ Connection ************//
+    /**
+     * Persistent connection to the neural network.
+     */
+    private static class Connection {
+
+        private final Socket socket;
+        private final DataOutputStream output;
+        private final BufferedReader input;
+
+        Connection(Socket socket, int readTimeout) throws IOException {
+            this.socket = socket;
+            try {
+                socket.setSoTimeout(readTimeout);
+                // The requests are flushed at once, so there is no reason to wait for the acknowledgment of the previous response
+                socket.setTcpNoDelay(true);
+                this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                this.input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
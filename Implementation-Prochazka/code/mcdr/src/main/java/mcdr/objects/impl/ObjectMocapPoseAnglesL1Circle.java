@@ -23,6 +23,15 @@ public class ObjectMocapPoseAnglesL1Circle extends ObjectMocapPoseAngles {
         super(jointCoordinates, angles);
     }
 
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    public ObjectMocapPoseAnglesL1Circle(ObjectMocapPoseAnglesL1Circle pose) {
+        super(pose);
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseAnglesL1Circle} loaded
      * from stream.
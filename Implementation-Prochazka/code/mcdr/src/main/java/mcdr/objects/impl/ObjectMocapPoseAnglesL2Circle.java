@@ -23,6 +23,15 @@ public class ObjectMocapPoseAnglesL2Circle extends ObjectMocapPoseAngles {
         super(jointCoordinates, angles);
     }
 
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    public ObjectMocapPoseAnglesL2Circle(ObjectMocapPoseAnglesL2Circle pose) {
+        super(pose);
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseAnglesL2Circle} loaded
      * from stream.
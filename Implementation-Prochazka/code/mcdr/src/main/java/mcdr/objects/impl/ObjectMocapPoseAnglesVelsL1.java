@@ -24,6 +24,15 @@ public class ObjectMocapPoseAnglesVelsL1 extends ObjectMocapPoseAnglesVels {
         super(jointCoordinates, angles, velocities);
     }
 
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    public ObjectMocapPoseAnglesVelsL1(ObjectMocapPoseAnglesVelsL1 pose) {
+        super(pose);
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseAnglesVelsL1} loaded from
      * stream.
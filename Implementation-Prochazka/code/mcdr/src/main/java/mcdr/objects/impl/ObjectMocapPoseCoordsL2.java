@@ -3,7 +3,6 @@ package mcdr.objects.impl;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Objects;
 import mcdr.objects.ObjectMocapPose;
 import messif.objects.LocalAbstractObject;
 
@@ -26,6 +25,26 @@ public class ObjectMocapPoseCoordsL2 extends ObjectMocapPose {
         super(jointCoordinates);
     }
 
+    /**
+     * Creates a new instance of {@link ObjectMocapPoseCoordsL2} from the coordinates stored
+     * joint after joint. The given array is not copied.
+     *
+     * @param coords captured XYZ coordinates of joints stored joint after
+     * joint (x0, y0, z0, x1, y1, z1, ...)
+     */
+    public ObjectMocapPoseCoordsL2(float[] coords) {
+        super(coords);
+    }
+
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    public ObjectMocapPoseCoordsL2(ObjectMocapPoseCoordsL2 pose) {
+        super(pose);
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseCoordsL2} loaded from
      * stream.
@@ -42,15 +61,14 @@ public class ObjectMocapPoseCoordsL2 extends ObjectMocapPose {
     @Override
     protected float getDistanceImpl(LocalAbstractObject obj, float distThreshold) {
         // Get access to the other object's coordinates
-        float[][] objCoords = ((ObjectMocapPose) obj).getJointCoordinates();
-        float[][] coords = getJointCoordinates();
+        float[] objCoords = ((ObjectMocapPose) obj).getCoordinates();
+        float[] coords = getCoordinates();
 
-        // L2 distance computation
+        // L2 distance computation (the squares are added in double precision as by Math.pow)
         float rtv = 0f;
-        for (int j = 0; j < coords.length; j++) {
-            for (int i = 0; i < 3; i++) {
-                rtv += Math.pow(coords[j][i] - objCoords[j][i], 2f);
-            }
+        for (int i = 0; i < coords.length; i++) {
+            float diff = coords[i] - objCoords[i];
+            rtv += (double) diff * diff;
         }
         return (float) Math.sqrt(rtv);
     }
@@ -62,17 +80,14 @@ public class ObjectMocapPoseCoordsL2 extends ObjectMocapPose {
     
     public float getDistanceNoRootSquare(LocalAbstractObject obj) {
         // Get access to the other object's coordinates
-        float[][] objCoords = ((ObjectMocapPose) obj).getJointCoordinates();
-        float[][] coords = getJointCoordinates();
+        float[] objCoords = ((ObjectMocapPose) obj).getCoordinates();
+        float[] coords = getCoordinates();
 
         // L2 distance computation
         float rtv = 0f;
-        for (int j = 0; j < coords.length; j++) {
-            for (int i = 0; i < 3; i++) {
-                float diff = coords[j][i] - objCoords[j][i];
-                rtv += diff * diff;
-                //rtv += Math.pow(coords[j][i] - objCoords[j][i], 2f);
-            }
+        for (int i = 0; i < coords.length; i++) {
+            float diff = coords[i] - objCoords[i];
+            rtv += diff * diff;
         }
         return rtv;
     }
@@ -84,23 +99,20 @@ public class ObjectMocapPoseCoordsL2 extends ObjectMocapPose {
         if (o == null || !(o instanceof ObjectMocapPoseCoordsL2))
             return false;
         
-        float[][] coordsM = getJointCoordinates();
-        float[][] coordsO = ((ObjectMocapPoseCoordsL2)o).getJointCoordinates();
-        if (coordsM.length != coordsO.length)
-            return false;
-        for (int i = 0; i < coordsM.length; i++) {
-            if (!Arrays.equals(coordsM[i], coordsO[i]))
-                return false;
-        }
-        return true;
+        return Arrays.equals(getCoordinates(), ((ObjectMocapPoseCoordsL2) o).getCoordinates());
     }
 
     @Override
     public int dataHashCode() {
-        float[][] coords = getJointCoordinates();        
+        float[] coords = getCoordinates();
         int result = 1;
-        for (float[] joint : coords)
-            result = 31 * result + Arrays.hashCode(joint);
+        for (int j = 0; j < coords.length; j += JOINT_DIM) {
+            int jointResult = 1;
+            for (int i = j; i < j + JOINT_DIM; i++) {
+                jointResult = 31 * jointResult + Float.floatToIntBits(coords[i]);
+            }
+            result = 31 * result + jointResult;
+        }
         return result;
     }
 }
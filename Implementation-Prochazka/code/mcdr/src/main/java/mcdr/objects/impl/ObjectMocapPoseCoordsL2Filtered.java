@@ -9,8 +9,6 @@ import java.io.IOException;
 import java.io.Serial;
 import java.util.Set;
 
-import static mcdr.objects.impl.BodyPartConfiguration.JOINT_DIM;
-
 /**
  * Based on {@link ObjectMocapPoseCoordsL2} but only a subset of joints is used for the L2 distance computation.
  * 
@@ -22,10 +20,18 @@ public class ObjectMocapPoseCoordsL2Filtered extends ObjectMocapPoseCoordsL2 {
     private static final long serialVersionUID = 42L;
 
     /**
-     * Set of joint IDs used during the L2 distance computation.
+     * Default set of joint IDs used during the L2 distance computation. It is
+     * taken over by every pose when the pose is created, so changing it does not
+     * affect the already created poses.
      */
     public static Set<Integer> jointIds;
 
+    /**
+     * Offsets of the joints of this pose used during the L2 distance
+     * computation in the flat coordinate array, or null if no joints are set.
+     */
+    private int[] jointOffsets;
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseCoordsL2Filtered}.
      *
@@ -33,6 +39,29 @@ public class ObjectMocapPoseCoordsL2Filtered extends ObjectMocapPoseCoordsL2 {
      */
     public ObjectMocapPoseCoordsL2Filtered(float[][] jointCoordinates) {
         super(jointCoordinates);
+        this.jointOffsets = getDefaultJointOffsets();
+    }
+
+    /**
+     * Creates a new instance of {@link ObjectMocapPoseCoordsL2Filtered} from the coordinates stored
+     * joint after joint. The given array is not copied.
+     *
+     * @param coords captured XYZ coordinates of joints stored joint after
+     * joint (x0, y0, z0, x1, y1, z1, ...)
+     */
+    public ObjectMocapPoseCoordsL2Filtered(float[] coords) {
+        super(coords);
+        this.jointOffsets = getDefaultJointOffsets();
+    }
+
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    public ObjectMocapPoseCoordsL2Filtered(ObjectMocapPoseCoordsL2Filtered pose) {
+        super(pose);
+        this.jointOffsets = pose.jointOffsets;
     }
 
     /**
@@ -44,24 +73,74 @@ public class ObjectMocapPoseCoordsL2Filtered extends ObjectMocapPoseCoordsL2 {
      */
     public ObjectMocapPoseCoordsL2Filtered(BufferedReader stream) throws IOException {
         super(stream);
+        this.jointOffsets = getDefaultJointOffsets();
+    }
+
+    /**
+     * Sets the joints of this pose used during the L2 distance computation.
+     *
+     * @param ids joint IDs
+     */
+    public void setJointIds(Set<Integer> ids) {
+        this.jointOffsets = computeJointOffsets(ids);
     }
 
     @Override
     protected float getDistanceImpl(LocalAbstractObject obj, float distThreshold) {
-        float[][] jointCoordinates = getJointCoordinates();
-        float[][] otherJointCoordinates = ((ObjectMocapPose) obj).getJointCoordinates();
+        if (jointOffsets == null) {
+            throw new IllegalStateException("No joints are set for the distance computation of " + getClass().getSimpleName());
+        }
+        return getFilteredDistance((ObjectMocapPose) obj, jointOffsets);
+    }
+
+    /**
+     * Returns the L2 distance computed only with the joints at the given
+     * offsets, independently of {@link #jointIds}.
+     *
+     * @param obj          pose to which the distance is computed
+     * @param jointOffsets offsets of the joints in the flat coordinate array
+     *                     (see {@link #computeJointOffsets(Set)})
+     * @return the L2 distance of the joints
+     */
+    public float getFilteredDistance(ObjectMocapPose obj, int[] jointOffsets) {
+        float[] coords = getCoordinates();
+        float[] otherCoords = obj.getCoordinates();
 
         // L2 distance computation only with specified joints
         float sum = 0.0f;
 
-        for (var jointId : jointIds) {
-            var jointIndex = LandmarkConstant.getLandmarkPos(jointId);
-
-            for (int axis = 0; axis < JOINT_DIM; axis++) {
-                sum += Math.pow(jointCoordinates[jointIndex][axis] - otherJointCoordinates[jointIndex][axis], 2f);
+        for (int offset : jointOffsets) {
+            for (int i = offset; i < offset + JOINT_DIM; i++) {
+                float diff = coords[i] - otherCoords[i];
+                sum += (double) diff * diff;
             }
         }
 
         return (float) Math.sqrt(sum);
     }
+
+    /**
+     * Returns the offsets of the joints in the flat coordinate array, in the
+     * iteration order of {@code ids}.
+     *
+     * @param ids joint IDs
+     * @return offsets of the joints
+     */
+    public static int[] computeJointOffsets(Set<Integer> ids) {
+        int[] offsets = new int[ids.size()];
+        int i = 0;
+        for (var jointId : ids) {
+            offsets[i++] = LandmarkConstant.getLandmarkPos(jointId) * JOINT_DIM;
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the offsets of the default {@link #jointIds} joints, or null if
+     * no default joints are set.
+     */
+    private static int[] getDefaultJointOffsets() {
+        Set<Integer> ids = jointIds;
+        return (ids == null) ? null : computeJointOffsets(ids);
+    }
 }
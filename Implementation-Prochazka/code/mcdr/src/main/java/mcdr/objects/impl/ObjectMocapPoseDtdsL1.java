@@ -3,7 +3,6 @@ package mcdr.objects.impl;
 import java.io.BufferedReader;
 import java.io.IOException;
 import mcda.commons.constants.LandmarkConstant;
-import mcda.commons.math.VectMath;
 import messif.objects.LocalAbstractObject;
 
 /**
@@ -39,6 +38,26 @@ public class ObjectMocapPoseDtdsL1 extends ObjectMocapPoseCoordsL2 {
         super(jointCoordinates);
     }
 
+    /**
+     * Creates a new instance of {@link ObjectMocapPoseDtdsL1} from the coordinates stored
+     * joint after joint. The given array is not copied.
+     *
+     * @param coords captured XYZ coordinates of joints stored joint after
+     * joint (x0, y0, z0, x1, y1, z1, ...)
+     */
+    public ObjectMocapPoseDtdsL1(float[] coords) {
+        super(coords);
+    }
+
+    /**
+     * Creates a copy of the given pose.
+     *
+     * @param pose pose to be copied
+     */
+    public ObjectMocapPoseDtdsL1(ObjectMocapPoseDtdsL1 pose) {
+        super(pose);
+    }
+
     /**
      * Creates a new instance of {@link ObjectMocapPoseCoordsL2} loaded from
      * stream.
@@ -67,9 +86,13 @@ public class ObjectMocapPoseDtdsL1 extends ObjectMocapPoseCoordsL2 {
     }
 
     private float jointDistance(int landmarkCoupleId) {
-        float[][] coords = getJointCoordinates();
-        float[] j1 = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_COUPLE_MAP.get(landmarkCoupleId)[0])];
-        float[] j2 = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_COUPLE_MAP.get(landmarkCoupleId)[1])];
-        return VectMath.distance(j1, j2);
+        final int offset1 = LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_COUPLE_MAP.get(landmarkCoupleId)[0]) * JOINT_DIM;
+        final int offset2 = LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_COUPLE_MAP.get(landmarkCoupleId)[1]) * JOINT_DIM;
+        float dist = 0f;
+        for (int a = 0; a < JOINT_DIM; a++) {
+            float diff = coords[offset1 + a] - coords[offset2 + a];
+            dist += diff * diff;
+        }
+        return (float) Math.sqrt(dist);
     }
 }
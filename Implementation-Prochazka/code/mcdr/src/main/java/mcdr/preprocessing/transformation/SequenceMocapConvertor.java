@@ -25,6 +25,18 @@ public abstract class SequenceMocapConvertor<O extends SequenceMocap<?>> impleme
         this.sequenceClass = sequenceClass;
     }
 
+    //************ Methods ************//
+    /**
+     * Returns whether each pose is converted independently of the other poses
+     * of the sequence. Such a convertor can be applied to a long sequence once
+     * instead of to each of its subsequences.
+     *
+     * @return true if each pose is converted independently
+     */
+    public boolean isPoseWise() {
+        return false;
+    }
+
     //************ Implemented interface Convertor ************//
     @Override
     public Class<O> getDestinationClass() {
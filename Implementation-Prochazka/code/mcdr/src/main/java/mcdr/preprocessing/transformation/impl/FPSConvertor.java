@@ -40,6 +40,17 @@ public class FPSConvertor<O extends SequenceMocap<?>> extends SequenceMocapConve
         this.reducedFPSRate = reducedFPSRate;
     }
 
+    //************ Methods ************//
+    /**
+     * Returns the step between the indexes of the frames kept by this
+     * convertor.
+     *
+     * @return the step between the kept frames (1 if all the frames are kept)
+     */
+    public int getFrameStep() {
+        return (originalFPSRate > reducedFPSRate && reducedFPSRate > 0) ? originalFPSRate / reducedFPSRate : 1;
+    }
+
     //************ Implemented interface Convertor ************//
     /**
      * Reduce the frame-per-second rate by ignoring frames regularly.
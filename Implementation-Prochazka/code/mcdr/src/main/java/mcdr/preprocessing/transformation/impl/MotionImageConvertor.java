@@ -147,13 +147,13 @@ public class MotionImageConvertor implements Convertor<SequenceMocap<?>, Buffere
     //************ Methods ************//
     protected float[][] quantizePoseCoords(ObjectMocapPose pose, float[][][] sequenceExtremalJointCoordAxisValues) {
         float newRange = CUBE_MAX_COORD_VALUE - CUBE_MIN_COORD_VALUE;
-        float[][] cubeCoords = new float[pose.getJointCoordinates().length][3];
-        for (int i = 0; i < pose.getJointCoordinates().length; i++) {
+        float[][] cubeCoords = new float[pose.getJointCount()][3];
+        for (int i = 0; i < pose.getJointCount(); i++) {
             for (int j = 0; j < 3; j++) {
                 float oldMin = sequenceExtremalJointCoordAxisValues[i][j][0];
                 float oldMax = sequenceExtremalJointCoordAxisValues[i][j][1];
                 float oldRange = oldMax - oldMin;
-                cubeCoords[i][j] = (((pose.getJointCoordinates()[i][j] - oldMin) * newRange) / oldRange) + CUBE_MIN_COORD_VALUE;
+                cubeCoords[i][j] = (((pose.getJointCoordinate(i, j) - oldMin) * newRange) / oldRange) + CUBE_MIN_COORD_VALUE;
             }
         }
         return cubeCoords;
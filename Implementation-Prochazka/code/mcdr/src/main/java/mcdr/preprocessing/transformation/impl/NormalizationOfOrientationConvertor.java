@@ -34,6 +34,17 @@ public class NormalizationOfOrientationConvertor<O extends SequenceMocap<?>> ext
     }
 
     //************ Methods ************//
+    /**
+     * Returns whether all the poses are rotated according to the fixed angle
+     * calculated in the first pose.
+     *
+     * @return true if all the poses are rotated by the angle of the first
+     * pose, false if each pose is rotated independently
+     */
+    public boolean isRotateByFirstPoseOnly() {
+        return rotateByFirstPoseOnly;
+    }
+
     /**
      * Returns the angle according to which the skeleton has to be rotated so
      * that the subject faces a fixed position.
@@ -43,11 +54,10 @@ public class NormalizationOfOrientationConvertor<O extends SequenceMocap<?>> ext
      * that the subject faces a fixed position
      */
     public float getHipsRotationAngle(ObjectMocapPose o) {
-        float[][] coords = o.getJointCoordinates();
-        float leftHipX = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID)][0];
-        float leftHipZ = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID)][2];
-        float rightHipX = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID)][0];
-        float rightHipZ = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID)][2];
+        float leftHipX = o.getJointCoordinate(LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID), 0);
+        float leftHipZ = o.getJointCoordinate(LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID), 2);
+        float rightHipX = o.getJointCoordinate(LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID), 0);
+        float rightHipZ = o.getJointCoordinate(LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID), 2);
         return (leftHipZ - rightHipZ == 0f) ? 0f : (float) Math.atan((leftHipX - rightHipX) / (leftHipZ - rightHipZ));
     }
 
@@ -60,11 +70,12 @@ public class NormalizationOfOrientationConvertor<O extends SequenceMocap<?>> ext
     public void rotatePoseByY(ObjectMocapPose o, float angle) {
         float cosPhi = (float) Math.cos(angle);
         float sinPhi = (float) Math.sin(angle);
-        for (float[] coord : o.getJointCoordinates()) {
-            float newX = cosPhi * coord[0] - sinPhi * coord[2];
-            float newZ = sinPhi * coord[0] + cosPhi * coord[2];
-            coord[0] = newX;
-            coord[2] = newZ;
+        float[] coords = o.getCoordinates();
+        for (int c = 0; c < coords.length; c += ObjectMocapPose.JOINT_DIM) {
+            float newX = cosPhi * coords[c] - sinPhi * coords[c + 2];
+            float newZ = sinPhi * coords[c] + cosPhi * coords[c + 2];
+            coords[c] = newX;
+            coords[c + 2] = newZ;
         }
     }
 
@@ -107,10 +118,8 @@ public class NormalizationOfOrientationConvertor<O extends SequenceMocap<?>> ext
      * @param o rotated pose
      */
     private void alignRotatedPose(ObjectMocapPose o) {
-        float[][] coords = o.getJointCoordinates();
-
         // We want left hip to be positive z coordinate and right hip negative
-        if (!rotateByFirstPoseOnly && coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID)][2] > coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID)][2]) {
+        if (!rotateByFirstPoseOnly && o.getJointCoordinate(LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID), 2) > o.getJointCoordinate(LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID), 2)) {
             rotatePoseByY(o, (float) Math.PI);
         }
 
@@ -118,6 +127,12 @@ public class NormalizationOfOrientationConvertor<O extends SequenceMocap<?>> ext
         rotatePoseByY(o, (float) Math.PI / 2);
     }
 
+    //************ Overrided class SequenceMocapConvertor ************//
+    @Override
+    public boolean isPoseWise() {
+        return !rotateByFirstPoseOnly;
+    }
+
     //************ Implemented interface Convertor ************//
     /**
      * Rotates the skeleton so that it faces a fixed angle.
@@ -42,6 +42,24 @@ public class NormalizationOfPositionConvertor<O extends SequenceMocap<?>> extend
         this.centerByFirstPoseOnly = centerByFirstPoseOnly;
     }
 
+    //************ Methods ************//
+    /**
+     * Returns whether all the poses are moved according to the fixed shift
+     * calculated in the first pose.
+     *
+     * @return true if all the poses are moved by the shift of the first pose,
+     * false if each pose is centered independently
+     */
+    public boolean isCenterByFirstPoseOnly() {
+        return centerByFirstPoseOnly;
+    }
+
+    //************ Overrided class SequenceMocapConvertor ************//
+    @Override
+    public boolean isPoseWise() {
+        return !centerByFirstPoseOnly;
+    }
+
     //************ Implemented interface Convertor ************//
     /**
      * Centers the skeleton in each pose by moving the root to [0, 0, 0].
@@ -60,16 +78,17 @@ public class NormalizationOfPositionConvertor<O extends SequenceMocap<?>> extend
             ObjectMocapPose o = ts.getObject(i);
 
             // Pose normalization - moves the root joint to [0, 0, 0]
-            float[][] coords = o.getJointCoordinates();
+            float[] coords = o.getCoordinates();
             if (i == 0 || !centerByFirstPoseOnly) {
-                rootX = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_ROOT_ID)][0];
-                rootY = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_ROOT_ID)][1];
-                rootZ = coords[LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_ROOT_ID)][2];
+                int rootOffset = LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_ROOT_ID) * ObjectMocapPose.JOINT_DIM;
+                rootX = coords[rootOffset];
+                rootY = coords[rootOffset + 1];
+                rootZ = coords[rootOffset + 2];
             }
-            for (float[] coord : coords) {
-                coord[0] = coord[0] - rootX;
-                coord[1] = coord[1] - rootY;
-                coord[2] = coord[2] - rootZ;
+            for (int c = 0; c < coords.length; c += ObjectMocapPose.JOINT_DIM) {
+                coords[c] = coords[c] - rootX;
+                coords[c + 1] = coords[c + 1] - rootY;
+                coords[c + 2] = coords[c + 2] - rootZ;
             }
 
         }
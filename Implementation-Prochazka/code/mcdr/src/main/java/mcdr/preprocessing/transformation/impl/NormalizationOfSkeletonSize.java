@@ -39,34 +39,55 @@ public class NormalizationOfSkeletonSize<O extends SequenceMocap<?>> extends Seq
     }
 
     //************ Methods ************//
+    /**
+     * Returns the skeleton proportions to be set.
+     *
+     * @return the skeleton proportions (key denotes the pair of Ids of joints
+     * determining the specific bone and value represents the target bone
+     * length)
+     */
+    public Map<Map.Entry<Integer, Integer>, Float> getBoneLengthMap() {
+        return boneLengthMap;
+    }
+
+    /**
+     * Returns the kinematic model of the human body.
+     *
+     * @return the kinematic model (key denotes the joint Id and value
+     * represents Ids of descendant joints)
+     */
+    public Map<Integer, int[]> getKinematicTree() {
+        return kinematicTree;
+    }
+
     private void adjustJointLocations(ObjectMocapPose o, int parentJoint, int childJoint, Map<Map.Entry<Integer, Integer>, Float> boneLengthMap, Map<Integer, int[]> kinematicTree) {
-        float[][] coords = o.getJointCoordinates();
-        int parentJointPos = LandmarkConstant.getLandmarkPos(parentJoint);
-        int childJointPos = LandmarkConstant.getLandmarkPos(childJoint);
+        float[] coords = o.getCoordinates();
+        int parentJointPos = LandmarkConstant.getLandmarkPos(parentJoint) * ObjectMocapPose.JOINT_DIM;
+        int childJointPos = LandmarkConstant.getLandmarkPos(childJoint) * ObjectMocapPose.JOINT_DIM;
 
         // Computes the ratio between the original and supplied bone length
         float averageBoneLength = boneLengthMap.get(new AbstractMap.SimpleEntry<>(parentJoint, childJoint));
         float originalBoneLength = (float) Math.sqrt(
-                Math.pow(coords[parentJointPos][0] - coords[childJointPos][0], 2)
-                + Math.pow(coords[parentJointPos][1] - coords[childJointPos][1], 2)
-                + Math.pow(coords[parentJointPos][2] - coords[childJointPos][2], 2)
+                Math.pow(coords[parentJointPos] - coords[childJointPos], 2)
+                + Math.pow(coords[parentJointPos + 1] - coords[childJointPos + 1], 2)
+                + Math.pow(coords[parentJointPos + 2] - coords[childJointPos + 2], 2)
         );
         float boneLengthRatio = (originalBoneLength == 0f) ? 0f : averageBoneLength / originalBoneLength;
 
         // Adjusts the joint coordinates of the child joint
-        float childJointNewX = coords[parentJointPos][0] + boneLengthRatio * (coords[childJointPos][0] - coords[parentJointPos][0]);
-        float childJointNewY = coords[parentJointPos][1] + boneLengthRatio * (coords[childJointPos][1] - coords[parentJointPos][1]);
-        float childJointNewZ = coords[parentJointPos][2] + boneLengthRatio * (coords[childJointPos][2] - coords[parentJointPos][2]);
+        float childJointNewX = coords[parentJointPos] + boneLengthRatio * (coords[childJointPos] - coords[parentJointPos]);
+        float childJointNewY = coords[parentJointPos + 1] + boneLengthRatio * (coords[childJointPos + 1] - coords[parentJointPos + 1]);
+        float childJointNewZ = coords[parentJointPos + 2] + boneLengthRatio * (coords[childJointPos + 2] - coords[parentJointPos + 2]);
 
         // Computes the adjustment difference (to shift children joints)
-        float diffX = childJointNewX - coords[childJointPos][0];
-        float diffY = childJointNewY - coords[childJointPos][1];
-        float diffZ = childJointNewZ - coords[childJointPos][2];
+        float diffX = childJointNewX - coords[childJointPos];
+        float diffY = childJointNewY - coords[childJointPos + 1];
+        float diffZ = childJointNewZ - coords[childJointPos + 2];
 
         // Assigns new coordinates
-        coords[childJointPos][0] = childJointNewX;
-        coords[childJointPos][1] = childJointNewY;
-        coords[childJointPos][2] = childJointNewZ;
+        coords[childJointPos] = childJointNewX;
+        coords[childJointPos + 1] = childJointNewY;
+        coords[childJointPos + 2] = childJointNewZ;
 
         // Shifts coordinates of children joints
         adjustChildJointLocations(o, childJoint, diffX, diffY, diffZ, kinematicTree);
@@ -81,19 +102,25 @@ public class NormalizationOfSkeletonSize<O extends SequenceMocap<?>> extends Seq
     }
 
     private void adjustChildJointLocations(ObjectMocapPose o, int parentJoint, float diffX, float diffY, float diffZ, Map<Integer, int[]> kinematicTree) {
-        float[][] coords = o.getJointCoordinates();
+        float[] coords = o.getCoordinates();
         int[] childJoints = kinematicTree.get(parentJoint);
         if (childJoints != null) {
             for (int childJoint : childJoints) {
-                int childJointPos = LandmarkConstant.getLandmarkPos(childJoint);
-                coords[childJointPos][0] = coords[childJointPos][0] + diffX;
-                coords[childJointPos][1] = coords[childJointPos][1] + diffY;
-                coords[childJointPos][2] = coords[childJointPos][2] + diffZ;
+                int childJointPos = LandmarkConstant.getLandmarkPos(childJoint) * ObjectMocapPose.JOINT_DIM;
+                coords[childJointPos] = coords[childJointPos] + diffX;
+                coords[childJointPos + 1] = coords[childJointPos + 1] + diffY;
+                coords[childJointPos + 2] = coords[childJointPos + 2] + diffZ;
                 adjustChildJointLocations(o, childJoint, diffX, diffY, diffZ, kinematicTree);
             }
         }
     }
 
+    //************ Overrided class SequenceMocapConvertor ************//
+    @Override
+    public boolean isPoseWise() {
+        return true;
+    }
+
     //************ Implemented interface Convertor ************//
     /**
      * Normalizes skeleton proportions in each pose by replacing the
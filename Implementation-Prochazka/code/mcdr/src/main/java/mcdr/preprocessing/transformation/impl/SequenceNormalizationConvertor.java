@@ -0,0 +1,334 @@
+package mcdr.preprocessing.transformation.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import mcda.commons.constants.LandmarkConstant;
+import mcdr.objects.ObjectMocapPose;
+import mcdr.preprocessing.transformation.SequenceMocapConvertor;
+import mcdr.sequence.SequenceMocap;
+import messif.objects.keys.AbstractObjectKey;
+import messif.utility.reflection.NoSuchInstantiatorException;
+import smf.sequences.SequenceFactory;
+
+/**
+ * Normalizes the sequence by a single pass that fuses the chain of
+ * {@link FPSConvertor}, {@link NormalizationOfPositionConvertor},
+ * {@link NormalizationOfOrientationConvertor} and
+ * {@link NormalizationOfSkeletonSize}. Each kept pose is copied once and all
+ * the normalizations are applied to the coordinates of the copy in place,
+ * whereas each convertor of the chain duplicates the whole sequence. The
+ * rotations of the orientation normalization are combined into a single
+ * rotation of each pose (one sin/cos per pose) and the bones rescaled by the
+ * skeleton-size normalization are resolved from the kinematic tree in advance.
+ * The normalized coordinates are equal to the ones of the chain up to the
+ * rounding of floats.
+ *
+ * @param <O> type of sequence
+ */
+public class SequenceNormalizationConvertor<O extends SequenceMocap<?>> extends SequenceMocapConvertor<O> {
+
+    // factory for creating sequences
+    private final SequenceFactory<List<?>, O> sequenceFactory;
+    // step between the indexes of the kept frames
+    private final int frameStep;
+    // indicates whether the poses are centered
+    private final boolean normalizeByPosition;
+    // decides whether to move all the poses according to the fixed shift calculated in the first pose, or center each pose independently
+    private final boolean centerByFirstPoseOnly;
+    // indicates whether the poses are rotated
+    private final boolean normalizeByOrientation;
+    // decides whether to rotate all the poses according to the fixed angle calculated in the first pose, or rotate each pose independently
+    private final boolean rotateByFirstPoseOnly;
+    // positions of the coordinates of the root and the hips
+    private final int rootPos;
+    private final int leftHipPos;
+    private final int rightHipPos;
+    // positions of the coordinates of the parent and child joints of the rescaled bones in the order of rescaling (empty if the skeleton size is not normalized)
+    private final int[] boneParentPos;
+    private final int[] boneChildPos;
+    // target lengths of the rescaled bones
+    private final float[] boneLengths;
+    // positions of the coordinates of the joints descending from the child joint of each rescaled bone, which are shifted together with the child joint
+    private final int[][] boneDescendantPos;
+
+    //************ Constructors ************//
+    /**
+     * Creates a new instance of {@link SequenceNormalizationConvertor} with the
+     * parameters of
+     * {@link mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor#createSequenceConvertors}.
+     *
+     * @param sequenceClass class of the sequence
+     * @param originalFPSRate original fps rate
+     * @param reducedFPSRate reduced fps rate
+     * @param normalizeByPosition indicates whether the poses are centered
+     * @param centerByFirstPoseOnly decides whether to move all the poses
+     * according to the fixed shift calculated in the first pose, or center each
+     * pose independently so that the root has position [0, 0, 0]
+     * @param normalizeByOrientation indicates whether the poses are rotated
+     * @param rotateByFirstPoseOnly decides whether to rotate all the poses
+     * according to the fixed angle calculated in the first pose, or rotate each
+     * pose independently so that they face a fixed direction
+     * @param normalizeBySkeletonSize indicates whether the skeleton proportions
+     * are normalized
+     * @param boneLengthMap skeleton proportions to be set (key denotes the pair
+     * of Ids of joints determining the specific bone and value represents the
+     * target bone length)
+     * @param kinematicTree kinematic model of the human body (key denotes the
+     * joint Id and value represents Ids of descendant joints)
+     * @throws NoSuchInstantiatorException
+     */
+    public SequenceNormalizationConvertor(Class<O> sequenceClass, int originalFPSRate, int reducedFPSRate, boolean normalizeByPosition, boolean centerByFirstPoseOnly, boolean normalizeByOrientation, boolean rotateByFirstPoseOnly, boolean normalizeBySkeletonSize, Map<Map.Entry<Integer, Integer>, Float> boneLengthMap, Map<Integer, int[]> kinematicTree) throws NoSuchInstantiatorException {
+        this(sequenceClass, (originalFPSRate > reducedFPSRate && reducedFPSRate > 0) ? originalFPSRate / reducedFPSRate : 1, normalizeByPosition, centerByFirstPoseOnly, normalizeByOrientation, rotateByFirstPoseOnly, normalizeBySkeletonSize ? boneLengthMap : null, normalizeBySkeletonSize ? kinematicTree : null);
+    }
+
+    /**
+     * Returns the class of the sequence data, i.e., the list of poses.
+     */
+    @SuppressWarnings("unchecked") // List.class cannot be parameterized, the cast only adds the wildcard type argument
+    private static Class<List<?>> poseListClass() {
+        return (Class<List<?>>) (Class<?>) List.class;
+    }
+
+    private SequenceNormalizationConvertor(Class<O> sequenceClass, int frameStep, boolean normalizeByPosition, boolean centerByFirstPoseOnly, boolean normalizeByOrientation, boolean rotateByFirstPoseOnly, Map<Map.Entry<Integer, Integer>, Float> boneLengthMap, Map<Integer, int[]> kinematicTree) throws NoSuchInstantiatorException {
+        super(sequenceClass);
+        this.sequenceFactory = new SequenceFactory<>(sequenceClass, poseListClass());
+        this.frameStep = frameStep;
+        this.normalizeByPosition = normalizeByPosition;
+        this.centerByFirstPoseOnly = centerByFirstPoseOnly;
+        this.normalizeByOrientation = normalizeByOrientation;
+        this.rotateByFirstPoseOnly = rotateByFirstPoseOnly;
+        this.rootPos = LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_ROOT_ID) * ObjectMocapPose.JOINT_DIM;
+        this.leftHipPos = LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_LHIPJOINT_ID) * ObjectMocapPose.JOINT_DIM;
+        this.rightHipPos = LandmarkConstant.getLandmarkPos(LandmarkConstant.LANDMARK_RHIPJOINT_ID) * ObjectMocapPose.JOINT_DIM;
+
+        // Bones in the order in which NormalizationOfSkeletonSize rescales them, i.e., depth-first from the root
+        List<int[]> bones = new ArrayList<>();
+        if (kinematicTree != null) {
+            addBones(LandmarkConstant.LANDMARK_ROOT_ID, kinematicTree, bones);
+        }
+        this.boneParentPos = new int[bones.size()];
+        this.boneChildPos = new int[bones.size()];
+        this.boneLengths = new float[bones.size()];
+        this.boneDescendantPos = new int[bones.size()][];
+        for (int b = 0; b < bones.size(); b++) {
+            int parentJoint = bones.get(b)[0];
+            int childJoint = bones.get(b)[1];
+            Float boneLength = boneLengthMap.get(new AbstractMap.SimpleEntry<>(parentJoint, childJoint));
+            if (boneLength == null) {
+                throw new IllegalArgumentException("Length of the bone " + parentJoint + "-" + childJoint + " is not specified");
+            }
+            boneParentPos[b] = LandmarkConstant.getLandmarkPos(parentJoint) * ObjectMocapPose.JOINT_DIM;
+            boneChildPos[b] = LandmarkConstant.getLandmarkPos(childJoint) * ObjectMocapPose.JOINT_DIM;
+            boneLengths[b] = boneLength;
+            List<Integer> descendantPos = new ArrayList<>();
+            addDescendantPositions(childJoint, kinematicTree, descendantPos);
+            boneDescendantPos[b] = descendantPos.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    //************ Static methods ************//
+    /**
+     * Creates the fused convertor equivalent to the chain of convertors, which
+     * has to consist of {@link FPSConvertor},
+     * {@link NormalizationOfPositionConvertor},
+     * {@link NormalizationOfOrientationConvertor} and
+     * {@link NormalizationOfSkeletonSize} (each of them optional) in this
+     * order, as created by
+     * {@link mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor#createSequenceConvertors}.
+     *
+     * @param sequenceConvertors chain of convertors
+     * @return the fused convertor, or null if the chain contains other
+     * convertors or a different order
+     * @throws NoSuchInstantiatorException
+     */
+    public static SequenceNormalizationConvertor<SequenceMocap<?>> fuse(List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors) throws NoSuchInstantiatorException {
+        if (sequenceConvertors.isEmpty()) {
+            return null;
+        }
+        int frameStep = 1;
+        Boolean centerByFirstPoseOnly = null;
+        Boolean rotateByFirstPoseOnly = null;
+        NormalizationOfSkeletonSize<?> skeletonSizeConvertor = null;
+        int stage = 0;
+        for (SequenceMocapConvertor<SequenceMocap<?>> sequenceConvertor : sequenceConvertors) {
+            if (sequenceConvertor.getClass() == FPSConvertor.class && stage < 1) {
+                frameStep = ((FPSConvertor<?>) sequenceConvertor).getFrameStep();
+                stage = 1;
+            } else if (sequenceConvertor.getClass() == NormalizationOfPositionConvertor.class && stage < 2) {
+                centerByFirstPoseOnly = ((NormalizationOfPositionConvertor<?>) sequenceConvertor).isCenterByFirstPoseOnly();
+                stage = 2;
+            } else if (sequenceConvertor.getClass() == NormalizationOfOrientationConvertor.class && stage < 3) {
+                rotateByFirstPoseOnly = ((NormalizationOfOrientationConvertor<?>) sequenceConvertor).isRotateByFirstPoseOnly();
+                stage = 3;
+            } else if (sequenceConvertor.getClass() == NormalizationOfSkeletonSize.class && stage < 4) {
+                skeletonSizeConvertor = (NormalizationOfSkeletonSize<?>) sequenceConvertor;
+                stage = 4;
+            } else {
+                return null;
+            }
+        }
+        return new SequenceNormalizationConvertor<>(sequenceConvertors.get(0).getDestinationClass(), frameStep,
+                centerByFirstPoseOnly != null, Boolean.TRUE.equals(centerByFirstPoseOnly),
+                rotateByFirstPoseOnly != null, Boolean.TRUE.equals(rotateByFirstPoseOnly),
+                (skeletonSizeConvertor == null) ? null : skeletonSizeConvertor.getBoneLengthMap(),
+                (skeletonSizeConvertor == null) ? null : skeletonSizeConvertor.getKinematicTree());
+    }
+
+    private static void addBones(int parentJoint, Map<Integer, int[]> kinematicTree, List<int[]> bones) {
+        int[] childJoints = kinematicTree.get(parentJoint);
+        if (childJoints != null) {
+            for (int childJoint : childJoints) {
+                bones.add(new int[]{parentJoint, childJoint});
+                addBones(childJoint, kinematicTree, bones);
+            }
+        }
+    }
+
+    private static void addDescendantPositions(int parentJoint, Map<Integer, int[]> kinematicTree, List<Integer> descendantPos) {
+        int[] childJoints = kinematicTree.get(parentJoint);
+        if (childJoints != null) {
+            for (int childJoint : childJoints) {
+                descendantPos.add(LandmarkConstant.getLandmarkPos(childJoint) * ObjectMocapPose.JOINT_DIM);
+                addDescendantPositions(childJoint, kinematicTree, descendantPos);
+            }
+        }
+    }
+
+    //************ Methods ************//
+    /**
+     * Returns the step between the indexes of the kept frames.
+     *
+     * @return the step between the kept frames (1 if all the frames are kept)
+     */
+    public int getFrameStep() {
+        return frameStep;
+    }
+
+    /**
+     * Returns the cosine and sine of the angle by which the pose is rotated
+     * around the Y-axis, i.e., the angle by which
+     * {@link NormalizationOfOrientationConvertor} rotates the pose in total.
+     * The pose is turned by the hips angle, turned around if its left hip does
+     * not get negative Z coordinate, and turned to the side view.
+     *
+     * @param coords coordinates of the pose
+     * @param alignByHips indicates whether the pose is turned around
+     * @param rotation array to which the cosine and sine are stored
+     */
+    private void computeRotation(float[] coords, boolean alignByHips, float[] rotation) {
+        float hipsDiffX = coords[leftHipPos] - coords[rightHipPos];
+        float hipsDiffZ = coords[leftHipPos + 2] - coords[rightHipPos + 2];
+        double angle = (hipsDiffZ == 0f) ? 0d : (float) Math.atan(hipsDiffX / hipsDiffZ);
+        // After the rotation by the hips angle, the difference of the Z coordinates of the hips has the sign of hipsDiffZ
+        if (alignByHips && hipsDiffZ > 0f) {
+            angle += Math.PI;
+        }
+        angle += Math.PI / 2;
+        rotation[0] = (float) Math.cos(angle);
+        rotation[1] = (float) Math.sin(angle);
+    }
+
+    /**
+     * Rescales the bones of the pose to the target lengths as
+     * {@link NormalizationOfSkeletonSize} does.
+     *
+     * @param coords coordinates of the pose
+     */
+    private void rescaleBones(float[] coords) {
+        for (int b = 0; b < boneLengths.length; b++) {
+            int parentPos = boneParentPos[b];
+            int childPos = boneChildPos[b];
+            float boneDiffX = coords[childPos] - coords[parentPos];
+            float boneDiffY = coords[childPos + 1] - coords[parentPos + 1];
+            float boneDiffZ = coords[childPos + 2] - coords[parentPos + 2];
+            float originalBoneLength = (float) Math.sqrt((double) boneDiffX * boneDiffX + (double) boneDiffY * boneDiffY + (double) boneDiffZ * boneDiffZ);
+            float boneLengthRatio = (originalBoneLength == 0f) ? 0f : boneLengths[b] / originalBoneLength;
+
+            // Moves the child joint and shifts all its descendants by the same difference
+            float childJointNewX = coords[parentPos] + boneLengthRatio * boneDiffX;
+            float childJointNewY = coords[parentPos + 1] + boneLengthRatio * boneDiffY;
+            float childJointNewZ = coords[parentPos + 2] + boneLengthRatio * boneDiffZ;
+            float diffX = childJointNewX - coords[childPos];
+            float diffY = childJointNewY - coords[childPos + 1];
+            float diffZ = childJointNewZ - coords[childPos + 2];
+            coords[childPos] = childJointNewX;
+            coords[childPos + 1] = childJointNewY;
+            coords[childPos + 2] = childJointNewZ;
+            for (int descendantPos : boneDescendantPos[b]) {
+                coords[descendantPos] += diffX;
+                coords[descendantPos + 1] += diffY;
+                coords[descendantPos + 2] += diffZ;
+            }
+        }
+    }
+
+    //************ Overrided class SequenceMocapConvertor ************//
+    @Override
+    public boolean isPoseWise() {
+        return frameStep == 1 && !(normalizeByPosition && centerByFirstPoseOnly) && !(normalizeByOrientation && rotateByFirstPoseOnly);
+    }
+
+    //************ Implemented interface Convertor ************//
+    /**
+     * Keeps every {@link #getFrameStep}-th pose, centers, rotates and rescales
+     * the skeleton of each kept pose.
+     *
+     * @param sequence sequence to be normalized
+     * @return normalized sequence
+     */
+    @Override
+    public O convert(O sequence) {
+        List<ObjectMocapPose> poses = new ArrayList<>((sequence.getSequenceLength() + frameStep - 1) / frameStep);
+        float rootX = 0f;
+        float rootY = 0f;
+        float rootZ = 0f;
+        float[] rotation = new float[2];
+        for (int i = 0; i < sequence.getSequenceLength(); i += frameStep) {
+            ObjectMocapPose pose = sequence.getObject(i).duplicate();
+            float[] coords = pose.getCoordinates();
+
+            // Moves the root joint to [0, 0, 0]
+            if (normalizeByPosition) {
+                if (i == 0 || !centerByFirstPoseOnly) {
+                    rootX = coords[rootPos];
+                    rootY = coords[rootPos + 1];
+                    rootZ = coords[rootPos + 2];
+                }
+                for (int c = 0; c < coords.length; c += ObjectMocapPose.JOINT_DIM) {
+                    coords[c] -= rootX;
+                    coords[c + 1] -= rootY;
+                    coords[c + 2] -= rootZ;
+                }
+            }
+
+            // Rotates the pose around the Y-axis
+            if (normalizeByOrientation) {
+                if (i == 0 || !rotateByFirstPoseOnly) {
+                    computeRotation(coords, !rotateByFirstPoseOnly, rotation);
+                }
+                float cosPhi = rotation[0];
+                float sinPhi = rotation[1];
+                for (int c = 0; c < coords.length; c += ObjectMocapPose.JOINT_DIM) {
+                    float newX = cosPhi * coords[c] - sinPhi * coords[c + 2];
+                    float newZ = sinPhi * coords[c] + cosPhi * coords[c + 2];
+                    coords[c] = newX;
+                    coords[c + 2] = newZ;
+                }
+            }
+
+            rescaleBones(coords);
+            poses.add(pose);
+        }
+        try {
+            // The chain of convertors returns the duplicate of the subsampled sequence, which has no original sequence
+            O convertedSequence = sequenceFactory.create(poses, null, (frameStep > 1) ? 0 : sequence.getOffset(), false);
+            convertedSequence.setObjectKey(new AbstractObjectKey(sequence.getLocatorURI()));
+            return convertedSequence;
+        } catch (InvocationTargetException ex) {
+            return null;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package mcdr.sequence;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -12,6 +14,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import mcdr.distance.ThresholdDistanceFunction;
 import mcdr.objects.ObjectMocapPose;
 import mcdr.objects.impl.Extremum;
 import messif.objects.DistanceFunction;
@@ -35,6 +38,17 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     //************ Attributes ************//
     // class id for serialization
     private static final long serialVersionUID = 1L;
+    // public constructors (List, sequence class, int, boolean) used by {@link #duplicate()} (null if the class does not have one)
+    private static final ClassValue<MethodHandle> DUPLICATE_CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> sequenceClass) {
+            try {
+                return MethodHandles.publicLookup().findConstructor(sequenceClass, MethodType.methodType(void.class, List.class, sequenceClass, int.class, boolean.class)).asType(MethodType.methodType(SequenceMocap.class, List.class, SequenceMocap.class, int.class, boolean.class));
+            } catch (NoSuchMethodException | IllegalAccessException ex) {
+                return null;
+            }
+        }
+    };
     // class of the sequence data
     private final Class<List<I>> sequenceDataClass;
     // distance function comparing items of sequences of this type {@link #sequenceDataClass}
@@ -143,7 +157,7 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
      * @return the number of body model joints
      */
     public int getJointCount() {
-        return (getObjectCount() == 0) ? -1 : getObject(0).getJointCoordinates().length;
+        return (getObjectCount() == 0) ? -1 : getObject(0).getJointCount();
     }
 
     /**
@@ -158,19 +172,32 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     }
 
     /**
-     * Creates the clone of this sequence.
+     * Creates the clone of this sequence including the clones of its poses.
+     * The sequence is created by the public constructor with the parameters
+     * (List, class of this sequence, int, boolean), which is looked up once
+     * for each class.
      *
-     * @return clonned sequence
+     * @return clonned sequence, or null if the class does not have the
+     * constructor or the constructor throws a checked exception
+     * @throws RuntimeException if the constructor throws it
      */
+    @SuppressWarnings("unchecked")
     public SequenceMocap<I> duplicate() {
+        MethodHandle constructor = DUPLICATE_CONSTRUCTORS.get(getClass());
+        if (constructor == null) {
+            return null;
+        }
         ArrayList<ObjectMocapPose> poseList = new ArrayList<>(getObjectCount());
         for (ObjectMocapPose pose : getObjects()) {
             poseList.add(pose.duplicate());
         }
         SequenceMocap<I> sequence;
         try {
-            sequence = getClass().getConstructor(List.class, getClass(), int.class, boolean.class).newInstance(new Object[]{poseList, null, getOffset(), false});
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            sequence = (SequenceMocap<I>) (SequenceMocap) constructor.invokeExact((List) poseList, (SequenceMocap) null, getOffset(), false);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            // A checked exception of the constructor (wrapped into InvocationTargetException by the reflective call)
             return null;
         }
         sequence.setObjectKey(new AbstractObjectKey(getLocatorURI()));
@@ -193,6 +220,25 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
         return (float) Math.sqrt(rtv);
     }
 
+    /**
+     * Computes the L2 distance between two XYZ coordinates stored in flat
+     * arrays, e.g., the coordinates of the specified joint of two poses
+     * returned by {@link ObjectMocapPose#getCoordinates()}.
+     *
+     * @param coords1 array containing the first coordinate
+     * @param offset1 index of the x value of the first coordinate
+     * @param coords2 array containing the second coordinate
+     * @param offset2 index of the x value of the second coordinate
+     * @return the L2 distance between two coordinates
+     */
+    private static float getJointsDistL2(float[] coords1, int offset1, float[] coords2, int offset2) {
+        float rtv = 0f;
+        for (int i = 0; i < ObjectMocapPose.JOINT_DIM; i++) {
+            rtv += Math.pow(coords1[offset1 + i] - coords2[offset2 + i], 2f);
+        }
+        return (float) Math.sqrt(rtv);
+    }
+
     /**
      * Computes the total distance of a given trajectory.
      *
@@ -216,10 +262,11 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
      */
     public float computeJointTrajectoryDist(int jointIndex, int fromFrame, int toFrame) {
         float rtv = 0f;
+        final int offset = jointIndex * ObjectMocapPose.JOINT_DIM;
 
         // computes the trajectory distance of the specific joint
         for (int f = fromFrame; f < toFrame - 1; f++) {
-            rtv += getJointsDistL2(getObject(f).getJointCoordinates()[jointIndex], getObject(f + 1).getJointCoordinates()[jointIndex]);
+            rtv += getJointsDistL2(getObject(f).getCoordinates(), offset, getObject(f + 1).getCoordinates(), offset);
         }
         return rtv;
     }
@@ -234,9 +281,11 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
      */
     public float computeJointTrajectoryMinMaxDist(int jointIndex) {
         float maxDist = Float.MIN_VALUE;
+        final int offset = jointIndex * ObjectMocapPose.JOINT_DIM;
         for (int f = 0; f < getObjectCount(); f++) {
+            float[] coords = getObject(f).getCoordinates();
             for (int f2 = f + 1; f2 < getObjectCount(); f2++) {
-                float dist = getJointsDistL2(getObject(f).getJointCoordinates()[jointIndex], getObject(f2).getJointCoordinates()[jointIndex]);
+                float dist = getJointsDistL2(coords, offset, getObject(f2).getCoordinates(), offset);
                 if (maxDist < dist) {
                     maxDist = dist;
                 }
@@ -258,7 +307,7 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
         // computes the trajectory centroid of the specific joint
         for (int f = 0; f < getObjectCount(); f++) {
             for (int i = 0; i < 3; i++) {
-                rtv[i] += getObject(f).getJointCoordinates()[jointIndex][i];
+                rtv[i] += getObject(f).getJointCoordinate(jointIndex, i);
             }
         }
         for (int i = 0; i < 3; i++) {
@@ -281,8 +330,9 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
         // computes the trajectory centroid of the specific joint
         float[] centroid = computeJointTrajectoryCentroid(jointIndex);
 
+        final int offset = jointIndex * ObjectMocapPose.JOINT_DIM;
         for (int f = 0; f < getObjectCount(); f++) {
-            float dist = getJointsDistL2(centroid, getObject(f).getJointCoordinates()[jointIndex]);
+            float dist = getJointsDistL2(centroid, 0, getObject(f).getCoordinates(), offset);
             rtv += dist * dist;
         }
         return (float) Math.sqrt(rtv / getObjectCount());
@@ -300,7 +350,7 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
 
         // computes the trajectory distance of the specific joint on the specific axis
         for (int f = 0; f < getObjectCount() - 1; f++) {
-            rtv += Math.abs(getObject(f).getJointCoordinates()[jointIndex][axisIndex] - getObject(f + 1).getJointCoordinates()[jointIndex][axisIndex]);
+            rtv += Math.abs(getObject(f).getJointCoordinate(jointIndex, axisIndex) - getObject(f + 1).getJointCoordinate(jointIndex, axisIndex));
         }
         return rtv;
     }
@@ -317,12 +367,10 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     public float getExtremalCoordValue(boolean minValue) {
         float extremalValue = (minValue) ? Float.MAX_VALUE : Float.MIN_VALUE;
         for (int i = 0; i < getObjectCount(); i++) {
-            for (float[] coords : getObject(i).getJointCoordinates()) {
-                for (int j = 0; j < coords.length; j++) {
-                    if (!Float.isNaN(coords[j])) {
-                        if ((minValue) ? coords[j] < extremalValue : coords[j] > extremalValue) {
-                            extremalValue = coords[j];
-                        }
+            for (float coordValue : getObject(i).getCoordinates()) {
+                if (!Float.isNaN(coordValue)) {
+                    if ((minValue) ? coordValue < extremalValue : coordValue > extremalValue) {
+                        extremalValue = coordValue;
                     }
                 }
             }
@@ -344,7 +392,8 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     public float getExtremalJointCoordValue(boolean minValue, int jointIdx) {
         float extremalValue = (minValue) ? Float.MAX_VALUE : Float.MIN_VALUE;
         for (int i = 0; i < getObjectCount(); i++) {
-            for (float coordValue : getObject(i).getJointCoordinates()[jointIdx]) {
+            for (int a = 0; a < ObjectMocapPose.JOINT_DIM; a++) {
+                float coordValue = getObject(i).getJointCoordinate(jointIdx, a);
                 if (!Float.isNaN(coordValue)) {
                     if ((minValue) ? coordValue < extremalValue : coordValue > extremalValue) {
                         extremalValue = coordValue;
@@ -369,8 +418,9 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     public float getExtremalAxisCoordValue(boolean minValue, int axisIdx) {
         float extremalValue = (minValue) ? Float.MAX_VALUE : Float.MIN_VALUE;
         for (int i = 0; i < getObjectCount(); i++) {
-            for (float[] jointCoordinate : getObject(i).getJointCoordinates()) {
-                float coordValue = jointCoordinate[axisIdx];
+            float[] coords = getObject(i).getCoordinates();
+            for (int c = axisIdx; c < coords.length; c += ObjectMocapPose.JOINT_DIM) {
+                float coordValue = coords[c];
                 if (!Float.isNaN(coordValue)) {
                     if ((minValue) ? coordValue < extremalValue : coordValue > extremalValue) {
                         extremalValue = coordValue;
@@ -397,7 +447,7 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     public float getExtremalJointAxisCoordValue(boolean minValue, int jointIdx, int axisIdx) {
         float extremalValue = (minValue) ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
         for (int i = 0; i < getObjectCount(); i++) {
-            float coordValue = getObject(i).getJointCoordinates()[jointIdx][axisIdx];
+            float coordValue = getObject(i).getJointCoordinate(jointIdx, axisIdx);
             if (!Float.isNaN(coordValue)) {
                 if ((minValue) ? coordValue < extremalValue : coordValue > extremalValue) {
                     extremalValue = coordValue;
@@ -420,7 +470,7 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     public float getExtremalJointAxisCoordValue(Extremum extremum, int jointIdx, int axisIdx) {
         var values = getObjects()
                 .stream()
-                .map(object -> object.getJointCoordinates()[jointIdx][axisIdx])
+                .map(object -> object.getJointCoordinate(jointIdx, axisIdx))
                 .filter(value -> !Float.isNaN(value))
                 .toList();
 
@@ -443,7 +493,7 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
     public int getExtremalJointAxisCoordValueIndex(Extremum extremum, int jointIdx, int axisIdx) {
         var indexToValueMapping = IntStream
                 .range(0, getObjectCount())
-                .mapToObj(i -> Map.entry(i, getObject(i).getJointCoordinates()[jointIdx][axisIdx]))
+                .mapToObj(i -> Map.entry(i, getObject(i).getJointCoordinate(jointIdx, axisIdx)))
                 .filter(entry -> !Float.isNaN(entry.getValue()))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
@@ -473,7 +523,11 @@ public abstract class SequenceMocap<I extends ObjectMocapPose> extends MetaObjec
             return LocalAbstractObject.UNKNOWN_DISTANCE;
         }
         SequenceMocap<I> objSequence = (SequenceMocap<I>) obj;
-        return objSequence.getDistanceFunction().getDistance(this, objSequence);
+        DistanceFunction<Sequence<List<I>>> distanceFunction = objSequence.getDistanceFunction();
+        if (distanceFunction instanceof ThresholdDistanceFunction) {
+            return ((ThresholdDistanceFunction<Sequence<List<I>>>) distanceFunction).getDistance(this, objSequence, distThreshold);
+        }
+        return distanceFunction.getDistance(this, objSequence);
     }
 
     @Override
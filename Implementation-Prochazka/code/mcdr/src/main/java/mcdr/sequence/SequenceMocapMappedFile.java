@@ -0,0 +1,317 @@
+package mcdr.sequence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import mcdr.objects.ObjectMocapPose;
+import messif.objects.keys.AbstractObjectKey;
+
+/**
+ * Binary container of mocap sequences read through a memory-mapped file. The
+ * file consists of a header and a contiguous payload of joint coordinates:
+ * <ul>
+ * <li>magic number {@link #MAGIC} and format version (ints),</li>
+ * <li>number of sequences (int),</li>
+ * <li>locator table: for each sequence, its locator (modified UTF-8), number
+ * of poses (int), number of joints (int) and byte offset of its coordinates in
+ * the file (long),</li>
+ * <li>payload: XYZ coordinates of all the joints of all the poses of all the
+ * sequences (floats).</li>
+ * </ul>
+ * The sequences are materialized lazily, i.e., only when they are requested,
+ * so sequences filtered out by their locators are never parsed.
+ */
+public class SequenceMocapMappedFile {
+
+    //************ Attributes ************//
+    // magic number identifying the file format ("MCDR")
+    public static final int MAGIC = 0x4D434452;
+    // version of the file format
+    public static final int VERSION = 1;
+    // locators of sequences
+    private final String[] locators;
+    // numbers of poses of sequences
+    private final int[] poseCounts;
+    // numbers of joints of sequences
+    private final int[] jointCounts;
+    // byte offsets of the coordinates of sequences in the file
+    private final long[] offsets;
+    // mapped content of the file
+    private final MappedByteBuffer buffer;
+
+    //************ Constructors ************//
+    /**
+     * Opens the binary file of mocap sequences. The header is read and the
+     * file is mapped into memory.
+     *
+     * @param file file to be opened
+     * @throws IOException when the file cannot be read or is not in the
+     * expected format, including a header whose counts or offsets do not fit
+     * into the file
+     */
+    public SequenceMocapMappedFile(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Binary file " + file + " is larger than 2 GB and cannot be mapped");
+            }
+            try (DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (header.readInt() != MAGIC) {
+                    throw new IOException("File " + file + " is not a binary file of mocap sequences");
+                }
+                int version = header.readInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported version " + version + " of binary file " + file);
+                }
+                int sequenceCount = header.readInt();
+                // every entry of the locator table takes at least the locator length, two ints and a long
+                if (sequenceCount < 0 || sequenceCount > fileSize / (Short.BYTES + 2 * Integer.BYTES + Long.BYTES)) {
+                    throw new IOException("Invalid number of sequences " + sequenceCount + " in binary file " + file);
+                }
+                this.locators = new String[sequenceCount];
+                this.poseCounts = new int[sequenceCount];
+                this.jointCounts = new int[sequenceCount];
+                this.offsets = new long[sequenceCount];
+                for (int i = 0; i < sequenceCount; i++) {
+                    locators[i] = header.readUTF();
+                    poseCounts[i] = header.readInt();
+                    jointCounts[i] = header.readInt();
+                    offsets[i] = header.readLong();
+                    if (poseCounts[i] < 0 || jointCounts[i] < 0 || offsets[i] < 0 || offsets[i] > fileSize
+                            || (long) poseCounts[i] * jointCounts[i] > (fileSize - offsets[i]) / (ObjectMocapPose.JOINT_DIM * Float.BYTES)) {
+                        throw new IOException("Coordinates of sequence " + locators[i] + " do not fit into binary file " + file);
+                    }
+                }
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+    }
+
+    //************ Methods ************//
+    /**
+     * Returns the number of sequences stored in the file.
+     *
+     * @return the number of sequences
+     */
+    public int getSequenceCount() {
+        return locators.length;
+    }
+
+    /**
+     * Returns the locator of the sequence without materializing it.
+     *
+     * @param index index of the sequence in the file
+     * @return the locator of the sequence
+     */
+    public String getLocator(int index) {
+        return locators[index];
+    }
+
+    /**
+     * Materializes the sequence stored in the file.
+     *
+     * @param <O> type of sequence
+     * @param sequenceClass class of the sequence to be created
+     * @param index index of the sequence in the file
+     * @return the sequence with the locator and coordinates stored in the file
+     */
+    public <O extends SequenceMocap<?>> O getSequence(Class<O> sequenceClass, int index) {
+        return getSequence(getSequenceConstructor(sequenceClass), getPoseConstructor(sequenceClass), index);
+    }
+
+    private <O extends SequenceMocap<?>> O getSequence(Constructor<O> sequenceConstructor, Constructor<? extends ObjectMocapPose> poseConstructor, int index) {
+        FloatBuffer coords = buffer.duplicate().position((int) offsets[index]).slice().asFloatBuffer();
+        List<ObjectMocapPose> poses = new ArrayList<>(poseCounts[index]);
+        try {
+            for (int p = 0; p < poseCounts[index]; p++) {
+                float[] poseCoords = new float[jointCounts[index] * ObjectMocapPose.JOINT_DIM];
+                coords.get(poseCoords);
+                poses.add(poseConstructor.newInstance(new Object[]{poseCoords}));
+            }
+            O sequence = sequenceConstructor.newInstance(poses);
+            sequence.setObjectKey(new AbstractObjectKey(locators[index]));
+            sequence.setPoseKeyAndNumber();
+            return sequence;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("Cannot create sequence " + locators[index], ex);
+        }
+    }
+
+    /**
+     * Returns an iterator materializing the sequences whose locators satisfy
+     * the given filter, in the order they are stored in the file.
+     *
+     * @param <O> type of sequence
+     * @param sequenceClass class of the sequences to be created
+     * @param locatorFilter filter of sequence locators (if it is set to null,
+     * all the sequences are returned)
+     * @return iterator over the materialized sequences
+     */
+    public <O extends SequenceMocap<?>> Iterator<O> iterator(Class<O> sequenceClass, Predicate<String> locatorFilter) {
+        final Constructor<O> sequenceConstructor = getSequenceConstructor(sequenceClass);
+        final Constructor<? extends ObjectMocapPose> poseConstructor = getPoseConstructor(sequenceClass);
+        return new Iterator<O>() {
+            private int nextIndex = findNext(0);
+
+            private int findNext(int from) {
+                int i = from;
+                while (i < locators.length && locatorFilter != null && !locatorFilter.test(locators[i])) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextIndex < locators.length;
+            }
+
+            @Override
+            public O next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                O sequence = getSequence(sequenceConstructor, poseConstructor, nextIndex);
+                nextIndex = findNext(nextIndex + 1);
+                return sequence;
+            }
+        };
+    }
+
+    /**
+     * Writes the sequences into the binary file.
+     *
+     * @param sequences sequences to be written
+     * @param file file to which the sequences are written
+     * @throws IOException when an error appears during writing to the file or
+     * when a sequence has no poses or poses with different numbers of joints
+     * (the file is not created or overwritten in that case)
+     */
+    public static void write(List<? extends SequenceMocap<?>> sequences, String file) throws IOException {
+        for (SequenceMocap<?> sequence : sequences) {
+            checkJointCounts(sequence);
+        }
+
+        // Header (its size does not depend on the offsets, so it is measured first)
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        writeHeader(new DataOutputStream(headerBytes), sequences, 0L);
+        long payloadOffset = headerBytes.size();
+        headerBytes.reset();
+        writeHeader(new DataOutputStream(headerBytes), sequences, payloadOffset);
+
+        // Payload
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            headerBytes.writeTo(out);
+            for (SequenceMocap<?> sequence : sequences) {
+                for (ObjectMocapPose pose : sequence.getObjects()) {
+                    for (float coord : pose.getCoordinates()) {
+                        out.writeFloat(coord);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream header, List<? extends SequenceMocap<?>> sequences, long payloadOffset) throws IOException {
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(sequences.size());
+        long offset = payloadOffset;
+        for (SequenceMocap<?> sequence : sequences) {
+            int jointCount = sequence.getJointCount();
+            header.writeUTF(sequence.getLocatorURI());
+            header.writeInt(sequence.getObjectCount());
+            header.writeInt(jointCount);
+            header.writeLong(offset);
+            offset += (long) sequence.getObjectCount() * jointCount * ObjectMocapPose.JOINT_DIM * Float.BYTES;
+        }
+        header.flush();
+    }
+
+    /**
+     * Checks that the sequence has at least one pose and all its poses have
+     * the same positive number of joints.
+     */
+    private static void checkJointCounts(SequenceMocap<?> sequence) throws IOException {
+        int jointCount = sequence.getJointCount();
+        if (jointCount <= 0) {
+            throw new IOException("Sequence " + sequence.getLocatorURI() + " has no poses or joints");
+        }
+        for (ObjectMocapPose pose : sequence.getObjects()) {
+            if (pose.getJointCount() != jointCount) {
+                throw new IOException("Poses of sequence " + sequence.getLocatorURI() + " have different numbers of joints");
+            }
+        }
+    }
+
+    /**
+     * Checks whether the file is the binary file of mocap sequences, i.e.,
+     * whether it starts with the {@link #MAGIC} number.
+     *
+     * @param file file to be checked
+     * @return true if the file is the binary file of mocap sequences
+     */
+    public static boolean isMappedFile(String file) {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static <O extends SequenceMocap<?>> Constructor<O> getSequenceConstructor(Class<O> sequenceClass) {
+        try {
+            return sequenceClass.getConstructor(List.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException("Sequence class " + sequenceClass.getName() + " does not have a constructor with the list of poses", ex);
+        }
+    }
+
+    /**
+     * Returns the constructor of poses of the given sequence class from the
+     * flat array of joint coordinates. The pose class is determined by the
+     * type argument of {@link SequenceMocap}.
+     */
+    private static Constructor<? extends ObjectMocapPose> getPoseConstructor(Class<? extends SequenceMocap<?>> sequenceClass) {
+        Class<?> cls = sequenceClass;
+        while (cls != null && cls != SequenceMocap.class) {
+            Type superType = cls.getGenericSuperclass();
+            if (superType instanceof ParameterizedType parameterizedType) {
+                for (Type typeArg : parameterizedType.getActualTypeArguments()) {
+                    if (typeArg instanceof Class<?> poseClass && ObjectMocapPose.class.isAssignableFrom(poseClass)) {
+                        try {
+                            return poseClass.asSubclass(ObjectMocapPose.class).getConstructor(float[].class);
+                        } catch (NoSuchMethodException ex) {
+                            throw new IllegalArgumentException("Pose class " + poseClass.getName() + " cannot be created only from the flat array of joint coordinates", ex);
+                        }
+                    }
+                }
+            }
+            cls = cls.getSuperclass();
+        }
+        throw new IllegalArgumentException("Pose class of sequence class " + sequenceClass.getName() + " cannot be determined");
+    }
+}
@@ -157,8 +157,8 @@ public abstract class SequenceMocapSkeleton<I extends ObjectMocapPose> extends S
             return LocalAbstractObject.UNKNOWN_DISTANCE;
         }
 
-        // Computes the partial distance of dynamic proportions
-        float dynPropDist = getDistanceDynamicProperties(obj, metaDistances, distThreshold);
+        // Computes the partial distance of dynamic proportions (the threshold applies to the aggregated distance only)
+        float dynPropDist = getDistanceDynamicProperties(obj, metaDistances, LocalAbstractObject.MAX_DISTANCE);
 
         // Aggregated distance
         if (dynPropDist == LocalAbstractObject.UNKNOWN_DISTANCE) {
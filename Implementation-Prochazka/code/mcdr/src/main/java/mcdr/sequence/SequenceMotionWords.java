@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import mcdr.distance.ThresholdDistanceFunction;
 import mcdr.objects.impl.ObjectMotionWord;
 import messif.objects.DistanceFunction;
 import messif.objects.LocalAbstractObject;
@@ -110,7 +111,11 @@ public abstract class SequenceMotionWords<I extends ObjectMotionWord> extends Me
             return LocalAbstractObject.UNKNOWN_DISTANCE;
         }
         SequenceMotionWords<I> objSequence = (SequenceMotionWords<I>) obj;
-        return objSequence.getDistanceFunction().getDistance(this, objSequence);
+        DistanceFunction<Sequence<List<I>>> distanceFunction = objSequence.getDistanceFunction();
+        if (distanceFunction instanceof ThresholdDistanceFunction) {
+            return ((ThresholdDistanceFunction<Sequence<List<I>>>) distanceFunction).getDistance(this, objSequence, distThreshold);
+        }
+        return distanceFunction.getDistance(this, objSequence);
     }
 
     @Override
@@ -69,7 +69,7 @@ public class SequenceMocapPoseCoordsL2DTW extends SequenceMocap<ObjectMocapPoseC
     public static SequenceMocapPoseCoordsL2DTW create(SequenceMocap<?> sequence) {
         List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>(sequence.getSequenceLength());
         for (ObjectMocapPose pose : sequence.getObjects()) {
-            poses.add(new ObjectMocapPoseCoordsL2(pose.getJointCoordinates()));
+            poses.add(new ObjectMocapPoseCoordsL2(pose.getCoordinates().clone()));
         }
         SequenceMocapPoseCoordsL2DTW rtv = new SequenceMocapPoseCoordsL2DTW(poses);
         rtv.setObjectKey(sequence.getObjectKey());
@@ -9,35 +9,132 @@ import smf.sequences.DistanceAllowsNonEquilength;
 import smf.sequences.Sequence;
 
 import java.util.List;
-
-import static mcdr.objects.impl.Extremum.MAXIMUM;
-import static mcdr.objects.impl.Extremum.MINIMUM;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of the distance function used by the extremum neighborhood classification
  * in the two-stage classification framework.
+ * The neighborhood around the extremum of each original action depends only on the action and
+ * the parameters of this distance, so it is cut only once and cached by the action locator;
+ * the distance of a pair of actions is then just the DTW of their cached neighborhoods.
  *
  * @author David Procházka
  */
 public class SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<T> implements DistanceFunction<Sequence<T>>, DistanceAllowsNonEquilength {
 
-    public static ObjectMgmt originalActionMgmt;
-    public static int jointIndex = -1;
-    public static int axisIndex = -1;
-    public static float percentage = -1;
-    public static Extremum extremum;
+    private final ObjectMgmt originalActionMgmt;
+    private final int jointIndex;
+    private final int axisIndex;
+    private final float percentage;
+    private final Extremum extremum;
+    // DTW of the neighborhoods whose poses are compared only by the joints of the body part
+    private final DTWDistance<List<ObjectMocapPoseCoordsL2Filtered>> neighborhoodDistance;
+    // neighborhoods around the extrema of the original actions, keyed by the locators of the actions
+    private final Map<String, SequenceMocapPoseCoordsL2DTWFiltered> neighborhoods = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of {@link SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning}.
+     * All the parameters are kept by the instance, so distances with different parameters can be
+     * evaluated concurrently.
+     *
+     * @param originalActionMgmt management of the original actions, which are looked up by the locators of the
+     *                           compared sequences
+     * @param jointIds           IDs of the joints used by the L2 distance of the poses
+     * @param jointIndex         index of the joint whose extremum is searched
+     * @param axisIndex          index of the axis whose extremum is searched
+     * @param percentage         the part of the coordinate range forming the neighborhood
+     * @param extremum           the type of extremum to use
+     */
+    public SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning(ObjectMgmt originalActionMgmt, Set<Integer> jointIds, int jointIndex, int axisIndex, float percentage, Extremum extremum) {
+        this.originalActionMgmt = originalActionMgmt;
+        this.jointIndex = jointIndex;
+        this.axisIndex = axisIndex;
+        this.percentage = percentage;
+        this.extremum = extremum;
+
+        final int[] jointOffsets = ObjectMocapPoseCoordsL2Filtered.computeJointOffsets(jointIds);
+        this.neighborhoodDistance = new DTWDistance<>() {
+            @Override
+            protected float getPiecewiseDist(Sequence<List<ObjectMocapPoseCoordsL2Filtered>> lhs, int lhsOffset, Sequence<List<ObjectMocapPoseCoordsL2Filtered>> rhs, int rhsOffset) {
+                return lhs.getSequenceData().get(lhsOffset).getFilteredDistance(rhs.getSequenceData().get(rhsOffset), jointOffsets);
+            }
+        };
+    }
+
+    /**
+     * Returns the original action with the given locator.
+     *
+     * @param locatorURI the locator of the action
+     * @return the original action
+     */
+    private SequenceMocapPoseCoordsL2DTWFiltered getOriginalAction(String locatorURI) {
+        var action = originalActionMgmt.getObject(locatorURI);
+        if (action == null) {
+            throw new IllegalArgumentException("Original action " + locatorURI + " not found");
+        }
+        return (SequenceMocapPoseCoordsL2DTWFiltered) action;
+    }
+
+    /**
+     * Returns the neighborhood around the extremum of the original action with the given locator.
+     *
+     * @param locatorURI the locator of the action
+     * @return the neighborhood as a sequence
+     */
+    private SequenceMocapPoseCoordsL2DTWFiltered getNeighborhood(String locatorURI) {
+        var neighborhood = neighborhoods.get(locatorURI);
+        if (neighborhood == null) {
+            neighborhood = neighborhoods.computeIfAbsent(locatorURI, locator -> new SequenceMocapPoseCoordsL2DTWFiltered(getNeighborhoodAroundExtrema(getOriginalAction(locator))));
+        }
+        return neighborhood;
+    }
 
     /**
-     * Returns a list of objects around extrema (based on {@code indexOfExtrema}).
-     * Each objects is above/below (based on {@link #extremum}) {@code thresholdDistance}.
+     * Returns a list of objects around the extremum (based on {@link #extremum}) of the sequence.
+     * Each object is above/below the threshold derived from the extremal value and the range of
+     * the coordinate values (see {@link #percentage}).
      * The produced list is a consecutive sublist of {@code sequence} objects.
      *
-     * @param sequence          the sequence of objects
-     * @param thresholdDistance the threshold distance, which all objects should satisfy
-     * @param indexOfExtrema    the index of extrema from the sequence
+     * @param sequence the sequence of objects
      * @return a list of objects around extrema
      */
-    private static List<ObjectMocapPoseCoordsL2Filtered> getNeighborhoodAroundExtrema(SequenceMocapPoseCoordsL2DTWFiltered sequence, float thresholdDistance, int indexOfExtrema) {
+    private List<ObjectMocapPoseCoordsL2Filtered> getNeighborhoodAroundExtrema(SequenceMocapPoseCoordsL2DTWFiltered sequence) {
+        // Extrema of the coordinate (the first one of equal values)
+        int minIndex = -1;
+        int maxIndex = -1;
+        float minValue = Float.NaN;
+        float maxValue = Float.NaN;
+        for (int i = 0; i < sequence.getObjectCount(); i++) {
+            float value = sequence.getObject(i).getJointCoordinate(jointIndex, axisIndex);
+            if (Float.isNaN(value)) {
+                continue;
+            }
+            if (minIndex == -1 || Float.compare(value, minValue) < 0) {
+                minIndex = i;
+                minValue = value;
+            }
+            if (maxIndex == -1 || Float.compare(value, maxValue) > 0) {
+                maxIndex = i;
+                maxValue = value;
+            }
+        }
+        if (minIndex == -1) {
+            throw new NoSuchElementException("Sequence " + sequence.getLocatorURI() + " has no coordinate of joint " + jointIndex + " and axis " + axisIndex);
+        }
+
+        float sequenceRange = Math.abs(maxValue - minValue);
+        int indexOfExtrema = switch (extremum) {
+            case MAXIMUM -> maxIndex;
+            case MINIMUM -> minIndex;
+        };
+        float thresholdDistance = switch (extremum) {
+            case MAXIMUM -> maxValue + -percentage * sequenceRange;
+            case MINIMUM -> minValue + percentage * sequenceRange;
+        };
+
         int leftIndex = indexOfExtrema;
         int rightIndex = indexOfExtrema;
 
@@ -51,8 +148,8 @@ public class SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<T
         return sequence.getObjects().subList(leftIndex, rightIndex);
     }
 
-    private static boolean isObjectWithinDistance(ObjectMocapPoseCoordsL2Filtered object, float thresholdDistance) {
-        var objectDistance = object.getJointCoordinates()[jointIndex][axisIndex];
+    private boolean isObjectWithinDistance(ObjectMocapPoseCoordsL2Filtered object, float thresholdDistance) {
+        var objectDistance = object.getJointCoordinate(jointIndex, axisIndex);
 
         return switch (extremum) {
             case MAXIMUM -> objectDistance >= thresholdDistance;
@@ -60,37 +157,12 @@ public class SequenceMocapPoseCoordsL2DTWFilteredExtremaNeighborhoodAutoTuning<T
         };
     }
 
-    private static float calculateThresholdDistance(SequenceMocapPoseCoordsL2DTWFiltered sequence) {
-        float thresholdDistance = sequence.getExtremalJointAxisCoordValue(extremum, jointIndex, axisIndex);
-        float sequenceRange = Math.abs(sequence.getExtremalJointAxisCoordValue(MAXIMUM, jointIndex, axisIndex) - sequence.getExtremalJointAxisCoordValue(MINIMUM, jointIndex, axisIndex));
-
-        return thresholdDistance + switch (extremum) {
-            case MAXIMUM -> -percentage * sequenceRange;
-            case MINIMUM -> percentage * sequenceRange;
-        };
-    }
-
     @Override
     public float getDistance(Sequence<T> leftMWSequence, Sequence<T> rightMWSequence) {
         var lhsSequenceLocatorURI = ((SequenceMotionWordsCompositeAutoTuning) leftMWSequence).getLocatorURI();
         var rhsSequenceLocatorURI = ((SequenceMotionWordsCompositeAutoTuning) rightMWSequence).getLocatorURI();
 
-        var lhsSequence = (SequenceMocapPoseCoordsL2DTWFiltered) originalActionMgmt.getObject(lhsSequenceLocatorURI);
-        var rhsSequence = (SequenceMocapPoseCoordsL2DTWFiltered) originalActionMgmt.getObject(rhsSequenceLocatorURI);
-
-        float lhsThresholdDistance = calculateThresholdDistance(lhsSequence);
-        float rhsThresholdDistance = calculateThresholdDistance(rhsSequence);
-
-        int lhsExtremaIndex = lhsSequence.getExtremalJointAxisCoordValueIndex(extremum, jointIndex, axisIndex);
-        int rhsExtremaIndex = rhsSequence.getExtremalJointAxisCoordValueIndex(extremum, jointIndex, axisIndex);
-
-        var lhsNeighborhood = getNeighborhoodAroundExtrema(lhsSequence, lhsThresholdDistance, lhsExtremaIndex);
-        var rhsNeighborhood = getNeighborhoodAroundExtrema(rhsSequence, rhsThresholdDistance, rhsExtremaIndex);
-
-        var lhsSequenceNeighborhood = new SequenceMocapPoseCoordsL2DTWFiltered(lhsNeighborhood);
-        var rhsSequenceNeighborhood = new SequenceMocapPoseCoordsL2DTWFiltered(rhsNeighborhood);
-
-        return new DTWDistance<List<ObjectMocapPoseCoordsL2Filtered>>().getDistance(lhsSequenceNeighborhood, rhsSequenceNeighborhood);
+        return neighborhoodDistance.getDistance(getNeighborhood(lhsSequenceLocatorURI), getNeighborhood(rhsSequenceLocatorURI));
     }
 
     @Override
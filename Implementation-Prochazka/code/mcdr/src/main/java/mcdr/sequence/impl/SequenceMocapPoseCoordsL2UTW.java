@@ -69,7 +69,7 @@ public class SequenceMocapPoseCoordsL2UTW extends SequenceMocap<ObjectMocapPoseC
     public static SequenceMocapPoseCoordsL2UTW create(SequenceMocap<?> sequence) {
         List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>(sequence.getSequenceLength());
         for (ObjectMocapPose pose : sequence.getObjects()) {
-            poses.add(new ObjectMocapPoseCoordsL2(pose.getJointCoordinates()));
+            poses.add(new ObjectMocapPoseCoordsL2(pose.getCoordinates().clone()));
         }
         SequenceMocapPoseCoordsL2UTW rtv = new SequenceMocapPoseCoordsL2UTW(poses);
         rtv.setObjectKey(sequence.getObjectKey());
@@ -0,0 +1,127 @@
+package mcdr.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor;
+import mcdr.objects.extraction.CaffeStandInServer;
+import mcdr.objects.extraction.PooledBatchSocketExtractor;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import messif.objects.extraction.Extractor;
+import messif.objects.extraction.ExtractorDataSource;
+import messif.objects.extraction.Extractors;
+import messif.objects.impl.ObjectFloatVectorNeuralNetworkL2;
+
+/**
+ * Measures the extraction throughput (images per second) of the feature
+ * vectors from PNG motion images by the local {@link CaffeStandInServer} for
+ * the socket extractor of messif, which opens a new connection for each image,
+ * and for {@link PooledBatchSocketExtractor} with batches of 1, 16 and 128
+ * images. Checks that all the extractors return the same feature vectors.
+ * <p>
+ * The motion images are generated from random sequences of 1 to 10 seconds
+ * (120 fps) normalized as the segments of the HDM05 sequences. The server
+ * optionally waits for the given latency before each response to simulate the
+ * network round-trip. The images are sent by the given number of threads, each
+ * holding its own connection.
+ * </p>
+ * <p>
+ * Arguments: {@code [imageCount] [serverLatencyMs] [threads]}
+ * </p>
+ */
+public class CaffeExtractorThroughputTester {
+
+    // sizes of the batches sent by a single request
+    private static final int[] BATCH_SIZES = {1, 16, 128};
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        final int imageCount = (args.length > 0) ? Integer.parseInt(args[0]) : 1024;
+        final int serverLatency = (args.length > 1) ? Integer.parseInt(args[1]) : 0;
+        final int threadCount = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+
+        try (CaffeStandInServer server = new CaffeStandInServer(0, serverLatency)) {
+            CaffeObjectMotionImageSocketExtractor caffeObjectExtractor = MultiLevelSegmentInsertTester.createCaffeObjectExtractor(server.getPort(), 0);
+            List<byte[]> images = new ArrayList<>(imageCount);
+            long imageBytes = 0;
+            for (SequenceMocapPoseCoordsL2DTW sequence : MultiLevelSegmentInsertTester.createSequences(imageCount, 120, 1200)) {
+                byte[] image = CaffeObjectMotionImageSocketExtractor.encodeMotionImage(caffeObjectExtractor.generateMotionImage(caffeObjectExtractor.normalizeSequence(sequence)));
+                images.add(image);
+                imageBytes += image.length;
+            }
+            System.out.println("Images: " + imageCount + ", average size: " + (imageBytes / imageCount) + " B, server latency: " + serverLatency + " ms, threads: " + threadCount);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                System.out.println("extractor\tbatch\timages/s\ttime (ms)\trequests\tidentical");
+                Extractor<ObjectFloatVectorNeuralNetworkL2> socketExtractor = Extractors.createSocketExtractor(ObjectFloatVectorNeuralNetworkL2.class, "localhost", new int[]{server.getPort()}, 0);
+                List<ObjectFloatVectorNeuralNetworkL2> referenceObjects = measure("socket", server, executor, images, 1, batch -> {
+                    List<ObjectFloatVectorNeuralNetworkL2> objects = new ArrayList<>(batch.size());
+                    for (byte[] image : batch) {
+                        objects.add(socketExtractor.extract(new ExtractorDataSource(image)));
+                    }
+                    return objects;
+                }, null);
+                for (int batchSize : BATCH_SIZES) {
+                    try (PooledBatchSocketExtractor batchExtractor = new PooledBatchSocketExtractor("localhost", server.getPort(), threadCount)) {
+                        measure("pooled", server, executor, images, batchSize, batchExtractor::extract, referenceObjects);
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Extracts the objects from the images sent in batches by the executor
+     * threads, prints the throughput and returns the extracted objects.
+     */
+    private static List<ObjectFloatVectorNeuralNetworkL2> measure(String extractorName, CaffeStandInServer server, ExecutorService executor, List<byte[]> images, int batchSize, BatchExtractor extractor, List<ObjectFloatVectorNeuralNetworkL2> referenceObjects) throws Exception {
+        long requestCount = server.getRequestCount();
+        long startTime = System.currentTimeMillis();
+        List<Future<List<ObjectFloatVectorNeuralNetworkL2>>> futures = new ArrayList<>();
+        for (int from = 0; from < images.size(); from += batchSize) {
+            List<byte[]> batch = images.subList(from, Math.min(from + batchSize, images.size()));
+            futures.add(executor.submit(() -> extractor.extract(batch)));
+        }
+        List<ObjectFloatVectorNeuralNetworkL2> objects = new ArrayList<>(images.size());
+        try {
+            for (Future<List<ObjectFloatVectorNeuralNetworkL2>> future : futures) {
+                objects.addAll(future.get());
+            }
+        } catch (ExecutionException ex) {
+            throw (ex.getCause() instanceof Exception) ? (Exception) ex.getCause() : ex;
+        }
+        long time = Math.max(1L, System.currentTimeMillis() - startTime);
+        requestCount = server.getRequestCount() - requestCount;
+        System.out.println(extractorName + "\t" + batchSize + "\t" + (images.size() * 1000f / time) + "\t" + time + "\t" + requestCount + "\t" + ((referenceObjects == null) ? "-" : haveIdenticalData(referenceObjects, objects)));
+        return objects;
+    }
+
+    private static boolean haveIdenticalData(List<ObjectFloatVectorNeuralNetworkL2> expected, List<ObjectFloatVectorNeuralNetworkL2> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).dataEquals(actual.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extraction of the objects from a batch of images.
+     */
+    private interface BatchExtractor {
+
+        List<ObjectFloatVectorNeuralNetworkL2> extract(List<byte[]> images) throws Exception;
+    }
+}
@@ -0,0 +1,131 @@
+package mcdr.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import mcdr.distance.DTWDistance;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import smf.sequences.Sequence;
+
+/**
+ * Checks that {@link DTWDistance} returns the same values as the full-matrix
+ * DTW and measures its speed on synthetic segments shaped like the HDM05 ones
+ * (31 joints, 80 frames by default).
+ *
+ * <p>
+ * Arguments: {@code [segmentCount] [frameCount] [bandWidth]}
+ * </p>
+ */
+public class DTWDistanceTester {
+
+    private static final int JOINT_COUNT = 31;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        final int segmentCount = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        final int frameCount = (args.length > 1) ? Integer.parseInt(args[1]) : 80;
+        final int bandWidth = (args.length > 2) ? Integer.parseInt(args[2]) : frameCount / 10;
+
+        Random random = new Random(0);
+        List<SequenceMocapPoseCoordsL2DTW> segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(createRandomSegment(random, frameCount - random.nextInt(frameCount / 4 + 1)));
+        }
+
+        // Equivalence of the unbanded variant
+        DTWDistance<List<ObjectMocapPoseCoordsL2>> dtw = new DTWDistance<>();
+        int differentDistances = 0;
+        float[] distances = new float[segmentCount * segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            for (int j = 0; j < segmentCount; j++) {
+                float expected = getFullMatrixDistance(segments.get(i), segments.get(j));
+                float actual = dtw.getDistance(segments.get(i), segments.get(j));
+                if (Float.floatToIntBits(expected) != Float.floatToIntBits(actual)) {
+                    differentDistances++;
+                }
+                distances[i * segmentCount + j] = actual;
+            }
+        }
+        System.out.println("Distances different from the full-matrix DTW: " + differentDistances + " of " + distances.length);
+
+        // Threshold discarding 90 % of the pairs
+        float[] sortedDistances = distances.clone();
+        Arrays.sort(sortedDistances);
+        float distThreshold = sortedDistances[sortedDistances.length / 10];
+
+        System.out.println("variant\tpairs/s");
+        for (int round = 0; round < 3; round++) {
+            System.out.println("full matrix\t" + measure(segments, (lhs, rhs) -> getFullMatrixDistance(lhs, rhs)));
+            System.out.println("rolling rows\t" + measure(segments, (lhs, rhs) -> dtw.getDistance(lhs, rhs)));
+            DTWDistance<List<ObjectMocapPoseCoordsL2>> bandedDtw = new DTWDistance<>(bandWidth);
+            System.out.println("band=" + bandWidth + "\t" + measure(segments, (lhs, rhs) -> bandedDtw.getDistance(lhs, rhs)));
+            System.out.println("early abandoning\t" + measure(segments, (lhs, rhs) -> dtw.getDistance(lhs, rhs, distThreshold)));
+            System.out.println("band=" + bandWidth + ", early abandoning\t" + measure(segments, (lhs, rhs) -> bandedDtw.getDistance(lhs, rhs, distThreshold)));
+        }
+    }
+
+    private interface PairDistance {
+
+        float getDistance(SequenceMocapPoseCoordsL2DTW lhs, SequenceMocapPoseCoordsL2DTW rhs);
+    }
+
+    private static float measure(List<SequenceMocapPoseCoordsL2DTW> segments, PairDistance distance) {
+        long startTime = System.nanoTime();
+        float checksum = 0f;
+        for (SequenceMocapPoseCoordsL2DTW lhs : segments) {
+            for (SequenceMocapPoseCoordsL2DTW rhs : segments) {
+                checksum += distance.getDistance(lhs, rhs);
+            }
+        }
+        long time = Math.max(1L, System.nanoTime() - startTime);
+        if (Float.isNaN(checksum)) {
+            System.out.println("NaN distance");
+        }
+        return (float) segments.size() * segments.size() * 1e9f / time;
+    }
+
+    private static SequenceMocapPoseCoordsL2DTW createRandomSegment(Random random, int frameCount) {
+        List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>(frameCount);
+        float[][] jointCoordinates = new float[JOINT_COUNT][3];
+        for (float[] coords : jointCoordinates) {
+            for (int a = 0; a < 3; a++) {
+                coords[a] = random.nextFloat() * 10f - 5f;
+            }
+        }
+        for (int f = 0; f < frameCount; f++) {
+            float[][] poseCoordinates = new float[JOINT_COUNT][3];
+            for (int j = 0; j < JOINT_COUNT; j++) {
+                for (int a = 0; a < 3; a++) {
+                    jointCoordinates[j][a] += (random.nextFloat() - 0.5f) * 0.2f;
+                    poseCoordinates[j][a] = jointCoordinates[j][a];
+                }
+            }
+            poses.add(new ObjectMocapPoseCoordsL2(poseCoordinates));
+        }
+        return new SequenceMocapPoseCoordsL2DTW(poses);
+    }
+
+    /**
+     * The original DTW implementation filling the whole cost matrix.
+     */
+    private static <T> float getFullMatrixDistance(Sequence<T> lhs, Sequence<T> rhs) {
+        float[][] opt = new float[lhs.getSequenceLength()][rhs.getSequenceLength()];
+        opt[0][0] = lhs.getPiecewiseDist(0, rhs, 0);
+        for (int i = 1; i < lhs.getSequenceLength(); i++) {
+            opt[i][0] = opt[i - 1][0] + lhs.getPiecewiseDist(i, rhs, 0);
+        }
+        for (int j = 1; j < rhs.getSequenceLength(); j++) {
+            opt[0][j] = opt[0][j - 1] + lhs.getPiecewiseDist(0, rhs, j);
+        }
+        for (int i = 1; i < lhs.getSequenceLength(); i++) {
+            for (int j = 1; j < rhs.getSequenceLength(); j++) {
+                opt[i][j] = lhs.getPiecewiseDist(i, rhs, j) + Math.min(opt[i - 1][j], Math.min(opt[i][j - 1], opt[i - 1][j - 1]));
+            }
+        }
+        return opt[lhs.getSequenceLength() - 1][rhs.getSequenceLength() - 1];
+    }
+}
@@ -0,0 +1,99 @@
+package mcdr.test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import mcdr.test.utils.ObjectCategoryMgmt;
+import mcdr.test.utils.ObjectMgmt;
+import messif.objects.LocalAbstractObject;
+import messif.objects.util.RankedAbstractObject;
+import messif.operations.RankingSingleQueryOperation;
+
+/**
+ * Measures the throughput (queries per second) of the kNN query evaluation in
+ * {@link ObjectMgmt} for an increasing number of threads and checks that the
+ * answers are identical to the single-threaded evaluation.
+ *
+ * <p>
+ * Arguments: {@code <objectClass> <categoryFile> <dataFile> <queryFile> [k]
+ * [maxThreads]}
+ * </p>
+ */
+public class KNNQueryThroughputTester {
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: " + KNNQueryThroughputTester.class.getName() + " <objectClass> <categoryFile> <dataFile> <queryFile> [k] [maxThreads]");
+            return;
+        }
+        final Class<? extends LocalAbstractObject> objectClass = (Class<? extends LocalAbstractObject>) Class.forName(args[0]);
+        final String categoryFile = args[1];
+        final String dataFile = args[2];
+        final String queryFile = args[3];
+        final int k = (args.length > 4) ? Integer.parseInt(args[4]) : 4;
+        final int maxThreadCount = (args.length > 5) ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        // structures
+        ObjectCategoryMgmt categoryMgmt = new ObjectCategoryMgmt(categoryFile);
+        ObjectMgmt queryMgmt = new ObjectMgmt(categoryMgmt);
+        ObjectMgmt dataMgmt = new ObjectMgmt(categoryMgmt);
+        System.out.println("Queries:");
+        queryMgmt.read(objectClass, queryFile);
+        System.out.println("Data:");
+        dataMgmt.read(objectClass, dataFile);
+
+        // Reference (sequential) evaluation
+        Map<ObjectCategoryMgmt.Category, List<RankingSingleQueryOperation>> referenceOperationsMap = null;
+        System.out.println("threads\tqueries/s\ttime (ms)\tidentical");
+        for (int threadCount = 1; threadCount <= maxThreadCount; threadCount = (threadCount < 4) ? threadCount + 1 : threadCount * 2) {
+            long startTime = System.currentTimeMillis();
+            Map<ObjectCategoryMgmt.Category, List<RankingSingleQueryOperation>> categoryOperationsMap = dataMgmt.executeKNNQueries(queryMgmt, k, null, null, false, true, false, threadCount);
+            long time = Math.max(1L, System.currentTimeMillis() - startTime);
+            if (referenceOperationsMap == null) {
+                referenceOperationsMap = categoryOperationsMap;
+            }
+            System.out.println(threadCount + "\t" + (queryMgmt.getObjectCount() * 1000f / time) + "\t" + time + "\t" + haveIdenticalAnswers(referenceOperationsMap, categoryOperationsMap));
+        }
+    }
+
+    /**
+     * Checks whether the answers of both evaluations contain the same objects
+     * with the same distances in the same order.
+     *
+     * @param expected reference evaluation
+     * @param actual   compared evaluation
+     * @return true if all the answers are identical
+     */
+    private static boolean haveIdenticalAnswers(Map<ObjectCategoryMgmt.Category, List<RankingSingleQueryOperation>> expected, Map<ObjectCategoryMgmt.Category, List<RankingSingleQueryOperation>> actual) {
+        if (!expected.keySet().equals(actual.keySet())) {
+            return false;
+        }
+        for (Map.Entry<ObjectCategoryMgmt.Category, List<RankingSingleQueryOperation>> entry : expected.entrySet()) {
+            List<RankingSingleQueryOperation> expectedOps = entry.getValue();
+            List<RankingSingleQueryOperation> actualOps = actual.get(entry.getKey());
+            if (expectedOps.size() != actualOps.size()) {
+                return false;
+            }
+            for (int i = 0; i < expectedOps.size(); i++) {
+                Iterator<RankedAbstractObject> expectedIt = expectedOps.get(i).getAnswer();
+                Iterator<RankedAbstractObject> actualIt = actualOps.get(i).getAnswer();
+                while (expectedIt.hasNext() && actualIt.hasNext()) {
+                    RankedAbstractObject e = expectedIt.next();
+                    RankedAbstractObject a = actualIt.next();
+                    if (e.getObject() != a.getObject() || Float.floatToIntBits(e.getDistance()) != Float.floatToIntBits(a.getDistance())) {
+                        return false;
+                    }
+                }
+                if (expectedIt.hasNext() || actualIt.hasNext()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
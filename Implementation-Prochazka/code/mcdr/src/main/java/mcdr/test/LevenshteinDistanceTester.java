@@ -0,0 +1,174 @@
+package mcdr.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+import mcdr.distance.LevenshteinDistance;
+import mcdr.distance.MatchingLevenshteinDistance;
+import mcdr.objects.impl.BodyPartConfiguration;
+import mcdr.objects.impl.ObjectMotionWord;
+import mcdr.objects.impl.ObjectMotionWordComposite;
+import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
+import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
+import mcdr.sequence.impl.SequenceMotionWordsLevenshtein;
+import smf.sequences.Sequence;
+
+/**
+ * Checks that {@link LevenshteinDistance} returns the same values as the
+ * full-matrix Levenshtein distance, both for simple motion words and for
+ * composite motion words compared by {@link MatchingLevenshteinDistance}, that
+ * the distances not exceeding a threshold are exact while the others are
+ * reported above the threshold, and measures its speed on random motion-word
+ * sequences (30 words on average from a vocabulary of 8 words by default).
+ *
+ * <p>
+ * Arguments: {@code [sequenceCount] [wordCount] [vocabularySize]}
+ * </p>
+ */
+public class LevenshteinDistanceTester {
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        final int sequenceCount = (args.length > 0) ? Integer.parseInt(args[0]) : 300;
+        final int wordCount = (args.length > 1) ? Integer.parseInt(args[1]) : 30;
+        final int vocabularySize = (args.length > 2) ? Integer.parseInt(args[2]) : 8;
+
+        ObjectMotionWordComposite.bodyPartConfiguration = BodyPartConfiguration.HDM05;
+        final int bodyPartCount = ObjectMotionWordComposite.getBodyParts().size();
+
+        Random random = new Random(0);
+        List<SequenceMotionWordsLevenshtein> sequences = new ArrayList<>(sequenceCount);
+        List<SequenceMotionWordsCompositeAutoTuning> compositeSequences = new ArrayList<>(sequenceCount);
+        for (int i = 0; i < sequenceCount; i++) {
+            int length = wordCount / 2 + random.nextInt(wordCount + 1);
+            List<ObjectMotionWord> words = new ArrayList<>(length);
+            List<ObjectMotionWordCompositeAutoTuning> compositeWords = new ArrayList<>(length);
+            for (int w = 0; w < length; w++) {
+                words.add(new ObjectMotionWord(new long[]{random.nextInt(vocabularySize)}));
+                long[] data = new long[bodyPartCount];
+                for (int b = 0; b < bodyPartCount; b++) {
+                    data[b] = random.nextInt(vocabularySize);
+                }
+                compositeWords.add(new ObjectMotionWordCompositeAutoTuning(data));
+            }
+            sequences.add(new SequenceMotionWordsLevenshtein(words));
+            compositeSequences.add(new SequenceMotionWordsCompositeAutoTuning(compositeWords));
+        }
+
+        // Equivalence of simple motion words
+        LevenshteinDistance<List<ObjectMotionWord>> levenshtein = new LevenshteinDistance<>();
+        float[] distances = check(sequences, levenshtein::getDistance, levenshtein::getDistance,
+                (lhs, rhs) -> getFullMatrixDistance(lhs, rhs, (i, j) -> lhs.getPiecewiseDist(i, rhs, j)));
+        System.out.println("Simple motion words: " + distances.length + " pairs checked");
+
+        // Equivalence of composite motion words compared by a matching predicate
+        BiPredicate<ObjectMotionWordComposite, ObjectMotionWordComposite> matchingFunction = ObjectMotionWordComposite::matchAtLeastTwo;
+        MatchingLevenshteinDistance matchingLevenshtein = new MatchingLevenshteinDistance(matchingFunction);
+        float[] compositeDistances = check(compositeSequences, matchingLevenshtein::getDistance, matchingLevenshtein::getDistance,
+                (lhs, rhs) -> getFullMatrixDistance(lhs, rhs,
+                        (i, j) -> matchingFunction.test(lhs.getSequenceData().get(i), rhs.getSequenceData().get(j)) ? 0.0f : 1.0f));
+        System.out.println("Composite motion words: " + compositeDistances.length + " pairs checked");
+
+        // Threshold discarding 90 % of the pairs
+        float[] sortedDistances = distances.clone();
+        Arrays.sort(sortedDistances);
+        float distThreshold = sortedDistances[sortedDistances.length / 10];
+
+        System.out.println("variant\tpairs/s");
+        for (int round = 0; round < 3; round++) {
+            System.out.println("full matrix\t" + measure(sequences,
+                    (lhs, rhs) -> getFullMatrixDistance(lhs, rhs, (i, j) -> lhs.getPiecewiseDist(i, rhs, j))));
+            System.out.println("rolling rows\t" + measure(sequences, levenshtein::getDistance));
+            System.out.println("threshold=" + distThreshold + "\t" + measure(sequences, (lhs, rhs) -> levenshtein.getDistance(lhs, rhs, distThreshold)));
+        }
+    }
+
+    private interface PairDistance<S> {
+
+        float getDistance(S lhs, S rhs);
+    }
+
+    private interface ThresholdPairDistance<S> {
+
+        float getDistance(S lhs, S rhs, float distThreshold);
+    }
+
+    private interface SubstitutionCost {
+
+        float getCost(int lhsOffset, int rhsOffset);
+    }
+
+    /**
+     * Compares the distances of all the pairs of sequences with the full-matrix
+     * distance, without a threshold and with thresholds around the exact
+     * distance, and returns the exact distances.
+     */
+    private static <S> float[] check(List<S> sequences, PairDistance<S> distance, ThresholdPairDistance<S> thresholdDistance, PairDistance<S> fullMatrixDistance) {
+        int differentDistances = 0;
+        int wrongThresholdDistances = 0;
+        float[] distances = new float[sequences.size() * sequences.size()];
+        for (int i = 0; i < sequences.size(); i++) {
+            for (int j = 0; j < sequences.size(); j++) {
+                S lhs = sequences.get(i);
+                S rhs = sequences.get(j);
+                float expected = fullMatrixDistance.getDistance(lhs, rhs);
+                float actual = distance.getDistance(lhs, rhs);
+                if (Float.floatToIntBits(expected) != Float.floatToIntBits(actual)) {
+                    differentDistances++;
+                }
+
+                for (float distThreshold : new float[]{0f, expected - 1f, expected - 0.5f, expected, expected + 0.5f, expected + 3f}) {
+                    float thresholdActual = thresholdDistance.getDistance(lhs, rhs, distThreshold);
+                    boolean correct = (expected <= distThreshold)
+                            ? Float.floatToIntBits(expected) == Float.floatToIntBits(thresholdActual)
+                            : thresholdActual > distThreshold;
+                    if (!correct) {
+                        wrongThresholdDistances++;
+                    }
+                }
+                distances[i * sequences.size() + j] = actual;
+            }
+        }
+        System.out.println("Distances different from the full-matrix Levenshtein: " + differentDistances
+                + ", wrong distances with a threshold: " + wrongThresholdDistances);
+        return distances;
+    }
+
+    private static <S> float measure(List<S> sequences, PairDistance<S> distance) {
+        long startTime = System.nanoTime();
+        float checksum = 0f;
+        for (S lhs : sequences) {
+            for (S rhs : sequences) {
+                checksum += distance.getDistance(lhs, rhs);
+            }
+        }
+        long time = Math.max(1L, System.nanoTime() - startTime);
+        if (Float.isNaN(checksum)) {
+            System.out.println("NaN distance");
+        }
+        return (float) sequences.size() * sequences.size() * 1e9f / time;
+    }
+
+    /**
+     * The original Levenshtein implementation filling the whole cost matrix.
+     */
+    private static <T> float getFullMatrixDistance(Sequence<T> lhs, Sequence<T> rhs, SubstitutionCost substitutionCost) {
+        float[][] opt = new float[lhs.getSequenceLength() + 1][rhs.getSequenceLength() + 1];
+        for (int i = 1; i <= lhs.getSequenceLength(); i++) {
+            opt[i][0] = i;
+        }
+        for (int j = 1; j <= rhs.getSequenceLength(); j++) {
+            opt[0][j] = j;
+        }
+        for (int i = 1; i <= lhs.getSequenceLength(); i++) {
+            for (int j = 1; j <= rhs.getSequenceLength(); j++) {
+                opt[i][j] = Math.min(opt[i - 1][j - 1] + substitutionCost.getCost(i - 1, j - 1), Math.min(opt[i - 1][j] + 1.0f, opt[i][j - 1] + 1.0f));
+            }
+        }
+        return opt[lhs.getSequenceLength()][rhs.getSequenceLength()];
+    }
+}
@@ -0,0 +1,179 @@
+package mcdr.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import mcdr.algorithms.MultiLevelSegmentRetrievalAlgorithm;
+import mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor;
+import mcdr.objects.extraction.CaffeStandInServer;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.preprocessing.transformation.impl.MotionImageConvertor;
+import mcdr.sequence.KinematicTree;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import mcdr.test.utils.SequenceMocapMgmt;
+import messif.objects.keys.AbstractObjectKey;
+import messif.objects.util.RankedAbstractObject;
+import messif.operations.data.BulkInsertOperation;
+import messif.operations.query.KNNQueryOperation;
+import smf.modules.seqstorage.MemorySequenceStorage;
+
+/**
+ * Measures the insert throughput (sequences per second) and the total build
+ * time of {@link MultiLevelSegmentRetrievalAlgorithm} for an increasing number
+ * of insert threads and checks that the built indexes return the same answers
+ * as the index built by a single thread.
+ * <p>
+ * The segment features are extracted by the local
+ * {@link CaffeStandInServer} over a persistent connection per insert thread,
+ * which sends the segments of a sequence level in a single request. The server
+ * optionally waits for the given latency before each response to simulate the
+ * network round-trip. The sequences are read from the HDM05 file of
+ * {@link SequenceMocapPoseCoordsL2DTW} sequences (120 fps) or generated
+ * randomly with the size of HDM05 if the file is {@code synthetic}.
+ * </p>
+ * <p>
+ * Arguments: {@code <sequenceFile>|synthetic [maxThreads]
+ * [serverLatencyMs]}
+ * </p>
+ */
+public class MultiLevelSegmentInsertTester {
+
+    // number of synthetic sequences
+    private static final int SYNTHETIC_SEQUENCE_COUNT = 300;
+    // number of queries whose answers are compared
+    private static final int QUERY_COUNT = 20;
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: " + MultiLevelSegmentInsertTester.class.getName() + " <sequenceFile>|synthetic [maxThreads] [serverLatencyMs]");
+            return;
+        }
+        final int maxThreadCount = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int serverLatency = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+        // The algorithms log every indexed sequence and every executed operation
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        List<SequenceMocapPoseCoordsL2DTW> sequences = args[0].equals("synthetic") ? createSequences(SYNTHETIC_SEQUENCE_COUNT, 1000, 3000) : readSequences(args[0]);
+        int frameCount = 0;
+        for (SequenceMocapPoseCoordsL2DTW sequence : sequences) {
+            frameCount += sequence.getSequenceLength();
+        }
+        System.out.println("Sequences: " + sequences.size() + ", frames: " + frameCount + ", server latency: " + serverLatency + " ms");
+
+        CaffeStandInServer server = new CaffeStandInServer(0, serverLatency);
+        List<List<String>> referenceAnswers = null;
+        System.out.println("threads\tsequences/s\ttime (ms)\tsegments\trequests\tidentical");
+        for (int threadCount = 1; threadCount <= maxThreadCount; threadCount *= 2) {
+            // HDM05 parameters: queries of 1 to 10 seconds, covering factor 0.5
+            CaffeObjectMotionImageSocketExtractor caffeObjectExtractor = createCaffeObjectExtractor(server.getPort(), threadCount);
+            // The algorithm stores the sequence data as List<?>, which is not the data type of the DTW sequences, so the data class and storage are raw
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            MultiLevelSegmentRetrievalAlgorithm<SequenceMocapPoseCoordsL2DTW> algorithm = new MultiLevelSegmentRetrievalAlgorithm<>(SequenceMocapPoseCoordsL2DTW.class, (Class) List.class, new MemorySequenceStorage(), 120, 1200, 0.5f, caffeObjectExtractor, threadCount);
+
+            long imageCount = server.getImageCount();
+            long requestCount = server.getRequestCount();
+            long startTime = System.currentTimeMillis();
+            algorithm.insert(new BulkInsertOperation(sequences));
+            long time = Math.max(1L, System.currentTimeMillis() - startTime);
+            long segmentCount = server.getImageCount() - imageCount;
+            requestCount = server.getRequestCount() - requestCount;
+
+            List<List<String>> answers = executeQueries(algorithm, sequences);
+            caffeObjectExtractor.close();
+            if (referenceAnswers == null) {
+                referenceAnswers = answers;
+            }
+            System.out.println(threadCount + "\t" + (sequences.size() * 1000f / time) + "\t" + time + "\t" + segmentCount + "\t" + requestCount + "\t" + referenceAnswers.equals(answers));
+        }
+
+        // The segment storages of the algorithms keep their search threads
+        System.exit(0);
+    }
+
+    /**
+     * Creates the extractor with the HDM05 parameters (120 fps reduced to 12
+     * fps) connected to the local server by the given number of persistent
+     * connections.
+     */
+    static CaffeObjectMotionImageSocketExtractor createCaffeObjectExtractor(int port, int connectionCount) throws Exception {
+        return new CaffeObjectMotionImageSocketExtractor(
+                CaffeObjectMotionImageSocketExtractor.createSequenceConvertors(SequenceMocapPoseCoordsL2DTW.class, 120, 12, true, false, true, false, true, KinematicTree.BONE_LENGTH_MAP_HDM05, KinematicTree.KINEMATIC_TREE_VICON),
+                new MotionImageConvertor(-20.350546f, 21.727161f),
+                "localhost", port, connectionCount);
+    }
+
+    /**
+     * Executes kNN queries of subsequences of the inserted sequences and
+     * returns the locators and distances of their answers.
+     */
+    private static List<List<String>> executeQueries(MultiLevelSegmentRetrievalAlgorithm<SequenceMocapPoseCoordsL2DTW> algorithm, List<SequenceMocapPoseCoordsL2DTW> sequences) {
+        Random random = new Random(1);
+        List<List<String>> answers = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            SequenceMocapPoseCoordsL2DTW sequence = sequences.get(random.nextInt(sequences.size()));
+            int length = Math.min(sequence.getSequenceLength(), 240 + random.nextInt(480));
+            int offset = random.nextInt(sequence.getSequenceLength() - length + 1);
+            KNNQueryOperation operation = new KNNQueryOperation(algorithm.getSubsequence(sequence, offset, offset + length), 10);
+            algorithm.processOperation(operation);
+            List<String> answer = new ArrayList<>();
+            for (Iterator<RankedAbstractObject> it = operation.getAnswer(); it.hasNext();) {
+                RankedAbstractObject rao = it.next();
+                answer.add(rao.getObject().getLocatorURI() + ":" + rao.getDistance());
+            }
+            answers.add(answer);
+        }
+        return answers;
+    }
+
+    private static List<SequenceMocapPoseCoordsL2DTW> readSequences(String sequenceFile) throws IOException {
+        SequenceMocapMgmt sequenceMgmt = new SequenceMocapMgmt();
+        sequenceMgmt.read(SequenceMocapPoseCoordsL2DTW.class, sequenceFile);
+        List<SequenceMocapPoseCoordsL2DTW> sequences = new ArrayList<>();
+        for (SequenceMocap<?> sequence : sequenceMgmt.getSequences()) {
+            sequences.add((SequenceMocapPoseCoordsL2DTW) sequence);
+        }
+        return sequences;
+    }
+
+    /**
+     * Generates sequences of 31-joint poses of the given numbers of frames
+     * whose joints move by small random steps.
+     */
+    static List<SequenceMocapPoseCoordsL2DTW> createSequences(int sequenceCount, int minFrameCount, int maxFrameCount) {
+        Random random = new Random(0);
+        List<SequenceMocapPoseCoordsL2DTW> sequences = new ArrayList<>(sequenceCount);
+        for (int s = 0; s < sequenceCount; s++) {
+            int frameCount = minFrameCount + random.nextInt(maxFrameCount - minFrameCount + 1);
+            float[][] jointCoordinates = new float[31][3];
+            for (float[] coords : jointCoordinates) {
+                for (int a = 0; a < coords.length; a++) {
+                    coords[a] = random.nextFloat() * 20f - 10f;
+                }
+            }
+            List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>(frameCount);
+            for (int f = 0; f < frameCount; f++) {
+                for (float[] coords : jointCoordinates) {
+                    for (int a = 0; a < coords.length; a++) {
+                        coords[a] += (random.nextFloat() - 0.5f) * 0.2f;
+                    }
+                }
+                ObjectMocapPoseCoordsL2 pose = new ObjectMocapPoseCoordsL2(jointCoordinates);
+                pose.setFrameNo(f);
+                poses.add(pose);
+            }
+            SequenceMocapPoseCoordsL2DTW sequence = new SequenceMocapPoseCoordsL2DTW(poses);
+            sequence.setObjectKey(new AbstractObjectKey(Integer.toString(1000 + s)));
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+}
@@ -362,7 +362,7 @@ public class NTUSearchTransitionProcessor {
 //    public static float getAngleDifference(float angle1, float angle2) {
 //    }
     public static List<ObjectMocapPose> interpolatePoses(Class<? extends ObjectMocapPose> poseClass, ObjectMocapPose poseFrom, ObjectMocapPose poseTo, float interpolationRatio) {
-        final int jointCount = poseFrom.getJointCoordinates().length;
+        final int jointCount = poseFrom.getJointCount();
         float poseDist = poseFrom.getDistance(poseTo);
         int poseCount = Math.round(poseDist / interpolationRatio);
         System.out.println("  Interpolated poses (dist=" + poseDist + "): " + poseCount);
@@ -372,7 +372,7 @@ public class NTUSearchTransitionProcessor {
         float[][] poseCoordsDiffs = new float[jointCount][3];
         for (int j = 0; j < jointCount; j++) {
             for (int i = 0; i < 3; i++) {
-                poseCoordsDiffs[j][i] = (poseTo.getJointCoordinates()[j][i] - poseFrom.getJointCoordinates()[j][i]) / (poseCount + 1f);
+                poseCoordsDiffs[j][i] = (poseTo.getJointCoordinate(j, i) - poseFrom.getJointCoordinate(j, i)) / (poseCount + 1f);
             }
         }
 
@@ -380,7 +380,7 @@ public class NTUSearchTransitionProcessor {
             float[][] poseCoords = new float[jointCount][3];
             for (int j = 0; j < jointCount; j++) {
                 for (int i = 0; i < 3; i++) {
-                    poseCoords[j][i] = poseFrom.getJointCoordinates()[j][i] + f * poseCoordsDiffs[j][i];
+                    poseCoords[j][i] = poseFrom.getJointCoordinate(j, i) + f * poseCoordsDiffs[j][i];
                 }
             }
             try {
@@ -0,0 +1,200 @@
+package mcdr.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import mcdr.distance.LevenshteinDistance;
+import mcdr.objects.classification.impl.ObjectClassification;
+import mcdr.objects.classification.impl.ObjectMultiCategoryClassifier;
+import mcdr.objects.impl.BodyPartConfiguration;
+import mcdr.objects.impl.ObjectMotionWord;
+import mcdr.objects.impl.ObjectMotionWordComposite;
+import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
+import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
+import mcdr.test.utils.ObjectCategoryMgmt;
+import mcdr.test.utils.ObjectMgmt;
+import messif.objects.classification.ClassificationException;
+import messif.objects.util.RankedAbstractObject;
+import messif.operations.RankingSingleQueryOperation;
+
+/**
+ * Checks that {@link ObjectMultiCategoryClassifier} returns the same
+ * classifications (categories, confidences and their order) as the
+ * classification accumulating the votes in a map of boxed confidences, both
+ * with and without weighting the objects by their distances, and measures the
+ * number of classifications per second.
+ * <p>
+ * The classified kNN answers are either evaluated for the query objects of a
+ * fold against the data objects of the other folds (composite motion words of
+ * HDM05 compared by the Levenshtein distance, as in
+ * {@link RunCrossValidation}), or generated randomly (with ties of distances
+ * and objects belonging to multiple categories) if no files are given.
+ * </p>
+ * <p>
+ * Arguments: {@code [queryFile dataFile] [k]}
+ * </p>
+ */
+public class ObjectClassifierTester {
+
+    /**
+     * @param args the command line arguments
+     * @throws IOException            if the fold files cannot be read
+     * @throws ClassificationException if the classification fails
+     */
+    public static void main(String[] args) throws IOException, ClassificationException {
+        final boolean foldFiles = args.length >= 2;
+        final int k = (args.length % 2 == 1) ? Integer.parseInt(args[args.length - 1]) : 4;
+
+        List<List<RankedAbstractObject>> answers = foldFiles ? evaluateFoldAnswers(args[0], args[1], k) : generateAnswers(10000, k, 130);
+        System.out.println("Answers: " + answers.size() + " (k=" + k + ")");
+
+        // Equivalence
+        for (boolean weightObjectsByDistance : new boolean[]{true, false}) {
+            ObjectMultiCategoryClassifier classifier = new ObjectMultiCategoryClassifier(weightObjectsByDistance);
+            int differentClassifications = 0;
+            for (List<RankedAbstractObject> answer : answers) {
+                ObjectClassification expected = new ObjectClassification(classifyByMap(classifier, answer, weightObjectsByDistance));
+                ObjectClassification actual = classifier.classify(answer.iterator(), null);
+                if (!isSame(expected.getSortedClassificationEntries(), actual.getSortedClassificationEntries())) {
+                    differentClassifications++;
+                }
+            }
+            System.out.println("Classifications different from the map voting (weightObjectsByDistance=" + weightObjectsByDistance + "): " + differentClassifications);
+        }
+
+        ObjectMultiCategoryClassifier classifier = new ObjectMultiCategoryClassifier(true);
+        System.out.println("variant\tclassifications/s");
+        for (int round = 0; round < 3; round++) {
+            System.out.println("map voting\t" + measure(answers, answer -> classifyByMap(classifier, answer, true).size()));
+            System.out.println("array voting\t" + measure(answers, answer -> classifier.classify(answer.iterator(), null).size()));
+        }
+    }
+
+    private interface AnswerClassification {
+
+        int classify(List<RankedAbstractObject> answer) throws ClassificationException;
+    }
+
+    /**
+     * Evaluates the kNN queries of the query objects against the data objects.
+     */
+    private static List<List<RankedAbstractObject>> evaluateFoldAnswers(String queryFile, String dataFile, int k) throws IOException {
+        ObjectMotionWordComposite.bodyPartConfiguration = BodyPartConfiguration.HDM05;
+        SequenceMotionWordsCompositeAutoTuning.distanceFunction = new LevenshteinDistance<>();
+        ObjectMotionWordCompositeAutoTuning.matchingFunction = ObjectMotionWordComposite::matchAtLeastTwo;
+
+        ObjectCategoryMgmt categoryMgmt = new ObjectCategoryMgmt();
+        ObjectMgmt queryMgmt = new ObjectMgmt(categoryMgmt);
+        queryMgmt.read(SequenceMotionWordsCompositeAutoTuning.class, queryFile);
+        ObjectMgmt dataMgmt = new ObjectMgmt(categoryMgmt);
+        dataMgmt.read(SequenceMotionWordsCompositeAutoTuning.class, dataFile);
+
+        List<List<RankedAbstractObject>> answers = new ArrayList<>();
+        for (List<RankingSingleQueryOperation> operations : dataMgmt.executeKNNQueries(queryMgmt, k, false, true).values()) {
+            for (RankingSingleQueryOperation operation : operations) {
+                List<RankedAbstractObject> answer = new ArrayList<>();
+                for (Iterator<RankedAbstractObject> it = operation.getAnswer(); it.hasNext(); ) {
+                    answer.add(it.next());
+                }
+                answers.add(answer);
+            }
+        }
+        return answers;
+    }
+
+    /**
+     * Generates random answers whose distances are often tied and whose
+     * objects belong to one or two of the categories.
+     */
+    private static List<List<RankedAbstractObject>> generateAnswers(int answerCount, int k, int categoryCount) {
+        Random random = new Random(0);
+        List<List<RankedAbstractObject>> answers = new ArrayList<>(answerCount);
+        for (int i = 0; i < answerCount; i++) {
+            List<RankedAbstractObject> answer = new ArrayList<>(k);
+            for (int j = 0; j < k; j++) {
+                String categoryId = Integer.toString(random.nextInt(categoryCount));
+                if (random.nextInt(10) == 0) {
+                    categoryId += "-" + random.nextInt(categoryCount);
+                }
+                String locator = random.nextInt(1000) + "_" + categoryId + "_" + random.nextInt(100) + "_" + (1 + random.nextInt(100));
+                answer.add(new RankedAbstractObject(new ObjectMotionWord(locator, new long[]{j}), random.nextInt(8) / 2f));
+            }
+            answers.add(answer);
+        }
+        return answers;
+    }
+
+    /**
+     * The original voting accumulating the confidences in a map of boxed
+     * values.
+     */
+    private static Map<String, Float> classifyByMap(ObjectMultiCategoryClassifier classifier, List<RankedAbstractObject> objects, boolean weightObjectsByDistance) {
+        float maxDistance = Float.MIN_VALUE;
+        for (RankedAbstractObject o : objects) {
+            if (o.getDistance() > maxDistance) {
+                maxDistance = o.getDistance();
+            }
+        }
+        if (maxDistance <= 0f) {
+            maxDistance = 1f;
+        } else {
+            maxDistance *= 1.1f;
+        }
+
+        Map<String, Float> confidenceMap = new HashMap<>();
+        float confidenceSum = 0f;
+        for (RankedAbstractObject o : objects) {
+            for (String category : classifier.getObjectCategories(o.getObject())) {
+                Float confidence = confidenceMap.get(category);
+                float objectConfidenceValue = (weightObjectsByDistance) ? 1f - (o.getDistance() / maxDistance) : 1f;
+                if (confidence == null) {
+                    confidence = objectConfidenceValue;
+                } else {
+                    confidence += objectConfidenceValue;
+                }
+                confidenceMap.put(category, confidence);
+                confidenceSum += objectConfidenceValue;
+            }
+        }
+        for (Map.Entry<String, Float> entry : confidenceMap.entrySet()) {
+            entry.setValue(entry.getValue() / confidenceSum);
+        }
+        return confidenceMap;
+    }
+
+    private static boolean isSame(SortedSet<Map.Entry<String, Float>> expected, SortedSet<Map.Entry<String, Float>> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        Iterator<Map.Entry<String, Float>> actualIt = actual.iterator();
+        for (Map.Entry<String, Float> expectedEntry : expected) {
+            Map.Entry<String, Float> actualEntry = actualIt.next();
+            if (!expectedEntry.getKey().equals(actualEntry.getKey())
+                    || Float.floatToIntBits(expectedEntry.getValue()) != Float.floatToIntBits(actualEntry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static float measure(List<List<RankedAbstractObject>> answers, AnswerClassification classification) throws ClassificationException {
+        int repetitions = Math.max(1, 2000000 / answers.size());
+        long startTime = System.nanoTime();
+        long checksum = 0;
+        for (int r = 0; r < repetitions; r++) {
+            for (List<RankedAbstractObject> answer : answers) {
+                checksum += classification.classify(answer);
+            }
+        }
+        long time = Math.max(1L, System.nanoTime() - startTime);
+        if (checksum == 0) {
+            System.out.println("Empty classifications");
+        }
+        return (float) repetitions * answers.size() * 1e9f / time;
+    }
+}
@@ -0,0 +1,110 @@
+package mcdr.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mcdr.objects.ObjectMocapPose;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+
+/**
+ * Reports the heap footprint of synthetic pose sequences (31 joints, 80
+ * frames by default), compares the heap taken by their coordinates alone
+ * stored in one flat array per pose with the heap taken by the same
+ * coordinates stored as one {@code float[3]} array per joint, and measures
+ * the pose distance throughput.
+ *
+ * <p>
+ * Arguments: {@code [sequenceCount] [frameCount]}
+ * </p>
+ */
+public class PoseStorageTester {
+
+    private static final int JOINT_COUNT = 31;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        final int sequenceCount = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        final int frameCount = (args.length > 1) ? Integer.parseInt(args[1]) : 80;
+
+        Random random = new Random(0);
+
+        // Heap taken by the poses
+        long heapBefore = getUsedHeap();
+        List<SequenceMocapPoseCoordsL2DTW> sequences = new ArrayList<>(sequenceCount);
+        for (int i = 0; i < sequenceCount; i++) {
+            sequences.add(createRandomSequence(random, frameCount));
+        }
+        long heapSequences = getUsedHeap() - heapBefore;
+        System.out.println("Heap per 1000 sequences: " + (heapSequences * 1000 / sequenceCount / 1024) + " kB");
+
+        // Heap taken by the coordinates only, stored in the same layout as the poses store them
+        heapBefore = getUsedHeap();
+        List<float[][]> flatArrays = new ArrayList<>(sequenceCount);
+        for (SequenceMocapPoseCoordsL2DTW sequence : sequences) {
+            float[][] poses = new float[sequence.getObjectCount()][];
+            for (int f = 0; f < poses.length; f++) {
+                poses[f] = sequence.getObject(f).getCoordinates().clone();
+            }
+            flatArrays.add(poses);
+        }
+        long heapFlatArrays = getUsedHeap() - heapBefore;
+        System.out.println("Heap per 1000 sequences of float[joint * 3] coordinates only: " + (heapFlatArrays * 1000 / sequenceCount / 1024) + " kB");
+        flatArrays.clear();
+
+        // Heap taken by the same coordinates stored per joint
+        heapBefore = getUsedHeap();
+        List<float[][][]> jointArrays = new ArrayList<>(sequenceCount);
+        for (SequenceMocapPoseCoordsL2DTW sequence : sequences) {
+            float[][][] poses = new float[sequence.getObjectCount()][][];
+            for (int f = 0; f < poses.length; f++) {
+                poses[f] = ObjectMocapPose.unflatten(sequence.getObject(f).getCoordinates());
+            }
+            jointArrays.add(poses);
+        }
+        long heapJointArrays = getUsedHeap() - heapBefore;
+        System.out.println("Heap per 1000 sequences of float[joint][3] coordinates only: " + (heapJointArrays * 1000 / sequenceCount / 1024) + " kB");
+        jointArrays.clear();
+
+        // Pose distance throughput
+        List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>();
+        for (SequenceMocapPoseCoordsL2DTW sequence : sequences.subList(0, Math.min(sequences.size(), 10))) {
+            poses.addAll(sequence.getObjects());
+        }
+        for (int round = 0; round < 3; round++) {
+            long startTime = System.nanoTime();
+            float checksum = 0f;
+            for (ObjectMocapPoseCoordsL2 lhs : poses) {
+                for (ObjectMocapPoseCoordsL2 rhs : poses) {
+                    checksum += lhs.getDistance(rhs);
+                }
+            }
+            long time = Math.max(1L, System.nanoTime() - startTime);
+            System.out.println("Pose distances/s: " + ((float) poses.size() * poses.size() * 1e9f / time) + " (checksum " + checksum + ")");
+        }
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static SequenceMocapPoseCoordsL2DTW createRandomSequence(Random random, int frameCount) {
+        List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>(frameCount);
+        float[][] poseCoordinates = new float[JOINT_COUNT][3];
+        for (int f = 0; f < frameCount; f++) {
+            for (float[] coords : poseCoordinates) {
+                for (int a = 0; a < 3; a++) {
+                    coords[a] = random.nextFloat() * 10f - 5f;
+                }
+            }
+            poses.add(new ObjectMocapPoseCoordsL2(poseCoordinates));
+        }
+        return new SequenceMocapPoseCoordsL2DTW(poses);
+    }
+}
@@ -4,6 +4,7 @@ import mcdr.distance.LevenshteinDistance;
 import mcdr.distance.SupervisedLevenshteinDistance;
 import mcdr.objects.classification.impl.ObjectMultiCategoryClassifier;
 import mcdr.objects.classification.impl.specialized.tuning.Tuner;
+import mcdr.objects.impl.BodyPartConfiguration;
 import mcdr.objects.impl.ObjectBodyPart;
 import mcdr.objects.impl.ObjectMotionWordComposite;
 import mcdr.objects.impl.ObjectMotionWordCompositeAutoTuning;
@@ -13,15 +14,22 @@ import mcdr.sequence.impl.SequenceMotionWordsCompositeAutoTuning;
 import mcdr.test.utils.ObjectCategoryMgmt;
 import mcdr.test.utils.ObjectCategoryMgmt.Category;
 import mcdr.test.utils.ObjectMgmt;
+import messif.objects.DistanceFunction;
 import messif.objects.classification.ClassificationException;
 import messif.utility.reflection.NoSuchInstantiatorException;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -32,6 +40,24 @@ import static mcdr.objects.impl.BodyPartConfiguration.PKU_MMD_EXTENDED;
 
 /**
  * Runs evaluation in cross-validation mode.
+ * <p>
+ * Every fold is evaluated by its own query, data and original action managers and its own classifiers, so the folds
+ * can be evaluated concurrently. They share only the body part configuration and the matching function of composite
+ * motion words, which are set once before the evaluation.
+ * <p>
+ * Arguments:
+ * <pre>
+ * hdm &lt;categoryFile&gt; &lt;foldsFolder&gt; &lt;originalActionsFile&gt; &lt;split&gt; &lt;folds&gt; [options]
+ * pku &lt;categoryFile&gt; &lt;folder&gt; &lt;originalActionsFile&gt; &lt;queryLocatorRegEx&gt; &lt;dataLocatorRegEx&gt; [options]
+ * </pre>
+ * where the options have the form {@code name=value}: {@code k} (2 for HDM05, 4 for PKU-MMD), {@code clusters} (350),
+ * {@code tune} (true), {@code supervised} (false), {@code verbose} (true), {@code classificationCategories}
+ * (unlimited for HDM05, 2 for PKU-MMD), {@code confidenceThreshold} (1.1), {@code threads} (1), the number of
+ * folds evaluated concurrently, {@code queryThreads} (1), the number of threads evaluating the kNN queries of a fold,
+ * and {@code candidateThreads}, the number of threads evaluating the candidate configurations of a specialized
+ * classifier (the number of processors if the folds are evaluated sequentially, 1 otherwise). The thread counts of
+ * the levels multiply, so only one of them should usually exceed 1. Every concurrently evaluated fold keeps its own
+ * copy of the original actions in memory.
  *
  * @author David Procházka
  */
@@ -39,124 +65,134 @@ public class RunCrossValidation {
 
     private static final Logger logger = Logger.getLogger(RunCrossValidation.class.getName());
 
+    /**
+     * Settings of the evaluation shared by all the folds.
+     *
+     * @param categoryFile                file with the descriptions of categories
+     * @param originalActionsFile         file with the original actions used by the specialized classifiers
+     * @param tuneSpecializedClassifiers  whether to tune the specialized classifiers and evaluate the two-stage
+     *                                    classification
+     * @param supervised                  whether to compare the actions by the body parts selected per category
+     * @param k                           number of neighbors considered in the classifier (excluding self)
+     * @param objectLocatorRegExQueryMgmt regular expression restricting the locators of the query actions
+     *                                    (null means all the actions)
+     * @param objectLocatorRegExDataMgmt  regular expression restricting the locators of the data actions
+     *                                    (null means all the actions)
+     * @param verbose                     whether to print the statistics of individual queries
+     * @param classificationCategories    maximum number of classification categories of a specialized classifier
+     * @param confidenceThreshold         confidence of the global classification above which the specialized
+     *                                    classifiers are not invoked
+     * @param queryThreadCount            number of threads evaluating the kNN queries of a fold (values lower than 2
+     *                                    evaluate the queries sequentially)
+     * @param candidateThreadCount        number of threads evaluating the candidate configurations of a specialized
+     *                                    classifier (values lower than 2 evaluate the candidates sequentially)
+     */
+    public record Settings(
+            String categoryFile,
+            String originalActionsFile,
+            boolean tuneSpecializedClassifiers,
+            boolean supervised,
+            int k,
+            String objectLocatorRegExQueryMgmt,
+            String objectLocatorRegExDataMgmt,
+            boolean verbose,
+            long classificationCategories,
+            float confidenceThreshold,
+            int queryThreadCount,
+            int candidateThreadCount
+    ) {
+    }
+
+    /**
+     * Files of a single fold.
+     *
+     * @param dataFile  file with the training actions
+     * @param queryFile file with the testing actions
+     */
+    public record Fold(String dataFile, String queryFile) {
+    }
+
     public static void main(String[] args) throws IOException, NoSuchInstantiatorException, ClassificationException {
+        if (args.length < 6 || !(args[0].equals("hdm") || args[0].equals("pku"))) {
+            System.err.println("Usage: " + RunCrossValidation.class.getName() + " hdm <categoryFile> <foldsFolder> <originalActionsFile> <split> <folds> [options]");
+            System.err.println("       " + RunCrossValidation.class.getName() + " pku <categoryFile> <folder> <originalActionsFile> <queryLocatorRegEx> <dataLocatorRegEx> [options]");
+            System.err.println("Options: k=<k> clusters=<clusters> tune=<bool> supervised=<bool> verbose=<bool> classificationCategories=<count> confidenceThreshold=<threshold> threads=<folds evaluated concurrently> queryThreads=<threads per fold> candidateThreads=<threads per fold>");
+            System.exit(1);
+        }
         setupLogging();
 
-
-        // HDM05 configuration
-//        ObjectMotionWordComposite.bodyPartConfiguration = HDM05;
-//        String categoryFile = "/home/drking/Documents/bakalarka/data/pku-mmd/category_description.txt";
-//        String objectLocatorRegExQueryMgmt = null;
-//        String objectLocatorRegExDataMgmt = null;
-//        int k = 2;
-//        int split = 4;
-//        int numberOfClusters = 350;
-//        boolean tuneSpecializedClassifiers = true;
-//        boolean supervised = false;
-//        boolean verbose = true;
-//        long classifiedCategories = Long.MAX_VALUE;
-//        float confidenceThreshold = 1.1F;
-
-        // HDM05-130
-//        var performance = runCrossValidationHdm(
-//                categoryFile,
-//                "/home/drking/Documents/bakalarka/data/folds-MWs",
-//                split,
-//                numberOfClusters,
-//                2,
-//                tuneSpecializedClassifiers,
-//                supervised,
-//                k,
-//                objectLocatorRegExQueryMgmt,
-//                objectLocatorRegExDataMgmt,
-//                "/home/drking/Documents/bakalarka/data/hdm05/class130-actions-coords_normPOS-fps12.data",
-//                verbose,
-//                classifiedCategories,
-//                confidenceThreshold
-//        );
-
-        // HDM05-65
-        // var performance = runCrossValidationHdm(
-        //         categoryFile,
-        //         "/home/xprocha6/cybela1-storage/folds-mw/hdm05/65",
-        //         split,
-        //         numberOfClusters,
-        //         10,
-        //         tuneSpecializedClassifiers,
-        //         supervised,
-        //         k,
-        //         objectLocatorRegExQueryMgmt,
-        //         objectLocatorRegExDataMgmt,
-        //         "/home/xprocha6/cybela1-storage/datasets/hdm05/class130-actions-coords_normPOS-fps12.data-cho2014",
-        //         verbose,
-        //         classifiedCategories,
-        //         confidenceThreshold
-        // );
-
-//         PKU-MMD configuration
-         ObjectMotionWordComposite.bodyPartConfiguration = PKU_MMD_EXTENDED;
-         String categoryFile = "/home/drking/Documents/bakalarka/data/pku-mmd/category_description.txt";
-         String originalActionsFile = "/home/drking/Documents/bakalarka/data/pku-mmd/actions_singlesubject-segment24_shift4.8_initialshift0-coords_normPOS-fps10.data";
-         int k = 4;
-         int numberOfClusters = 350;
-         boolean tuneSpecializedClassifiers = true;
-         boolean supervised = false;
-         boolean verbose = true;
-         long classifiedCategories = 2L;
-         float confidenceThreshold = 1.1F;
-
-        // PKU-MMD CS
-        // var performance = runPku(
-        //         categoryFile,
-        //         "/home/xprocha6/cybela1-storage/folds-mw/pku/cs",
-        //         numberOfClusters,
-        //         tuneSpecializedClassifiers,
-        //         supervised,
-        //         k,
-        //         "(0291-L|0291-M|0291-R|0292-L|0292-M|0292-R|0293-L|0293-M|0293-R|0294-L|0294-M|0294-R|0295-L|0295-M|0295-R|0296-L|0296-M|0296-R|0297-L|0297-M|0297-R|0298-L|0298-M|0298-R|0299-L|0299-M|0299-R|0300-L|0300-M|0300-R|0301-L|0301-M|0301-R|0302-L|0302-M|0302-R|0303-L|0303-M|0303-R|0304-L|0304-M|0304-R|0305-L|0305-M|0305-R|0306-L|0306-M|0306-R|0307-L|0307-M|0307-R|0308-L|0308-M|0308-R|0309-L|0309-M|0309-R|0310-L|0310-M|0310-R|0311-L|0311-M|0311-R|0312-L|0312-M|0312-R|0313-L|0313-M|0313-R|0314-L|0314-M|0314-R|0315-L|0315-M|0315-R|0316-L|0316-M|0316-R|0317-L|0317-M|0317-R|0318-L|0318-M|0318-R|0319-L|0319-M|0319-R|0320-L|0320-M|0320-R|0321-L|0321-M|0321-R|0322-L|0322-M|0322-R|0323-L|0323-M|0323-R|0324-L|0324-M|0324-R|0325-L|0325-M|0325-R|0326-L|0326-M|0326-R|0327-L|0327-M|0327-R|0328-L|0328-M|0328-R|0329-L|0329-M|0329-R|0330-L|0330-M|0330-R|0331-L|0331-M|0331-R|0332-L|0332-M|0332-R|0333-L|0333-M|0333-R|0334-L|0334-M|0334-R)_.*",
-        //         "(0002-L|0002-M|0002-R|0003-L|0003-M|0003-R|0004-L|0004-M|0004-R|0005-L|0005-M|0005-R|0006-L|0006-M|0006-R|0007-L|0007-M|0007-R|0008-L|0008-M|0008-R|0009-L|0009-M|0009-R|0010-L|0010-M|0010-R|0011-L|0011-M|0011-R|0012-L|0012-M|0012-R|0013-L|0013-M|0013-R|0014-L|0014-M|0014-R|0015-L|0015-M|0015-R|0016-L|0016-M|0016-R|0017-L|0017-M|0017-R|0018-L|0018-M|0018-R|0019-L|0019-M|0019-R|0020-L|0020-M|0020-R|0021-L|0021-M|0021-R|0022-L|0022-M|0022-R|0023-L|0023-M|0023-R|0024-L|0024-M|0024-R|0025-L|0025-M|0025-R|0026-L|0026-M|0026-R|0027-L|0027-M|0027-R|0028-L|0028-M|0028-R|0029-L|0029-M|0029-R|0030-L|0030-M|0030-R|0031-L|0031-M|0031-R|0032-L|0032-M|0032-R|0033-L|0033-M|0033-R|0034-L|0034-M|0034-R|0035-L|0035-M|0035-R|0036-L|0036-M|0036-R|0037-L|0037-M|0037-R|0038-L|0038-M|0038-R|0039-L|0039-M|0039-R|0040-L|0040-M|0040-R|0041-L|0041-M|0041-R|0042-L|0042-M|0042-R|0043-L|0043-M|0043-R|0044-L|0044-M|0044-R|0045-L|0045-M|0045-R|0046-L|0046-M|0046-R|0047-L|0047-M|0047-R|0048-L|0048-M|0048-R|0049-L|0049-M|0049-R|0050-L|0050-M|0050-R|0051-L|0051-M|0051-R|0052-L|0052-M|0052-R|0053-L|0053-M|0053-R|0054-L|0054-M|0054-R|0055-L|0055-M|0055-R|0056-L|0056-M|0056-R|0057-L|0057-M|0057-R|0058-L|0058-M|0058-R|0059-L|0059-M|0059-R|0060-M|0060-R|0061-L|0061-M|0061-R|0062-L|0062-M|0062-R|0063-L|0063-M|0063-R|0064-L|0064-M|0064-R|0065-L|0065-M|0065-R|0066-L|0066-M|0066-R|0067-L|0067-M|0067-R|0068-L|0068-M|0068-R|0069-L|0069-M|0069-R|0070-L|0070-M|0070-R|0071-L|0071-M|0071-R|0072-L|0072-M|0072-R|0073-L|0073-M|0073-R|0074-L|0074-M|0074-R|0075-L|0075-M|0075-R|0076-L|0076-M|0076-R|0077-L|0077-M|0077-R|0078-L|0078-M|0078-R|0079-L|0079-M|0079-R|0080-L|0080-M|0080-R|0081-L|0081-M|0081-R|0082-L|0082-M|0082-R|0083-L|0083-M|0083-R|0084-L|0084-M|0084-R|0085-L|0085-M|0085-R|0086-L|0086-M|0086-R|0087-L|0087-M|0087-R|0088-L|0088-M|0088-R|0089-L|0089-M|0089-R|0090-L|0090-M|0090-R|0091-L|0091-M|0091-R|0092-L|0092-M|0092-R|0093-L|0093-M|0093-R|0094-L|0094-M|0094-R|0095-L|0095-M|0095-R|0096-L|0096-M|0096-R|0097-L|0097-M|0097-R|0098-L|0098-M|0098-R|0099-L|0099-M|0099-R|0100-L|0100-M|0100-R|0101-L|0101-M|0101-R|0102-L|0102-M|0102-R|0103-L|0103-M|0103-R|0104-L|0104-M|0104-R|0105-L|0105-M|0105-R|0106-L|0106-M|0106-R|0107-L|0107-M|0107-R|0108-L|0108-M|0108-R|0109-L|0109-M|0109-R|0110-L|0110-M|0110-R|0111-L|0111-M|0111-R|0112-L|0112-M|0112-R|0113-L|0113-M|0113-R|0114-L|0114-M|0114-R|0115-L|0115-M|0115-R|0116-L|0116-M|0116-R|0117-L|0117-M|0117-R|0118-L|0118-M|0118-R|0119-L|0119-M|0119-R|0120-L|0120-M|0120-R|0121-L|0121-M|0121-R|0122-L|0122-M|0122-R|0123-L|0123-M|0123-R|0124-L|0124-M|0124-R|0125-L|0125-M|0125-R|0126-L|0126-M|0126-R|0127-L|0127-M|0127-R|0128-L|0128-M|0128-R|0129-L|0129-M|0129-R|0130-L|0130-M|0130-R|0131-L|0131-M|0131-R|0132-L|0132-M|0132-R|0133-L|0133-M|0133-R|0134-L|0134-M|0134-R|0135-L|0135-M|0135-R|0136-L|0136-M|0136-R|0137-L|0137-M|0137-R|0138-L|0138-M|0138-R|0139-L|0139-M|0139-R|0140-L|0140-M|0140-R|0141-L|0141-M|0141-R|0142-L|0142-M|0142-R|0143-L|0143-M|0143-R|0144-L|0144-M|0144-R|0145-L|0145-M|0145-R|0146-L|0146-M|0146-R|0147-L|0147-M|0147-R|0148-L|0148-M|0148-R|0149-L|0149-M|0149-R|0150-L|0150-M|0150-R|0151-L|0151-M|0151-R|0152-L|0152-M|0152-R|0153-L|0153-M|0153-R|0154-L|0154-M|0154-R|0155-L|0155-M|0155-R|0156-L|0156-M|0156-R|0157-L|0157-M|0157-R|0158-L|0158-M|0158-R|0159-L|0159-M|0159-R|0160-L|0160-M|0160-R|0161-L|0161-M|0161-R|0162-L|0162-M|0162-R|0163-L|0163-M|0163-R|0164-L|0164-M|0164-R|0165-L|0165-M|0165-R|0166-L|0166-M|0166-R|0167-L|0167-M|0167-R|0168-L|0168-M|0168-R|0169-L|0169-M|0169-R|0170-L|0170-M|0170-R|0171-L|0171-M|0171-R|0172-L|0172-M|0172-R|0173-L|0173-M|0173-R|0174-L|0174-M|0174-R|0175-L|0175-M|0175-R|0176-L|0176-M|0176-R|0177-L|0177-M|0177-R|0178-L|0178-M|0178-R|0179-L|0179-M|0179-R|0180-L|0180-M|0180-R|0181-L|0181-M|0181-R|0182-L|0182-M|0182-R|0183-L|0183-M|0183-R|0184-L|0184-M|0184-R|0185-L|0185-M|0185-R|0186-L|0186-M|0186-R|0187-L|0187-M|0187-R|0188-L|0188-M|0188-R|0189-L|0189-M|0189-R|0190-L|0190-M|0190-R|0191-L|0191-M|0191-R|0192-L|0192-M|0192-R|0193-L|0193-M|0193-R|0194-L|0194-M|0194-R|0195-L|0195-M|0195-R|0196-L|0196-M|0196-R|0197-L|0197-M|0197-R|0198-L|0198-M|0198-R|0199-L|0199-M|0199-R|0200-L|0200-M|0200-R|0201-L|0201-M|0201-R|0202-L|0202-M|0202-R|0203-L|0203-M|0203-R|0204-L|0204-M|0204-R|0205-L|0205-M|0205-R|0206-L|0206-M|0206-R|0207-L|0207-M|0207-R|0208-L|0208-M|0208-R|0209-L|0209-M|0209-R|0210-L|0210-M|0210-R|0211-L|0211-M|0211-R|0212-L|0212-M|0212-R|0213-L|0213-M|0213-R|0214-L|0214-M|0214-R|0215-L|0215-M|0215-R|0216-L|0216-M|0216-R|0217-L|0217-M|0217-R|0218-L|0218-M|0218-R|0219-L|0219-M|0219-R|0220-L|0220-M|0220-R|0221-L|0221-M|0221-R|0222-L|0222-M|0222-R|0223-L|0223-M|0223-R|0224-L|0224-M|0224-R|0225-L|0225-M|0225-R|0226-L|0226-M|0226-R|0227-L|0227-M|0227-R|0228-L|0228-M|0228-R|0229-L|0229-M|0229-R|0230-L|0230-M|0230-R|0231-L|0231-M|0231-R|0232-L|0232-M|0232-R|0233-L|0233-M|0233-R|0234-L|0234-M|0234-R|0235-L|0235-M|0235-R|0236-L|0236-M|0236-R|0237-L|0237-M|0237-R|0238-L|0238-M|0238-R|0239-L|0239-M|0239-R|0240-L|0240-M|0240-R|0241-L|0241-M|0241-R|0242-L|0242-M|0242-R|0243-L|0243-M|0243-R|0244-L|0244-M|0244-R|0245-L|0245-M|0245-R|0246-L|0246-M|0246-R|0251-L|0251-M|0251-R|0252-L|0252-M|0252-R|0253-L|0253-M|0253-R|0254-L|0254-M|0254-R|0255-L|0255-M|0255-R|0256-L|0256-M|0256-R|0257-L|0257-M|0257-R|0258-L|0258-M|0258-R|0259-L|0259-M|0259-R|0260-L|0260-M|0260-R|0261-L|0261-M|0261-R|0262-L|0262-M|0262-R|0263-L|0263-M|0263-R|0264-L|0264-M|0264-R|0265-L|0265-M|0265-R|0266-L|0266-M|0266-R|0267-L|0267-M|0267-R|0268-L|0268-M|0268-R|0269-L|0269-M|0269-R|0270-L|0270-M|0270-R|0271-L|0271-M|0271-R|0272-L|0272-M|0272-R|0273-L|0273-M|0273-R|0274-L|0274-M|0274-R|0275-L|0275-M|0275-R|0276-L|0276-M|0276-R|0277-L|0277-M|0277-R|0278-L|0278-M|0278-R|0279-L|0279-M|0279-R|0280-L|0280-M|0280-R|0281-L|0281-M|0281-R|0282-L|0282-M|0282-R|0283-L|0283-M|0283-R|0284-L|0284-M|0284-R|0285-L|0285-M|0285-R|0286-L|0286-M|0286-R|0287-L|0287-M|0287-R|0288-L|0288-M|0288-R|0289-L|0289-M|0289-R|0290-L|0290-M|0290-R|0335-L|0335-M|0335-R|0336-L|0336-M|0336-R|0337-L|0337-M|0337-R|0338-L|0338-M|0338-R|0339-L|0339-M|0339-R|0340-L|0340-M|0340-R|0341-L|0341-M|0341-R|0342-L|0342-M|0342-R|0343-L|0343-M|0343-R|0344-L|0344-M|0344-R|0345-L|0345-M|0345-R|0346-L|0346-M|0346-R|0347-L|0347-M|0347-R|0348-L|0348-M|0348-R|0349-L|0349-M|0349-R|0350-L|0350-M|0350-R|0351-L|0351-M|0351-R|0352-L|0352-M|0352-R|0353-L|0353-M|0353-R|0354-L|0354-M|0354-R|0355-L|0355-M|0355-R|0356-L|0356-M|0356-R|0357-L|0357-M|0357-R|0358-L|0358-M|0358-R|0359-L|0359-M|0359-R|0360-L|0360-M|0360-R|0361-L|0361-M|0361-R|0362-L|0362-M|0362-R|0363-L|0363-M|0363-R|0364-L|0364-M|0364-R)_.*",
-        //         originalActionsFile,
-        //         verbose,
-        //         classifiedCategories,
-        //         confidenceThreshold
-        // );
-
-//         PKU-MMD CV
-         var performance = runPku(
-                 categoryFile,
-                 "/home/drking/Documents/bakalarka/data/pku-test/lat_dim=256_beta=1/MWs",
-                 numberOfClusters,
-                 tuneSpecializedClassifiers,
-                 supervised,
-                 k,
-                 ".*-M_.*",
-                 ".*-(L|R)_.*",
-                 originalActionsFile,
-                 verbose,
-                 classifiedCategories,
-                 confidenceThreshold
-         );
+        boolean hdm = args[0].equals("hdm");
+        Map<String, String> options = parseOptions(args, 6);
+        int foldThreadCount = Integer.parseInt(options.getOrDefault("threads", "1"));
+        // the inner levels are sequential by default when the folds are evaluated concurrently
+        int defaultCandidateThreadCount = (foldThreadCount > 1) ? 1 : Runtime.getRuntime().availableProcessors();
+        int numberOfClusters = Integer.parseInt(options.getOrDefault("clusters", "350"));
+        var settings = new Settings(
+                args[1],
+                args[3],
+                Boolean.parseBoolean(options.getOrDefault("tune", "true")),
+                Boolean.parseBoolean(options.getOrDefault("supervised", "false")),
+                Integer.parseInt(options.getOrDefault("k", hdm ? "2" : "4")),
+                hdm ? null : args[4],
+                hdm ? null : args[5],
+                Boolean.parseBoolean(options.getOrDefault("verbose", "true")),
+                Long.parseLong(options.getOrDefault("classificationCategories", hdm ? Long.toString(Long.MAX_VALUE) : "2")),
+                Float.parseFloat(options.getOrDefault("confidenceThreshold", "1.1")),
+                Integer.parseInt(options.getOrDefault("queryThreads", "1")),
+                Integer.parseInt(options.getOrDefault("candidateThreads", Integer.toString(defaultCandidateThreadCount)))
+        );
+
+        // HDM05-130: split 4, 2 folds; HDM05-65: split 4, 10 folds
+        // PKU-MMD CV: query actions ".*-M_.*", data actions ".*-(L|R)_.*"
+        double performance = hdm
+                ? runCrossValidationHdm(settings, args[2], Integer.parseInt(args[4]), numberOfClusters, Integer.parseInt(args[5]), foldThreadCount)
+                : runPku(settings, args[2], numberOfClusters);
 
         logger.info("Result: %s".formatted(performance));
     }
 
-    private static float runSingleEvaluation(String categoryFile, String dataFile, String queryFile, boolean tuneSpecializedClassifiers, boolean supervised, int k, String objectLocatorRegExQueryMgmt, String objectLocatorRegExDataMgmt, String originalActionsFile, boolean verbose, long classificationCategories, float confidenceThreshold) throws IOException, ClassificationException, NoSuchInstantiatorException {
-        if (supervised) {
-            SequenceMotionWordsCompositeAutoTuning.distanceFunction = new SupervisedLevenshteinDistance<>();
-        } else {
-            SequenceMotionWordsCompositeAutoTuning.distanceFunction = new LevenshteinDistance<>();
+    private static Map<String, String> parseOptions(String[] args, int firstOptionIndex) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = firstOptionIndex; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Option must have the form name=value: " + args[i]);
+            }
+            options.put(option[0], option[1]);
         }
+        return options;
+    }
+
+    /**
+     * Sets the configuration shared by all the folds of the dataset.
+     */
+    private static void configure(BodyPartConfiguration bodyPartConfiguration) {
+        ObjectMotionWordComposite.bodyPartConfiguration = bodyPartConfiguration;
         ObjectMotionWordCompositeAutoTuning.matchingFunction = ObjectMotionWordComposite::matchAtLeastTwo;
+        SequenceMotionWordsCompositeAutoTuning.distanceFunction = new LevenshteinDistance<>();
+    }
+
+    /**
+     * Evaluates a single fold.
+     *
+     * @param settings settings of the evaluation
+     * @param fold     files of the fold
+     * @return the performance of the two-stage classification, or of the global classification if the specialized
+     * classifiers are not tuned
+     */
+    public static float runSingleEvaluation(Settings settings, Fold fold) throws IOException, ClassificationException, NoSuchInstantiatorException {
+        // The distance of the kNN queries is fold-local, the specialized classifiers use their own distances
+        DistanceFunction<?> distanceFunction = (settings.supervised()) ? new SupervisedLevenshteinDistance<>() : new LevenshteinDistance<>();
 
         logger.info("===== NEW EXPERIMENT: =====");
-        logger.info("Category file: %s".formatted(categoryFile));
-        logger.info("Data file: %s".formatted(dataFile));
-        logger.info("Query file: %s".formatted(queryFile));
-        logger.info("Original actions file: %s".formatted(originalActionsFile));
-        logger.info("Number of neighbors considered in the classifier (excluding self): %d".formatted(k));
+        logger.info("Category file: %s".formatted(settings.categoryFile()));
+        logger.info("Data file: %s".formatted(fold.dataFile()));
+        logger.info("Query file: %s".formatted(fold.queryFile()));
+        logger.info("Original actions file: %s".formatted(settings.originalActionsFile()));
+        logger.info("Number of neighbors considered in the classifier (excluding self): %d".formatted(settings.k()));
         logger.info("===== NEW EXPERIMENT: =====");
 
-        var categoryMgmt = new ObjectCategoryMgmt(categoryFile);
+        var categoryMgmt = new ObjectCategoryMgmt(settings.categoryFile());
         var queryMgmt = new ObjectMgmt(categoryMgmt);
         var dataMgmt = new ObjectMgmt(categoryMgmt);
         var originalActionMgmt = new ObjectMgmt(categoryMgmt);
@@ -165,15 +201,15 @@ public class RunCrossValidation {
         var originalActionsObjectClass = SequenceMocapPoseCoordsL2DTWFiltered.class;
 
         logger.info("Reading testing actions:");
-        queryMgmt.read(objectClass, queryFile, objectLocatorRegExQueryMgmt, null, null, null, true);
+        queryMgmt.read(objectClass, fold.queryFile(), settings.objectLocatorRegExQueryMgmt(), null, null, null, true);
 
         logger.info("Reading training actions:");
-        dataMgmt.read(objectClass, dataFile, objectLocatorRegExDataMgmt, null, null, null, true);
+        dataMgmt.read(objectClass, fold.dataFile(), settings.objectLocatorRegExDataMgmt(), null, null, null, true);
 
         logger.info("Reading original actions:");
-        originalActionMgmt.read(originalActionsObjectClass, originalActionsFile);
+        originalActionMgmt.read(originalActionsObjectClass, settings.originalActionsFile());
 
-        if (supervised) {
+        if (settings.supervised()) {
             var bodyPartPerCategory = computeBodyPartPerCategory(dataMgmt);
 
             for (var entry : dataMgmt.getCategoryObjects().entrySet()) {
@@ -189,34 +225,82 @@ public class RunCrossValidation {
         }
 
         logger.info("Prepare test kNN queries");
-        var testQueries = dataMgmt.executeKNNQueries(queryMgmt, k, false, true);
+        long knnStartTime = System.currentTimeMillis();
+        var testQueries = dataMgmt.executeKNNQueries(queryMgmt, settings.k(), false, true, settings.queryThreadCount(), distanceFunction);
+        logger.info("Test kNN queries took: %ss".formatted((System.currentTimeMillis() - knnStartTime) / 1_000.0f));
 
         var globalClassifier = new ObjectMultiCategoryClassifier(true);
 
-        if (!tuneSpecializedClassifiers) {
-            var globalClassificationResult = dataMgmt.evaluateClassificationWithClassificationResult(globalClassifier, testQueries, 1, true, true, verbose);
+        if (!settings.tuneSpecializedClassifiers()) {
+            var globalClassificationResult = dataMgmt.evaluateClassificationWithClassificationResult(globalClassifier, testQueries, 1, true, true, settings.verbose());
             logger.info("Global classification performance: %s".formatted(globalClassificationResult.performance()));
 
             return globalClassificationResult.performance();
         }
 
         logger.info("Running global kNN queries");
-        var tuningQueries = dataMgmt.executeKNNQueries(dataMgmt, k, false, true);
+        knnStartTime = System.currentTimeMillis();
+        var tuningQueries = dataMgmt.executeKNNQueries(dataMgmt, settings.k(), false, true, settings.queryThreadCount(), distanceFunction);
+        logger.info("Global kNN queries took: %ss".formatted((System.currentTimeMillis() - knnStartTime) / 1_000.0f));
 
-        var globalClassificationResult = dataMgmt.evaluateClassificationWithClassificationResult(globalClassifier, tuningQueries, 1, true, true, verbose);
+        var globalClassificationResult = dataMgmt.evaluateClassificationWithClassificationResult(globalClassifier, tuningQueries, 1, true, true, settings.verbose());
         logger.info("Internal classification performance: %s".formatted(globalClassificationResult.performance()));
 
-        SequenceMotionWordsCompositeAutoTuning.distanceFunction = new LevenshteinDistance<>();
-        Tuner.MAX_CLASSIFICATION_CATEGORIES_PER_INVOCATION_CATEGORY = classificationCategories;
-        logger.info("Number of classification categories: %d".formatted(classificationCategories));
+        logger.info("Number of classification categories: %d".formatted(settings.classificationCategories()));
 
-        var specializedObjectClassifierMgmt = new Tuner(k, dataMgmt, originalActionMgmt).tuneSpecializedClassifiers(globalClassificationResult);
-        var twoStageClassificationResult = dataMgmt.evaluateTwoStageClassificationWithClassificationResult(globalClassifier, testQueries, 1, true, true, verbose, specializedObjectClassifierMgmt, confidenceThreshold);
+        var specializedObjectClassifierMgmt = new Tuner(settings.k(), dataMgmt, originalActionMgmt, settings.classificationCategories(), settings.candidateThreadCount()).tuneSpecializedClassifiers(globalClassificationResult);
+        var twoStageClassificationResult = dataMgmt.evaluateTwoStageClassificationWithClassificationResult(globalClassifier, testQueries, 1, true, true, settings.verbose(), specializedObjectClassifierMgmt, settings.confidenceThreshold());
         logger.info("Two stage classification performance: %s".formatted(twoStageClassificationResult.performance()));
 
         return twoStageClassificationResult.performance();
     }
 
+    /**
+     * Evaluates the folds, at most the specified number of them concurrently.
+     *
+     * @param settings    settings of the evaluation
+     * @param folds       files of the folds
+     * @param threadCount number of folds evaluated concurrently (values lower than 2 evaluate the folds sequentially)
+     * @return the performances of the folds in the order of the folds
+     */
+    public static List<Float> runFolds(Settings settings, List<Fold> folds, int threadCount) throws IOException, ClassificationException, NoSuchInstantiatorException {
+        List<Float> performances = new ArrayList<>(folds.size());
+        if (threadCount <= 1 || folds.size() <= 1) {
+            for (Fold fold : folds) {
+                performances.add(runSingleEvaluation(settings, fold));
+            }
+            return performances;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, folds.size()));
+        try {
+            List<Future<Float>> futures = new ArrayList<>(folds.size());
+            for (Fold fold : folds) {
+                futures.add(executor.submit(() -> runSingleEvaluation(settings, fold)));
+            }
+
+            // Collecting the performances in the order of folds
+            for (Future<Float> future : futures) {
+                performances.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fold evaluation was interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException cause) {
+                throw cause;
+            } else if (ex.getCause() instanceof ClassificationException cause) {
+                throw cause;
+            } else if (ex.getCause() instanceof NoSuchInstantiatorException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Fold evaluation failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return performances;
+    }
+
     private static Map<Category, ObjectBodyPart> computeBodyPartPerCategory(ObjectMgmt dataMgmt) {
         var bodyPartPerCategory = new HashMap<Category, ObjectBodyPart>();
 
@@ -246,11 +330,22 @@ public class RunCrossValidation {
         return bodyPartPerCategory;
     }
 
-    private static double runCrossValidationHdm(String categoryFile, String folder, int split, int numberOfClusters, int folds, boolean tuneSpecializedClassifiers, boolean supervised, int k, String objectLocatorRegExQueryMgmt, String objectLocatorRegExDataMgmt, String originalActionsFile, boolean verbose, long classificationCategories, float confidenceThreshold) throws ClassificationException, NoSuchInstantiatorException, IOException {
-        logger.info("categoryFile: %s, folder: %s, split: %d, numberOfClusters: %d, folds: %d, tuneSpecializedClassifiers: %b, supervised: %b, k: %d, objectLocatorRegExQueryMgmt: %s, objectLocatorRegExDataMgmt: %s, originalActionsFile: %s, verbose: %b, classificationCategories: %d".formatted(categoryFile, folder, split, numberOfClusters, folds, tuneSpecializedClassifiers, supervised, k, objectLocatorRegExQueryMgmt, objectLocatorRegExDataMgmt, originalActionsFile, verbose, classificationCategories));
-
-        var results = new DescriptiveStatistics();
-
+    /**
+     * Evaluates the folds of HDM05. The data of every fold are the other folds.
+     *
+     * @param settings         settings of the evaluation
+     * @param folder           folder with the folds
+     * @param split            split of the folds
+     * @param numberOfClusters number of clusters of the motion words
+     * @param folds            number of folds
+     * @param threadCount      number of folds evaluated concurrently
+     * @return the mean performance of the folds
+     */
+    public static double runCrossValidationHdm(Settings settings, String folder, int split, int numberOfClusters, int folds, int threadCount) throws ClassificationException, NoSuchInstantiatorException, IOException {
+        configure(HDM05);
+        logger.info("settings: %s, folder: %s, split: %d, numberOfClusters: %d, folds: %d, threads: %d".formatted(settings, folder, split, numberOfClusters, folds, threadCount));
+
+        var foldFiles = new ArrayList<Fold>(folds);
         for (int fold = 0; fold < folds; fold++) {
             final int finalFold = fold;
 
@@ -262,21 +357,35 @@ public class RunCrossValidation {
 
             var dataFile = "%s/split%d-fold%s/KMeansPivotChooser--kmeans.k_%d-train.composite%s".formatted(folder, split, dataFileFolds, numberOfClusters, ObjectMotionWordComposite.bodyPartConfiguration.getFileAppendix());
             var queryFile = "%s/split%d-fold%s/KMeansPivotChooser--kmeans.k_%d-test.composite%s".formatted(folder, split, dataFileFolds, numberOfClusters, ObjectMotionWordComposite.bodyPartConfiguration.getFileAppendix());
-            var performance = runSingleEvaluation(categoryFile, dataFile, queryFile, tuneSpecializedClassifiers, supervised, k, objectLocatorRegExQueryMgmt, objectLocatorRegExDataMgmt, originalActionsFile, verbose, classificationCategories, confidenceThreshold);
+            foldFiles.add(new Fold(dataFile, queryFile));
+        }
 
-            results.addValue(performance);
+        var results = new DescriptiveStatistics();
+        var performances = runFolds(settings, foldFiles, threadCount);
+        for (int fold = 0; fold < performances.size(); fold++) {
+            logger.info("Fold %d performance: %s".formatted(fold, performances.get(fold)));
+            results.addValue(performances.get(fold));
         }
 
         return results.getMean();
     }
 
-    private static double runPku(String categoryFile, String folder, int numberOfClusters, boolean tuneSpecializedClassifiers, boolean supervised, int k, String objectLocatorRegExQueryMgmt, String objectLocatorRegExDataMgmt, String originalActionsFile, boolean verbose, long classificationCategories, float confidenceThreshold) throws ClassificationException, NoSuchInstantiatorException, IOException {
-        logger.info("categoryFile: %s, folder: %s, numberOfClusters: %d, tuneSpecializedClassifiers: %b, supervised: %b, k: %d, objectLocatorRegExQueryMgmt: %s, objectLocatorRegExDataMgmt: %s, originalActionsFile: %s, verbose: %b, classificationCategories: %d, bodyPartConfiguration: %s".formatted(categoryFile, folder, numberOfClusters, tuneSpecializedClassifiers, supervised, k, objectLocatorRegExQueryMgmt, objectLocatorRegExDataMgmt, originalActionsFile, verbose, classificationCategories, ObjectMotionWordComposite.bodyPartConfiguration));
+    /**
+     * Evaluates PKU-MMD split into the query and data actions by their locators.
+     *
+     * @param settings         settings of the evaluation
+     * @param folder           folder with the actions
+     * @param numberOfClusters number of clusters of the motion words
+     * @return the performance
+     */
+    public static double runPku(Settings settings, String folder, int numberOfClusters) throws ClassificationException, NoSuchInstantiatorException, IOException {
+        configure(PKU_MMD_EXTENDED);
+        logger.info("settings: %s, folder: %s, numberOfClusters: %d, bodyPartConfiguration: %s".formatted(settings, folder, numberOfClusters, ObjectMotionWordComposite.bodyPartConfiguration));
 
         var dataFile = "%s/KMeansPivotChooser--kmeans.k_%d-train%s.composite".formatted(folder, numberOfClusters, ObjectMotionWordComposite.bodyPartConfiguration.getFileAppendix());
         var queryFile = "%s/KMeansPivotChooser--kmeans.k_%d-test%s.composite".formatted(folder, numberOfClusters, ObjectMotionWordComposite.bodyPartConfiguration.getFileAppendix());
 
-        return runSingleEvaluation(categoryFile, dataFile, queryFile, tuneSpecializedClassifiers, supervised, k, objectLocatorRegExQueryMgmt, objectLocatorRegExDataMgmt, originalActionsFile, verbose, classificationCategories, confidenceThreshold);
+        return runSingleEvaluation(settings, new Fold(dataFile, queryFile));
     }
 
     private static void setupLogging() throws IOException {
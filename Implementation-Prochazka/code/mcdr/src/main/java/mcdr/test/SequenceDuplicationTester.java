@@ -0,0 +1,256 @@
+package mcdr.test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import mcdr.objects.ObjectMocapPose;
+import mcdr.objects.ObjectMocapPoseAngles;
+import mcdr.objects.ObjectMocapPoseAnglesVels;
+import mcdr.objects.impl.ObjectMocapPoseAnglesL1Circle;
+import mcdr.objects.impl.ObjectMocapPoseAnglesL2Circle;
+import mcdr.objects.impl.ObjectMocapPoseAnglesVelsL1;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2Filtered;
+import mcdr.objects.impl.ObjectMocapPoseDtdsL1;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.impl.SequenceKinectSkeletonPoseAnglesVelsL1Fourier;
+import mcdr.sequence.impl.SequenceKinectSkeletonPoseDtdsL1DTW;
+import mcdr.sequence.impl.SequenceMocapPoseAnglesL1CircleDTW;
+import mcdr.sequence.impl.SequenceMocapPoseAnglesL1CircleDTWKeyFrames;
+import mcdr.sequence.impl.SequenceMocapPoseAnglesL1CircleUTW;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTWFiltered;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2UTW;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2WLL1;
+import mcdr.sequence.impl.SequenceMocapSkeletonPoseAnglesL1CircleDTW;
+import mcdr.sequence.impl.SequenceMocapSkeletonPoseAnglesVelsL1DTW;
+import mcdr.sequence.impl.SequenceMocapSkeletonPoseAnglesVelsL1Fourier;
+import messif.objects.keys.AbstractObjectKey;
+
+/**
+ * Checks that {@link SequenceMocap#duplicate()} and
+ * {@link ObjectMocapPose#duplicate()} create the same clones as the previous
+ * implementation, which looked up the constructors by reflection on every
+ * call, for random sequences of every {@link SequenceMocap} class and every
+ * pose class. The clones must have the same class, locator, offset, frame
+ * numbers, coordinates, angles and velocities, and must not share the arrays
+ * with the duplicated sequence. The classes that cannot be duplicated (the
+ * previous implementation returns null) must still return null.
+ * <p>
+ * Arguments: {@code [frameCount]}
+ * </p>
+ */
+public class SequenceDuplicationTester {
+
+    private static final int JOINT_COUNT = 31;
+    private static final int ANGLE_COUNT = 30;
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        final int frameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+
+        Random random = new Random(0);
+        Map<String, SequenceMocap<?>> sequences = new LinkedHashMap<>();
+        sequences.put("SequenceKinectSkeletonPoseAnglesVelsL1Fourier", new SequenceKinectSkeletonPoseAnglesVelsL1Fourier(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesVelsL1(c, createArray(random, ANGLE_COUNT), createArray(random, ANGLE_COUNT))), createArray(random, ANGLE_COUNT), new float[][]{createArray(random, 4), createArray(random, 4)}));
+        sequences.put("SequenceKinectSkeletonPoseDtdsL1DTW", new SequenceKinectSkeletonPoseDtdsL1DTW(createPoses(random, frameCount, ObjectMocapPoseDtdsL1::new), createArray(random, ANGLE_COUNT)));
+        sequences.put("SequenceMocapPoseAnglesL1CircleDTW", new SequenceMocapPoseAnglesL1CircleDTW(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesL1Circle(c, createArray(random, ANGLE_COUNT)))));
+        sequences.put("SequenceMocapPoseAnglesL1CircleDTWKeyFrames", createKeyFramesSequence(new SequenceMocapPoseAnglesL1CircleDTW(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesL1Circle(c, createArray(random, ANGLE_COUNT))))));
+        sequences.put("SequenceMocapPoseAnglesL1CircleUTW", new SequenceMocapPoseAnglesL1CircleUTW(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesL1Circle(c, createArray(random, ANGLE_COUNT)))));
+        sequences.put("SequenceMocapPoseCoordsL2DTW", new SequenceMocapPoseCoordsL2DTW(createPoses(random, frameCount, ObjectMocapPoseCoordsL2::new)));
+        sequences.put("SequenceMocapPoseCoordsL2DTWFiltered", new SequenceMocapPoseCoordsL2DTWFiltered(createPoses(random, frameCount, ObjectMocapPoseCoordsL2Filtered::new)));
+        sequences.put("SequenceMocapPoseCoordsL2UTW", new SequenceMocapPoseCoordsL2UTW(createPoses(random, frameCount, ObjectMocapPoseCoordsL2::new)));
+        sequences.put("SequenceMocapPoseCoordsL2WLL1", new SequenceMocapPoseCoordsL2WLL1(createPoses(random, frameCount, ObjectMocapPoseCoordsL2::new)));
+        sequences.put("SequenceMocapSkeletonPoseAnglesL1CircleDTW", new SequenceMocapSkeletonPoseAnglesL1CircleDTW(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesL1Circle(c, createArray(random, ANGLE_COUNT))), createArray(random, ANGLE_COUNT)));
+        sequences.put("SequenceMocapSkeletonPoseAnglesVelsL1DTW", new SequenceMocapSkeletonPoseAnglesVelsL1DTW(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesVelsL1(c, createArray(random, ANGLE_COUNT), createArray(random, ANGLE_COUNT))), createArray(random, ANGLE_COUNT)));
+        sequences.put("SequenceMocapSkeletonPoseAnglesVelsL1Fourier", new SequenceMocapSkeletonPoseAnglesVelsL1Fourier(createPoses(random, frameCount, c -> new ObjectMocapPoseAnglesVelsL1(c, createArray(random, ANGLE_COUNT), createArray(random, ANGLE_COUNT))), createArray(random, ANGLE_COUNT), new float[][]{createArray(random, 4), createArray(random, 4)}));
+
+        int failureCount = 0;
+        for (Map.Entry<String, SequenceMocap<?>> entry : sequences.entrySet()) {
+            SequenceMocap<?> sequence = entry.getValue();
+            sequence.setObjectKey(new AbstractObjectKey(entry.getKey() + "_" + frameCount));
+            String failure = compare(sequence, duplicateByReflection(sequence), sequence.duplicate());
+            System.out.println(entry.getKey() + "\t" + ((failure == null) ? "OK" : "FAILED: " + failure));
+            if (failure != null) {
+                failureCount++;
+            }
+        }
+
+        // Poses that are not covered by the sequences
+        ObjectMocapPose pose = new ObjectMocapPoseAnglesL2Circle(createJointCoordinates(random), createArray(random, ANGLE_COUNT));
+        pose.setFrameNo(7);
+        String failure = comparePoses(pose, duplicateByReflection(pose), pose.duplicate());
+        System.out.println("ObjectMocapPoseAnglesL2Circle\t" + ((failure == null) ? "OK" : "FAILED: " + failure));
+        if (failure != null) {
+            failureCount++;
+        }
+
+        System.out.println((failureCount == 0) ? "All duplicates are identical" : failureCount + " classes FAILED");
+        if (failureCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    //************ Data ************//
+    private static float[] createArray(Random random, int length) {
+        float[] rtv = new float[length];
+        for (int i = 0; i < length; i++) {
+            rtv[i] = random.nextFloat() * 360f - 180f;
+        }
+        return rtv;
+    }
+
+    private static float[][] createJointCoordinates(Random random) {
+        float[][] rtv = new float[JOINT_COUNT][];
+        for (int j = 0; j < JOINT_COUNT; j++) {
+            rtv[j] = createArray(random, ObjectMocapPose.JOINT_DIM);
+        }
+        return rtv;
+    }
+
+    private static <P extends ObjectMocapPose> List<P> createPoses(Random random, int frameCount, Function<float[][], P> poseFactory) {
+        List<P> poses = new ArrayList<>(frameCount);
+        for (int f = 0; f < frameCount; f++) {
+            P pose = poseFactory.apply(createJointCoordinates(random));
+            pose.setFrameNo(f * 2 + 1);
+            poses.add(pose);
+        }
+        return poses;
+    }
+
+    /**
+     * Creates the sequence with key frames, which can only be read from the
+     * stream, from the text format of the given sequence followed by the key
+     * frames.
+     */
+    private static SequenceMocapPoseAnglesL1CircleDTWKeyFrames createKeyFramesSequence(SequenceMocapPoseAnglesL1CircleDTW sequence) throws IOException {
+        sequence.setObjectKey(new AbstractObjectKey("keyFrames"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        sequence.write(output);
+        output.write("1\nuniform;0,10,20\n".getBytes());
+        return new SequenceMocapPoseAnglesL1CircleDTWKeyFrames(new BufferedReader(new StringReader(output.toString())));
+    }
+
+    //************ Previous implementation ************//
+    /**
+     * Duplicates the sequence as the previous implementation of
+     * {@link SequenceMocap#duplicate()}.
+     */
+    private static SequenceMocap<?> duplicateByReflection(SequenceMocap<?> sequence) {
+        ArrayList<ObjectMocapPose> poseList = new ArrayList<>(sequence.getObjectCount());
+        for (ObjectMocapPose pose : sequence.getObjects()) {
+            poseList.add(duplicateByReflection(pose));
+        }
+        SequenceMocap<?> rtv;
+        try {
+            rtv = sequence.getClass().getConstructor(List.class, sequence.getClass(), int.class, boolean.class).newInstance(new Object[]{poseList, null, sequence.getOffset(), false});
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            return null;
+        }
+        rtv.setObjectKey(new AbstractObjectKey(sequence.getLocatorURI()));
+        return rtv;
+    }
+
+    /**
+     * Duplicates the pose as the previous implementation of
+     * {@link ObjectMocapPose#duplicate()}.
+     */
+    private static ObjectMocapPose duplicateByReflection(ObjectMocapPose pose) {
+        ObjectMocapPose rtv;
+        try {
+            if (pose instanceof ObjectMocapPoseAnglesVels) {
+                rtv = pose.getClass().getConstructor(float[][].class, float[].class, float[].class).newInstance(ObjectMocapPose.unflatten(pose.getCoordinates()), ((ObjectMocapPoseAngles) pose).getAngles(), ((ObjectMocapPoseAnglesVels) pose).getVelocities());
+            } else if (pose instanceof ObjectMocapPoseAngles) {
+                rtv = pose.getClass().getConstructor(float[][].class, float[].class).newInstance(ObjectMocapPose.unflatten(pose.getCoordinates()), ((ObjectMocapPoseAngles) pose).getAngles());
+            } else {
+                rtv = pose.getClass().getConstructor(float[][].class).newInstance((Object) ObjectMocapPose.unflatten(pose.getCoordinates()));
+            }
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            return null;
+        }
+        rtv.setFrameNo(pose.getFrameNo());
+        return rtv;
+    }
+
+    //************ Comparison ************//
+    /**
+     * Returns the first difference between the expected and actual duplicates
+     * of the sequence, or null if they are identical.
+     */
+    private static String compare(SequenceMocap<?> sequence, SequenceMocap<?> expected, SequenceMocap<?> actual) {
+        if (expected == null || actual == null) {
+            return (expected == actual) ? null : "duplicate is " + actual + " instead of " + expected;
+        }
+        if (actual == sequence) {
+            return "duplicate is the same instance";
+        }
+        if (expected.getClass() != actual.getClass()) {
+            return "duplicate of class " + actual.getClass().getName() + " instead of " + expected.getClass().getName();
+        }
+        if (!expected.getLocatorURI().equals(actual.getLocatorURI()) || expected.getOffset() != actual.getOffset()) {
+            return "duplicate " + actual.getLocatorURI() + "@" + actual.getOffset() + " instead of " + expected.getLocatorURI() + "@" + expected.getOffset();
+        }
+        if (expected.getObjectCount() != actual.getObjectCount()) {
+            return actual.getObjectCount() + " poses instead of " + expected.getObjectCount();
+        }
+        for (int i = 0; i < expected.getObjectCount(); i++) {
+            String failure = comparePoses(sequence.getObject(i), expected.getObject(i), actual.getObject(i));
+            if (failure != null) {
+                return "pose " + i + ": " + failure;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first difference between the expected and actual duplicates
+     * of the pose, or null if they are identical.
+     */
+    private static String comparePoses(ObjectMocapPose pose, ObjectMocapPose expected, ObjectMocapPose actual) {
+        if (expected == null || actual == null) {
+            return (expected == actual) ? null : "duplicate is " + actual + " instead of " + expected;
+        }
+        if (expected.getClass() != actual.getClass()) {
+            return "duplicate of class " + actual.getClass().getName() + " instead of " + expected.getClass().getName();
+        }
+        if (expected.getFrameNo() != actual.getFrameNo()) {
+            return "frame " + actual.getFrameNo() + " instead of " + expected.getFrameNo();
+        }
+        if (!Arrays.equals(expected.getCoordinates(), actual.getCoordinates())) {
+            return "different coordinates";
+        }
+        if (actual == pose || actual.getCoordinates() == pose.getCoordinates()) {
+            return "coordinates shared with the duplicated pose";
+        }
+        if (expected instanceof ObjectMocapPoseAngles) {
+            float[] angles = ((ObjectMocapPoseAngles) actual).getAngles();
+            if (!Arrays.equals(((ObjectMocapPoseAngles) expected).getAngles(), angles)) {
+                return "different angles";
+            }
+            if (angles == ((ObjectMocapPoseAngles) pose).getAngles()) {
+                return "angles shared with the duplicated pose";
+            }
+        }
+        if (expected instanceof ObjectMocapPoseAnglesVels) {
+            float[] velocities = ((ObjectMocapPoseAnglesVels) actual).getVelocities();
+            if (!Arrays.equals(((ObjectMocapPoseAnglesVels) expected).getVelocities(), velocities)) {
+                return "different velocities";
+            }
+            if (velocities == ((ObjectMocapPoseAnglesVels) pose).getVelocities()) {
+                return "velocities shared with the duplicated pose";
+            }
+        }
+        return null;
+    }
+}
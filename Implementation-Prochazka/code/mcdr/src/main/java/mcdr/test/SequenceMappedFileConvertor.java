@@ -0,0 +1,96 @@
+package mcdr.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.SequenceMocapMappedFile;
+import messif.objects.util.StreamGenericAbstractObjectIterator;
+
+/**
+ * Converts a text file of mocap sequences into the binary file read by
+ * {@link SequenceMocapMappedFile}, reads the binary file back and checks that
+ * the locators and coordinates of all the sequences are identical.
+ *
+ * <p>
+ * Arguments: {@code <sequenceClass> <textFile> <binaryFile>}
+ * </p>
+ */
+public class SequenceMappedFileConvertor {
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: " + SequenceMappedFileConvertor.class.getName() + " <sequenceClass> <textFile> <binaryFile>");
+            return;
+        }
+        final Class<? extends SequenceMocap<?>> sequenceClass = (Class<? extends SequenceMocap<?>>) Class.forName(args[0]);
+
+        // Text file
+        long startTime = System.currentTimeMillis();
+        List<SequenceMocap<?>> sequences = new ArrayList<>();
+        StreamGenericAbstractObjectIterator<? extends SequenceMocap<?>> textIterator = new StreamGenericAbstractObjectIterator<>(sequenceClass, args[1]);
+        while (textIterator.hasNext()) {
+            sequences.add(textIterator.next());
+        }
+        System.out.println("Text file read: " + sequences.size() + " sequences in " + (System.currentTimeMillis() - startTime) + " ms");
+
+        // Binary file
+        startTime = System.currentTimeMillis();
+        SequenceMocapMappedFile.write(sequences, args[2]);
+        System.out.println("Binary file written in " + (System.currentTimeMillis() - startTime) + " ms");
+
+        startTime = System.currentTimeMillis();
+        List<SequenceMocap<?>> mappedSequences = new ArrayList<>(sequences.size());
+        Iterator<? extends SequenceMocap<?>> mappedIterator = new SequenceMocapMappedFile(args[2]).iterator(sequenceClass, null);
+        while (mappedIterator.hasNext()) {
+            mappedSequences.add(mappedIterator.next());
+        }
+        System.out.println("Binary file read: " + mappedSequences.size() + " sequences in " + (System.currentTimeMillis() - startTime) + " ms");
+
+        // Round-trip check
+        int differentSequences = Math.abs(sequences.size() - mappedSequences.size());
+        for (int i = 0; i < Math.min(sequences.size(), mappedSequences.size()); i++) {
+            if (!isIdentical(sequences.get(i), mappedSequences.get(i))) {
+                System.out.println("  different sequence: " + sequences.get(i).getLocatorURI());
+                differentSequences++;
+            }
+        }
+        System.out.println("Sequences different after the round trip: " + differentSequences);
+    }
+
+    /**
+     * Checks whether both sequences have the same locators and the same
+     * coordinates (compared bit by bit, so that missing values are compared as
+     * well) and frame numbers of all the poses.
+     */
+    private static boolean isIdentical(SequenceMocap<?> expected, SequenceMocap<?> actual) {
+        if (!expected.getLocatorURI().equals(actual.getLocatorURI()) || expected.getObjectCount() != actual.getObjectCount()) {
+            return false;
+        }
+        for (int i = 0; i < expected.getObjectCount(); i++) {
+            float[] expectedCoords = expected.getObject(i).getCoordinates();
+            float[] actualCoords = actual.getObject(i).getCoordinates();
+            if (expectedCoords.length != actualCoords.length
+                    || expected.getObject(i).getFrameNo() != actual.getObject(i).getFrameNo()
+                    || !expected.getObject(i).getLocatorURI().equals(actual.getObject(i).getLocatorURI())) {
+                return false;
+            }
+            int[] expectedBits = new int[expectedCoords.length];
+            int[] actualBits = new int[actualCoords.length];
+            for (int c = 0; c < expectedCoords.length; c++) {
+                expectedBits[c] = Float.floatToRawIntBits(expectedCoords[c]);
+                actualBits[c] = Float.floatToRawIntBits(actualCoords[c]);
+            }
+            if (!Arrays.equals(expectedBits, actualBits)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
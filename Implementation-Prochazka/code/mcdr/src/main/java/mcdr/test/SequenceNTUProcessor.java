@@ -184,7 +184,7 @@ public class SequenceNTUProcessor {
                     float minY = Float.MAX_VALUE;
                     float maxY = Float.MIN_VALUE;
                     for (ObjectMocapPose o : sequenceProp.sequenceConverted.getObjects()) {
-                        for (float[] coords : o.getJointCoordinates()) {
+                        for (float[] coords : ObjectMocapPose.unflatten(o.getCoordinates())) {
                             minX = Math.min(coords[0], minX);
                             maxX = Math.max(coords[0], maxX);
                             minY = Math.min(coords[1], minY);
@@ -0,0 +1,140 @@
+package mcdr.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mcdr.objects.ObjectMocapPose;
+import mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.preprocessing.transformation.SequenceMocapConvertor;
+import mcdr.preprocessing.transformation.impl.SequenceNormalizationConvertor;
+import mcdr.sequence.KinematicTree;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
+import messif.objects.keys.AbstractObjectKey;
+
+/**
+ * Checks that the fused {@link SequenceNormalizationConvertor} normalizes a
+ * random sequence to the same coordinates (up to the rounding of floats) and
+ * frame numbers as the chain of convertors created by
+ * {@link CaffeObjectMotionImageSocketExtractor#createSequenceConvertors}, for
+ * all the combinations of the reduced fps rate, the normalizations of the
+ * position and orientation by the first pose only or by every pose, and the
+ * skeleton-size normalization. For the chains that normalize each pose
+ * independently, the normalized stream of
+ * {@link CaffeObjectMotionImageSocketExtractor#normalizeStream} is compared
+ * with the chain without the fps convertor as well.
+ * <p>
+ * Arguments: {@code [frameCount]}
+ * </p>
+ */
+public class SequenceNormalizationTester {
+
+    private static final int JOINT_COUNT = 31;
+    // maximal difference of the coordinates normalized by the chain and by the fused convertor
+    private static final float TOLERANCE = 1e-4f;
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        final int frameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 1200;
+
+        SequenceMocapPoseCoordsL2DTW sequence = new SequenceMocapPoseCoordsL2DTW(createPoses(new Random(0), frameCount));
+        sequence.setObjectKey(new AbstractObjectKey("1"));
+
+        int failureCount = 0;
+        for (int reducedFPSRate : new int[]{12, 120}) {
+            for (int position = 0; position < 3; position++) {
+                for (int orientation = 0; orientation < 3; orientation++) {
+                    for (boolean normalizeBySkeletonSize : new boolean[]{false, true}) {
+                        String name = "fps=" + reducedFPSRate + ", position=" + getModeName(position) + ", orientation=" + getModeName(orientation) + ", skeletonSize=" + normalizeBySkeletonSize;
+                        List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors = CaffeObjectMotionImageSocketExtractor.createSequenceConvertors(SequenceMocapPoseCoordsL2DTW.class, 120, reducedFPSRate,
+                                position > 0, position == 1, orientation > 0, orientation == 1, normalizeBySkeletonSize, KinematicTree.BONE_LENGTH_MAP_HDM05, KinematicTree.KINEMATIC_TREE_VICON);
+                        SequenceNormalizationConvertor<SequenceMocap<?>> fusedConvertor = SequenceNormalizationConvertor.fuse(sequenceConvertors);
+
+                        String failure = (fusedConvertor == null) ? "the chain cannot be fused" : compareSequences(CaffeObjectMotionImageSocketExtractor.normalizeSequence(sequence, sequenceConvertors), fusedConvertor.convert(sequence));
+                        if (failure == null && position != 1 && orientation != 1) {
+                            List<SequenceMocapConvertor<SequenceMocap<?>>> poseWiseConvertors = new ArrayList<>(sequenceConvertors.subList(1, sequenceConvertors.size()));
+                            failure = compareSequences(CaffeObjectMotionImageSocketExtractor.normalizeSequence(sequence, poseWiseConvertors), CaffeObjectMotionImageSocketExtractor.normalizeStream(sequence, sequenceConvertors));
+                            if (failure != null) {
+                                failure = "stream: " + failure;
+                            }
+                        }
+                        System.out.println(name + "\t" + ((failure == null) ? "OK" : "FAILED: " + failure));
+                        if (failure != null) {
+                            failureCount++;
+                        }
+                    }
+                }
+            }
+        }
+
+        System.out.println((failureCount == 0) ? "All normalizations are equal" : failureCount + " normalizations FAILED");
+        if (failureCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String getModeName(int mode) {
+        return (mode == 0) ? "none" : (mode == 1) ? "firstPose" : "everyPose";
+    }
+
+    //************ Data ************//
+    /**
+     * Creates the poses whose joints start at random positions and move by a
+     * random step of at most 0.1 per axis in every frame.
+     */
+    private static List<ObjectMocapPoseCoordsL2> createPoses(Random random, int frameCount) {
+        float[][] jointCoordinates = new float[JOINT_COUNT][ObjectMocapPose.JOINT_DIM];
+        for (float[] coords : jointCoordinates) {
+            for (int a = 0; a < coords.length; a++) {
+                coords[a] = random.nextFloat() * 10f - 5f;
+            }
+        }
+        List<ObjectMocapPoseCoordsL2> poses = new ArrayList<>(frameCount);
+        for (int f = 0; f < frameCount; f++) {
+            float[][] poseCoordinates = new float[JOINT_COUNT][ObjectMocapPose.JOINT_DIM];
+            for (int j = 0; j < JOINT_COUNT; j++) {
+                for (int a = 0; a < ObjectMocapPose.JOINT_DIM; a++) {
+                    jointCoordinates[j][a] += (random.nextFloat() - 0.5f) * 0.2f;
+                    poseCoordinates[j][a] = jointCoordinates[j][a];
+                }
+            }
+            ObjectMocapPoseCoordsL2 pose = new ObjectMocapPoseCoordsL2(poseCoordinates);
+            pose.setFrameNo(f);
+            poses.add(pose);
+        }
+        return poses;
+    }
+
+    //************ Comparison ************//
+    /**
+     * Returns the description of the first difference of the sequences, or
+     * null if they have the same frame numbers and coordinates.
+     */
+    private static String compareSequences(SequenceMocap<?> expected, SequenceMocap<?> actual) {
+        if (expected == null || actual == null) {
+            return "normalized sequence is null";
+        }
+        if (expected.getSequenceLength() != actual.getSequenceLength()) {
+            return actual.getSequenceLength() + " poses instead of " + expected.getSequenceLength();
+        }
+        for (int i = 0; i < expected.getSequenceLength(); i++) {
+            ObjectMocapPose expectedPose = expected.getObject(i);
+            ObjectMocapPose actualPose = actual.getObject(i);
+            if (expectedPose.getFrameNo() != actualPose.getFrameNo()) {
+                return "pose " + i + " has frame " + actualPose.getFrameNo() + " instead of " + expectedPose.getFrameNo();
+            }
+            float[] expectedCoords = expectedPose.getCoordinates();
+            float[] actualCoords = actualPose.getCoordinates();
+            for (int c = 0; c < expectedCoords.length; c++) {
+                if (!(Math.abs(expectedCoords[c] - actualCoords[c]) <= TOLERANCE)) {
+                    return "pose " + i + " differs at coordinate " + c + ": " + actualCoords[c] + " instead of " + expectedCoords[c];
+                }
+            }
+        }
+        return null;
+    }
+}
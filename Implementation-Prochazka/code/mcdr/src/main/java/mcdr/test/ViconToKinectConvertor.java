@@ -10,6 +10,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import mcdr.objects.ObjectMocapPose;
 import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
 import mcdr.sequence.SequenceMocap;
 import mcdr.sequence.impl.SequenceMocapPoseCoordsL2DTW;
@@ -41,7 +42,7 @@ public class ViconToKinectConvertor {
             final SequenceMocapPoseCoordsL2DTW objVicon = (SequenceMocapPoseCoordsL2DTW)dataIter.next();
             List<ObjectMocapPoseCoordsL2> posesKinect = new ArrayList<>(objVicon.getObjectCount());
             for (ObjectMocapPoseCoordsL2 pose : objVicon.getObjects()) {
-                final float[][] coordsVicon = pose.getJointCoordinates();
+                final float[][] coordsVicon = ObjectMocapPose.unflatten(pose.getCoordinates());
                 float[][] coordsKinect = new float[coordsVicon.length - 6][];
                 int kinect = 0;
                 for (int vicon = 0; vicon < coordsVicon.length; vicon++) {
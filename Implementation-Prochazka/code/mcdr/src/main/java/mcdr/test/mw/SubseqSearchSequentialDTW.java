@@ -2,13 +2,18 @@ package mcdr.test.mw;
 
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import mcdr.distance.SubsequenceDTW;
 import mcdr.metrics.AnnotationMetrics;
 import mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor;
 import static mcdr.objects.extraction.CaffeObjectMotionImageSocketExtractor.createSequenceConvertors;
+import mcdr.objects.impl.ObjectMocapPoseCoordsL2;
+import mcdr.objects.impl.ObjectMotionWord;
 import mcdr.objects.utils.OverlappingAnnotationRemovalCollection;
 import mcdr.preprocessing.transformation.SequenceMocapConvertor;
+import mcdr.preprocessing.transformation.impl.SequenceNormalizationConvertor;
 import mcdr.sequence.KinematicTree;
 import mcdr.sequence.SequenceMocap;
 import mcdr.sequence.SequenceMotionWords;
@@ -31,6 +36,7 @@ public class SubseqSearchSequentialDTW {
      * @param args the command line arguments
      * @throws Exception
      */
+    @SuppressWarnings("unchecked")
     public static void main(String[] args) throws Exception {
         AnnotationMetrics evaluator = new AnnotationMetrics();
 
@@ -47,7 +53,12 @@ public class SubseqSearchSequentialDTW {
         final float segmentShiftRatio = 0.2f;
 
         final int maxK = 50;
+        // computes the distances of all the windows of a data sequence in a single pass (instead of materializing and normalizing each window)
+        final boolean streamingSearch = true;
         List<SequenceMocapConvertor<SequenceMocap<?>>> sequenceConvertors = createSequenceConvertors(origSeqClass, 120, 12, true, false, true, false, true, KinematicTree.BONE_LENGTH_MAP_HDM05, KinematicTree.KINEMATIC_TREE_VICON);
+        // the chain of convertors is applied by a single pass (the convertors do not modify the input sequence, so it is not duplicated)
+        SequenceNormalizationConvertor<SequenceMocap<?>> fusedSequenceConvertor = SequenceNormalizationConvertor.fuse(sequenceConvertors);
+        List<SequenceMocapConvertor<SequenceMocap<?>>> normalizationConvertors = (fusedSequenceConvertor == null) ? sequenceConvertors : Collections.<SequenceMocapConvertor<SequenceMocap<?>>>singletonList(fusedSequenceConvertor);
 
         //************ Queries ************//
         ObjectCategoryMgmt categoryMgmt = new ObjectCategoryMgmt();
@@ -81,6 +92,7 @@ public class SubseqSearchSequentialDTW {
             KNNQueryOperation op = new KNNQueryOperation(mwQuerySeq, maxK);
             op.setAnswerCollection(new OverlappingAnnotationRemovalCollection());
             ops.add(op);
+            SubsequenceDTW<List<ObjectMotionWord>> mwQueryMatcher = new SubsequenceDTW<>(mwQuerySeq);
 
             for (LocalAbstractObject dataSeq : mwSeqMgmt.getObjects()) {
                 int seqCandidateCount = 0;
@@ -88,6 +100,23 @@ public class SubseqSearchSequentialDTW {
                 String dataSeqId = ObjectMgmt.parseObjectParentSequenceId(mwDataSeq);
                 int origDataSeqLength = origSeqMgmt.getSequence(dataSeqId).getSequenceLength();
 
+                if (streamingSearch) {
+                    totalCandidateCount += mwQueryMatcher.match(mwDataSeq, mwQueryLength, 1, 1, (mwI, dist) -> {
+                        // The candidate is materialized only if it can enter the full answer
+                        if (op.isAnswerFull() && dist > op.getAnswerThreshold()) {
+                            return;
+                        }
+                        SequenceMotionWordsDTW candidate = new SequenceMotionWordsDTW(mwDataSeq.getSubsequenceData(mwI, mwI + mwQueryLength));
+
+                        int candidateOffset = mwI * Math.round(segmentSize * segmentShiftRatio);
+                        int candidateLength = Math.min(((mwQueryLength - 1) * Math.round(segmentSize * segmentShiftRatio)) + segmentSize, origDataSeqLength - candidateOffset);
+                        candidate.setObjectKey(new AbstractObjectKey(dataSeqId + "_0_" + candidateOffset + "_" + candidateLength));
+
+                        op.addToAnswer(candidate, dist, null);
+                    });
+                    continue;
+                }
+
                 int mwI = 0;
                 while (mwI + mwQueryLength <= mwDataSeq.getSequenceLength()) {
                     SequenceMotionWordsDTW candidate = new SequenceMotionWordsDTW(mwDataSeq.getSubsequenceData(mwI, mwI + mwQueryLength));
@@ -116,6 +145,7 @@ public class SubseqSearchSequentialDTW {
 
         // Original data processing
         final int stepSize = Math.round(segmentSize * segmentShiftRatio);
+        final int frameStep = CaffeObjectMotionImageSocketExtractor.getFrameStep(sequenceConvertors);
 
         startTime = System.currentTimeMillis();
         ops = new ArrayList<>(origQueryMgmt.getObjectCount());
@@ -125,17 +155,35 @@ public class SubseqSearchSequentialDTW {
 
             SequenceMocapPoseCoordsL2DTW origQuerySeq = (SequenceMocapPoseCoordsL2DTW) querySeq;
             int queryLength = origQuerySeq.getSequenceLength();
-            SequenceMocap<?> origQuerySeqConverted = CaffeObjectMotionImageSocketExtractor.normalizeSequence(origQuerySeq.duplicate(), sequenceConvertors);
+            SequenceMocap<?> origQuerySeqConverted = CaffeObjectMotionImageSocketExtractor.normalizeSequence(origQuerySeq, normalizationConvertors);
 
             KNNQueryOperation op = new KNNQueryOperation(origQuerySeq, maxK);
             op.setAnswerCollection(new OverlappingAnnotationRemovalCollection());
             ops.add(op);
+            SubsequenceDTW<List<ObjectMocapPoseCoordsL2>> origQueryMatcher = new SubsequenceDTW<>((SequenceMocap<ObjectMocapPoseCoordsL2>) origQuerySeqConverted);
 
             for (SequenceMocap<?> dataSeq : origSeqMgmt.getSequences()) {
                 int seqCandidateCount = 0;
                 SequenceMocapPoseCoordsL2DTW origDataSeq = (SequenceMocapPoseCoordsL2DTW) dataSeq;
                 String dataSeqId = ObjectMgmt.parseObjectParentSequenceId(origDataSeq);
 
+                // The data sequence is normalized once if the normalization of each window is the same as of the whole sequence
+                SequenceMocap<?> normalizedDataSeq = streamingSearch ? CaffeObjectMotionImageSocketExtractor.normalizeStream(origDataSeq, sequenceConvertors) : null;
+                if (normalizedDataSeq != null) {
+                    totalCandidateCount += origQueryMatcher.match((SequenceMocap<ObjectMocapPoseCoordsL2>) normalizedDataSeq, queryLength, stepSize, frameStep, (i, dist) -> {
+                        // The candidate is materialized only if it can enter the full answer
+                        if (op.isAnswerFull() && dist > op.getAnswerThreshold()) {
+                            return;
+                        }
+                        SequenceMocapPoseCoordsL2DTW candidate = new SequenceMocapPoseCoordsL2DTW(origDataSeq.getSubsequenceData(i, i + queryLength));
+
+                        candidate.setObjectKey(new AbstractObjectKey(dataSeqId + "_0_" + i + "_" + queryLength));
+
+                        op.addToAnswer(candidate, dist, null);
+                    });
+                    continue;
+                }
+
                 int i = 0;
                 while (i + queryLength <= origDataSeq.getSequenceLength()) {
                     SequenceMocapPoseCoordsL2DTW candidate = new SequenceMocapPoseCoordsL2DTW(origDataSeq.getSubsequenceData(i, i + queryLength));
@@ -143,7 +191,7 @@ public class SubseqSearchSequentialDTW {
                     candidate.setObjectKey(new AbstractObjectKey(dataSeqId + "_0_" + i + "_" + queryLength));
 
 //                    float dist = origQuerySeq.getDistance(candidate);
-                    float dist = origQuerySeqConverted.getDistance(CaffeObjectMotionImageSocketExtractor.normalizeSequence(candidate.duplicate(), sequenceConvertors));
+                    float dist = origQuerySeqConverted.getDistance(CaffeObjectMotionImageSocketExtractor.normalizeSequence(candidate, normalizationConvertors));
                     op.addToAnswer(candidate, dist, null);
 
                     i += stepSize;
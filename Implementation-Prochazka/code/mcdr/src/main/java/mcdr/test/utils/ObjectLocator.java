@@ -0,0 +1,115 @@
+package mcdr.test.utils;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Parts of the object locator "sequenceId_categoryId_offset_length" parsed
+ * once when the object is loaded. The IDs can be shared by the locators of
+ * a single {@link ObjectMgmt}, so that the objects of the same sequence are
+ * mostly recognized by comparing references.
+ *
+ * @param sequenceId ID of the parent sequence (null if the locator is not set)
+ * @param categoryId category ID (null if the locator does not contain it)
+ * @param offset     the beginning frame within the parent sequence (0 if the
+ *                   locator does not contain it, -1 if it is not an integer)
+ * @param length     the length in number of frames (-1 if the locator does not
+ *                   contain it or it is not an integer)
+ */
+public record ObjectLocator(String sequenceId, String categoryId, int offset, int length) {
+
+    // special characters dividing the object locator into logical parts: "sequenceId_categoryId_offset_length"
+    private static final String LOCATOR_REG_EXP = "_|\\.";
+
+    /**
+     * Parses the specified object locator. The missing parts of the locator
+     * are replaced by the defaults, and the offset and length which are not
+     * integers are marked as unknown.
+     *
+     * @param locator object locator (can be null)
+     * @return the parsed parts of the locator
+     */
+    public static ObjectLocator parse(String locator) {
+        return parse(locator, null);
+    }
+
+    /**
+     * Parses the specified object locator. The IDs of parent sequences and
+     * categories are replaced by the equal IDs already contained in the given
+     * map, and the new IDs are added to it.
+     *
+     * @param locator object locator (can be null)
+     * @param ids     IDs shared by the parsed locators (if it is set to null,
+     *                the IDs are not shared)
+     * @return the parsed parts of the locator
+     */
+    public static ObjectLocator parse(String locator, Map<String, String> ids) {
+        if (locator == null) {
+            return new ObjectLocator(null, null, 0, -1);
+        }
+        String[] locatorParts = locator.split(LOCATOR_REG_EXP);
+        return new ObjectLocator(
+                share(ids, locatorParts[0]),
+                (locatorParts.length < 2) ? null : share(ids, locatorParts[1]),
+                (locatorParts.length < 3) ? 0 : parseInt(locatorParts[2]),
+                (locatorParts.length < 4) ? -1 : parseInt(locatorParts[3]));
+    }
+
+    private static String share(Map<String, String> ids, String id) {
+        return (ids == null) ? id : ids.computeIfAbsent(id, key -> key);
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns whether both the offset and length are known.
+     *
+     * @return true if the frames of the object within the parent sequence are
+     * known
+     */
+    public boolean hasFrames() {
+        return offset >= 0 && length >= 0;
+    }
+
+    /**
+     * Returns the last frame within the parent sequence.
+     *
+     * @return the last frame within the parent sequence
+     * @throws IllegalStateException if the offset or length is unknown
+     */
+    public int getEndIndex() {
+        if (!hasFrames()) {
+            throw new IllegalStateException("Object locator does not contain an integer offset and length: " + this);
+        }
+        return offset + length - 1;
+    }
+
+    /**
+     * Returns whether both objects come from the same parent sequence.
+     *
+     * @param other locator of the other object
+     * @return true if both objects come from the same parent sequence
+     */
+    public boolean isSameSequence(ObjectLocator other) {
+        return Objects.equals(sequenceId, other.sequenceId);
+    }
+
+    /**
+     * Returns whether both objects come from the same parent sequence and
+     * share at least one frame.
+     *
+     * @param other locator of the other object
+     * @return true if the objects overlap
+     * @throws IllegalStateException if the offset or length of an object
+     * from the same parent sequence is unknown
+     */
+    public boolean overlaps(ObjectLocator other) {
+        return isSameSequence(other) && Math.max(offset, other.offset) <= Math.min(getEndIndex(), other.getEndIndex());
+    }
+}
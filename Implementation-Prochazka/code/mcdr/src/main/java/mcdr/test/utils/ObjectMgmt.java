@@ -1,5 +1,6 @@
 package mcdr.test.utils;
 
+import mcdr.distance.ThresholdDistanceFunction;
 import mcdr.objects.classification.impl.ClassificationResult;
 import mcdr.objects.classification.impl.ObjectClassification;
 import mcdr.objects.classification.impl.ObjectMultiCategoryClassifier;
@@ -7,8 +8,11 @@ import mcdr.objects.classification.impl.specialized.SpecializedClassifier;
 import mcdr.objects.classification.impl.ObjectClassificationResult;
 import mcdr.objects.utils.InstantiableCollection;
 import mcdr.objects.utils.RankedSortedCollectionDistHashcode;
+import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.SequenceMocapMappedFile;
 import mcdr.test.utils.ObjectCategoryMgmt.Category;
 import messif.objects.AbstractObject;
+import messif.objects.DistanceFunction;
 import messif.objects.LocalAbstractObject;
 import messif.objects.classification.ClassificationException;
 import messif.objects.util.RankedAbstractObject;
@@ -30,6 +34,7 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -39,6 +44,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Jan Sedmidubsky, xsedmid@fi.muni.cz, FI MU Brno, Czech Republic
@@ -53,6 +62,14 @@ public class ObjectMgmt {
     private final Map<LocalAbstractObject, List<Category>> objectCategoriesMap = new HashMap<>();
     // map associating the specific category with objects that belongs to this category
     private final Map<Category, List<LocalAbstractObject>> categoryObjectsMap = new HashMap<>();
+    // index of objects by their locators (the first added object is kept if more objects have the same locator)
+    private final Map<String, LocalAbstractObject> locatorObjectsMap = new HashMap<>();
+    // index of objects by the IDs of their parent sequences, in the order of their addition
+    private final Map<String, List<LocalAbstractObject>> parentSequenceObjectsMap = new HashMap<>();
+    // map associating the object with its locator parsed when the object was added
+    private final Map<LocalAbstractObject, ObjectLocator> objectLocatorsMap = new HashMap<>();
+    // IDs of parent sequences and categories shared by the parsed locators of the added objects
+    private final Map<String, String> locatorPartIds = new HashMap<>();
 
     /**
      * Creates a new instance of {@link ObjectMgmt}.
@@ -270,26 +287,34 @@ public class ObjectMgmt {
      * @return the set of locators of all loaded objects
      */
     public Set<String> getLocators() {
-        HashSet<String> result = new HashSet<>();
-        for (LocalAbstractObject lao : objectCategoriesMap.keySet()) {
-            result.add(lao.getLocatorURI());
-        }
-        return result;
+        return new HashSet<>(locatorObjectsMap.keySet());
     }
 
     /**
-     * Returns the object specified by its locator.
+     * Returns the object specified by its locator. If more objects have the
+     * same locator, the first added one is returned.
      *
      * @param locatorURI specification of the object
      * @return null if the object is not present
      */
     public LocalAbstractObject getObject(String locatorURI) {
-        for (LocalAbstractObject o : getObjects()) {
-            if (o.getLocatorURI().equals(locatorURI)) {
-                return o;
-            }
+        return locatorObjectsMap.get(locatorURI);
+    }
+
+    /**
+     * Returns the objects specified by their locators, see
+     * {@link #getObject(String)}.
+     *
+     * @param locatorURIs specifications of the objects
+     * @return list of the objects in the order of the locators, containing null
+     * for each object which is not present
+     */
+    public List<LocalAbstractObject> getObjects(Collection<String> locatorURIs) {
+        List<LocalAbstractObject> rtv = new ArrayList<>(locatorURIs.size());
+        for (String locatorURI : locatorURIs) {
+            rtv.add(locatorObjectsMap.get(locatorURI));
         }
-        return null;
+        return rtv;
     }
 
     /**
@@ -347,6 +372,18 @@ public class ObjectMgmt {
         return objectCategoriesMap.get(o);
     }
 
+    /**
+     * Returns the parsed locator of the specified object. The locator of an
+     * object which is not managed is parsed on each call.
+     *
+     * @param o object whose locator is returned
+     * @return the parsed locator of the specified object
+     */
+    public ObjectLocator getObjectLocator(LocalAbstractObject o) {
+        ObjectLocator locator = objectLocatorsMap.get(o);
+        return (locator != null) ? locator : ObjectLocator.parse(o.getLocatorURI());
+    }
+
     /**
      * Returns the number of objects contained in the specified category.
      *
@@ -375,34 +412,98 @@ public class ObjectMgmt {
      * @return map associating the parent sequence with its objects
      */
     public Map<String, List<LocalAbstractObject>> getParentSequenceObjects() {
-        Map<String, List<LocalAbstractObject>> rtv = new HashMap<>();
-        for (LocalAbstractObject o : getObjects()) {
-            String seqId = parseObjectParentSequenceId(o);
-            List<LocalAbstractObject> objects = rtv.get(seqId);
-            if (objects == null) {
-                objects = new ArrayList<>();
-                rtv.put(seqId, objects);
-            }
-            objects.add(o);
+        Map<String, List<LocalAbstractObject>> rtv = new HashMap<>(parentSequenceObjectsMap.size());
+        for (Map.Entry<String, List<LocalAbstractObject>> entry : parentSequenceObjectsMap.entrySet()) {
+            rtv.put(entry.getKey(), new ArrayList<>(entry.getValue()));
         }
         return rtv;
     }
 
+    /**
+     * Returns the objects of the specified parent sequence.
+     *
+     * @param parentSequenceId ID of the parent sequence
+     * @return unmodifiable list of the objects of the parent sequence in the
+     * order of their addition (empty if there is no such object)
+     */
+    public List<LocalAbstractObject> getParentSequenceObjects(String parentSequenceId) {
+        List<LocalAbstractObject> objects = parentSequenceObjectsMap.get(parentSequenceId);
+        return (objects == null) ? Collections.emptyList() : Collections.unmodifiableList(objects);
+    }
+
     /**
      * Returns IDs of parent sequences of all objects.
      *
      * @return IDs of parent sequences of all objects
      */
     public Set<String> getParentSequenceIds() {
-        Set<String> parentSequenceIds = new HashSet<>();
-        for (LocalAbstractObject o : getObjects()) {
-            parentSequenceIds.add(parseObjectParentSequenceId(o));
+        return new HashSet<>(parentSequenceObjectsMap.keySet());
+    }
+
+    /**
+     * Adds the object to the locator and parent-sequence indexes unless it is
+     * already managed.
+     *
+     * @param o object to be indexed
+     * @param locator parsed locator of the object
+     * @param previousCategories categories of the object before it was (re-)added,
+     *                           or null if it is a new object
+     */
+    private void indexObject(LocalAbstractObject o, ObjectLocator locator, List<Category> previousCategories) {
+        if (previousCategories == null) {
+            objectLocatorsMap.put(o, locator);
+            locatorObjectsMap.putIfAbsent(o.getLocatorURI(), o);
+            parentSequenceObjectsMap.computeIfAbsent(locator.sequenceId(), id -> new ArrayList<>()).add(o);
         }
-        return parentSequenceIds;
+    }
+
+    /**
+     * Removes the object together with its associations to categories.
+     *
+     * @param o object to be removed
+     * @return true if the object was present
+     */
+    public boolean removeObject(LocalAbstractObject o) {
+        List<Category> objectCategories = objectCategoriesMap.remove(o);
+        if (objectCategories == null) {
+            return false;
+        }
+
+        // Category to objects association
+        for (Category category : objectCategories) {
+            List<LocalAbstractObject> objects = categoryObjectsMap.get(category);
+            if (objects != null) {
+                objects.removeIf(object -> object == o);
+                if (objects.isEmpty()) {
+                    categoryObjectsMap.remove(category);
+                }
+            }
+        }
+
+        // Parent sequence index
+        String parentSequenceId = objectLocatorsMap.remove(o).sequenceId();
+        List<LocalAbstractObject> parentSequenceObjects = parentSequenceObjectsMap.get(parentSequenceId);
+        parentSequenceObjects.removeIf(object -> object == o);
+        if (parentSequenceObjects.isEmpty()) {
+            parentSequenceObjectsMap.remove(parentSequenceId);
+        }
+
+        // Locator index falls back to the first remaining object having the same locator
+        String locatorURI = o.getLocatorURI();
+        if (locatorObjectsMap.get(locatorURI) == o) {
+            locatorObjectsMap.remove(locatorURI);
+            for (LocalAbstractObject object : parentSequenceObjects) {
+                if (object.getLocatorURI().equals(locatorURI)) {
+                    locatorObjectsMap.put(locatorURI, object);
+                    break;
+                }
+            }
+        }
+        return true;
     }
 
     public void addObject(LocalAbstractObject o, Set<Category> objectCategories) {
-        objectCategoriesMap.put(o, new ArrayList<>(objectCategories));
+        indexObject(o, parseLocator(o), objectCategoriesMap.put(o, new ArrayList<>(objectCategories)));
 
         // Category to objects association
         for (Category category : objectCategories) {
@@ -416,32 +517,38 @@ public class ObjectMgmt {
     }
 
     public Set<Category> addObject(LocalAbstractObject o, String[] ignoredCategoryIds, ObjectMgmt objectMgmtToCategoryParser) {
+        return addObject(o, parseLocator(o), ignoredCategoryIds, objectMgmtToCategoryParser);
+    }
+
+    private ObjectLocator parseLocator(LocalAbstractObject o) {
+        return ObjectLocator.parse(o.getLocatorURI(), locatorPartIds);
+    }
+
+    private Set<Category> addObject(LocalAbstractObject o, ObjectLocator locator, String[] ignoredCategoryIds, ObjectMgmt objectMgmtToCategoryParser) {
 
         // Assigning categories to the loaded objects
         Set<Category> objectCategories = new HashSet<>();
         if (objectMgmtToCategoryParser == null) {
-            String objectLocatorCategoryId = parseObjectCategoryId(o);
+            String objectLocatorCategoryId = locator.categoryId();
+            if (objectLocatorCategoryId == null) {
+                throw new IllegalArgumentException("Locator of the object does not contain a category: " + o.getLocatorURI());
+            }
             if (ignoredCategoryIds != null && Arrays.asList(ignoredCategoryIds).contains(objectLocatorCategoryId)) {
                 return null;
             }
             objectCategories.add(categoryMgmt.getOrCreateObjectCategory(objectLocatorCategoryId));
         } else {
-            String oParentSequenceId = parseObjectParentSequenceId(o);
-            int oOffset = parseObjectOffset(o);
-            int oEndIndex = oOffset + parseObjectLength(o) - 1;
-            for (Map.Entry<LocalAbstractObject, List<Category>> entry : objectMgmtToCategoryParser.objectCategoriesMap.entrySet()) {
-                int qOffset = parseObjectOffset(entry.getKey());
-                int qEndIndex = qOffset + parseObjectLength(entry.getKey()) - 1;
+            for (LocalAbstractObject q : objectMgmtToCategoryParser.getParentSequenceObjects(locator.sequenceId())) {
 
                 // Overlapping check
-                if (parseObjectParentSequenceId(entry.getKey()).equals(oParentSequenceId) && Math.max(qOffset, oOffset) <= Math.min(qEndIndex, oEndIndex)) {
-                    objectCategories.addAll(entry.getValue());
+                if (locator.overlaps(objectMgmtToCategoryParser.objectLocatorsMap.get(q))) {
+                    objectCategories.addAll(objectMgmtToCategoryParser.objectCategoriesMap.get(q));
                 }
             }
         }
 
         // Object to categories association
-        objectCategoriesMap.put(o, new ArrayList<>(objectCategories));
+        indexObject(o, locator, objectCategoriesMap.put(o, new ArrayList<>(objectCategories)));
 
         // Category to objects association
         for (Category category : objectCategories) {
@@ -519,7 +626,13 @@ public class ObjectMgmt {
         long startTime = System.currentTimeMillis();
         System.out.print("Reading objects (" + (new File(objectFile)).getName() + ")...");
 
-        StreamGenericAbstractObjectIterator objIterator = new StreamGenericAbstractObjectIterator<>(objectClass, objectFile);
+        // Binary files of sequences are recognized and only the sequences with matching locators are materialized
+        Iterator<? extends LocalAbstractObject> objIterator;
+        if (SequenceMocapMappedFile.isMappedFile(objectFile)) {
+            objIterator = new SequenceMocapMappedFile(objectFile).iterator(asSequenceClass(objectClass, objectFile), locator -> (objectLocatorRegEx == null || locator.matches(objectLocatorRegEx)) && (locatorIds == null || locatorIds.contains(locator)));
+        } else {
+            objIterator = new StreamGenericAbstractObjectIterator<>(objectClass, objectFile);
+        }
         int objectCount = 0;
         int totalObjectLength = 0;
         while (objIterator.hasNext()) {
@@ -529,11 +642,15 @@ public class ObjectMgmt {
             if ((objectLocatorRegEx == null || o.getLocatorURI().matches(objectLocatorRegEx))
                     && (restrictedParentSeqIds == null || restrictedParentSeqIds.contains(parseObjectParentSequenceId(o)))
                     && (locatorIds == null || locatorIds.contains(o.getLocatorURI()))) {
+                ObjectLocator locator = parseLocator(o);
+                if (parseObjectLength && locator.length() < 0) {
+                    throw new IllegalArgumentException("Locator of the object does not contain a length: " + o.getLocatorURI());
+                }
 
                 // Excludes objects belonging to the ignored classes
-                if (addObject(o, ignoredCategoryIds, objectMgmtToCategoryParser) != null) {
+                if (addObject(o, locator, ignoredCategoryIds, objectMgmtToCategoryParser) != null) {
                     objectCount++;
-                    totalObjectLength += (!parseObjectLength) ? 0 : parseObjectLength(o);
+                    totalObjectLength += (!parseObjectLength) ? 0 : locator.length();
                 }
             }
         }
@@ -542,6 +659,20 @@ public class ObjectMgmt {
         System.out.println("  category count: " + getCategories().size());
     }
 
+    /**
+     * Returns the given class of objects as the class of sequences stored in
+     * the binary file of sequences.
+     *
+     * @throws IllegalArgumentException if the class is not a class of sequences
+     */
+    @SuppressWarnings("unchecked") // checked by isAssignableFrom; the type argument of SequenceMocap is not reified
+    private static Class<? extends SequenceMocap<?>> asSequenceClass(Class<? extends LocalAbstractObject> objectClass, String objectFile) {
+        if (!SequenceMocap.class.isAssignableFrom(objectClass)) {
+            throw new IllegalArgumentException("File " + objectFile + " contains sequences, which cannot be read as objects of class " + objectClass.getName());
+        }
+        return (Class<? extends SequenceMocap<?>>) objectClass;
+    }
+
     public void storeRandomObjects(String fileName, int categoryObjectsCount) throws IOException {
         OutputStream os = new FileOutputStream(new File(fileName));
         Random random = new Random();
@@ -583,6 +714,24 @@ public class ObjectMgmt {
         return executeKNNQueries(queryMgmt, fixedK, null, null, false, true, false);
     }
 
+    /**
+     * Wrapper of {@link #executeKNNQueries(ObjectMgmt, Integer)} measuring the
+     * objects by the given distance function instead of their own distance
+     * function. So the queries can be evaluated with a distance function that
+     * does not depend on any static configuration of the object classes.
+     *
+     * @param queryMgmt        queries which are evaluated
+     * @param fixedK           fixed number of objects which are returned to each query
+     *                         (if it is set to null, this number is adaptively determined for each query based on
+     *                         the number of objects contained in the category to which the query object belongs)
+     * @param distanceFunction distance function measuring the query object (the first argument) and the stored
+     *                         objects (the second argument)
+     * @return map associating the category and its evaluated query operations
+     */
+    public Map<Category, List<RankingSingleQueryOperation>> executeKNNQueries(ObjectMgmt queryMgmt, Integer fixedK, DistanceFunction<?> distanceFunction) {
+        return executeKNNQueries(queryMgmt, fixedK, null, null, false, true, false, 1, distanceFunction);
+    }
+
     /**
      * Wrapper of {@link #executeKNNQueries(ObjectMgmt, Integer, Integer, InstantiableCollection, boolean, boolean, boolean)}.
      *
@@ -603,6 +752,53 @@ public class ObjectMgmt {
         return executeKNNQueries(queryMgmt, fixedK, null, null, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, true);
     }
 
+    /**
+     * Wrapper of {@link #executeKNNQueries(ObjectMgmt, Integer, boolean, boolean)} measuring the objects by the
+     * specified distance function instead of the distance function of the query objects.
+     *
+     * @param queryMgmt                               queries which are evaluated
+     * @param fixedK                                  fixed number of objects which are returned to each query
+     *                                                (if it is set to null, this number is adaptively determined for each
+     *                                                query based on the number of objects contained in the category to which
+     *                                                the query object belongs)
+     * @param includeExactMatchInResult               indicates whether the query object can
+     *                                                be contained in the answer (it is controlled by comparing object
+     *                                                locators)
+     * @param includeMatchFromTheSameSequenceInResult indicates whether an
+     *                                                object coming from the same sequence can be added to the query answer
+     * @param distanceFunction                        distance function measuring the objects (if it is set to null,
+     *                                                the distance function of the query object is used)
+     * @return map associating the category and its evaluated query operations
+     */
+    public Map<Category, List<RankingSingleQueryOperation>> executeKNNQueries(ObjectMgmt queryMgmt, Integer fixedK, boolean includeExactMatchInResult, boolean includeMatchFromTheSameSequenceInResult, DistanceFunction<?> distanceFunction) {
+        return executeKNNQueries(queryMgmt, fixedK, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, 1, distanceFunction);
+    }
+
+    /**
+     * Wrapper of {@link #executeKNNQueries(ObjectMgmt, Integer, boolean, boolean, DistanceFunction)} distributing
+     * the queries among the specified number of threads.
+     *
+     * @param queryMgmt                               queries which are evaluated
+     * @param fixedK                                  fixed number of objects which are returned to each query
+     *                                                (if it is set to null, this number is adaptively determined for each
+     *                                                query based on the number of objects contained in the category to which
+     *                                                the query object belongs)
+     * @param includeExactMatchInResult               indicates whether the query object can
+     *                                                be contained in the answer (it is controlled by comparing object
+     *                                                locators)
+     * @param includeMatchFromTheSameSequenceInResult indicates whether an
+     *                                                object coming from the same sequence can be added to the query answer
+     * @param threadCount                             number of threads evaluating the queries (values lower
+     *                                                than 2 evaluate the queries sequentially in the calling thread);
+     *                                                the distance function must not share mutable state between threads
+     * @param distanceFunction                        distance function measuring the objects (if it is set to null,
+     *                                                the distance function of the query object is used)
+     * @return map associating the category and its evaluated query operations
+     */
+    public Map<Category, List<RankingSingleQueryOperation>> executeKNNQueries(ObjectMgmt queryMgmt, Integer fixedK, boolean includeExactMatchInResult, boolean includeMatchFromTheSameSequenceInResult, int threadCount, DistanceFunction<?> distanceFunction) {
+        return executeKNNQueries(queryMgmt, fixedK, null, null, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, true, threadCount, distanceFunction);
+    }
+
     /**
      * Creates and executes kNN queries based on the specified set of
      * categorized query objects. Each object is supposed to contain its locator
@@ -628,60 +824,103 @@ public class ObjectMgmt {
      * @return map associating the category and its evaluated query operations
      */
     public Map<Category, List<RankingSingleQueryOperation>> executeKNNQueries(ObjectMgmt queryMgmt, Integer fixedK, Integer fixedKReranking, InstantiableCollection rankedSortedCollection, boolean includeExactMatchInResult, boolean includeMatchFromTheSameSequenceInResult, boolean printBasicStats) {
+        return executeKNNQueries(queryMgmt, fixedK, fixedKReranking, rankedSortedCollection, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, printBasicStats, 1);
+    }
+
+    /**
+     * Creates and executes kNN queries based on the specified set of
+     * categorized query objects. Each object is supposed to contain its locator
+     * in the following form: "sequenceId_categoryId_offset_length". Queries
+     * are distributed among the specified number of threads; each query is
+     * still evaluated over the objects in the same order, so the answers are
+     * identical to the single-threaded evaluation.
+     *
+     * @param queryMgmt                               queries which are evaluated
+     * @param fixedK                                  fixed number of objects which are returned to each query
+     *                                                (if it is set to null, this number is adaptively determined for each
+     *                                                query based on the number of objects contained in the category to which
+     *                                                the query object belongs)
+     * @param fixedKReranking                         fixed number of objects which are used to re-rank
+     *                                                the existing query (if it is set to null, this number is adaptively
+     *                                                determined for each query based on the number of objects contained in the
+     *                                                category to which the query object belongs)
+     * @param rankedSortedCollection                  collection which is used for re-ranking the
+     *                                                objects (if it is set to null, no re-ranking is used)
+     * @param includeExactMatchInResult               indicates whether the query object can
+     *                                                be contained in the answer (it is controlled by comparing object
+     *                                                locators)
+     * @param includeMatchFromTheSameSequenceInResult indicates whether an
+     *                                                object coming from the same sequence can be added to the query answer
+     * @param printBasicStats                         indicates whether basic process information should be printed
+     * @param threadCount                             number of threads evaluating the queries (values lower
+     *                                                than 2 evaluate the queries sequentially in the calling thread)
+     * @return map associating the category and its evaluated query operations
+     */
+    public Map<Category, List<RankingSingleQueryOperation>> executeKNNQueries(ObjectMgmt queryMgmt, Integer fixedK, Integer fixedKReranking, InstantiableCollection rankedSortedCollection, boolean includeExactMatchInResult, boolean includeMatchFromTheSameSequenceInResult, boolean printBasicStats, int threadCount) {
+        return executeKNNQueries(queryMgmt, fixedK, fixedKReranking, rankedSortedCollection, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, printBasicStats, threadCount, null);
+    }
+
+    private Map<Category, List<RankingSingleQueryOperation>> executeKNNQueries(ObjectMgmt queryMgmt, Integer fixedK, Integer fixedKReranking, InstantiableCollection rankedSortedCollection, boolean includeExactMatchInResult, boolean includeMatchFromTheSameSequenceInResult, boolean printBasicStats, int threadCount, DistanceFunction<?> distanceFunction) {
         long startTime = System.currentTimeMillis();
         if (printBasicStats) {
-            System.out.println("Querying...");
+            System.out.println("Querying..." + ((threadCount <= 1) ? "" : " (threads=" + threadCount + ")"));
         }
 
         // Keeps associations between the category and its executed query operations
         Map<Category, List<RankingSingleQueryOperation>> categoryOperationsMap = new HashMap<>();
 
-        // Executing queries over individual categories
+        // Query objects in the order of their evaluation
+        List<Category> queryCategories = new ArrayList<>();
+        List<LocalAbstractObject> queryObjects = new ArrayList<>(queryMgmt.getObjectCount());
+        List<Integer> queryKs = new ArrayList<>();
+        List<Integer> queryRerankingKs = new ArrayList<>();
         int fixedKSum = 0;
-        int totalQueryIdx = 0;
         for (Map.Entry<Category, List<LocalAbstractObject>> categoryQueryObjectsEntry : queryMgmt.categoryObjectsMap.entrySet()) {
             Category queryCategory = categoryQueryObjectsEntry.getKey();
-            List<RankingSingleQueryOperation> categoryOperations = new ArrayList<>(getObjectCountInCategory(queryCategory));
+            categoryOperationsMap.put(queryCategory, new ArrayList<>(getObjectCountInCategory(queryCategory)));
 
-            // Executing each query within the category
             final int k = (fixedK != null) ? fixedK : Math.max(1, getObjectCountInCategory(queryCategory) - ((includeExactMatchInResult) ? 0 : 1));
             fixedKSum += k;
             final int rerankingK = (fixedKReranking != null) ? fixedKReranking : Math.max(1, getObjectCountInCategory(queryCategory) - ((includeExactMatchInResult) ? 0 : 1));
             for (LocalAbstractObject q : categoryQueryObjectsEntry.getValue()) {
+                queryCategories.add(queryCategory);
+                queryObjects.add(q);
+                queryKs.add(k);
+                queryRerankingKs.add(rerankingK);
+            }
+        }
 
-                // Operation construction
-                KNNQueryOperation op = new KNNQueryOperation(q, k, false, AnswerType.ORIGINAL_OBJECTS, new RankedSortedCollectionDistHashcode());
-
-                // Querying
-                for (Map.Entry<LocalAbstractObject, List<Category>> objectCategoriesEntry : objectCategoriesMap.entrySet()) {
-                    LocalAbstractObject o = objectCategoriesEntry.getKey();
-                    if ((includeMatchFromTheSameSequenceInResult || !parseObjectParentSequenceId(q).equals(parseObjectParentSequenceId(o)))
-                            && (includeExactMatchInResult || !q.getLocatorURI().equals(o.getLocatorURI()))) {
-                        float dist = q.getDistance(o);
-                        op.addToAnswer(o, dist, null);
-                    }
-                }
-
-                // Re-ranking
-                if (rankedSortedCollection != null) {
-                    KNNQueryOperation rop = new KNNQueryOperation(q, rerankingK, AnswerType.ORIGINAL_OBJECTS);
-                    rop.setAnswerCollection(rankedSortedCollection.instantiate(q));
-                    for (Iterator<AbstractObject> answerIt = op.getAnswerObjects(); answerIt.hasNext(); ) {
-                        rop.addToAnswer((LocalAbstractObject) answerIt.next());
-                    }
-                    op = rop;
+        if (threadCount <= 1) {
+            for (int totalQueryIdx = 0; totalQueryIdx < queryObjects.size(); totalQueryIdx++) {
+                RankingSingleQueryOperation op = executeKNNQuery(queryObjects.get(totalQueryIdx), queryMgmt.getObjectLocator(queryObjects.get(totalQueryIdx)), queryKs.get(totalQueryIdx), queryRerankingKs.get(totalQueryIdx), rankedSortedCollection, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, distanceFunction);
+                categoryOperationsMap.get(queryCategories.get(totalQueryIdx)).add(op);
+                printKNNQueryProgress(totalQueryIdx, queryObjects.size(), startTime, printBasicStats);
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                List<Future<RankingSingleQueryOperation>> futures = new ArrayList<>(queryObjects.size());
+                for (int i = 0; i < queryObjects.size(); i++) {
+                    final LocalAbstractObject q = queryObjects.get(i);
+                    final ObjectLocator qLocator = queryMgmt.getObjectLocator(q);
+                    final int k = queryKs.get(i);
+                    final int rerankingK = queryRerankingKs.get(i);
+                    futures.add(executor.submit(() -> executeKNNQuery(q, qLocator, k, rerankingK, rankedSortedCollection, includeExactMatchInResult, includeMatchFromTheSameSequenceInResult, distanceFunction)));
                 }
-                categoryOperations.add(op);
 
-                // Progress
-                if (queryMgmt.getObjectCount() >= 10 && (totalQueryIdx + 1) % (queryMgmt.getObjectCount() / 10) == 0) {
-                    if (printBasicStats) {
-                        System.out.println("  " + Math.round((float) (totalQueryIdx + 1) / queryMgmt.getObjectCount() * 100) + "%" + " (" + (System.currentTimeMillis() - startTime) + " ms)");
-                    }
+                // Collecting the answers in the order of queries
+                for (int totalQueryIdx = 0; totalQueryIdx < futures.size(); totalQueryIdx++) {
+                    categoryOperationsMap.get(queryCategories.get(totalQueryIdx)).add(futures.get(totalQueryIdx).get());
+                    printKNNQueryProgress(totalQueryIdx, futures.size(), startTime, printBasicStats);
                 }
-                totalQueryIdx++;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("kNN query evaluation was interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("kNN query evaluation failed", ex.getCause());
+            } finally {
+                executor.shutdownNow();
             }
-            categoryOperationsMap.put(queryCategory, categoryOperations);
         }
 
         if (printBasicStats) {
@@ -691,6 +930,66 @@ public class ObjectMgmt {
         return categoryOperationsMap;
     }
 
+    /**
+     * Evaluates a single kNN query over all stored objects.
+     *
+     * @param q                                       query object
+     * @param qLocator                                parsed locator of the query object
+     * @param k                                       number of objects returned to the query
+     * @param rerankingK                              number of objects used to re-rank the answer
+     * @param rankedSortedCollection                  collection which is used for re-ranking the
+     *                                                objects (if it is set to null, no re-ranking is used)
+     * @param includeExactMatchInResult               indicates whether the query object can
+     *                                                be contained in the answer
+     * @param includeMatchFromTheSameSequenceInResult indicates whether an
+     *                                                object coming from the same sequence can be added to the query answer
+     * @param distanceFunction                        distance function measuring the objects (if it is set to null,
+     *                                                the distance function of the query object is used)
+     * @return the evaluated query operation
+     */
+    @SuppressWarnings("unchecked")
+    private RankingSingleQueryOperation executeKNNQuery(LocalAbstractObject q, ObjectLocator qLocator, int k, int rerankingK, InstantiableCollection rankedSortedCollection, boolean includeExactMatchInResult, boolean includeMatchFromTheSameSequenceInResult, DistanceFunction<?> distanceFunction) {
+
+        // Operation construction
+        KNNQueryOperation op = new KNNQueryOperation(q, k, false, AnswerType.ORIGINAL_OBJECTS, new RankedSortedCollectionDistHashcode());
+
+        // Querying
+        for (Map.Entry<LocalAbstractObject, ObjectLocator> objectLocatorEntry : objectLocatorsMap.entrySet()) {
+            LocalAbstractObject o = objectLocatorEntry.getKey();
+            if ((includeMatchFromTheSameSequenceInResult || !qLocator.isSameSequence(objectLocatorEntry.getValue()))
+                    && (includeExactMatchInResult || !q.getLocatorURI().equals(o.getLocatorURI()))) {
+                // Objects farther than the current k-th neighbor are not added, so their distances need not be exact
+                float distThreshold = op.getAnswerThreshold();
+                float dist;
+                if (distanceFunction == null) {
+                    dist = q.getDistance(o, distThreshold);
+                } else if (distanceFunction instanceof ThresholdDistanceFunction) {
+                    dist = ((ThresholdDistanceFunction<Object>) distanceFunction).getDistance(q, o, distThreshold);
+                } else {
+                    dist = ((DistanceFunction<Object>) distanceFunction).getDistance(q, o);
+                }
+                op.addToAnswer(o, dist, null);
+            }
+        }
+
+        // Re-ranking
+        if (rankedSortedCollection != null) {
+            KNNQueryOperation rop = new KNNQueryOperation(q, rerankingK, AnswerType.ORIGINAL_OBJECTS);
+            rop.setAnswerCollection(rankedSortedCollection.instantiate(q));
+            for (Iterator<AbstractObject> answerIt = op.getAnswerObjects(); answerIt.hasNext(); ) {
+                rop.addToAnswer((LocalAbstractObject) answerIt.next());
+            }
+            op = rop;
+        }
+        return op;
+    }
+
+    private static void printKNNQueryProgress(int totalQueryIdx, int queryCount, long startTime, boolean printBasicStats) {
+        if (printBasicStats && queryCount >= 10 && (totalQueryIdx + 1) % (queryCount / 10) == 0) {
+            System.out.println("  " + Math.round((float) (totalQueryIdx + 1) / queryCount * 100) + "%" + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+        }
+    }
+
     /**
      * Evaluates the retrieval accuracy of answered and categorized similarity
      * queries. Each object is supposed to contain its locator in the following
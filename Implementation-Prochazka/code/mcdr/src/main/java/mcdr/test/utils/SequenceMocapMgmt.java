@@ -6,9 +6,12 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import mcdr.sequence.SequenceMocap;
+import mcdr.sequence.SequenceMocapMappedFile;
+import messif.objects.LocalAbstractObject;
 import messif.objects.keys.AbstractObjectKey;
 import messif.objects.util.StreamGenericAbstractObjectIterator;
 import messif.utility.Convertor;
@@ -98,8 +101,10 @@ public class SequenceMocapMgmt {
         long startTime = System.currentTimeMillis();
         System.out.print("  reading objects...");
 
-        // Reads sequence objects
-        StreamGenericAbstractObjectIterator sequenceIterator = new StreamGenericAbstractObjectIterator<>(sequenceClass, sequenceFile);
+        // Reads sequence objects (binary files are recognized and only the sequences with matching locators are materialized)
+        Iterator<? extends LocalAbstractObject> sequenceIterator = (SequenceMocapMappedFile.isMappedFile(sequenceFile))
+                ? new SequenceMocapMappedFile(sequenceFile).iterator(sequenceClass, (sequenceLocatorRegEx == null) ? null : locator -> locator.matches(sequenceLocatorRegEx))
+                : new StreamGenericAbstractObjectIterator<>(sequenceClass, sequenceFile);
         int totalSequenceCount = 0;
         int totalSequenceLength = 0;
         while (sequenceIterator.hasNext()) {
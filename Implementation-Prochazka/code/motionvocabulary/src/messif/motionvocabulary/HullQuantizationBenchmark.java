@@ -0,0 +1,152 @@
+package messif.motionvocabulary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import messif.motionvocabulary.impl.HullVocabulary;
+import messif.objects.LocalAbstractObject;
+import messif.objects.impl.ObjectFloatVectorL2;
+import messif.objects.keys.AbstractObjectKey;
+import messif.statistics.Statistics;
+import messif.utility.ClusteringUtils;
+
+/**
+ * Measures the throughput of {@link HullVocabulary#quantize(List, int, ExecutorService, int)} in objects per second for
+ * several numbers of threads and checks that all of them produce the same motion words. Run without params to get help.
+ */
+public class HullQuantizationBenchmark {
+
+    private static final int BATCH_SIZE = 4096;
+    private static final int ROUNDS = 3;
+
+    private static void help() {
+        System.out.println("Usage: " + HullQuantizationBenchmark.class.getSimpleName() + " synthetic|<object_class> [<hull_dir> <database_file>] [<threads>,...]");
+        System.out.println("     synthetic -- quantizes random 16-dimensional vectors by 200 random hulls of 20 objects");
+        System.out.println("     <object_class> -- class of objects stored in the hull files and the database file");
+        System.out.println("     <hull_dir> -- directory with the *.hull files (see HullVocabulary)");
+        System.out.println("     <database_file> -- objects to quantize");
+        System.out.println("     <threads> -- comma-separated numbers of threads, default is 1,2,4,...,number of processors");
+    }
+
+    /**
+     * Measures the throughput of the quantization by hulls.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (args.length == 0) {
+            help();
+            return;
+        }
+        Statistics.disableGlobally();
+
+        HullVocabulary voc;
+        List<LocalAbstractObject> objects;
+        int argIdx;
+        if (args[0].equals("synthetic")) {
+            File hullDir = Files.createTempDirectory("hulls").toFile();
+            hullDir.deleteOnExit();
+            objects = createSyntheticData(hullDir, 200, 20, 20000, 16);
+            voc = new HullVocabulary(hullDir.getAbsolutePath(), ObjectFloatVectorL2.class);
+            argIdx = 1;
+        } else {
+            Class<? extends LocalAbstractObject> objClass = Class.forName(args[0]).asSubclass(LocalAbstractObject.class);
+            voc = new HullVocabulary(args[1], objClass);
+            objects = new ArrayList<>(ClusteringUtils.readObjects(objClass, args[2]));
+            argIdx = 3;
+        }
+        int[] threadCounts = (args.length > argIdx) ? Arrays.stream(args[argIdx].split(",")).mapToInt(Integer::parseInt).toArray() : getDefaultThreadCounts();
+        System.out.println("Hulls: " + voc.getHulls().length + ", objects: " + objects.size() + ", processors: " + Runtime.getRuntime().availableProcessors());
+
+        // The quantization reports each object to stderr
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            byte[] expectedWords = null;
+            System.out.println("threads\tobjects/s");
+            for (int threads : threadCounts) {
+                for (int round = 0; round < ROUNDS; round++) {
+                    long startTime = System.nanoTime();
+                    byte[] words = quantize(voc, objects, threads);
+                    long time = Math.max(1L, System.nanoTime() - startTime);
+                    if (expectedWords == null) {
+                        expectedWords = words;
+                    } else if (!Arrays.equals(expectedWords, words)) {
+                        throw new IllegalStateException("Motion words quantized by " + threads + " threads differ from the ones quantized by " + threadCounts[0] + " threads");
+                    }
+                    System.out.println(threads + "\t" + String.format("%.1f", objects.size() * 1e9 / time));
+                }
+            }
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static int[] getDefaultThreadCounts() {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < Runtime.getRuntime().availableProcessors(); threads *= 2)
+            threadCounts.add(threads);
+        threadCounts.add(Runtime.getRuntime().availableProcessors());
+        return threadCounts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Quantizes the objects in batches as {@link MotionVocabulary#quantizeByHulls} does and returns the serialized motion words. */
+    private static byte[] quantize(HullVocabulary voc, List<LocalAbstractObject> objects, int threads) throws IOException {
+        ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            for (int from = 0; from < objects.size(); from += BATCH_SIZE) {
+                for (LocalAbstractObject word : voc.quantize(objects.subList(from, Math.min(from + BATCH_SIZE, objects.size())), Integer.MAX_VALUE, executor, threads)) {
+                    if (word != null)
+                        word.write(output);
+                }
+            }
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+        }
+        return output.toByteArray();
+    }
+
+    /** Writes hull files of objects around random centers and returns the objects to quantize drawn around the same centers. */
+    private static List<LocalAbstractObject> createSyntheticData(File hullDir, int hullCount, int hullSize, int objectCount, int dimension) throws IOException {
+        Random random = new Random(0);
+        float[][] centers = new float[hullCount][];
+        for (int h = 0; h < hullCount; h++) {
+            centers[h] = randomVector(random, null, dimension, 1f);
+            File hullFile = new File(hullDir, "cluster-" + h + ".hull");
+            hullFile.deleteOnExit();
+            try (OutputStream output = new FileOutputStream(hullFile)) {
+                for (int i = 0; i < hullSize; i++)
+                    createObject("hull" + h + "_" + i, randomVector(random, centers[h], dimension, 0.3f)).write(output);
+            }
+        }
+        List<LocalAbstractObject> objects = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++)
+            objects.add(createObject((i / 100) + "_" + (i % 100), randomVector(random, centers[random.nextInt(hullCount)], dimension, 0.25f)));
+        return objects;
+    }
+
+    private static float[] randomVector(Random random, float[] center, int dimension, float scale) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++)
+            vector[i] = ((center == null) ? 0f : center[i]) + (random.nextFloat() * 2f - 1f) * scale;
+        return vector;
+    }
+
+    private static LocalAbstractObject createObject(String locator, float[] vector) {
+        LocalAbstractObject o = new ObjectFloatVectorL2(vector);
+        o.setObjectKey(new AbstractObjectKey(locator));
+        return o;
+    }
+}
@@ -19,6 +19,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -46,6 +48,7 @@ import messif.pivotselection.RandomPivotChooser;
 import messif.statistics.Statistics;
 import messif.utility.ClusteringUtils;
 import messif.utility.DistanceMatrix;
+import messif.utility.IndexedVoronoiPartitioning;
 import messif.utility.MotionIdentification;
 import messif.utility.NearestNeighborConsistency;
 import messif.utility.RandIndex;
@@ -70,6 +73,8 @@ public class MotionVocabulary {
     private static String DB_SEGMENTS80_SHIFT16 = "hdm05-annotations_specific-segment80_shift16-1fold_130classes.data";
     
     private static String OBJECT_CLASS_NEURAL_NET = "messif.objects.impl.ObjectFloatVectorNeuralNetworkL2";
+    /** Number of objects read from the dataset and quantized by hulls at once */
+    private static final int HULL_QUANTIZATION_BATCH_SIZE = 4096;
 
     private static Options opts = createOptions();
     
@@ -118,6 +123,10 @@ public class MotionVocabulary {
                                 + "RaaaKbb for ratio of 'aaa' on distances between 1NN and xNN to use to detect a close cell (value must be in [0.0-1.0]), max assigned words is 'bb'; "
                                 + "DaaaKbb for exact difference of 'aaa' on distances between 1NN and xNN to use to detect a close cell, max assigned words is 'bb'.")
                         .hasArg().argName("SOFTRATIO").type(String.class).build());
+        opts.addOption(Option.builder().longOpt("pivot-table").desc("quantize by the Voronoi partitioning (option -v) using a table of distances between the pivots and NUMBER base pivots "
+                                + "(default is " + IndexedVoronoiPartitioning.DEFAULT_BASE_PIVOT_COUNT + ") to skip distances to the pivots that cannot be the closest ones; "
+                                + "the distance of the object class must be a metric (or ObjectFloatVectorCosine). The motion words are the same as without this option.")
+                        .optionalArg(true).hasArg().argName("NUMBER").type(Number.class).build());
         
         // Parallelism (not supported by all functions!)
         opts.addOption(Option.builder().longOpt("threads").desc("Number of threads to be used in computations.")
@@ -186,9 +195,15 @@ public class MotionVocabulary {
                         System.out.println(new Date().toString() + ": Voronoi executor threads: " + threads);
                         Statistics.disableGlobally();
                     }
+                    Number basePivotCount = null;
+                    if (cmd.hasOption("pivot-table")) {
+                        basePivotCount = (Number)cmd.getParsedOptionValue("pivot-table");
+                        if (basePivotCount == null)
+                            basePivotCount = IndexedVoronoiPartitioning.DEFAULT_BASE_PIVOT_COUNT;
+                    }
                     for (String pivotFile : cmd.getOptionValues('v'))
                         try { createVocabularyAsFeature(dataSet, pivotFile, (Number)cmd.getParsedOptionValue("k-closest"), (String)cmd.getParsedOptionValue("soft-assign"), 
-                                                cmd.hasOption("tosequence"), cmd.getOptionValue("output")); }
+                                                cmd.hasOption("tosequence"), cmd.getOptionValue("output"), basePivotCount); }
                         catch (IOException ex) {
                             System.err.println("# ERROR: Failed to create vocabulary for pivots " + pivotFile);
                             System.err.println(ex.getMessage());
@@ -217,10 +232,10 @@ public class MotionVocabulary {
                     }
                 }
                 if (cmd.getOptionValues("hull") != null) {
+                    int hullThreads = 1;
                     if (cmd.hasOption("threads")) {
-                        int threads = ((Number)cmd.getParsedOptionValue("threads")).intValue();
-                        HullVocabulary.PARALLEL_COMPUTING = threads;
-                        System.out.println(new Date().toString() + ": HullVocabulary threads: " + threads);
+                        hullThreads = ((Number)cmd.getParsedOptionValue("threads")).intValue();
+                        System.out.println(new Date().toString() + ": HullVocabulary threads: " + hullThreads);
                         Statistics.disableGlobally();
                     }
                     for (String path : cmd.getOptionValues("hull")) {
@@ -231,7 +246,7 @@ public class MotionVocabulary {
                                 voc = new HullVocabulary(path, objClass);
                             else
                                 voc = new HullCenterVocabulary(pair[0], pair[1], objClass);
-                            quantizeByHulls(dataSet, voc, (Number)cmd.getParsedOptionValue("k-closest"), cmd.hasOption("tosequence"), cmd.getOptionValue("output")); 
+                            quantizeByHulls(dataSet, voc, (Number)cmd.getParsedOptionValue("k-closest"), cmd.hasOption("tosequence"), cmd.getOptionValue("output"), hullThreads); 
                         } catch (IOException ex) {
                             System.err.println("# ERROR: Failed to create hull vocabulary from hull files on path " + path);
                             System.err.println(ex.getMessage());
@@ -384,9 +399,10 @@ public class MotionVocabulary {
      * @param kClosestCells number of words to report to each object (k-nearest cells (aka pivots here))
      * @param softAssignment soft assignment settings (takes precedence over kClosestCells), format DxxKyy -- D distance threshold xx on difference between distances to the pivots; K max. number of yy nearest pivots/cells to get.
      * @param toSequences if false, {@link ObjectMotionWord} is produced; if true, {@link SequenceMotionWords} is produced (depends on the order of individual objects in the operation!)
+     * @param basePivotCount number of base pivots of {@link IndexedVoronoiPartitioning} used to find the closest pivots; if null, distances to all the pivots are computed
      */
     public static void createVocabularyAsFeature(String databaseFile, String pivotFile, Number kClosestCells, String softAssignment,
-                                                boolean toSequences, String outputFile) throws IOException {
+                                                boolean toSequences, String outputFile, Number basePivotCount) throws IOException {
         // Fake pivot chooser (its implementation is not used -- it only encapsulates the pivos passed in the parameter)
         RandomPivotChooser chooser = new RandomPivotChooser();
         // Read pivots
@@ -398,6 +414,13 @@ public class MotionVocabulary {
         if (softAssignment == null)
             softAssignment = "D0K" + ((kClosestCells == null) ? 1 : kClosestCells.intValue());
         
+        IndexedVoronoiPartitioning pivotTable = null;
+        if (basePivotCount != null) {
+            pivotTable = new IndexedVoronoiPartitioning(chooser, basePivotCount.intValue());
+            System.out.println(new Date().toString() + ": Pivot table of " + pivotTable.getPivotCount() + " pivots and " + pivotTable.getBasePivotCount() + " base pivots created");
+        }
+        long startTime = System.currentTimeMillis();
+        
         // Output to print transformed objects
         System.out.println("Writing output to " + ((outputFile == null) ? "stdout" : outputFile));
         BufferedOutputStream output = new BufferedOutputStream((outputFile == null) ? System.out : new FileOutputStream(outputFile, true));
@@ -409,7 +432,7 @@ public class MotionVocabulary {
         while (iter.hasNext()) {
             QuantizeOperation oper = new QuantizeOperation(iter, 1);
             setOperationForSoftQuantization(softAssignment, oper);
-            ObjectFeatureQuantized objQuantized = evaluateQuantizeOperation(oper, chooser);
+            ObjectFeatureQuantized objQuantized = evaluateQuantizeOperation(oper, chooser, pivotTable);
             cnt++;
             
 //            LocalAbstractObject obj = oper.getQueryObject(0);
@@ -441,6 +464,10 @@ public class MotionVocabulary {
         if (lastMotion != null)
             printSequence(lastMotion, words, output);
         output.close();
+        System.out.println(new Date().toString() + ": Objects quantized: " + cnt + " in " + (System.currentTimeMillis() - startTime) + " ms");
+        if (pivotTable != null)
+            System.out.println(String.format("Distance computations per object: %.1f of %d pivots (%.1f %% saved)", pivotTable.getAverageDistanceComputations(), 
+                                             pivotTable.getPivotCount(), 100.0 * (1.0 - pivotTable.getAverageDistanceComputations() / pivotTable.getPivotCount())));
     }
     
     /** Converts the object to {@link ObjectFeatureQuantized}.
@@ -561,6 +588,18 @@ public class MotionVocabulary {
      */
     public static void quantizeByHulls(String databaseFile, HullVocabulary voc, Number kClosestCells, boolean toSequences, String outputFile) 
                             throws IOException {
+        quantizeByHulls(databaseFile, voc, kClosestCells, toSequences, outputFile, 1);
+    }
+
+    /** Converts the object to {@link ObjectFeatureQuantized} by the given number of threads.
+     * @param databaseFile data object to quantize
+     * @param voc hulls to quantize the objects by
+     * @param kClosestCells number of words to report to each object (k-nearest cells (aka pivots here)), default is {@link Integer#MAX_VALUE}.
+     * @param toSequences if false, {@link ObjectMotionWord} is produced; if true, {@link SequenceMotionWords} is produced (depends on the order of individual objects in the operation!)
+     * @param threads number of threads quantizing each batch of objects; if it is lower than 2, the objects are quantized in the calling thread
+     */
+    public static void quantizeByHulls(String databaseFile, HullVocabulary voc, Number kClosestCells, boolean toSequences, String outputFile, int threads) 
+                            throws IOException {
         
         StreamGenericAbstractObjectIterator<LocalAbstractObject> dbIter = ClusteringUtils.openDB(objClass, databaseFile);
         
@@ -570,25 +609,37 @@ public class MotionVocabulary {
         BufferedOutputStream output = new BufferedOutputStream((outputFile == null) ? System.out : new FileOutputStream(outputFile, true));
         String lastMotion = null;
         List<ObjectMotionWord> words = new ArrayList<>();
-        while (dbIter.hasNext()) {
-            final LocalAbstractObject o = dbIter.next();
-            ObjectMotionWord word = voc.quantize(o, maxWords);
-            if (word == null)
-                continue;
-
-            if (toSequences) {  // pack to sequences
-                String currMotion = MotionIdentification.stripSegmentFromLocator(word.getLocatorURI());
-                if (lastMotion != null && !lastMotion.equals(currMotion)) {
-                    // New sequence, so send it to output!
-                    printSequence(lastMotion, words, output);
-                    // Start new sequence
-                    words.clear();
+        // Batches of objects are quantized by a fixed number of threads
+        ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
+        List<LocalAbstractObject> batch = new ArrayList<>(HULL_QUANTIZATION_BATCH_SIZE);
+        try {
+            while (dbIter.hasNext()) {
+                batch.clear();
+                while (dbIter.hasNext() && batch.size() < HULL_QUANTIZATION_BATCH_SIZE)
+                    batch.add(dbIter.next());
+
+                for (ObjectMotionWord word : voc.quantize(batch, maxWords, executor, threads)) {
+                    if (word == null)
+                        continue;
+
+                    if (toSequences) {  // pack to sequences
+                        String currMotion = MotionIdentification.stripSegmentFromLocator(word.getLocatorURI());
+                        if (lastMotion != null && !lastMotion.equals(currMotion)) {
+                            // New sequence, so send it to output!
+                            printSequence(lastMotion, words, output);
+                            // Start new sequence
+                            words.clear();
+                        }
+                        words.add(word);
+                        lastMotion = currMotion;
+                    } else {    // output individual words
+                        word.write(output);
+                    }
                 }
-                words.add(word);
-                lastMotion = currMotion;
-            } else {    // output individual words
-                word.write(output);
             }
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
         }
         if (lastMotion != null)
             printSequence(lastMotion, words, output);
@@ -828,14 +879,16 @@ public class MotionVocabulary {
         return res;
     }
 
-    /** Filter the identified (closest Voronoi cells) by the distance difference from the closest Voronoi cell */
-    private static ObjectFeatureQuantized evaluateQuantizeOperation(QuantizeOperation oper, RandomPivotChooser pivots) {
+    /** Filter the identified (closest Voronoi cells) by the distance difference from the closest Voronoi cell.
+     * If pivotTable is not null, it is used to skip distances to pivots that cannot be among the closest ones. */
+    private static ObjectFeatureQuantized evaluateQuantizeOperation(QuantizeOperation oper, RandomPivotChooser pivots, IndexedVoronoiPartitioning pivotTable) {
         Double distTh = oper.getParameter(SoftQuantizeOperationNavigationProcessor.PARAM_DIST, Double.class);
         float distThreshold = (distTh == null) ? 0f : distTh.floatValue();
         int maxK = oper.getParameter(SoftQuantizeOperationNavigationProcessor.PARAM_MAX, Integer.class, 0) + 1;
         AbstractObjectKey key = oper.getQueryObject(0).getObjectKey();
         
-        final VoronoiPartitioning.DistanceAndPivotIndexPair[] pairs = VoronoiPartitioning.orderPivotsByDistance(pivots, oper.getQueryObject(0));
+        final VoronoiPartitioning.DistanceAndPivotIndexPair[] pairs = (pivotTable == null) ? VoronoiPartitioning.orderPivotsByDistance(pivots, oper.getQueryObject(0))
+                                                                                          : pivotTable.orderClosestPivots(oper.getQueryObject(0), distThreshold, maxK);
         float distClosest = pairs[0].distance;
         long[] partIds = new long[maxK];
         int curPart = -1;
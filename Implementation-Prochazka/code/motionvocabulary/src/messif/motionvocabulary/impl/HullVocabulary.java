@@ -12,7 +12,9 @@ import java.io.FilenameFilter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import mcdr.objects.impl.ObjectMotionWord;
@@ -26,10 +28,9 @@ import messif.utility.ClusteringUtils;
  * @author Vlastislav Dohnal, Masaryk University, Brno, Czech Republic, dohnal@fi.muni.cz
  */
 public class HullVocabulary {
-    /** Set the number of threads to used to decide presence in hulls. May not be used by all functions here, so check their respective docs. */
-    public static int PARALLEL_COMPUTING = 1;
-
     protected HullRepresentation[] hulls;
+    /** Buffer of ranks of the covering hulls reused by the quantizations running in the same thread */
+    private final ThreadLocal<CoverRankMW[]> ranksBuffer = ThreadLocal.withInitial(() -> new CoverRankMW[hulls.length]);
 
     /** Create a list of hulls
      * 
@@ -108,75 +109,92 @@ public class HullVocabulary {
      * @return motion word or null if no hull covers the passed object
      */
     public ObjectMotionWord quantize(LocalAbstractObject o, int maxWords) {
-        final CoverRankMW[] ranks = new CoverRankMW[hulls.length];
-        final AtomicInteger mws = new AtomicInteger();
-        if (PARALLEL_COMPUTING <= 1) {
-            for (int i = 0; i < hulls.length; i++) {
-                HullRepresentation h = hulls[i];
-                if (h == null)
-                    continue;
-                CoverRank rank = h.getExternalCoverRank(o);
-                if (rank.isCovered())
-                    ranks[mws.getAndIncrement()] = new CoverRankMW(i, rank);
-            }
+        return toMotionWord(o, getSortedCoverRanks(o), maxWords);
+    }
+
+    /** Convert the passed objects to motion words.
+     * The objects are split into {@code parallelism} batches of consecutive objects that are quantized by the passed executor.
+     * Each object gets the same motion word as if it was passed to {@link #quantize(LocalAbstractObject, int)}.
+     * @param objects objects to quantize
+     * @param maxWords maximum number of hulls to identify in quantization
+     * @param executor executor quantizing the batches of objects; if null, the objects are quantized in the calling thread
+     * @param parallelism number of batches, usually the number of threads of the executor; if it is lower than 2, the objects are quantized in the calling thread
+     * @return list of motion words in the order of the passed objects; it contains null for each object that no hull covers
+     */
+    public List<ObjectMotionWord> quantize(List<? extends LocalAbstractObject> objects, int maxWords, ExecutorService executor, int parallelism) {
+        List<CoverRankMW[]> ranks;
+        if (executor == null || parallelism <= 1 || objects.size() <= 1) {
+            ranks = getSortedCoverRanks(objects);
         } else {
-            List<Thread> computingThreads = new ArrayList<>();
-            for (int from = 0; from < hulls.length; from += PARALLEL_COMPUTING) {
-                int to = from + PARALLEL_COMPUTING;
-                if (to > hulls.length)
-                    to = hulls.length;
-                Thread t = new Thread(new HullComputingRunnable(ranks, mws, from, to, o));
-                t.start();
-                computingThreads.add(t);
-                //computingThreads.add(threadPool.submit());
+            int batchSize = (objects.size() + parallelism - 1) / parallelism;
+            List<Future<List<CoverRankMW[]>>> futures = new ArrayList<>(parallelism);
+            for (int from = 0; from < objects.size(); from += batchSize) {
+                final List<? extends LocalAbstractObject> batch = objects.subList(from, Math.min(from + batchSize, objects.size()));
+                futures.add(executor.submit(() -> getSortedCoverRanks(batch)));
             }
-            // Wait for completion
+            // Collect the ranks in the order of objects
+            ranks = new ArrayList<>(objects.size());
             try {
-                for (Thread t : computingThreads)
-                    t.join();
+                for (Future<List<CoverRankMW[]>> future : futures)
+                    ranks.addAll(future.get());
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                for (Future<List<CoverRankMW[]>> future : futures)
+                    future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Quantization by hulls was interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException)e.getCause();
+                throw new IllegalStateException("Quantization by hulls failed", e.getCause());
             }
         }
-        if (mws.get() == 0) {
+        List<ObjectMotionWord> words = new ArrayList<>(objects.size());
+        for (int i = 0; i < objects.size(); i++)
+            words.add(toMotionWord(objects.get(i), ranks.get(i), maxWords));
+        return words;
+    }
+
+    private List<CoverRankMW[]> getSortedCoverRanks(List<? extends LocalAbstractObject> objects) {
+        List<CoverRankMW[]> ranks = new ArrayList<>(objects.size());
+        for (LocalAbstractObject o : objects)
+            ranks.add(getSortedCoverRanks(o));
+        return ranks;
+    }
+
+    /** Returns the ranks of hulls covering the passed object sorted by {@link CoverRank#compareTo(CoverRank)}.
+     * The hulls are evaluated in the order of their indexes, so the ties are broken by the indexes.
+     */
+    private CoverRankMW[] getSortedCoverRanks(LocalAbstractObject o) {
+        CoverRankMW[] ranks = ranksBuffer.get();
+        if (ranks.length < hulls.length) {
+            ranks = new CoverRankMW[hulls.length];
+            ranksBuffer.set(ranks);
+        }
+        int mws = 0;
+        for (int i = 0; i < hulls.length; i++) {
+            HullRepresentation h = hulls[i];
+            if (h == null)
+                continue;
+            CoverRank rank = h.getExternalCoverRank(o);
+            if (rank.isCovered())
+                ranks[mws++] = new CoverRankMW(i, rank);
+        }
+        CoverRankMW[] ranksSorted = Arrays.copyOf(ranks, mws);
+        Arrays.fill(ranks, 0, mws, null);
+        Arrays.sort(ranksSorted);
+        return ranksSorted;
+    }
+
+    private ObjectMotionWord toMotionWord(LocalAbstractObject o, CoverRankMW[] ranksSorted, int maxWords) {
+        if (ranksSorted.length == 0) {
             System.err.println("# ERROR: Failed to quantize the object " + o.getLocatorURI() + ". No hull covers it!!!");
             return null;
         }
-        System.err.println("# INFO: " + o.getLocatorURI() + " mws=" + mws.get());
-        CoverRankMW[] ranksSorted = Arrays.copyOf(ranks, mws.get());
-        Arrays.sort(ranksSorted);
-        long[] ids = new long[Math.min(maxWords, mws.get())];
+        System.err.println("# INFO: " + o.getLocatorURI() + " mws=" + ranksSorted.length);
+        long[] ids = new long[Math.min(maxWords, ranksSorted.length)];
         for (int i = 0; i < ids.length; i++) {
             ids[i] = ranksSorted[i].mwID;
         }
         return new ObjectMotionWord(o.getLocatorURI(), ids);
     }
-
-    private class HullComputingRunnable implements Runnable {
-        final CoverRankMW[] ranks;
-        final AtomicInteger mws;
-        final private int from;
-        final private int to;
-        final private LocalAbstractObject o;
-
-        public HullComputingRunnable(CoverRankMW[] ranks, AtomicInteger mws, int from, int to, LocalAbstractObject o) {
-            this.ranks = ranks;
-            this.mws = mws;
-            this.from = from;
-            this.to = to;
-            this.o = o;
-        }
-
-        @Override
-        public void run() {
-            for (int i = from; i < to; i++) {
-                HullRepresentation h = hulls[i];
-                if (h == null)
-                    continue;
-                CoverRank rank = h.getExternalCoverRank(o);
-                if (rank.isCovered())
-                    ranks[mws.getAndIncrement()] = new CoverRankMW(i, rank);
-            }
-        }
-    }
 }
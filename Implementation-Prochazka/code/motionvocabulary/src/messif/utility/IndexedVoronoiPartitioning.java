@@ -0,0 +1,210 @@
+package messif.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import messif.objects.LocalAbstractObject;
+import messif.objects.impl.ObjectFloatVectorCosine;
+import messif.pivotselection.AbstractPivotChooser;
+
+/**
+ * Finds the closest pivots (Voronoi cells) of an object without computing the
+ * distances to all the pivots. Distances between all the pivots and a few
+ * base pivots are precomputed into a table. The distances of the object to
+ * the base pivots then give a lower bound on its distance to every other
+ * pivot by the triangle inequality, so the pivots are visited in the order of
+ * their lower bounds and the search stops when no remaining pivot can be among
+ * the closest ones.
+ *
+ * The distance function must be a metric. The only exception is
+ * {@link ObjectFloatVectorCosine}, whose distance {@code 1 - |cos|} does not
+ * satisfy the triangle inequality, but its square root does, so the bounds
+ * are computed on the square roots of its distances.
+ */
+public class IndexedVoronoiPartitioning {
+    /** Default number of base pivots */
+    public static final int DEFAULT_BASE_PIVOT_COUNT = 64;
+    /**
+     * Slack of the lower bounds compensating rounding errors of the float
+     * distances, relative to the magnitude of the distances the bounds are
+     * computed from (a few ulps of a float)
+     */
+    private static final double BOUND_RELATIVE_TOLERANCE = 1e-6;
+
+    /** All the pivots in the order of their indexes */
+    private final LocalAbstractObject[] pivots;
+    /** Indexes of the base pivots */
+    private final int[] basePivots;
+    /** Distances between pivots and base pivots, indexed by the pivot and the order of the base pivot */
+    private final double[][] baseDistances;
+    /** Whether the bounds are computed on the square roots of the distances */
+    private final boolean sqrtDistances;
+    /** Maximum of the {@link #baseDistances} */
+    private final double maxBaseDistance;
+
+    /** Number of processed objects */
+    private long objectCount = 0;
+    /** Number of distances computed between the processed objects and the pivots */
+    private long distanceComputations = 0;
+
+    /**
+     * Creates the table of distances between the pivots and the base pivots.
+     * The base pivots are selected by the farthest-first traversal starting
+     * with the first pivot.
+     *
+     * @param chooser encapsulation of the pivots
+     * @param basePivotCount number of base pivots
+     */
+    public IndexedVoronoiPartitioning(AbstractPivotChooser chooser, int basePivotCount) {
+        int pivotCount = chooser.size();
+        if (pivotCount == 0)
+            throw new IllegalArgumentException("No pivot to index");
+        this.pivots = new LocalAbstractObject[pivotCount];
+        for (int i = 0; i < pivotCount; i++)
+            pivots[i] = chooser.getPivot(i);
+        this.sqrtDistances = pivots[0] instanceof ObjectFloatVectorCosine;
+
+        // Farthest-first traversal: every next base pivot is the farthest one from the already selected base pivots
+        int[] bases = new int[Math.max(1, Math.min(basePivotCount, pivotCount))];
+        double[][] distances = new double[pivotCount][bases.length];
+        double[] distToBases = new double[pivotCount];
+        Arrays.fill(distToBases, Double.POSITIVE_INFINITY);
+        int baseCount = 0;
+        int nextBase = 0;
+        double maxDistance = 0.0;
+        while (baseCount < bases.length) {
+            bases[baseCount] = nextBase;
+            nextBase = -1;
+            for (int p = 0; p < pivotCount; p++) {
+                double dist = toBoundSpace(pivots[p].getDistance(pivots[bases[baseCount]]));
+                distances[p][baseCount] = dist;
+                distToBases[p] = Math.min(distToBases[p], dist);
+                if (distToBases[p] > 0.0 && (nextBase == -1 || distToBases[p] > distToBases[nextBase]))
+                    nextBase = p;
+                maxDistance = Math.max(maxDistance, dist);
+            }
+            baseCount++;
+            // All the remaining pivots are duplicates of the base pivots
+            if (nextBase == -1)
+                break;
+        }
+        this.basePivots = Arrays.copyOf(bases, baseCount);
+        this.baseDistances = distances;
+        this.maxBaseDistance = maxDistance;
+    }
+
+    /**
+     * Returns the pivots that can be among the closest pivots of the object
+     * together with their distances, ordered by the distance (and the pivot
+     * index). The closest pivots are the pivots whose distance from the object
+     * does not exceed the distance to the closest pivot by more than
+     * {@code distThreshold}, limited to {@code maxK} pivots; they form the
+     * prefix of the returned array. So the result is the same as selected from
+     * {@link VoronoiPartitioning#orderPivotsByDistance}.
+     *
+     * @param obj object whose closest pivots are searched
+     * @param distThreshold maximum difference of the distance from the distance to the closest pivot
+     * @param maxK maximum number of closest pivots
+     * @return pivots with computed distances ordered by the distance
+     */
+    public VoronoiPartitioning.DistanceAndPivotIndexPair[] orderClosestPivots(LocalAbstractObject obj, float distThreshold, int maxK) {
+        List<VoronoiPartitioning.DistanceAndPivotIndexPair> candidates = new ArrayList<>();
+        // The maxK closest pivots found so far (the farthest of them on the top)
+        PriorityQueue<VoronoiPartitioning.DistanceAndPivotIndexPair> closest = new PriorityQueue<>(maxK + 1, Collections.reverseOrder());
+        float closestDist = Float.POSITIVE_INFINITY;
+        boolean[] computed = new boolean[pivots.length];
+
+        // Distances to base pivots
+        double[] objBaseDistances = new double[basePivots.length];
+        double maxObjBaseDistance = 0.0;
+        for (int b = 0; b < basePivots.length; b++) {
+            VoronoiPartitioning.DistanceAndPivotIndexPair pair = computeDistance(basePivots[b], obj);
+            candidates.add(pair);
+            addClosest(closest, pair, maxK);
+            closestDist = Math.min(closestDist, pair.distance);
+            objBaseDistances[b] = toBoundSpace(pair.distance);
+            maxObjBaseDistance = Math.max(maxObjBaseDistance, objBaseDistances[b]);
+            computed[basePivots[b]] = true;
+        }
+
+        // Lower bounds of the remaining pivots sorted ascending (the bound is in the upper bits, the pivot index in the lower bits)
+        double[] lowerBounds = new double[pivots.length];
+        long[] order = new long[pivots.length - basePivots.length];
+        int orderSize = 0;
+        for (int p = 0; p < pivots.length; p++) {
+            if (computed[p])
+                continue;
+            double bound = 0.0;
+            for (int b = 0; b < basePivots.length; b++)
+                bound = Math.max(bound, Math.abs(baseDistances[p][b] - objBaseDistances[b]));
+            lowerBounds[p] = bound;
+            order[orderSize++] = ((long)Float.floatToIntBits((float)bound) << 32) | p;
+        }
+        Arrays.sort(order, 0, orderSize);
+
+        // Pivots whose lower bounds exceed the distance to the farthest closest pivot cannot be among the closest pivots;
+        // the rounding errors of the bounds grow with the distances they are computed from, so the slack does as well
+        double boundScale = Math.max(maxBaseDistance, maxObjBaseDistance);
+        for (int i = 0; i < orderSize; i++) {
+            int p = (int)order[i];
+            float radius = closestDist + distThreshold;
+            if (closest.size() == maxK)
+                radius = Math.min(radius, closest.peek().distance);
+            double radiusBound = toBoundSpace(radius);
+            if (lowerBounds[p] > radiusBound + BOUND_RELATIVE_TOLERANCE * Math.max(boundScale, radiusBound) + Math.ulp((float)radiusBound))
+                break;
+            VoronoiPartitioning.DistanceAndPivotIndexPair pair = computeDistance(p, obj);
+            candidates.add(pair);
+            addClosest(closest, pair, maxK);
+            closestDist = Math.min(closestDist, pair.distance);
+        }
+
+        synchronized (this) {
+            objectCount++;
+            distanceComputations += candidates.size();
+        }
+        VoronoiPartitioning.DistanceAndPivotIndexPair[] pairs = candidates.toArray(new VoronoiPartitioning.DistanceAndPivotIndexPair[candidates.size()]);
+        Arrays.sort(pairs);
+        return pairs;
+    }
+
+    private VoronoiPartitioning.DistanceAndPivotIndexPair computeDistance(int pivotIndex, LocalAbstractObject obj) {
+        return new VoronoiPartitioning.DistanceAndPivotIndexPair(pivots[pivotIndex].getDistance(obj), pivotIndex);
+    }
+
+    private static void addClosest(PriorityQueue<VoronoiPartitioning.DistanceAndPivotIndexPair> closest, VoronoiPartitioning.DistanceAndPivotIndexPair pair, int maxK) {
+        closest.add(pair);
+        if (closest.size() > maxK)
+            closest.poll();
+    }
+
+    private double toBoundSpace(float distance) {
+        return sqrtDistances ? Math.sqrt(Math.max(0.0, distance)) : distance;
+    }
+
+    /**
+     * Returns the number of pivots.
+     * @return the number of pivots
+     */
+    public int getPivotCount() {
+        return pivots.length;
+    }
+
+    /**
+     * Returns the number of base pivots.
+     * @return the number of base pivots
+     */
+    public int getBasePivotCount() {
+        return basePivots.length;
+    }
+
+    /**
+     * Returns the average number of distances computed per object by {@link #orderClosestPivots}.
+     * @return the average number of distances computed per object
+     */
+    public synchronized double getAverageDistanceComputations() {
+        return (objectCount == 0) ? 0.0 : (double)distanceComputations / objectCount;
+    }
+}